@@ -0,0 +1,343 @@
+package ch.verver.poly_y;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ch.verver.poly_y.ai.TreeBot;
+
+/**
+ * Two-tier cache of AI search results, keyed by a canonical position hash (see
+ * {@link #positionKey(GameState)}) and the search budget (the number of iterations).
+ *
+ * <p>The first tier is a small in-memory LRU map. The second tier is an append-only file of
+ * fixed-size records, which survives app restarts. The file is indexed by an in-memory map from
+ * position key to record offset, which is rebuilt by scanning the file when it is first opened.
+ * When the file grows too large, it is compacted by rewriting only the most recent records.
+ *
+ * <p>In addition to results, the cache retains the search trees of a few recent searches, so
+ * that a search with a larger budget can continue from a smaller one instead of starting over.
+ *
+ * <p>This class is thread-safe, but the disk tier does blocking I/O, so it should not be used
+ * from the main thread.
+ */
+final class AiCache {
+    static final int MAX_MEMORY_ENTRIES = 256;
+    private static final int MAX_SEED_TREES = 2;
+
+    // Search trees use around 1.5 KB per iteration, so we don't keep large trees around.
+    private static final long MAX_SEED_TREE_ITERATIONS = 4096;
+
+    // Disk format: a header consisting of the magic number, format version and engine version
+    // (see TreeBot.ENGINE_VERSION), followed by records of: long key, long iterations, int move,
+    // float winProbability. A file with a different header is discarded.
+    static final int DISK_MAGIC = 0x50594143;  // "PYAC"
+    static final int DISK_VERSION = 2;
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_SIZE = 24;
+    static final int MAX_DISK_RECORDS = 8192;
+
+    /** Result of a single search. */
+    static final class Result {
+        /** The selected move as a CodeCup id. */
+        final int ccMove;
+
+        final float winProbability;
+
+        /** The number of iterations used to calculate this result. */
+        final long iterations;
+
+        Result(int ccMove, float winProbability, long iterations) {
+            this.ccMove = ccMove;
+            this.winProbability = winProbability;
+            this.iterations = iterations;
+        }
+    }
+
+    /** A search tree that has been expanded for the given number of iterations. */
+    static final class Seed {
+        final TreeBot.Tree tree;
+        final long iterations;
+
+        Seed(TreeBot.Tree tree, long iterations) {
+            this.tree = tree;
+            this.iterations = iterations;
+        }
+    }
+
+    /** Immutable snapshot of the cache counters. */
+    public static final class Stats {
+        public final long memoryHits;
+        public final long diskHits;
+        public final long misses;
+        public final long seeded;
+        public final long memoryEvictions;
+        public final long diskEvictions;
+
+        Stats(long memoryHits, long diskHits, long misses, long seeded, long memoryEvictions, long diskEvictions) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.seeded = seeded;
+            this.memoryEvictions = memoryEvictions;
+            this.diskEvictions = diskEvictions;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{memoryHits=" + memoryHits + ", diskHits=" + diskHits + ", misses=" + misses +
+                    ", seeded=" + seeded + ", memoryEvictions=" + memoryEvictions +
+                    ", diskEvictions=" + diskEvictions + "}";
+        }
+    }
+
+    private final @Nullable File file;
+
+    private final LinkedHashMap<Long, Result> memory = new LinkedHashMap<Long, Result>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Result> eldest) {
+            if (size() <= MAX_MEMORY_ENTRIES) return false;
+            ++memoryEvictions;
+            return true;
+        }
+    };
+
+    private final LinkedHashMap<Long, Seed> seeds = new LinkedHashMap<Long, Seed>(4, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Seed> eldest) {
+            return size() > MAX_SEED_TREES;
+        }
+    };
+
+    // Disk tier. Opened lazily by openDisk().
+    private @Nullable RandomAccessFile disk;
+    private final HashMap<Long, Long> diskIndex = new HashMap<>();
+    private int diskRecords;
+    private boolean diskFailed;
+
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long seeded;
+    private long memoryEvictions;
+    private long diskEvictions;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param file the file used to store the disk tier, or null to use only the memory tier
+     */
+    AiCache(@Nullable File file) {
+        this.file = file;
+    }
+
+    /**
+     * Calculates a 64-bit hash of the position, which depends only on the board geometry, the
+     * stones on the board, and the next player, but not on the order in which moves were played.
+     * The hash is stable across app restarts, so it can be used as a key in the disk tier.
+     */
+    static long positionKey(GameState gameState) {
+        BoardGeometry geometry = gameState.getGeometry();
+        long key = mix(((long) geometry.boardSize << 40) | ((long) geometry.sides << 32) | gameState.getNextPlayer());
+        for (BoardGeometry.Vertex v : geometry.vertices) {
+            int player = gameState.getPiece(v);
+            if (player != 0) key ^= mix(((long) (v.id + 1) << 2) | player);
+        }
+        return key;
+    }
+
+    // Finalization function of SplitMix64, which is a decent bijective 64-bit hash function.
+    private static long mix(long x) {
+        x += 0x9e3779b97f4a7c15L;
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Returns the cached result for the given position, if its budget is at least the given
+     * number of iterations, or null otherwise.
+     */
+    synchronized @Nullable Result get(long key, long iterations) {
+        Result result = memory.get(key);
+        if (result != null && result.iterations >= iterations) {
+            ++memoryHits;
+            return result;
+        }
+        Result diskResult = readDisk(key);
+        if (diskResult != null && (result == null || diskResult.iterations > result.iterations)) {
+            memory.put(key, diskResult);
+            if (diskResult.iterations >= iterations) {
+                ++diskHits;
+                return diskResult;
+            }
+        }
+        ++misses;
+        return null;
+    }
+
+    /**
+     * Removes and returns a partially-expanded search tree for the given position, which can be
+     * used to continue a search instead of starting from scratch. Returns null if there is none.
+     *
+     * <p>The caller owns the returned tree. It should call {@link #put} to store the tree again
+     * when it is done expanding it.
+     */
+    synchronized @Nullable Seed takeSeed(long key) {
+        Seed seed = seeds.remove(key);
+        if (seed != null) ++seeded;
+        return seed;
+    }
+
+    /**
+     * Stores a search result in both tiers, unless a result with a larger budget is already
+     * cached. If {@code tree} is not null, it is retained as a seed for later searches.
+     */
+    synchronized void put(long key, Result result, @Nullable TreeBot.Tree tree) {
+        if (tree != null) putSeed(key, tree, result.iterations);
+        Result existing = memory.get(key);
+        if (existing != null && existing.iterations >= result.iterations) return;
+        memory.put(key, result);
+        writeDisk(key, result);
+    }
+
+    /**
+     * Retains a tree that has been expanded for the given number of iterations as a seed for later
+     * searches, without caching a result. This is used for searches that were cancelled.
+     */
+    synchronized void putSeed(long key, TreeBot.Tree tree, long iterations) {
+        if (iterations > 0 && iterations <= MAX_SEED_TREE_ITERATIONS) {
+            seeds.put(key, new Seed(tree, iterations));
+        }
+    }
+
+    synchronized Stats getStats() {
+        return new Stats(memoryHits, diskHits, misses, seeded, memoryEvictions, diskEvictions);
+    }
+
+    private @Nullable Result readDisk(long key) {
+        RandomAccessFile disk = openDisk();
+        if (disk == null) return null;
+        Long offset = diskIndex.get(key);
+        if (offset == null) return null;
+        try {
+            disk.seek(offset + 8);
+            long iterations = disk.readLong();
+            int ccMove = disk.readInt();
+            float winProbability = disk.readFloat();
+            return new Result(ccMove, winProbability, iterations);
+        } catch (IOException e) {
+            closeDisk();
+            return null;
+        }
+    }
+
+    private void writeDisk(long key, Result result) {
+        RandomAccessFile disk = openDisk();
+        if (disk == null) return;
+        Long offset = diskIndex.get(key);
+        try {
+            if (offset != null) {
+                disk.seek(offset + 8);
+                if (disk.readLong() >= result.iterations) return;
+            }
+            if (diskRecords >= MAX_DISK_RECORDS) {
+                compactDisk();
+                disk = this.disk;
+                if (disk == null) return;
+            }
+            long newOffset = HEADER_SIZE + (long) diskRecords * RECORD_SIZE;
+            disk.seek(newOffset);
+            disk.writeLong(key);
+            disk.writeLong(result.iterations);
+            disk.writeInt(result.ccMove);
+            disk.writeFloat(result.winProbability);
+            diskIndex.put(key, newOffset);
+            ++diskRecords;
+        } catch (IOException e) {
+            closeDisk();
+        }
+    }
+
+    private @Nullable RandomAccessFile openDisk() {
+        if (disk != null || file == null || diskFailed) return disk;
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            // Results of an older version of the engine may differ from what the current
+            // version would find, so they are discarded along with the rest of the file.
+            boolean valid = raf.length() >= HEADER_SIZE && raf.readInt() == DISK_MAGIC &&
+                    raf.readInt() == DISK_VERSION && raf.readInt() == TreeBot.ENGINE_VERSION;
+            if (!valid) {
+                raf.setLength(0);
+                raf.writeInt(DISK_MAGIC);
+                raf.writeInt(DISK_VERSION);
+                raf.writeInt(TreeBot.ENGINE_VERSION);
+            }
+            // Rebuild the index. Later records take precedence over earlier ones. A partially
+            // written record at the end of the file (e.g. after a crash) is discarded.
+            diskIndex.clear();
+            int records = (int) ((raf.length() - HEADER_SIZE) / RECORD_SIZE);
+            raf.seek(HEADER_SIZE);
+            for (int i = 0; i < records; ++i) {
+                long key = raf.readLong();
+                raf.skipBytes(RECORD_SIZE - 8);
+                diskIndex.put(key, HEADER_SIZE + (long) i * RECORD_SIZE);
+            }
+            raf.setLength(HEADER_SIZE + (long) records * RECORD_SIZE);
+            diskRecords = records;
+            disk = raf;
+        } catch (IOException e) {
+            // Continue without the disk tier.
+            diskFailed = true;
+            diskIndex.clear();
+        }
+        return disk;
+    }
+
+    /**
+     * Rewrites the disk file so that it contains only the live records, keeping at most half of
+     * the maximum number of records (the most recently written ones).
+     */
+    private void compactDisk() throws IOException {
+        RandomAccessFile disk = this.disk;
+        if (disk == null) return;
+        ArrayList<Long> offsets = new ArrayList<>(diskIndex.values());
+        Collections.sort(offsets);
+        int keep = Math.min(offsets.size(), MAX_DISK_RECORDS / 2);
+        diskEvictions += offsets.size() - keep;
+        byte[] data = new byte[keep * RECORD_SIZE];
+        for (int i = 0; i < keep; ++i) {
+            disk.seek(offsets.get(offsets.size() - keep + i));
+            disk.readFully(data, i * RECORD_SIZE, RECORD_SIZE);
+        }
+        disk.setLength(HEADER_SIZE);
+        disk.seek(HEADER_SIZE);
+        disk.write(data);
+        diskIndex.clear();
+        for (int i = 0; i < keep; ++i) {
+            disk.seek(HEADER_SIZE + (long) i * RECORD_SIZE);
+            diskIndex.put(disk.readLong(), HEADER_SIZE + (long) i * RECORD_SIZE);
+        }
+        diskRecords = keep;
+    }
+
+    private void closeDisk() {
+        if (disk != null) {
+            try {
+                disk.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+        disk = null;
+        diskFailed = true;
+        diskIndex.clear();
+    }
+}
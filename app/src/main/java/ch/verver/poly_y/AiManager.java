@@ -1,111 +1,358 @@
 package ch.verver.poly_y;
 
+import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import ch.verver.poly_y.ai.Heatmap;
 import ch.verver.poly_y.ai.TreeBot;
 
 public class AiManager {
     private static final String TAG = "AiManager";
+    private static final String CACHE_FILE_NAME = "ai_cache.bin";
 
-    private static class InstanceHolder {
-        public static AiManager instance = new AiManager();
-    }
+    // Interval between heatmap updates, which is about the refresh rate of a display.
+    private static final long HEATMAP_INTERVAL_MILLIS = 16;
+
+    private static @Nullable AiManager instance;
 
-    public static AiManager getInstance() {
-        return InstanceHolder.instance;
+    public static synchronized AiManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new AiManager(new File(context.getApplicationContext().getCacheDir(), CACHE_FILE_NAME));
+        }
+        return instance;
     }
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AiScheduler scheduler = new AiScheduler(AiScheduler.defaultWorkers());
+
+    private final AiCache cache;
+
+    private final CopyOnWriteArrayList<SearchStatsListener> searchStatsListeners = new CopyOnWriteArrayList<>();
+
+    // The most recent request per game. Guarded by itself.
+    private final HashMap<Object, Request> latestRequests = new HashMap<>();
+
+    AiManager(@Nullable File cacheFile) {
+        cache = new AiCache(cacheFile);
+    }
 
     public interface AiMoveCallback {
-        void move(BoardGeometry.Vertex vertex, float winProbability);
+        void move(BoardGeometry.Vertex vertex, float winProbability, SearchStats stats);
     }
 
     public interface AiProgressCallback {
         void updateProgress(int percent);
     }
 
+    /**
+     * Handle of a pending AI move request, which can be used to cancel it.
+     *
+     * <p>A cancelled request stops searching after the current expansion (which takes well under a
+     * millisecond), and its move callback is not called, unless it had already been called before
+     * the request was cancelled.
+     */
+    public static final class Request {
+        private final AiScheduler.Ticket ticket;
+
+        private Request(AiScheduler.Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        public void cancel() {
+            ticket.cancel();
+        }
+
+        public boolean isCancelled() {
+            return ticket.isCancelled();
+        }
+    }
+
+    /** Receives the statistics of every AI move, before the move callback is called. */
+    public interface SearchStatsListener {
+        void onSearchStats(SearchStats stats);
+    }
+
+    /**
+     * Adds a listener that is called (on the background thread) with the statistics of every AI
+     * move. See {@link SearchStatsAggregator} for a listener that calculates percentiles.
+     */
+    public void addSearchStatsListener(SearchStatsListener listener) {
+        searchStatsListeners.add(listener);
+    }
+
+    public void removeSearchStatsListener(SearchStatsListener listener) {
+        searchStatsListeners.remove(listener);
+    }
+
     /**
      * <p>Schedules a background task to calculate an AI move.
      *
+     * <p>A new request cancels the previous request for the same game, if that is still pending,
+     * so that a search for a stale position does not delay the new one. Requests of different
+     * games run concurrently, as far as the scheduler allows; see {@link AiScheduler}.
+     *
      * <p>Note that callbacks are called on the background thread!
      *
+     * @param game identifies the game; requests with equal keys belong to the same game
+     * @param priority the priority class, which determines which requests run first when
+     *     there are more requests than workers
      * @param gameState the game (in progress)
      * @param config the AI configuration
      * @param moveCallback callback that receives the selected move
      * @param progressCallback callback that is called periodically to report progress
+     * @return a handle that can be used to cancel the request
      * @throws IllegalArgumentException if the game is over
      */
-    void requestAiMove(GameState gameState, AiConfig config,
+    Request requestAiMove(Object game, AiScheduler.Priority priority, GameState gameState, AiConfig config,
             AiMoveCallback moveCallback, @Nullable AiProgressCallback progressCallback) {
+        return requestAiMove(game, priority, gameState, config, moveCallback, progressCallback, null, 0, null);
+    }
+
+    /**
+     * Like {@link #requestAiMove(Object, AiScheduler.Priority, GameState, AiConfig, AiMoveCallback,
+     * AiProgressCallback)}, but also streams a live analysis of the search to the given listener
+     * and heatmap.
+     *
+     * <p>Snapshots are created by the search thread between expansions, once per interval, so
+     * they don't require any locking. A final snapshot is reported when the search completes,
+     * before the move callback is called. No snapshots are reported if the move is not searched
+     * (e.g. when it comes from the opening book or the cache).
+     *
+     * @param analysisListener receives analysis snapshots on the background thread
+     * @param analysisIntervalMillis the interval between snapshots, e.g. 100 for 10 per second
+     * @param heatmap receives the estimates of all moves at about the display refresh rate;
+     *     it must be created for the board of the game
+     */
+    Request requestAiMove(Object game, AiScheduler.Priority priority, GameState gameState, AiConfig config,
+            AiMoveCallback moveCallback, @Nullable AiProgressCallback progressCallback,
+            @Nullable TreeBot.AnalysisListener analysisListener, long analysisIntervalMillis,
+            @Nullable Heatmap heatmap) {
         if (gameState.isGameOver()) {
             throw new IllegalArgumentException("Game must not be over!");
         }
-        if (!BoardGeometry.DEFAULT_GEOMETRY.equals(gameState.getGeometry())) {
-            throw new IllegalArgumentException("Geometry not supported by AI!");
-        }
-        executor.submit(() -> {
-            long startMs = System.currentTimeMillis();
-            BoardGeometry geometry = gameState.getGeometry();
-            BoardGeometry.Vertex lastMove = gameState.getLastMove();
-            final BoardGeometry.Vertex bestMove;
-            float winProbability = 0.5f;  // unknown probability
-            if (lastMove != null && gameState.canSwap() &&
-                    TreeBot.shouldSwap(geometry.vertexToCodeCupId(lastMove))) {
-                bestMove = lastMove;
-            } else {
-                ArrayList<Integer> ccMovesPlayed = gameState.getCodeCupMoves();
-                int ccMove = config.openingBook ? TreeBot.getOpeningMove(ccMovesPlayed) : 0;
-                if (ccMove == 0) {
-                    // No opening book move. Run the MCTS algorithm to find a good move.
-                    //
-                    // Note: we create a new tree from scratch every time, instead of reusing the
-                    // subtree from the previous move. This reduces play strength slightly, because
-                    // we cannot reuse information from a subtree, but it makes the code simpler.
-                    TreeBot.Tree tree = new TreeBot().createTree(ccMovesPlayed);
-                    if (progressCallback == null) {
-                        expand(tree, config.iterations);
-                    } else {
-                        expandWithProgress(tree, config.iterations, progressCallback);
+        // The lock is held until the new request is registered, so that the task cannot finish
+        // (and try to unregister the request) before that.
+        synchronized (latestRequests) {
+            AiScheduler.Ticket ticket = scheduler.submit(priority, (t) -> {
+                try {
+                    calculateAiMove(t, gameState, config, moveCallback, progressCallback,
+                            analysisListener == null && heatmap == null ? null :
+                                    new AnalysisTimer(analysisListener, analysisIntervalMillis, heatmap));
+                } finally {
+                    synchronized (latestRequests) {
+                        Request latest = latestRequests.get(game);
+                        if (latest != null && latest.ticket == t) latestRequests.remove(game);
                     }
-                    TreeBot.BestMove ccBestMove = tree.getBestMove();
-                    ccMove = ccBestMove.move;
-                    winProbability = ccBestMove.winProbability;
-                    assert ccMove != 0;
                 }
-                bestMove = geometry.codeCupIdToVertex(ccMove);
+            });
+            Request request = new Request(ticket);
+            Request previous = latestRequests.put(game, request);
+            if (previous != null) previous.cancel();
+            return request;
+        }
+    }
+
+    private void calculateAiMove(AiScheduler.Ticket ticket, GameState gameState, AiConfig config,
+            AiMoveCallback moveCallback, @Nullable AiProgressCallback progressCallback,
+            @Nullable AnalysisTimer analysis) {
+        if (ticket.isCancelled()) {
+            Log.i(TAG, "AI request cancelled before it started");
+            return;
+        }
+        long startMs = System.currentTimeMillis();
+        BoardGeometry geometry = gameState.getGeometry();
+        BoardGeometry.Vertex lastMove = gameState.getLastMove();
+        final BoardGeometry.Vertex bestMove;
+        float winProbability = 0.5f;  // unknown probability
+        SearchStats.Source source;
+        @Nullable Search search = null;
+        if (lastMove != null && gameState.canSwap() &&
+                TreeBot.shouldSwap(geometry, geometry.vertexToCodeCupId(lastMove))) {
+            bestMove = lastMove;
+            source = SearchStats.Source.SWAP;
+        } else {
+            ArrayList<Integer> ccMovesPlayed = gameState.getCodeCupMoves();
+            // The opening book only covers the default board.
+            int ccMove = config.openingBook && BoardGeometry.DEFAULT_GEOMETRY.equals(geometry) ?
+                    TreeBot.getOpeningMove(ccMovesPlayed) : 0;
+            source = SearchStats.Source.OPENING_BOOK;
+            if (ccMove == 0) {
+                // No opening book move. Check if the position was searched before with at
+                // least the same budget. If not, run the MCTS algorithm to find a good move.
+                long positionKey = AiCache.positionKey(gameState);
+                AiCache.Result result = cache.get(positionKey, config.iterations);
+                if (result == null) {
+                    search = search(ticket, positionKey, geometry, ccMovesPlayed, config.iterations,
+                            progressCallback, analysis);
+                    if (search == null) {
+                        Log.i(TAG, "AI search cancelled after " + (System.currentTimeMillis() - startMs) + " ms");
+                        return;
+                    }
+                    result = search.result;
+                    source = SearchStats.Source.SEARCH;
+                } else {
+                    source = SearchStats.Source.CACHE;
+                    if (progressCallback != null) progressCallback.updateProgress(100);
+                }
+                ccMove = result.ccMove;
+                winProbability = result.winProbability;
+                assert ccMove != 0;
             }
-            long durationMs = System.currentTimeMillis() - startMs;
-            Log.i(TAG, "AI selected move " + bestMove.id + " with win probability " + winProbability + " in " + durationMs + " ms");
+            bestMove = geometry.codeCupIdToVertex(ccMove);
+        }
+        long durationMs = System.currentTimeMillis() - startMs;
+        SearchStats stats = search == null ?
+                SearchStats.withoutSearch(source, durationMs) :
+                SearchStats.fromCounters(durationMs, search.seeded, search.countersBefore, search.countersAfter);
+        Log.i(TAG, "AI selected move " + bestMove.id + " with win probability " + winProbability + " in " + durationMs + " ms");
+        Log.i(TAG, stats + " Cache" + cache.getStats() + " Scheduler" + scheduler.getStats());
+        for (SearchStatsListener listener : searchStatsListeners) {
             try {
-                moveCallback.move(bestMove, winProbability);
+                listener.onSearchStats(stats);
             } catch (Throwable t) {
-                Log.e(TAG, "callback failed", t);
+                Log.e(TAG, "search stats listener failed", t);
             }
-        });
+        }
+        if (ticket.isCancelled()) return;
+        try {
+            moveCallback.move(bestMove, winProbability, stats);
+        } catch (Throwable t) {
+            Log.e(TAG, "callback failed", t);
+        }
+    }
+
+    /** Returns a snapshot of the queue-wait and run-time counters of the scheduler. */
+    AiScheduler.Stats getSchedulerStats() {
+        return scheduler.getStats();
+    }
+
+    /** Returns a snapshot of the hit/miss/eviction counters of the search result cache. */
+    AiCache.Stats getCacheStats() {
+        return cache.getStats();
     }
 
-    private static void expand(TreeBot.Tree tree, long iterations) {
-        while (iterations-- > 0) tree.expand();
+    /** The result of a search, and the counters of its tree before and after the search. */
+    private static final class Search {
+        final AiCache.Result result;
+        final boolean seeded;
+        final @Nullable TreeBot.Counters countersBefore;
+        final TreeBot.Counters countersAfter;
+
+        Search(AiCache.Result result, boolean seeded,
+                @Nullable TreeBot.Counters countersBefore, TreeBot.Counters countersAfter) {
+            this.result = result;
+            this.seeded = seeded;
+            this.countersBefore = countersBefore;
+            this.countersAfter = countersAfter;
+        }
     }
 
-    private static void expandWithProgress(TreeBot.Tree tree, long iterations, AiProgressCallback callback) {
+    /** Runs a search, or returns null if the request was cancelled before the search completed. */
+    private @Nullable Search search(AiScheduler.Ticket ticket, long positionKey, BoardGeometry geometry,
+            ArrayList<Integer> ccMovesPlayed, long iterations, @Nullable AiProgressCallback progressCallback,
+            @Nullable AnalysisTimer analysis) {
+        // If we have a tree from an earlier search, continue from there, or use it as is if it was
+        // already expanded for at least the requested budget (e.g. by a search with a larger
+        // budget, whose result was evicted from the cache since). Otherwise, we create a new tree
+        // from scratch, instead of reusing the subtree from the previous move. This reduces play
+        // strength slightly, because we cannot reuse information from a subtree, but it makes
+        // the code simpler.
+        AiCache.Seed seed = cache.takeSeed(positionKey);
+        TreeBot.Tree tree;
+        long remainingIterations;
+        @Nullable TreeBot.Counters countersBefore;
+        if (seed != null) {
+            tree = seed.tree;
+            // The result is reported with the budget that was actually used.
+            iterations = Math.max(iterations, seed.iterations);
+            remainingIterations = iterations - seed.iterations;
+            if (remainingIterations == 0 && progressCallback != null) progressCallback.updateProgress(100);
+            countersBefore = tree.getCounters();
+        } else {
+            tree = new TreeBot(geometry, System.nanoTime()).createTree(ccMovesPlayed);
+            remainingIterations = iterations;
+            countersBefore = null;
+        }
+        long expanded = expand(ticket, tree, remainingIterations, progressCallback, analysis);
+        if (expanded < remainingIterations) {
+            // Keep the partial tree, so that a new request for the same position (e.g. after the
+            // activity was recreated) can continue where this one left off.
+            cache.putSeed(positionKey, tree, iterations - remainingIterations + expanded);
+            return null;
+        }
+        if (analysis != null) analysis.report(tree);
+        TreeBot.BestMove bestMove = tree.getBestMove();
+        AiCache.Result result = new AiCache.Result(bestMove.move, bestMove.winProbability, iterations);
+        cache.put(positionKey, result, tree);
+        return new Search(result, countersBefore != null, countersBefore, tree.getCounters());
+    }
+
+    // Expands the tree for the given number of iterations, and returns the number of iterations
+    // performed, which is less than requested only if the request was cancelled. Between
+    // expansions, this lets the scheduler pause the search in favor of requests with a higher
+    // priority, and reports progress and analysis snapshots.
+    private static long expand(AiScheduler.Ticket ticket, TreeBot.Tree tree, long iterations,
+            @Nullable AiProgressCallback progressCallback, @Nullable AnalysisTimer analysis) {
+        int percent = 0;
         long i = 0;
-        for (int percent = 1 ; percent <= 100; ++percent) {
-            long j = iterations * percent / 100;
-            while (i < j) {
-                tree.expand();
-                ++i;
+        while (i < iterations) {
+            ticket.checkpoint();
+            if (ticket.isCancelled()) break;
+            tree.expand();
+            ++i;
+            if (analysis != null) analysis.maybeReport(tree);
+            // Should not overflow unless `iterations` is absurdly large!
+            while (progressCallback != null && percent < 100 && i >= iterations * (percent + 1) / 100) {
+                progressCallback.updateProgress(++percent);
+            }
+        }
+        return i;
+    }
+
+    // Reports analysis snapshots and heatmap updates of a tree at fixed intervals. Used only by the
+    // search thread.
+    private static final class AnalysisTimer {
+        final @Nullable TreeBot.AnalysisListener listener;
+        final long intervalNanos;
+        long nextNanos;
+        final @Nullable Heatmap heatmap;
+        long nextHeatmapNanos;
+
+        AnalysisTimer(@Nullable TreeBot.AnalysisListener listener, long intervalMillis, @Nullable Heatmap heatmap) {
+            this.listener = listener;
+            this.intervalNanos = Math.max(1, intervalMillis) * 1000000L;
+            this.heatmap = heatmap;
+            long now = System.nanoTime();
+            this.nextNanos = now + intervalNanos;
+            this.nextHeatmapNanos = now;
+        }
+
+        void maybeReport(TreeBot.Tree tree) {
+            long now = System.nanoTime();
+            if (heatmap != null && now >= nextHeatmapNanos) {
+                nextHeatmapNanos = now + HEATMAP_INTERVAL_MILLIS * 1000000L;
+                heatmap.update(tree);
+            }
+            if (listener != null && now >= nextNanos) {
+                nextNanos = now + intervalNanos;
+                report(tree);
+            }
+        }
+
+        void report(TreeBot.Tree tree) {
+            if (heatmap != null) heatmap.update(tree);
+            if (listener == null) return;
+            try {
+                listener.onAnalysis(tree.getAnalysis(TreeBot.Analysis.DEFAULT_MOVES, TreeBot.Analysis.DEFAULT_DEPTH));
+            } catch (Throwable t) {
+                Log.e(TAG, "analysis listener failed", t);
             }
-            callback.updateProgress(percent);
         }
-        // Should hold unless the `iterations * percent` overflowed!
-        assert i == iterations;
     }
 }
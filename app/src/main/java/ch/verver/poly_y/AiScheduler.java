@@ -0,0 +1,312 @@
+package ch.verver.poly_y;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs AI tasks of different priority classes on a fixed number of workers.
+ *
+ * <p>At most {@code workers} tasks run at the same time; other tasks wait in a queue that is
+ * ordered by priority, and then by submission order. Running tasks call {@link Ticket#checkpoint()}
+ * between units of work (e.g. between search tree expansions). A task pauses at a checkpoint when
+ * a task of a higher priority class is waiting, and resumes when a worker becomes available again.
+ * Tasks in the {@link Priority#isTimeSliced() time-sliced} classes also pause after running for
+ * {@link #TIME_SLICE_MILLIS} when a task of the same class is waiting, so that long analyses take
+ * turns instead of running one after the other.
+ *
+ * <p>A paused task keeps its thread (since the search state lives on its stack), so the number of
+ * threads can exceed the number of workers, but the number of tasks that use the CPU cannot.
+ *
+ * <p>This class is thread-safe.
+ */
+final class AiScheduler {
+    /** Priority classes, from highest to lowest priority. */
+    enum Priority {
+        /** The AI's move in a game that the user is playing. */
+        MOVE,
+        /** A hint requested by the user. */
+        HINT,
+        /** Searching ahead while the user is thinking. */
+        PONDER,
+        /** Analysis that nobody is waiting for, e.g. a post-game review. */
+        BACKGROUND;
+
+        boolean isTimeSliced() {
+            return this == PONDER || this == BACKGROUND;
+        }
+    }
+
+    static final long TIME_SLICE_MILLIS = 100;
+
+    /** The body of a task. */
+    interface Task {
+        /**
+         * Runs the task. Implementations should call {@link Ticket#checkpoint()} regularly, and
+         * return early when {@link Ticket#isCancelled()} returns true.
+         */
+        void run(Ticket ticket);
+    }
+
+    /** Immutable snapshot of the counters of a single priority class. */
+    public static final class ClassStats {
+        public final Priority priority;
+        /** The number of tasks submitted. */
+        public final long submitted;
+        /** The number of tasks that were cancelled before they started. */
+        public final long cancelledBeforeStart;
+        /** The number of times a task was paused to let another task run. */
+        public final long pauses;
+        /** The total and maximum time between submitting and starting a task. */
+        public final long totalQueueWaitMillis;
+        public final long maxQueueWaitMillis;
+        /** The total time spent waiting after being paused. */
+        public final long totalPausedMillis;
+        /** The total time tasks spent running (excluding time spent paused). */
+        public final long totalRunMillis;
+
+        ClassStats(Priority priority, long submitted, long cancelledBeforeStart, long pauses,
+                long totalQueueWaitMillis, long maxQueueWaitMillis, long totalPausedMillis, long totalRunMillis) {
+            this.priority = priority;
+            this.submitted = submitted;
+            this.cancelledBeforeStart = cancelledBeforeStart;
+            this.pauses = pauses;
+            this.totalQueueWaitMillis = totalQueueWaitMillis;
+            this.maxQueueWaitMillis = maxQueueWaitMillis;
+            this.totalPausedMillis = totalPausedMillis;
+            this.totalRunMillis = totalRunMillis;
+        }
+
+        @Override
+        public String toString() {
+            return priority + "{submitted=" + submitted + ", cancelledBeforeStart=" + cancelledBeforeStart +
+                    ", pauses=" + pauses + ", totalQueueWaitMillis=" + totalQueueWaitMillis +
+                    ", maxQueueWaitMillis=" + maxQueueWaitMillis + ", totalPausedMillis=" + totalPausedMillis +
+                    ", totalRunMillis=" + totalRunMillis + "}";
+        }
+    }
+
+    /** Immutable snapshot of the scheduler counters, per priority class. */
+    public static final class Stats {
+        public final int workers;
+        private final ClassStats[] classes;
+
+        Stats(int workers, ClassStats[] classes) {
+            this.workers = workers;
+            this.classes = classes;
+        }
+
+        public ClassStats get(Priority priority) {
+            return classes[priority.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Stats{workers=").append(workers);
+            for (ClassStats c : classes) sb.append(", ").append(c);
+            return sb.append("}").toString();
+        }
+    }
+
+    /** Handle of a submitted task, which the task uses to yield, and others to cancel it. */
+    final class Ticket {
+        final Priority priority;
+
+        // Guarded by AiScheduler.this.
+        private long sequence;
+        private boolean started = false;
+        private boolean running = false;
+        private long waitStartNanos;
+        private long runStartNanos;
+
+        private volatile boolean cancelled = false;
+
+        private Ticket(Priority priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * Cancels the task. If it is waiting for a worker, it is removed from the queue and does
+         * not run; otherwise, it should return at its next checkpoint.
+         */
+        void cancel() {
+            synchronized (AiScheduler.this) {
+                cancelled = true;
+                if (waiting.remove(this)) {
+                    updateHighestWaiting();
+                    AiScheduler.this.notifyAll();
+                }
+            }
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Pauses the task if a task with a higher priority (or, for time-sliced classes, a task
+         * with the same priority whose turn it is) is waiting for a worker. Returns when the task
+         * may continue, or when it is cancelled.
+         *
+         * <p>This must be called only by the thread running the task. It is cheap when there is
+         * no reason to pause.
+         */
+        void checkpoint() {
+            if (!shouldPause()) return;
+            synchronized (AiScheduler.this) {
+                // Check again with the lock held, since the task that we would pause for may have
+                // started (or been cancelled) in the meantime.
+                while (!cancelled && shouldPause()) {
+                    release(this);
+                    ++pauses[priority.ordinal()];
+                    if (!acquire(this)) return;
+                }
+            }
+        }
+
+        // Returns whether the task should give up its worker. This reads highestWaiting without
+        // the lock, so the result must be checked again with the lock held.
+        private boolean shouldPause() {
+            int highest = highestWaiting;
+            if (highest > priority.ordinal()) return false;
+            return highest < priority.ordinal() ||
+                    (priority.isTimeSliced() && System.nanoTime() - runStartNanos >= TIME_SLICE_NANOS);
+        }
+    }
+
+    private static final long TIME_SLICE_NANOS = TIME_SLICE_MILLIS * 1000000L;
+
+    private final int workers;
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    // Tasks waiting for a worker, ordered by priority and then by sequence number.
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(11, (a, b) ->
+            a.priority != b.priority ? a.priority.compareTo(b.priority) : Long.compare(a.sequence, b.sequence));
+    private long nextSequence = 0;
+    private int running = 0;
+
+    // The ordinal of the highest priority class with a waiting task, or Priority.values().length
+    // if no task is waiting. Read without locking by checkpoint().
+    private volatile int highestWaiting = Priority.values().length;
+
+    private final long[] submitted = new long[Priority.values().length];
+    private final long[] cancelledBeforeStart = new long[Priority.values().length];
+    private final long[] pauses = new long[Priority.values().length];
+    private final long[] totalQueueWaitNanos = new long[Priority.values().length];
+    private final long[] maxQueueWaitNanos = new long[Priority.values().length];
+    private final long[] totalPausedNanos = new long[Priority.values().length];
+    private final long[] totalRunNanos = new long[Priority.values().length];
+
+    AiScheduler(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be positive");
+        this.workers = workers;
+    }
+
+    /** Returns the default number of workers: one per core, but leaving a core for the UI. */
+    static int defaultWorkers() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /** Submits a task, which runs on a background thread when a worker is available. */
+    Ticket submit(Priority priority, Task task) {
+        final Ticket ticket = new Ticket(priority);
+        synchronized (this) {
+            ++submitted[priority.ordinal()];
+            ticket.waitStartNanos = System.nanoTime();
+        }
+        threads.execute(() -> {
+            synchronized (AiScheduler.this) {
+                if (!acquire(ticket)) {
+                    ++cancelledBeforeStart[priority.ordinal()];
+                    return;
+                }
+            }
+            try {
+                task.run(ticket);
+            } finally {
+                synchronized (AiScheduler.this) {
+                    release(ticket);
+                }
+            }
+        });
+        return ticket;
+    }
+
+    /** Returns the number of tasks waiting for a worker, including paused tasks. */
+    synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    synchronized Stats getStats() {
+        ClassStats[] classes = new ClassStats[Priority.values().length];
+        for (Priority p : Priority.values()) {
+            int i = p.ordinal();
+            classes[i] = new ClassStats(p, submitted[i], cancelledBeforeStart[i], pauses[i],
+                    totalQueueWaitNanos[i] / 1000000, maxQueueWaitNanos[i] / 1000000,
+                    totalPausedNanos[i] / 1000000, totalRunNanos[i] / 1000000);
+        }
+        return new Stats(workers, classes);
+    }
+
+    // Waits until the ticket is given a worker. Returns false if the task was cancelled first.
+    // Must be called with the lock held.
+    private boolean acquire(Ticket ticket) {
+        if (ticket.cancelled) return false;
+        if (ticket.started) ticket.waitStartNanos = System.nanoTime();
+        ticket.sequence = nextSequence++;
+        waiting.add(ticket);
+        updateHighestWaiting();
+        dispatch();
+        boolean interrupted = false;
+        while (!ticket.running && !ticket.cancelled) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (!ticket.running) return false;
+        long now = System.nanoTime();
+        long waited = now - ticket.waitStartNanos;
+        int i = ticket.priority.ordinal();
+        if (ticket.started) {
+            totalPausedNanos[i] += waited;
+        } else {
+            ticket.started = true;
+            totalQueueWaitNanos[i] += waited;
+            maxQueueWaitNanos[i] = Math.max(maxQueueWaitNanos[i], waited);
+        }
+        ticket.runStartNanos = now;
+        return true;
+    }
+
+    // Gives up the ticket's worker. Must be called with the lock held.
+    private void release(Ticket ticket) {
+        if (!ticket.running) return;
+        ticket.running = false;
+        --running;
+        totalRunNanos[ticket.priority.ordinal()] += System.nanoTime() - ticket.runStartNanos;
+        dispatch();
+    }
+
+    // Assigns free workers to the waiting tasks with the highest priority.
+    private void dispatch() {
+        boolean changed = false;
+        while (running < workers && !waiting.isEmpty()) {
+            Ticket next = waiting.poll();
+            next.running = true;
+            ++running;
+            changed = true;
+        }
+        if (changed) {
+            updateHighestWaiting();
+            notifyAll();
+        }
+    }
+
+    private void updateHighestWaiting() {
+        Ticket first = waiting.peek();
+        highestWaiting = first == null ? Priority.values().length : first.priority.ordinal();
+    }
+}
@@ -15,6 +15,8 @@ import androidx.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import ch.verver.poly_y.ai.Heatmap;
+
 public class GameActivity extends Activity {
     private static final String TAG = "GameActivity";
 
@@ -37,8 +39,10 @@ public class GameActivity extends Activity {
     private int aiPlayer = 0;
     private @Nullable AiConfig aiConfig = null;
     private boolean inCampaign;
-    private GameStateWithSelection state;
+    private GameStateWithSelection state;  // null until the game state is loaded
     private boolean hintInProgress = false;
+    private @Nullable AiManager.Request aiRequest = null;
+    private @Nullable GameState aiRequestGameState = null;
     private int suppressAiResignation = 0;
     final private ArrayList<GameState> undoStack = new ArrayList<>();
 
@@ -63,11 +67,24 @@ public class GameActivity extends Activity {
         gameView.addFieldClickListener(this::onFieldClicked);
         progressBar = findViewById(R.id.progressBar);
 
+        // The buttons are enabled once the game state has been loaded.
+        resignButton.setEnabled(false);
+        undoButton.setEnabled(false);
+        hintButton.setEnabled(false);
+        confirmButton.setEnabled(false);
+
         gameRegistry = GameRegistry.getInstance(this);
 
         // This check is necessary to avoid resetting the game state every time the activity is
         // recreated, e.g. when the screen orientation changes.
-        if (savedInstanceState == null) {
+        final boolean overrideGameState = savedInstanceState == null;
+        gameRegistry.loadCurrentGameState(unusedGameState -> {
+            if (!isDestroyed()) onGameStateLoaded(overrideGameState);
+        });
+    }
+
+    private void onGameStateLoaded(boolean overrideGameState) {
+        if (overrideGameState) {
             processIntent();
         }
 
@@ -86,6 +103,13 @@ public class GameActivity extends Activity {
         changeState(gameState);
     }
 
+    @Override
+    protected void onDestroy() {
+        // If the activity is recreated, the new instance requests the AI move again.
+        cancelAiRequest();
+        super.onDestroy();
+    }
+
     /**
      * Overrides the game state with one passed as an intent extra. This is useful for debugging
      * (see DEVELOPMENT.txt).
@@ -97,7 +121,8 @@ public class GameActivity extends Activity {
         if (gameStateString == null) return;
         final GameState gameState;
         try {
-            gameState = GameState.decodeFromString(gameStateString);
+            // Accepts both the string format and Base64 of the binary encoding (see GameRegistry).
+            gameState = GameRegistry.decodeGameState(gameStateString);
         } catch (Exception e) {
             Log.e(TAG, "Could not parse game state string; skipping game state override.", e);
             return;
@@ -128,7 +153,7 @@ public class GameActivity extends Activity {
         hintButton.setEnabled(false);
         hintInProgress = true;
         final GameState originalGameState = state.gameState;
-        requestAiMove(AiConfig.HINT_CONFIG, (move, probability) -> {
+        requestAiMove(AiScheduler.Priority.HINT, AiConfig.HINT_CONFIG, (move, probability, stats) -> {
             hintInProgress = false;
             if (!originalGameState.equals(state.gameState)) {
                 Log.w(TAG, "Game state has changed! Ignoring AI hint.");
@@ -159,11 +184,13 @@ public class GameActivity extends Activity {
     }
 
     private boolean isPlayerTurn() {
+        if (state == null) return false;  // still loading
         int player = state.gameState.getNextPlayer();
         return player != 0 && player != aiPlayer;
     }
 
     private boolean isAiTurn() {
+        if (state == null) return false;  // still loading
         int player = state.gameState.getNextPlayer();
         return player != 0 && player == aiPlayer;
     }
@@ -174,8 +201,7 @@ public class GameActivity extends Activity {
     }
 
     private boolean isHintPossible() {
-        return isPlayerTurn() && !inCampaign && !hintInProgress &&
-                BoardGeometry.DEFAULT_GEOMETRY.equals(state.gameState.getGeometry());
+        return isPlayerTurn() && !inCampaign && !hintInProgress;
     }
 
     private void changeState(GameState newState) {
@@ -184,6 +210,11 @@ public class GameActivity extends Activity {
 
     private void changeStateWithSelection(GameStateWithSelection newState) {
         state = newState;
+        if (aiRequest != null && !state.gameState.equals(aiRequestGameState)) {
+            // The pending hint or AI move is for a different position. Stop it right away,
+            // instead of waiting for the search to finish only to ignore its result.
+            cancelAiRequest();
+        }
         gameView.setGameState(state);
         backButton.setVisibility(state.gameState.isGameOver() ? View.VISIBLE : View.GONE);
         resignButton.setVisibility(state.gameState.isGameOver() ? View.GONE : View.VISIBLE);
@@ -193,7 +224,7 @@ public class GameActivity extends Activity {
         hintButton.setEnabled(isHintPossible());
         confirmButton.setEnabled(state.selection != null);
         statusTextView.setText(getStatusText(state.gameState));
-        gameRegistry.setCurrentGameState(state.gameState);  // saves to SharedPreferences
+        gameRegistry.setCurrentGameState(state.gameState);  // saves to the game journal
         maybeTriggerAiMove();
     }
 
@@ -236,7 +267,7 @@ public class GameActivity extends Activity {
         if (!isAiTurn()) return;
         final GameState originalGameState = state.gameState;
         if (originalGameState.getNextPlayer() == aiPlayer) {
-            requestAiMove(aiConfig, (move, probability) -> {
+            requestAiMove(AiScheduler.Priority.MOVE, aiConfig, (move, probability, stats) -> {
                 if (!originalGameState.equals(state.gameState)) {
                     // This should not happen normally; but just to be sure, retrigger AI.
                     Log.w(TAG, "Game state has changed! ");
@@ -273,20 +304,47 @@ public class GameActivity extends Activity {
         }
     }
 
-    private void requestAiMove(AiConfig config, AiManager.AiMoveCallback callback) {
+    private void requestAiMove(AiScheduler.Priority priority, AiConfig config, AiManager.AiMoveCallback callback) {
         progressBar.setProgress(0);
         progressBar.setVisibility(ProgressBar.VISIBLE);
-        AiManager.getInstance().requestAiMove(
+        // Show the engine's estimates of the player's moves while calculating a hint.
+        final @Nullable Heatmap heatmap = priority == AiScheduler.Priority.HINT ?
+                new Heatmap(state.gameState.getGeometry().vertices.size()) : null;
+        final AiManager.Request[] request = new AiManager.Request[1];
+        request[0] = AiManager.getInstance(this).requestAiMove(
+                gameRegistry.getCurrentGameStartTime(),
+                priority,
                 state.gameState,
                 config,
-                (move, probability) -> {
+                (move, probability, stats) -> {
                     runOnUiThread(() -> {
+                        // The request may have been cancelled after the move was calculated.
+                        if (request[0] != aiRequest) return;
+                        aiRequest = null;
+                        aiRequestGameState = null;
                         progressBar.setVisibility(ProgressBar.INVISIBLE);
-                        callback.move(move, probability);
+                        gameView.setHeatmap(null);
+                        callback.move(move, probability, stats);
                     });
                 },
                 (percent) -> {
-                    runOnUiThread(() -> progressBar.setProgress(percent));
-                });
+                    runOnUiThread(() -> {
+                        if (request[0] == aiRequest) progressBar.setProgress(percent);
+                    });
+                },
+                null, 0, heatmap);
+        aiRequest = request[0];
+        aiRequestGameState = state.gameState;
+        gameView.setHeatmap(heatmap);
+    }
+
+    private void cancelAiRequest() {
+        if (aiRequest == null) return;
+        aiRequest.cancel();
+        aiRequest = null;
+        aiRequestGameState = null;
+        hintInProgress = false;
+        progressBar.setVisibility(ProgressBar.INVISIBLE);
+        gameView.setHeatmap(null);
     }
 }
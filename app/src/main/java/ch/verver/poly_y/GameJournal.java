@@ -0,0 +1,257 @@
+package ch.verver.poly_y;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Append-only journal that stores the current game on disk.
+ *
+ * <p>The journal consists of a header, a snapshot of a game state (encoded with
+ * {@link BinaryCodec}), and zero or more records that describe the changes since the snapshot:
+ * a move (encoded as a varint vertex id) or a resignation. Saving a state that extends the
+ * previous one by a single move or a resignation appends a record of a few bytes, so the cost of
+ * saving does not depend on the length of the game. Other changes (like undo or starting a new
+ * game) rewrite the journal with a new snapshot, as does every {@link #MAX_RECORDS}-th change, to
+ * keep loading fast.
+ *
+ * <p>A record that was only partially written (e.g. because the app was killed) is ignored when
+ * loading, which loses at most the last change.
+ *
+ * <p>This class is not thread-safe, and it does blocking I/O. {@link GameRegistry} calls it from a
+ * single background thread.
+ */
+final class GameJournal {
+    private static final int MAGIC = 0x50594A4E;  // "PYJN"
+    private static final int VERSION = 1;
+
+    private static final int RECORD_SNAPSHOT = 1;
+    private static final int RECORD_MOVE = 2;
+    private static final int RECORD_RESIGN = 3;
+
+    /** Maximum number of records after the snapshot before the journal is compacted. */
+    private static final int MAX_RECORDS = 64;
+
+    private final File file;
+    private final File tempFile;
+    private final BinaryCodec codec = new BinaryCodec();
+    private final byte[] recordBuffer = new byte[8];
+
+    private @Nullable FileOutputStream output;
+    private int records = MAX_RECORDS;  // forces a snapshot on the first update, until load()
+
+    GameJournal(File file) {
+        this.file = file;
+        this.tempFile = new File(file.getPath() + ".tmp");
+    }
+
+    /** Returns whether the journal file exists. */
+    boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Loads the game state from the journal, or returns null if there is no journal.
+     *
+     * @throws IOException if the journal could not be read, or its snapshot is invalid
+     */
+    @Nullable GameState load() throws IOException {
+        if (!file.exists()) return null;
+        byte[] data = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int n = 0, r;
+            while (n < data.length && (r = in.read(data, n, data.length - n)) > 0) n += r;
+            if (n < data.length) throw new IOException("Journal truncated while reading");
+        }
+        Reader reader = new Reader(data);
+        GameState state;
+        try {
+            if (reader.readInt() != MAGIC || reader.readInt() != VERSION || reader.readByte() != RECORD_SNAPSHOT) {
+                throw new IOException("Invalid journal header");
+            }
+            int snapshotLength = reader.readVarint();
+            if (snapshotLength < 0 || snapshotLength > data.length - reader.position) {
+                throw new IOException("Invalid snapshot length");
+            }
+            state = codec.decodeGameState(data, reader.position, snapshotLength);
+            reader.position += snapshotLength;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Invalid snapshot", e);
+        }
+
+        int validRecords = 0;
+        int validLength = reader.position;
+        try {
+            while (reader.position < data.length) {
+                int type = reader.readByte();
+                if (type == RECORD_MOVE) {
+                    int vertexId = reader.readVarint();
+                    if (vertexId < 0 || vertexId >= state.getGeometry().vertices.size()) break;
+                    BoardGeometry.Vertex v = state.getGeometry().vertices.get(vertexId);
+                    if (!state.isValidMove(v)) break;
+                    state = state.move(v);
+                } else if (type == RECORD_RESIGN) {
+                    if (state.isGameOver()) break;
+                    state = state.resign();
+                } else {
+                    break;
+                }
+                ++validRecords;
+                validLength = reader.position;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Partially written record at the end of the file.
+        }
+        if (validLength < data.length) {
+            // Drop the invalid tail, so that new records are appended after the last valid one.
+            writeSnapshot(state);
+        } else {
+            closeOutput();
+            output = new FileOutputStream(file, /* append= */ true);
+            records = validRecords;
+        }
+        return state;
+    }
+
+    /**
+     * Updates the journal to contain the new state, given that it currently contains the old
+     * state. If newState is null, the journal is deleted.
+     *
+     * @return whether the journal was rewritten with a snapshot of the new state, rather than
+     *     appended to (or deleted)
+     */
+    boolean update(@Nullable GameState oldState, @Nullable GameState newState) throws IOException {
+        if (newState == null) {
+            delete();
+            return false;
+        }
+        int recordLength = 0;
+        if (oldState != null && records < MAX_RECORDS && output != null) {
+            recordLength = encodeRecord(oldState, newState);
+        }
+        if (recordLength == 0) {
+            writeSnapshot(newState);
+            return true;
+        }
+        try {
+            output.write(recordBuffer, 0, recordLength);
+            ++records;
+            return false;
+        } catch (IOException e) {
+            // Rewrite the journal on the next update.
+            closeOutput();
+            throw e;
+        }
+    }
+
+    /** Deletes the journal. */
+    void delete() throws IOException {
+        closeOutput();
+        if (file.exists() && !file.delete()) throw new IOException("Failed to delete " + file);
+    }
+
+    // Encodes the record that transforms oldState into newState into the record buffer, and
+    // returns its length, or returns 0 if the change cannot be described by a single record.
+    private int encodeRecord(GameState oldState, GameState newState) {
+        if (!oldState.getGeometry().equals(newState.getGeometry()) ||
+                oldState.isPieRuleEnabled() != newState.isPieRuleEnabled() ||
+                oldState.isGameOver()) {
+            return 0;
+        }
+        if (newState.isResigned()) {
+            if (newState.getMoveCount() != oldState.getMoveCount() ||
+                    !oldState.resign().equals(newState)) {
+                return 0;
+            }
+            recordBuffer[0] = RECORD_RESIGN;
+            return 1;
+        }
+        BoardGeometry.Vertex lastMove = newState.getLastMove();
+        if (lastMove == null || newState.getMoveCount() != oldState.getMoveCount() + 1 ||
+                !oldState.isValidMove(lastMove) || !oldState.move(lastMove).equals(newState)) {
+            return 0;
+        }
+        int length = 0;
+        recordBuffer[length++] = RECORD_MOVE;
+        int value = lastMove.id;
+        while ((value & ~0x7f) != 0) {
+            recordBuffer[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        recordBuffer[length++] = (byte) value;
+        return length;
+    }
+
+    // Writes a new journal that consists of only a snapshot of the given state. The journal is
+    // written to a temporary file first, which then replaces the old journal, so that a crash
+    // halfway through doesn't lose the old journal.
+    private void writeSnapshot(GameState state) throws IOException {
+        closeOutput();
+        int snapshotLength = codec.encodeGameState(state, true);
+        byte[] header = new byte[14];
+        int n = 0;
+        for (int shift = 24; shift >= 0; shift -= 8) header[n++] = (byte) (MAGIC >>> shift);
+        for (int shift = 24; shift >= 0; shift -= 8) header[n++] = (byte) (VERSION >>> shift);
+        header[n++] = RECORD_SNAPSHOT;
+        int value = snapshotLength;
+        while ((value & ~0x7f) != 0) {
+            header[n++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        header[n++] = (byte) value;
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(header, 0, n);
+            out.write(codec.getBuffer(), 0, snapshotLength);
+            out.getFD().sync();
+        }
+        if (!tempFile.renameTo(file)) throw new IOException("Failed to rename " + tempFile + " to " + file);
+        output = new FileOutputStream(file, /* append= */ true);
+        records = 0;
+    }
+
+    private void closeOutput() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                // ignored
+            }
+            output = null;
+        }
+        records = MAX_RECORDS;
+    }
+
+    /** Reads big-endian integers and varints from a byte array. */
+    private static final class Reader {
+        final byte[] data;
+        int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) throw new IndexOutOfBoundsException();
+            return data[position++] & 0xff;
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; ++i) value = (value << 8) | readByte();
+            return value;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            return -1;
+        }
+    }
+}
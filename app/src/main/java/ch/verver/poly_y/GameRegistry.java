@@ -2,18 +2,40 @@ package ch.verver.poly_y;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.CheckResult;
 import androidx.annotation.Nullable;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Tracks the current game in progress and some related information. This ensures the game is not
  * lost when the app is restarted.
  *
- * <p>All data is stored in {@link SharedPreferences}.</p>>
+ * <p>The current game state is stored in a {@link GameJournal}, which is written by a background
+ * thread, so saving a move doesn't block the caller, and costs O(1) regardless of the length of
+ * the game. The journal is also loaded in the background, starting when the registry is created.
+ * Activities must wait for {@link #loadCurrentGameState} to call back before using the other
+ * methods that access the game state; those would otherwise block until the load finishes, which
+ * is not allowed on the main thread.
+ *
+ * <p>All other data is stored in {@link SharedPreferences}. The AI config is encoded with
+ * {@link BinaryCodec}, as a Base64 string. Older versions stored the game state in
+ * SharedPreferences too; it is moved to the journal when it is first loaded.
+ *
+ * <p>When a game ends, it is appended to a {@link GameArchive} (also on the background thread),
+ * together with the AI config and the start and end times. Each game is archived only once, even
+ * if it ends again after the last move is undone.</p>
  */
 public class GameRegistry {
     public static final int MIN_CAMPAIGN_LEVEL = 1;
@@ -21,47 +43,124 @@ public class GameRegistry {
 
     private static final String TAG = "GameRegistry";
     private static final String SHARED_PREFERENCES_NAME = "poly_y_prefs";
+    private static final String JOURNAL_FILE_NAME = "current_game.journal";
+    private static final String ARCHIVE_DATA_FILE_NAME = "games.dat";
+    private static final String ARCHIVE_INDEX_FILE_NAME = "games.idx";
 
     private static final String CURRENT_GAME_STATE_KEY = "current_game_state";
     private static final String CURRENT_GAME_AI_PLAYER_KEY = "current_game_ai_player";
     private static final String CURRENT_GAME_AI_CONFIG_KEY = "current_game_ai_config";
     private static final String CURRENT_GAME_IS_CAMPAIGN_KEY = "current_game_is_campaign";
+    private static final String CURRENT_GAME_START_TIME_KEY = "current_game_start_time";
+    private static final String ARCHIVED_GAME_START_TIME_KEY = "archived_game_start_time";
     private static final String CAMPAIGN_LEVEL_KEY = "campaign_level";
 
+    /** Receives the current game state, after it has been loaded. */
+    public interface GameStateCallback {
+        void onGameStateLoaded(@Nullable GameState gameState);
+    }
+
     private static @Nullable GameRegistry instance;
 
     private final SharedPreferences sharedPreferences;
+    private final BinaryCodec codec = new BinaryCodec();
+    private final GameJournal journal;
+
+    private final File archiveDataFile;
+    private final File archiveIndexFile;
+
+    // Opened lazily on the journal thread, when the first game is archived.
+    private @Nullable GameArchive archive;
+
+    // Thread that loads and writes the journal and the archive. All access to them happens on
+    // this thread.
+    private final ExecutorService journalExecutor = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Result of loading the game state from the journal, or null when it has been retrieved.
+    private @Nullable Future<GameState> pendingGameState;
 
     private @Nullable GameState currentGameState;
     private int currentGameAiPlayer;
     private @Nullable AiConfig currentGameAiConfig;
     private boolean currentGameIsCampaign;
+    private long currentGameStartTime;
+    private long archivedGameStartTime;  // start time of the last archived game
     private int campaignLevel;
 
     GameRegistry(Context applicationContext) {
         sharedPreferences = applicationContext.getSharedPreferences(SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+        journal = new GameJournal(new File(applicationContext.getFilesDir(), JOURNAL_FILE_NAME));
+        archiveDataFile = new File(applicationContext.getFilesDir(), ARCHIVE_DATA_FILE_NAME);
+        archiveIndexFile = new File(applicationContext.getFilesDir(), ARCHIVE_INDEX_FILE_NAME);
 
-        // Load the current game. Maybe TODO: lazy-load instead?
+        // Start loading the current game in the background. The remaining settings are small, so
+        // they are loaded immediately.
+        pendingGameState = journalExecutor.submit(this::loadGameState);
         loadFromSharedPreferences();
     }
 
-    private void loadFromSharedPreferences() {
-        String gameStateString = sharedPreferences.getString(CURRENT_GAME_STATE_KEY, null);
-        if (gameStateString != null) {
-            try {
-                currentGameState = GameState.decodeFromString(gameStateString);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to decode GameState string!", e);
-                // continue anyway -- this means we lose the game state, but at least the player
-                // can start a new game, which is better than crashing.
-                currentGameState = null;
+    // Called on the journal thread.
+    private @Nullable GameState loadGameState() {
+        try {
+            GameState gameState = journal.load();
+            if (gameState != null) {
+                logGameStateString("Loaded", gameState);
+                return gameState;
             }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load game journal!", e);
+        }
+
+        // Migrate the game state from SharedPreferences, where older versions stored it.
+        String gameStateString = sharedPreferences.getString(CURRENT_GAME_STATE_KEY, null);
+        if (gameStateString == null) return null;
+        GameState gameState;
+        try {
+            gameState = decodeGameState(gameStateString);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to decode GameState string!", e);
+            // continue anyway -- this means we lose the game state, but at least the player
+            // can start a new game, which is better than crashing.
+            return null;
+        }
+        try {
+            journal.update(null, gameState);
+            sharedPreferences.edit().remove(CURRENT_GAME_STATE_KEY).apply();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to migrate game state to journal!", e);
+        }
+        return gameState;
+    }
+
+    // Waits for the journal to be loaded, if it hasn't been already. On the main thread, the load
+    // must have finished already (see loadCurrentGameState()).
+    private void ensureGameStateLoaded() {
+        Future<GameState> pending = pendingGameState;
+        if (pending == null) return;
+        if (!pending.isDone() && Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Game state is still loading; use loadCurrentGameState()");
+        }
+        pendingGameState = null;
+        try {
+            currentGameState = pending.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Failed to load game state!", e);
+            currentGameState = null;
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted while loading game state!", e);
+            Thread.currentThread().interrupt();
+            currentGameState = null;
         }
+    }
+
+    private void loadFromSharedPreferences() {
         currentGameAiPlayer = sharedPreferences.getInt(CURRENT_GAME_AI_PLAYER_KEY, 0);
         String aiConfigString = sharedPreferences.getString(CURRENT_GAME_AI_CONFIG_KEY, null);
         if (aiConfigString != null) {
             try {
-                currentGameAiConfig = AiConfig.decodeFromString(aiConfigString);
+                currentGameAiConfig = decodeAiConfig(aiConfigString);
             } catch (Exception e) {
                 Log.e(TAG, "Failed to decode AiConfig string!", e);
                 currentGameAiConfig = null;
@@ -69,19 +168,68 @@ public class GameRegistry {
             }
         }
         currentGameIsCampaign = sharedPreferences.getBoolean(CURRENT_GAME_IS_CAMPAIGN_KEY, false);
+        currentGameStartTime = sharedPreferences.getLong(CURRENT_GAME_START_TIME_KEY, 0);
+        archivedGameStartTime = sharedPreferences.getLong(ARCHIVED_GAME_START_TIME_KEY, -1);
         campaignLevel = sharedPreferences.getInt(CAMPAIGN_LEVEL_KEY, MIN_CAMPAIGN_LEVEL);
     }
 
+    // Strings in the old format start with the version number 1 followed by a comma. A Base64
+    // encoded string can start with '1' too (e.g. if the first byte is 0xD4-0xD7), but it never
+    // contains a comma, since ',' is not a Base64 character.
+    private static boolean isLegacyString(String s) {
+        return s.startsWith("1,");
+    }
+
+    // Decodes a game state stored in SharedPreferences by an older version, or passed to
+    // GameActivity for debugging, in either the string format or Base64 of the binary encoding.
+    // This is called on the journal thread and the UI thread, so it uses its own codec.
+    static GameState decodeGameState(String s) {
+        if (isLegacyString(s)) return GameState.decodeFromString(s);
+        byte[] data = Base64.decode(s, Base64.NO_WRAP);
+        return new BinaryCodec().decodeGameState(data, 0, data.length);
+    }
+
+    private AiConfig decodeAiConfig(String s) {
+        if (isLegacyString(s)) return AiConfig.decodeFromString(s);
+        byte[] data = Base64.decode(s, Base64.NO_WRAP);
+        return codec.decodeAiConfig(data, 0, data.length);
+    }
+
+    private String encodeAiConfig(AiConfig aiConfig) {
+        int length = codec.encodeAiConfig(aiConfig);
+        return Base64.encodeToString(codec.getBuffer(), 0, length, Base64.NO_WRAP);
+    }
+
     public static synchronized GameRegistry getInstance(Context context) {
         if (instance == null) instance = new GameRegistry(context.getApplicationContext());
         return instance;
     }
 
+    /**
+     * Passes the current game state to the callback on the main thread, once it has been loaded.
+     * The callback is always posted, even if the game state was loaded already.
+     */
+    public synchronized void loadCurrentGameState(GameStateCallback callback) {
+        Runnable deliver = () -> callback.onGameStateLoaded(getCurrentGameState());
+        if (pendingGameState == null) {
+            mainHandler.post(deliver);
+        } else {
+            // The journal thread runs tasks in order, so this runs after the load has finished.
+            journalExecutor.execute(() -> mainHandler.post(deliver));
+        }
+    }
+
+    /**
+     * Returns the current game state. On the main thread, this may only be called after
+     * {@link #loadCurrentGameState} has called back.
+     */
     public synchronized @Nullable GameState getCurrentGameState() {
+        ensureGameStateLoaded();
         return currentGameState;
     }
 
     public synchronized void setCurrentGameState(@Nullable GameState gameState) {
+        ensureGameStateLoaded();
         if (Objects.equals(gameState, currentGameState)) {
             Log.i(TAG, "Game state unchanged; skipping save.");
             return;
@@ -101,6 +249,14 @@ public class GameRegistry {
         return currentGameIsCampaign;
     }
 
+    /**
+     * Returns the time at which the current game was started, which identifies the game (e.g. to
+     * let newer AI requests for the same game preempt older ones).
+     */
+    public synchronized long getCurrentGameStartTime() {
+        return currentGameStartTime;
+    }
+
     public synchronized int getCampaignLevel() {
         return campaignLevel;
     }
@@ -125,6 +281,7 @@ public class GameRegistry {
             throw new IllegalArgumentException("aiPlayer must be nonzero when isCampaign is true");
         }
 
+        ensureGameStateLoaded();
         SharedPreferences.Editor editor = updateGameState(currentGameState, newGameState);
 
         currentGameAiPlayer = aiPlayer;
@@ -134,18 +291,31 @@ public class GameRegistry {
         if (aiConfig == null) {
             editor.remove(CURRENT_GAME_AI_CONFIG_KEY);
         } else {
-            editor.putString(CURRENT_GAME_AI_CONFIG_KEY, aiConfig.encodeAsString());
+            editor.putString(CURRENT_GAME_AI_CONFIG_KEY, encodeAiConfig(aiConfig));
         }
 
         currentGameIsCampaign = isCampaign;
         editor.putBoolean(CURRENT_GAME_IS_CAMPAIGN_KEY, isCampaign);
 
+        currentGameStartTime = System.currentTimeMillis();
+        editor.putLong(CURRENT_GAME_START_TIME_KEY, currentGameStartTime);
+
         editor.apply();
     }
 
     @CheckResult
     private SharedPreferences.Editor updateGameState(@Nullable GameState oldGameState, @Nullable GameState newGameState) {
         SharedPreferences.Editor editor = sharedPreferences.edit();
+        // A game can end more than once, if the last move is undone and another one is played. Only
+        // the first result is archived.
+        if (oldGameState != null && !oldGameState.isGameOver() &&
+                newGameState != null && newGameState.isGameOver() &&
+                archivedGameStartTime != currentGameStartTime) {
+            archivedGameStartTime = currentGameStartTime;
+            editor.putLong(ARCHIVED_GAME_START_TIME_KEY, currentGameStartTime);
+            archiveGame(new GameArchive.Game(newGameState, currentGameAiConfig, currentGameAiPlayer,
+                    currentGameIsCampaign, currentGameStartTime, System.currentTimeMillis()));
+        }
         if (currentGameIsCampaign && currentGameAiPlayer != 0 &&
                 oldGameState != null && !oldGameState.isGameOver() &&
                 newGameState != null && newGameState.isGameOver()) {
@@ -164,13 +334,40 @@ public class GameRegistry {
         currentGameState = newGameState;
         if (newGameState == null) {
             Log.i(TAG, "Deleting game state");
-            editor.remove(CURRENT_GAME_STATE_KEY);
         } else {
-            String encodedGameState = newGameState.encodeAsString();
-            Log.i(TAG, "Saving game state: " + encodedGameState);
-            editor.putString(CURRENT_GAME_STATE_KEY, encodedGameState);
+            Log.i(TAG, "Saving game state with " + newGameState.getMoveCount() + " moves");
         }
+        journalExecutor.execute(() -> {
+            try {
+                if (journal.update(oldGameState, newGameState)) {
+                    logGameStateString("Saved snapshot of", newGameState);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save game state!", e);
+            }
+        });
 
         return editor;
     }
+
+    // Logs the game state in the string format, which can be passed to GameActivity (see
+    // DEVELOPMENT.txt). Encoding takes time proportional to the number of moves, so this is only
+    // done on the journal thread, when the journal is loaded or rewritten with a snapshot.
+    private static void logGameStateString(String what, GameState gameState) {
+        Log.i(TAG, what + " game state with " + gameState.getMoveCount() + " moves: " +
+                gameState.encodeAsString());
+    }
+
+    // Appends a finished game to the archive in the background.
+    private void archiveGame(GameArchive.Game game) {
+        journalExecutor.execute(() -> {
+            try {
+                if (archive == null) archive = GameArchive.open(archiveDataFile, archiveIndexFile);
+                archive.append(game);
+                Log.i(TAG, "Archived game; archive now contains " + archive.size() + " games");
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to archive game!", e);
+            }
+        });
+    }
 }
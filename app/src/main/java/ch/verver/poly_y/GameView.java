@@ -2,7 +2,9 @@ package ch.verver.poly_y;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.util.AttributeSet;
@@ -15,6 +17,8 @@ import androidx.core.content.res.ResourcesCompat;
 
 import java.util.ArrayList;
 
+import ch.verver.poly_y.ai.Heatmap;
+
 public class GameView extends View {
     private static final String TAG = "GameView";
 
@@ -29,11 +33,40 @@ public class GameView extends View {
     private final Matrix viewMatrix = new Matrix();
     private final Matrix inverseMatrix = new Matrix();
 
-    // Some temporary paint objects that are used in draw() to avoid allocations (which triggers
-    // a warning, even though it is probably not a big deal). Usually, paint1 is used to stroke,
-    // and paint2 to fill.
-    private final Paint paint1 = new Paint();
-    private final Paint paint2 = new Paint();
+    // The board is drawn in two layers, which are cached in bitmaps of the size of the view. The
+    // static layer contains the empty board (edges, cells and corner arcs), and is only redrawn
+    // when the geometry or the view size changes. The board layer contains the static layer plus
+    // the stones and the edges between stones of the same player. When the game state changes,
+    // only the cells that changed since the previous state are drawn on top of the board layer,
+    // unless stones were removed (e.g. after undo), in which case the board layer is redrawn
+    // from the static layer. The selection, the last move and the captured corners are drawn on
+    // top of the board layer in onDraw().
+    private @Nullable Bitmap staticLayer;
+    private @Nullable Bitmap boardLayer;
+    private @Nullable Canvas boardCanvas;
+    private @Nullable BoardGeometry layerGeometry;  // geometry of the layers, or null if invalid
+    private int[] drawnPieces = new int[0];  // pieces in the board layer, indexed by vertex id
+
+    // Coordinate buffers for drawLines() and drawPoints(), sized for the layer geometry.
+    private float[] lineBuffer = new float[0];
+    private float[] pointBuffer = new float[0];
+
+    // Paint objects, which are configured for the layer geometry in configurePaints() to avoid
+    // allocations in onDraw() (which triggers a warning, even though it is probably not a big
+    // deal). Cells and stones are drawn as points with round caps.
+    private final Paint edgePaint = new Paint();
+    private final Paint cellPaint = new Paint();
+    private final Paint stonePaint = new Paint();
+    private final Paint selectionPaint = new Paint();
+    private final Paint lastMovePaint = new Paint();
+    private final Paint cornerPaint = new Paint();
+    private final Paint heatmapPaint = new Paint();
+
+    // While the engine analyzes the position, the empty cells are shaded by its estimate for
+    // each move, on top of the board layer. While a heatmap is set, the view checks it on every
+    // animation frame, and redraws itself only when the engine has published new values.
+    private @Nullable Heatmap heatmap;
+    private final Runnable heatmapPoller = this::pollHeatmap;
 
     private final ArrayList<FieldClickListener> fieldClickListeners = new ArrayList<>();
 
@@ -68,18 +101,16 @@ public class GameView extends View {
                 float[] xy = new float[]{event.getX(), event.getY()};
                 inverseMatrix.mapPoints(xy);
                 float x = xy[0], y = xy[1];
-                // This could be optimized... but it's probably not necessary.
-                for (BoardGeometry.Vertex v : geometry.vertices) {
-                    if (Math.hypot(v.x - x, v.y - y) < 0.5f / geometry.boardSize) {
-                        for (FieldClickListener listener : fieldClickListeners) {
-                            try {
-                                listener.onFieldClick(v);
-                            } catch (Exception e) {
-                                Log.w(TAG, "FieldClickListener threw exception!", e);
-                            }
+                BoardGeometry.Vertex v = geometry.getVertexGrid().findNearest(x, y, 0.5f / geometry.boardSize);
+                if (v != null) {
+                    for (FieldClickListener listener : fieldClickListeners) {
+                        try {
+                            listener.onFieldClick(v);
+                        } catch (Exception e) {
+                            Log.w(TAG, "FieldClickListener threw exception!", e);
                         }
-                        return true;
                     }
+                    return true;
                 }
             }
 
@@ -105,6 +136,21 @@ public class GameView extends View {
         invalidate();
     }
 
+    /** Sets the heatmap to draw over the empty cells, or null to stop drawing it. */
+    public void setHeatmap(@Nullable Heatmap heatmap) {
+        if (this.heatmap == heatmap) return;
+        this.heatmap = heatmap;
+        removeCallbacks(heatmapPoller);
+        if (heatmap != null) postOnAnimation(heatmapPoller);
+        invalidate();
+    }
+
+    private void pollHeatmap() {
+        if (heatmap == null) return;
+        if (heatmap.hasNewValues()) invalidate();
+        postOnAnimation(heatmapPoller);
+    }
+
     @Override
     protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
         super.onSizeChanged(width, height, oldWidth, oldHeight);
@@ -118,64 +164,262 @@ public class GameView extends View {
         if (!viewMatrix.invert(inverseMatrix)) {
             Log.e(TAG, "view matrix is not invertible somehow‽");
         }
+        releaseLayers();  // recreated at the new size in onDraw()
     }
 
     @Override
-    protected void onDraw(@NonNull Canvas canvas) {
-        super.onDraw(canvas);
-        canvas.concat(viewMatrix);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (heatmap != null) postOnAnimation(heatmapPoller);
+    }
 
-        final BoardGeometry geometry = state.gameState.getGeometry();;
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(heatmapPoller);
+        releaseLayers();
+    }
+
+    private void releaseLayers() {
+        if (staticLayer != null) staticLayer.recycle();
+        if (boardLayer != null) boardLayer.recycle();
+        staticLayer = null;
+        boardLayer = null;
+        boardCanvas = null;
+        layerGeometry = null;
+    }
 
-        paint1.reset();
-        paint1.setStyle(Paint.Style.STROKE);
-        paint1.setStrokeWidth(0.075f / geometry.boardSize);
-        paint1.setStrokeCap(Paint.Cap.ROUND);
+    // Brings the board layer up to date with the given game state, (re)creating the layers if
+    // necessary.
+    private void updateLayers(GameState gameState) {
+        final BoardGeometry geometry = gameState.getGeometry();
+        if (staticLayer == null || boardLayer == null || boardCanvas == null) {
+            staticLayer = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            boardLayer = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            boardCanvas = new Canvas(boardLayer);
+            layerGeometry = null;
+        }
+        if (!geometry.equals(layerGeometry)) {
+            layerGeometry = geometry;
+            configurePaints(geometry);
+            lineBuffer = new float[4 * geometry.edges.size()];
+            pointBuffer = new float[2 * geometry.vertices.size()];
+            drawnPieces = new int[geometry.vertices.size()];
+            drawStaticLayer(geometry);
+            redrawBoardLayer(gameState);
+            return;
+        }
+        boolean changed = false;
+        for (int v = 0; v < drawnPieces.length; ++v) {
+            int piece = gameState.getPiece(v);
+            int drawnPiece = drawnPieces[v];
+            if (piece == drawnPiece) continue;
+            if (drawnPiece != 0) {
+                // A stone was removed or recolored, which may also change the edges around it.
+                redrawBoardLayer(gameState);
+                return;
+            }
+            changed = true;
+        }
+        if (changed) {
+            boardCanvas.save();
+            boardCanvas.concat(viewMatrix);
+            drawStones(boardCanvas, gameState, false);
+            boardCanvas.restore();
+        }
+    }
+
+    private void configurePaints(BoardGeometry geometry) {
+        edgePaint.setStyle(Paint.Style.STROKE);
+        edgePaint.setStrokeWidth(0.075f / geometry.boardSize);
+        edgePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        cellPaint.setStyle(Paint.Style.STROKE);
+        cellPaint.setStrokeWidth(2 * 0.167f / geometry.boardSize);
+        cellPaint.setStrokeCap(Paint.Cap.ROUND);
+        cellPaint.setColor(playerColors[0]);
+
+        stonePaint.setStyle(Paint.Style.STROKE);
+        stonePaint.setStrokeWidth(2 * 0.33f / geometry.boardSize);
+        stonePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        selectionPaint.setStyle(Paint.Style.STROKE);
+        selectionPaint.setStrokeWidth(0.167f / geometry.boardSize);
+
+        lastMovePaint.setStyle(Paint.Style.FILL);
+        lastMovePaint.setColor(0xffffffff);
+
+        cornerPaint.setStyle(Paint.Style.STROKE);
+
+        heatmapPaint.setStyle(Paint.Style.FILL);
+    }
+
+    private void drawStaticLayer(BoardGeometry geometry) {
+        assert staticLayer != null;
+        staticLayer.eraseColor(Color.TRANSPARENT);
+        Canvas canvas = new Canvas(staticLayer);
+        canvas.concat(viewMatrix);
+
+        int n = 0;
         for (BoardGeometry.Edge e : geometry.edges) {
-            int p1 = state.gameState.getPiece(e.v);
-            int p2 = state.gameState.getPiece(e.w);
-            paint1.setColor(playerColors[p1 == p2 ? p1 : 0]);
-            canvas.drawLine(e.v.x, e.v.y, e.w.x, e.w.y, paint1);
+            lineBuffer[n++] = e.v.x;
+            lineBuffer[n++] = e.v.y;
+            lineBuffer[n++] = e.w.x;
+            lineBuffer[n++] = e.w.y;
         }
+        edgePaint.setColor(playerColors[0]);
+        canvas.drawLines(lineBuffer, 0, n, edgePaint);
 
-        paint2.reset();
-        paint2.setStyle(Paint.Style.FILL);
+        n = 0;
         for (BoardGeometry.Vertex v : geometry.vertices) {
-            int player = state.gameState.getPiece(v);
-            paint2.setColor(playerColors[player]);
-            canvas.drawCircle(v.x, v.y, (player == 0 ? 0.167f : 0.33f) / geometry.boardSize, paint2);
-
-            if (v.equals(state.selection)) {
-                paint1.reset();
-                paint1.setStyle(Paint.Style.STROKE);
-                paint1.setStrokeWidth(0.167f / geometry.boardSize);
-                paint1.setColor(playerColors[state.gameState.getNextPlayer()]);
-                canvas.drawCircle(v.x, v.y, 0.25f / geometry.boardSize, paint1);
+            pointBuffer[n++] = v.x;
+            pointBuffer[n++] = v.y;
+        }
+        canvas.drawPoints(pointBuffer, 0, n, cellPaint);
+
+        for (int corner = 0; corner < geometry.sides; ++corner) {
+            drawCorner(canvas, geometry, corner, 0);
+        }
+    }
+
+    private void redrawBoardLayer(GameState gameState) {
+        assert boardLayer != null && boardCanvas != null && staticLayer != null;
+        boardLayer.eraseColor(Color.TRANSPARENT);
+        boardCanvas.drawBitmap(staticLayer, 0, 0, null);
+        boardCanvas.save();
+        boardCanvas.concat(viewMatrix);
+        drawStones(boardCanvas, gameState, true);
+        boardCanvas.restore();
+    }
+
+    // Draws the stones of both players and the edges between stones of the same player, either
+    // all of them, or only those that were added since drawnPieces, which is then updated.
+    // Edges are drawn before stones, so that the stones cover the empty edges around them.
+    private void drawStones(Canvas canvas, GameState gameState, boolean all) {
+        final BoardGeometry geometry = gameState.getGeometry();
+        for (int player = 1; player <= 2; ++player) {
+            int n = 0;
+            if (all) {
+                for (BoardGeometry.Edge e : geometry.edges) {
+                    if (gameState.getPiece(e.v) == player && gameState.getPiece(e.w) == player) {
+                        n = addLine(n, e.v, e.w);
+                    }
+                }
+            } else {
+                final int[] neighborOffsets = geometry.neighborOffsets;
+                final int[] neighborTargets = geometry.neighborTargets;
+                for (int v = 0; v < drawnPieces.length; ++v) {
+                    if (drawnPieces[v] != 0 || gameState.getPiece(v) != player) continue;
+                    for (int i = neighborOffsets[v]; i < neighborOffsets[v + 1]; ++i) {
+                        int w = neighborTargets[i];
+                        // If both v and w are new, add the edge only once.
+                        if (gameState.getPiece(w) == player && (drawnPieces[w] == player || w < v)) {
+                            n = addLine(n, geometry.vertices.get(v), geometry.vertices.get(w));
+                        }
+                    }
+                }
+            }
+            if (n > 0) {
+                edgePaint.setColor(playerColors[player]);
+                canvas.drawLines(lineBuffer, 0, n, edgePaint);
+            }
+        }
+        for (int player = 1; player <= 2; ++player) {
+            int n = 0;
+            for (BoardGeometry.Vertex v : geometry.vertices) {
+                if (gameState.getPiece(v) == player && (all || drawnPieces[v.id] != player)) {
+                    pointBuffer[n++] = v.x;
+                    pointBuffer[n++] = v.y;
+                }
             }
+            if (n > 0) {
+                stonePaint.setColor(playerColors[player]);
+                canvas.drawPoints(pointBuffer, 0, n, stonePaint);
+            }
+        }
+        for (int v = 0; v < drawnPieces.length; ++v) {
+            drawnPieces[v] = gameState.getPiece(v);
+        }
+    }
+
+    private int addLine(int n, BoardGeometry.Vertex v, BoardGeometry.Vertex w) {
+        lineBuffer[n++] = v.x;
+        lineBuffer[n++] = v.y;
+        lineBuffer[n++] = w.x;
+        lineBuffer[n++] = w.y;
+        return n;
+    }
+
+    // Shades each empty cell from red (the worst estimate) to green (the best estimate). The
+    // colors are scaled to the range of the current estimates, since these are often close to
+    // each other.
+    private void drawHeatmap(Canvas canvas, GameState gameState, float[] values) {
+        final BoardGeometry geometry = gameState.getGeometry();
+        if (values.length != geometry.vertices.size() + 1) return;  // heatmap of another board
+        float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+        for (int i = 1; i < values.length; ++i) {
+            float value = values[i];
+            if (value < min) min = value;  // false for NaN
+            if (value > max) max = value;
+        }
+        if (min > max) return;  // no estimates yet
+        float range = Math.max(max - min, 1e-3f);
+        float radius = 0.25f / geometry.boardSize;
+        for (int id = 0; id < geometry.vertices.size(); ++id) {
+            if (gameState.getPiece(id) != 0) continue;
+            float value = values[geometry.vertexIdToCodeCupId(id)];
+            if (Float.isNaN(value)) continue;
+            float t = (value - min) / range;
+            heatmapPaint.setColor(Color.argb(0xc0, (int) (255 * (1 - t)), (int) (255 * t), 0));
+            BoardGeometry.Vertex v = geometry.vertices.get(id);
+            canvas.drawCircle(v.x, v.y, radius, heatmapPaint);
+        }
+    }
+
+    private void drawCorner(Canvas canvas, BoardGeometry geometry, int corner, int player) {
+        cornerPaint.setStrokeWidth((player == 0 ? 0.1f : 0.2f) / geometry.boardSize);
+        cornerPaint.setColor(playerColors[player]);
+        float sweepAngle = 360f / geometry.sides * 0.8f;
+        float startAngle = 360f * corner / geometry.sides - sweepAngle/2 - 90;
+        canvas.drawArc(-0.95f, -0.95f, 0.95f, 0.95f,  startAngle, sweepAngle, false, cornerPaint);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (getWidth() <= 0 || getHeight() <= 0) return;
+
+        final GameState gameState = state.gameState;
+        final BoardGeometry geometry = gameState.getGeometry();
+        updateLayers(gameState);
+        assert boardLayer != null;
+        canvas.drawBitmap(boardLayer, 0, 0, null);
+
+        canvas.concat(viewMatrix);
+
+        if (heatmap != null) {
+            drawHeatmap(canvas, gameState, heatmap.latest());
+        }
+
+        BoardGeometry.Vertex selection = state.selection;
+        if (selection != null) {
+            selectionPaint.setColor(playerColors[gameState.getNextPlayer()]);
+            canvas.drawCircle(selection.x, selection.y, 0.25f / geometry.boardSize, selectionPaint);
         }
 
-        BoardGeometry.Vertex lastMovePos = state.gameState.getLastMove();
+        BoardGeometry.Vertex lastMovePos = gameState.getLastMove();
         if (lastMovePos != null) {
-            paint2.reset();
-            paint2.setStyle(Paint.Style.FILL);
-            paint2.setColor(0xffffffff);
             float d = 0.1f / geometry.boardSize;
             canvas.drawRect(
                     lastMovePos.x - d, lastMovePos.y - d,
                     lastMovePos.x + d, lastMovePos.y + d,
-                    paint2);
+                    lastMovePaint);
         }
 
         // Draw corners that have been captured.
-        paint1.reset();
-        paint1.setStyle(Paint.Style.STROKE);
         for (int corner = 0; corner < geometry.sides; ++corner) {
-            int player = state.gameState.getCornerWinner(corner);
-            paint1.setStrokeWidth((player == 0 ? 0.1f : 0.2f) / geometry.boardSize);
-            paint1.setColor(playerColors[player]);
-            float sweepAngle = 360f / geometry.sides * 0.8f;
-            float startAngle = 360f * corner / geometry.sides - sweepAngle/2 - 90;
-            canvas.drawArc(-0.95f, -0.95f, 0.95f, 0.95f,  startAngle, sweepAngle, false, paint1);
+            int player = gameState.getCornerWinner(corner);
+            if (player != 0) drawCorner(canvas, geometry, corner, player);
         }
     }
 }
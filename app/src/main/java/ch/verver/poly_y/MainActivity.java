@@ -35,13 +35,16 @@ public class MainActivity extends Activity {
         gameRegistry = GameRegistry.getInstance(this);
 
         // Check if there is a game to resume. If so, switch to the GameActivity immediately.
-        GameState currentGameState = gameRegistry.getCurrentGameState();
-        if (currentGameState != null && !currentGameState.isGameOver()) {
-            switchToGameActivity();
-            return;
-        }
-
-        setContentView(new AppView(this));
+        // The game state is loaded in the background, so the home screen is shown only once it
+        // is known that there is no game to resume.
+        gameRegistry.loadCurrentGameState(currentGameState -> {
+            if (isDestroyed()) return;
+            if (currentGameState != null && !currentGameState.isGameOver()) {
+                switchToGameActivity();
+                return;
+            }
+            setContentView(new AppView(this));
+        });
     }
 
     private void startCampaignGame() {
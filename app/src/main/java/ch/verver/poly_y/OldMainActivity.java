@@ -32,13 +32,18 @@ public class OldMainActivity extends Activity {
 
         gameRegistry = GameRegistry.getInstance(this);
 
-        // Check if there is a game to resume.
-        GameState currentGameState = gameRegistry.getCurrentGameState();
-        if (currentGameState != null && !currentGameState.isGameOver()) {
-            switchToGameActivity();
-            return;
-        }
+        // Check if there is a game to resume, once the game state has been loaded.
+        gameRegistry.loadCurrentGameState(currentGameState -> {
+            if (isDestroyed()) return;
+            if (currentGameState != null && !currentGameState.isGameOver()) {
+                switchToGameActivity();
+                return;
+            }
+            showLayout();
+        });
+    }
 
+    private void showLayout() {
         // TODO: this doesn't seem to work.
         // Force night-mode, which looks more consistent with the GameActivity.
         //AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
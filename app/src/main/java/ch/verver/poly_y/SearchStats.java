@@ -0,0 +1,126 @@
+package ch.verver.poly_y;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+import ch.verver.poly_y.ai.TreeBot;
+
+/** Immutable statistics about the calculation of a single AI move. */
+public final class SearchStats {
+
+    /** How the move was selected. */
+    public enum Source {
+        /** Swapped with the opponent's first move; no search was necessary. */
+        SWAP,
+        /** Taken from the opening book; no search was necessary. */
+        OPENING_BOOK,
+        /** Taken from the search result cache; no search was necessary. */
+        CACHE,
+        /** Selected by the Monte Carlo tree search. */
+        SEARCH,
+    }
+
+    public final Source source;
+
+    /** Total time taken to select the move (wall time). */
+    public final long durationMillis;
+
+    // The fields below are only set if source == SEARCH; otherwise they are 0.
+
+    /** Whether the search continued from a tree of an earlier search of the same position. */
+    public final boolean seeded;
+
+    /** Number of tree expansions in this search. */
+    public final long iterations;
+
+    /** Number of random games played in this search. */
+    public final long playouts;
+
+    /** Average number of moves per random game. */
+    public final double meanPlayoutLength;
+
+    /** Fraction of playout moves selected by patterns (as opposed to randomly). */
+    public final double patternHitRatio;
+
+    /** Number of nodes in the tree at the end of the search. */
+    public final long treeNodes;
+
+    /** Rough estimate of the memory used by the tree at the end of the search. */
+    public final long estimatedTreeBytes;
+
+    /** Maximum depth of the tree (the root has depth 0). */
+    public final int maxDepth;
+
+    /** Average depth of the nodes in the tree. */
+    public final double meanDepth;
+
+    /** Time spent selecting and creating nodes, playing out games, and updating statistics. */
+    public final long selectionNanos, playoutNanos, backupNanos;
+
+    private SearchStats(Source source, long durationMillis, boolean seeded, long iterations,
+            long playouts, double meanPlayoutLength, double patternHitRatio, long treeNodes,
+            long estimatedTreeBytes, int maxDepth, double meanDepth,
+            long selectionNanos, long playoutNanos, long backupNanos) {
+        this.source = source;
+        this.durationMillis = durationMillis;
+        this.seeded = seeded;
+        this.iterations = iterations;
+        this.playouts = playouts;
+        this.meanPlayoutLength = meanPlayoutLength;
+        this.patternHitRatio = patternHitRatio;
+        this.treeNodes = treeNodes;
+        this.estimatedTreeBytes = estimatedTreeBytes;
+        this.maxDepth = maxDepth;
+        this.meanDepth = meanDepth;
+        this.selectionNanos = selectionNanos;
+        this.playoutNanos = playoutNanos;
+        this.backupNanos = backupNanos;
+    }
+
+    /** Creates statistics for a move that was selected without searching. */
+    static SearchStats withoutSearch(Source source, long durationMillis) {
+        if (source == Source.SEARCH) throw new IllegalArgumentException("source must not be SEARCH");
+        return new SearchStats(source, durationMillis, false, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Creates statistics for a search, from the tree's counters before and after the search.
+     *
+     * @param before the counters before the search, or null if the tree was created for this search
+     */
+    static SearchStats fromCounters(long durationMillis, boolean seeded,
+            @Nullable TreeBot.Counters before, TreeBot.Counters after) {
+        long playouts = after.playouts - (before == null ? 0 : before.playouts);
+        long playoutMoves = after.playoutMoves - (before == null ? 0 : before.playoutMoves);
+        long patternMoves = after.patternMoves - (before == null ? 0 : before.patternMoves);
+        return new SearchStats(Source.SEARCH, durationMillis, seeded,
+                after.expansions - (before == null ? 0 : before.expansions),
+                playouts,
+                playouts == 0 ? 0 : (double) playoutMoves / playouts,
+                playoutMoves == 0 ? 0 : (double) patternMoves / playoutMoves,
+                after.nodes,
+                after.estimatedTreeBytes(),
+                after.maxDepth,
+                after.nodes == 0 ? 0 : (double) after.depthSum / after.nodes,
+                after.selectionNanos - (before == null ? 0 : before.selectionNanos),
+                after.playoutNanos - (before == null ? 0 : before.playoutNanos),
+                after.backupNanos - (before == null ? 0 : before.backupNanos));
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        if (source != Source.SEARCH) {
+            return "SearchStats{source=" + source + ", durationMillis=" + durationMillis + "}";
+        }
+        return String.format(Locale.ROOT,
+                "SearchStats{source=%s, durationMillis=%d, seeded=%b, iterations=%d, playouts=%d, " +
+                "meanPlayoutLength=%.1f, patternHitRatio=%.3f, treeNodes=%d, estimatedTreeBytes=%d, " +
+                "maxDepth=%d, meanDepth=%.1f, selectionMillis=%d, playoutMillis=%d, backupMillis=%d}",
+                source, durationMillis, seeded, iterations, playouts, meanPlayoutLength,
+                patternHitRatio, treeNodes, estimatedTreeBytes, maxDepth, meanDepth,
+                selectionNanos / 1000000, playoutNanos / 1000000, backupNanos / 1000000);
+    }
+}
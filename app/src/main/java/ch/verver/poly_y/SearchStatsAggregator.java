@@ -0,0 +1,65 @@
+package ch.verver.poly_y;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Collects the {@link SearchStats} of recent AI moves, so that metrics can be summarized as
+ * percentiles across moves and games. Register it with
+ * {@link AiManager#addSearchStatsListener(AiManager.SearchStatsListener)}.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class SearchStatsAggregator implements AiManager.SearchStatsListener {
+
+    /** A numeric metric extracted from the statistics of a move. */
+    public interface Metric {
+        double get(SearchStats stats);
+    }
+
+    public static final Metric DURATION_MILLIS = stats -> stats.durationMillis;
+    public static final Metric ITERATIONS_PER_SECOND = stats ->
+            stats.durationMillis == 0 ? 0 : stats.iterations * 1000.0 / stats.durationMillis;
+    public static final Metric TREE_NODES = stats -> stats.treeNodes;
+    public static final Metric MAX_DEPTH = stats -> stats.maxDepth;
+    public static final Metric PATTERN_HIT_RATIO = stats -> stats.patternHitRatio;
+
+    private final int capacity;
+    private final ArrayDeque<SearchStats> recent = new ArrayDeque<>();
+
+    /** @param capacity the number of most recent moves to keep */
+    public SearchStatsAggregator(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void onSearchStats(SearchStats stats) {
+        if (recent.size() == capacity) recent.removeFirst();
+        recent.addLast(stats);
+    }
+
+    /** Returns the number of moves collected so far (at most the capacity). */
+    public synchronized int size() {
+        return recent.size();
+    }
+
+    /**
+     * Returns the given percentile (between 0 and 100) of the metric over the collected moves
+     * that were selected by searching, or NaN if there are none. Uses the nearest-rank method.
+     */
+    public synchronized double percentile(Metric metric, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        double[] values = new double[recent.size()];
+        int count = 0;
+        for (SearchStats stats : recent) {
+            if (stats.source == SearchStats.Source.SEARCH) values[count++] = metric.get(stats);
+        }
+        if (count == 0) return Double.NaN;
+        Arrays.sort(values, 0, count);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return values[Math.max(rank - 1, 0)];
+    }
+}
@@ -0,0 +1,203 @@
+package ch.verver.poly_y;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+
+import ch.verver.poly_y.ai.TreeBot;
+
+import static org.junit.Assert.*;
+
+public class AiCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static AiCache.Result result(int ccMove, long iterations) {
+        return new AiCache.Result(ccMove, ccMove / 1000f, iterations);
+    }
+
+    private static void assertResult(AiCache.Result expected, AiCache.Result actual) {
+        assertNotNull(actual);
+        assertEquals(expected.ccMove, actual.ccMove);
+        assertEquals(expected.winProbability, actual.winProbability, 0f);
+        assertEquals(expected.iterations, actual.iterations);
+    }
+
+    private static TreeBot.Tree createTree() {
+        return new TreeBot(BoardGeometry.DEFAULT_GEOMETRY, 1).createTree(Collections.<Integer>emptyList());
+    }
+
+    @Test
+    public void positionKeyIgnoresMoveOrder() {
+        BoardGeometry geometry = BoardGeometry.DEFAULT_GEOMETRY;
+        GameState a = GameState.calculate(geometry, true, new int[]{1, 2, 3});
+        GameState b = GameState.calculate(geometry, true, new int[]{3, 2, 1});
+        GameState c = GameState.calculate(geometry, true, new int[]{2, 1, 3});
+        assertEquals(AiCache.positionKey(a), AiCache.positionKey(b));
+        assertNotEquals(AiCache.positionKey(a), AiCache.positionKey(c));
+        assertNotEquals(AiCache.positionKey(GameState.calculate(geometry)),
+                AiCache.positionKey(GameState.calculate(BoardGeometry.get(5, 5))));
+    }
+
+    @Test
+    public void memoryTier() {
+        AiCache cache = new AiCache(null);
+        assertNull(cache.get(1, 100));
+        cache.put(1, result(10, 100), null);
+        assertResult(result(10, 100), cache.get(1, 100));
+        assertResult(result(10, 100), cache.get(1, 50));
+        assertNull(cache.get(1, 101));
+        assertNull(cache.get(2, 1));
+
+        // A result with a smaller budget does not replace one with a larger budget.
+        cache.put(1, result(11, 50), null);
+        assertResult(result(10, 100), cache.get(1, 1));
+        cache.put(1, result(12, 200), null);
+        assertResult(result(12, 200), cache.get(1, 200));
+
+        AiCache.Stats stats = cache.getStats();
+        assertEquals(4, stats.memoryHits);
+        assertEquals(0, stats.diskHits);
+        assertEquals(3, stats.misses);
+        assertEquals(0, stats.memoryEvictions);
+    }
+
+    @Test
+    public void diskTierSurvivesRestart() {
+        File file = new File(folder.getRoot(), "cache");
+        AiCache cache = new AiCache(file);
+        cache.put(1, result(10, 100), null);
+        cache.put(2, result(20, 100), null);
+        cache.put(2, result(21, 200), null);
+        cache.put(2, result(22, 150), null);
+        assertEquals(AiCache.HEADER_SIZE + 3 * AiCache.RECORD_SIZE, file.length());
+
+        AiCache restarted = new AiCache(file);
+        assertResult(result(10, 100), restarted.get(1, 100));
+        assertNull(restarted.get(1, 101));
+        assertResult(result(21, 200), restarted.get(2, 200));
+        assertNull(restarted.get(3, 1));
+        // The results read from disk are now in the memory tier.
+        assertResult(result(10, 100), restarted.get(1, 100));
+
+        AiCache.Stats stats = restarted.getStats();
+        assertEquals(1, stats.memoryHits);
+        assertEquals(2, stats.diskHits);
+        assertEquals(2, stats.misses);
+    }
+
+    @Test
+    public void discardsPartialRecord() throws IOException {
+        File file = new File(folder.getRoot(), "cache");
+        AiCache cache = new AiCache(file);
+        cache.put(1, result(10, 100), null);
+        cache.put(2, result(20, 100), null);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 1);
+        }
+        AiCache restarted = new AiCache(file);
+        assertResult(result(10, 100), restarted.get(1, 100));
+        assertNull(restarted.get(2, 100));
+        assertEquals(AiCache.HEADER_SIZE + AiCache.RECORD_SIZE, file.length());
+    }
+
+    private void assertHeaderMismatchDiscardsFile(int offset, int value) throws IOException {
+        File file = folder.newFile();
+        new AiCache(file).put(1, result(10, 100), null);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+            raf.writeInt(value);
+        }
+        AiCache restarted = new AiCache(file);
+        assertNull(restarted.get(1, 100));
+        assertEquals(0, restarted.getStats().diskHits);
+
+        // The file was reset, with the current header.
+        assertEquals(AiCache.HEADER_SIZE, file.length());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            assertEquals(AiCache.DISK_MAGIC, raf.readInt());
+            assertEquals(AiCache.DISK_VERSION, raf.readInt());
+            assertEquals(TreeBot.ENGINE_VERSION, raf.readInt());
+        }
+        restarted.put(1, result(11, 100), null);
+        assertResult(result(11, 100), new AiCache(file).get(1, 100));
+    }
+
+    @Test
+    public void versionMismatchDiscardsFile() throws IOException {
+        assertHeaderMismatchDiscardsFile(0, AiCache.DISK_MAGIC + 1);
+        assertHeaderMismatchDiscardsFile(4, AiCache.DISK_VERSION - 1);
+        assertHeaderMismatchDiscardsFile(8, TreeBot.ENGINE_VERSION - 1);
+    }
+
+    @Test
+    public void memoryEviction() {
+        AiCache cache = new AiCache(null);
+        for (int i = 0; i < AiCache.MAX_MEMORY_ENTRIES; ++i) cache.put(i, result(i, 100), null);
+        // Accessing the oldest entry makes it the most recently used one.
+        assertNotNull(cache.get(0, 100));
+        cache.put(AiCache.MAX_MEMORY_ENTRIES, result(1, 100), null);
+        assertEquals(1, cache.getStats().memoryEvictions);
+        assertNotNull(cache.get(0, 100));
+        assertNull(cache.get(1, 100));
+        assertNotNull(cache.get(2, 100));
+        assertNotNull(cache.get(AiCache.MAX_MEMORY_ENTRIES, 100));
+    }
+
+    @Test
+    public void evictedResultsAreReadFromDisk() {
+        File file = new File(folder.getRoot(), "cache");
+        AiCache cache = new AiCache(file);
+        for (int i = 0; i <= AiCache.MAX_MEMORY_ENTRIES; ++i) cache.put(i, result(i, 100), null);
+        assertEquals(1, cache.getStats().memoryEvictions);
+        assertResult(result(0, 100), cache.get(0, 100));
+        assertEquals(1, cache.getStats().diskHits);
+    }
+
+    @Test
+    public void diskEviction() {
+        File file = new File(folder.getRoot(), "cache");
+        AiCache cache = new AiCache(file);
+        int records = AiCache.MAX_DISK_RECORDS + 1;
+        for (int i = 0; i < records; ++i) cache.put(i, result(i, 100), null);
+        // The file was compacted before writing the last record, keeping the most recent half.
+        int kept = AiCache.MAX_DISK_RECORDS / 2;
+        assertEquals(AiCache.MAX_DISK_RECORDS - kept, cache.getStats().diskEvictions);
+        assertEquals(AiCache.HEADER_SIZE + (long) (kept + 1) * AiCache.RECORD_SIZE, file.length());
+
+        AiCache restarted = new AiCache(file);
+        assertNull(restarted.get(0, 100));
+        assertNull(restarted.get(records - kept - 2, 100));
+        for (int i = records - kept - 1; i < records; ++i) assertResult(result(i, 100), restarted.get(i, 100));
+    }
+
+    @Test
+    public void seeds() {
+        AiCache cache = new AiCache(null);
+        assertNull(cache.takeSeed(1));
+        TreeBot.Tree tree = createTree();
+        cache.put(1, result(10, 100), tree);
+        AiCache.Seed seed = cache.takeSeed(1);
+        assertNotNull(seed);
+        assertSame(tree, seed.tree);
+        assertEquals(100, seed.iterations);
+        // The caller owns the seed now.
+        assertNull(cache.takeSeed(1));
+        assertEquals(1, cache.getStats().seeded);
+
+        // Only a few small trees are retained.
+        cache.putSeed(1, createTree(), 1000000);
+        assertNull(cache.takeSeed(1));
+        cache.putSeed(1, createTree(), 10);
+        cache.putSeed(2, createTree(), 20);
+        cache.putSeed(3, createTree(), 30);
+        assertNull(cache.takeSeed(1));
+        assertEquals(20, cache.takeSeed(2).iterations);
+        assertEquals(30, cache.takeSeed(3).iterations);
+    }
+}
@@ -0,0 +1,221 @@
+package ch.verver.poly_y;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class AiSchedulerTest {
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    // Fails the test if the condition does not become true before the timeout.
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void awaitCondition(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.holds()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertTrue("Timed out", latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    // Calls checkpoint() until the condition holds, like a search that runs until it is done.
+    private static void runUntil(AiScheduler.Ticket ticket, Condition condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.holds() && System.currentTimeMillis() < deadline) ticket.checkpoint();
+    }
+
+    @Test
+    public void movePreemptsBackground() throws InterruptedException {
+        AiScheduler scheduler = new AiScheduler(1);
+        CountDownLatch backgroundStarted = new CountDownLatch(1);
+        CountDownLatch backgroundDone = new CountDownLatch(1);
+        AtomicBoolean moveDone = new AtomicBoolean();
+        scheduler.submit(AiScheduler.Priority.BACKGROUND, ticket -> {
+            backgroundStarted.countDown();
+            runUntil(ticket, moveDone::get);
+            backgroundDone.countDown();
+        });
+        await(backgroundStarted);
+        // With a single worker, the move can only run if the background task pauses.
+        scheduler.submit(AiScheduler.Priority.MOVE, ticket -> moveDone.set(true));
+        await(backgroundDone);
+        assertTrue(moveDone.get());
+
+        AiScheduler.Stats stats = scheduler.getStats();
+        assertEquals(1, stats.get(AiScheduler.Priority.BACKGROUND).pauses);
+        assertEquals(0, stats.get(AiScheduler.Priority.MOVE).pauses);
+    }
+
+    @Test
+    public void hintRunsBeforeBackgroundResumes() throws InterruptedException {
+        AiScheduler scheduler = new AiScheduler(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch backgroundStarted = new CountDownLatch(1);
+        CountDownLatch backgroundDone = new CountDownLatch(1);
+        AtomicBoolean moveDone = new AtomicBoolean();
+        AtomicBoolean hintDone = new AtomicBoolean();
+        scheduler.submit(AiScheduler.Priority.BACKGROUND, ticket -> {
+            backgroundStarted.countDown();
+            runUntil(ticket, () -> {
+                if (moveDone.get() && !hintDone.get()) events.add("background ran between move and hint");
+                return hintDone.get();
+            });
+            events.add("background");
+            backgroundDone.countDown();
+        });
+        await(backgroundStarted);
+        scheduler.submit(AiScheduler.Priority.MOVE, ticket -> {
+            scheduler.submit(AiScheduler.Priority.HINT, hint -> {
+                events.add("hint");
+                hintDone.set(true);
+            });
+            // Wait until the hint is queued behind the paused background task.
+            try {
+                awaitCondition(() -> scheduler.getWaitingCount() == 2);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            events.add("move");
+            moveDone.set(true);
+        });
+        await(backgroundDone);
+        assertEquals(Arrays.asList("move", "hint", "background"), events);
+        assertEquals(1, scheduler.getStats().get(AiScheduler.Priority.BACKGROUND).pauses);
+    }
+
+    @Test
+    public void timeSlicesRotate() throws InterruptedException {
+        AiScheduler scheduler = new AiScheduler(1);
+        List<String> turns = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        for (String name : new String[]{"a", "b"}) {
+            scheduler.submit(AiScheduler.Priority.BACKGROUND, ticket -> {
+                firstStarted.countDown();
+                runUntil(ticket, () -> {
+                    if (turns.size() >= 5) return true;
+                    // Only one task runs at a time, so this records each change of turn.
+                    if (turns.isEmpty() || !turns.get(turns.size() - 1).equals(name)) turns.add(name);
+                    return false;
+                });
+                done.countDown();
+            });
+            await(firstStarted);
+        }
+        await(done);
+        assertEquals(Arrays.asList("a", "b", "a", "b", "a"), turns);
+
+        AiScheduler.ClassStats stats = scheduler.getStats().get(AiScheduler.Priority.BACKGROUND);
+        assertEquals(4, stats.pauses);
+        // Each turn but the last lasted a full time slice.
+        assertTrue(stats.totalRunMillis >= 4 * AiScheduler.TIME_SLICE_MILLIS);
+        assertTrue(stats.totalPausedMillis >= 2 * AiScheduler.TIME_SLICE_MILLIS);
+    }
+
+    @Test
+    public void higherPriorityTasksDoNotPauseForTimeSlices() throws InterruptedException {
+        AiScheduler scheduler = new AiScheduler(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicBoolean hintDone = new AtomicBoolean();
+        scheduler.submit(AiScheduler.Priority.HINT, ticket -> {
+            started.countDown();
+            long end = System.nanoTime() + 2 * AiScheduler.TIME_SLICE_MILLIS * 1000000L;
+            runUntil(ticket, () -> System.nanoTime() > end);
+            hintDone.set(true);
+            done.countDown();
+        });
+        await(started);
+        scheduler.submit(AiScheduler.Priority.HINT, ticket -> {
+            assertTrue(hintDone.get());
+            done.countDown();
+        });
+        await(done);
+        assertEquals(0, scheduler.getStats().get(AiScheduler.Priority.HINT).pauses);
+    }
+
+    @Test
+    public void cancelWhileQueued() throws InterruptedException {
+        AiScheduler scheduler = new AiScheduler(1);
+        CountDownLatch moveStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch moveDone = new CountDownLatch(1);
+        AtomicBoolean backgroundRan = new AtomicBoolean();
+        scheduler.submit(AiScheduler.Priority.MOVE, ticket -> {
+            moveStarted.countDown();
+            try {
+                await(release);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            moveDone.countDown();
+        });
+        await(moveStarted);
+        AiScheduler.Ticket background = scheduler.submit(AiScheduler.Priority.BACKGROUND, ticket -> backgroundRan.set(true));
+        awaitCondition(() -> scheduler.getWaitingCount() == 1);
+        background.cancel();
+        assertTrue(background.isCancelled());
+        assertEquals(0, scheduler.getWaitingCount());
+        awaitCondition(() -> scheduler.getStats().get(AiScheduler.Priority.BACKGROUND).cancelledBeforeStart == 1);
+        release.countDown();
+        await(moveDone);
+
+        // A task that is submitted later still runs.
+        CountDownLatch laterDone = new CountDownLatch(1);
+        scheduler.submit(AiScheduler.Priority.BACKGROUND, ticket -> laterDone.countDown());
+        await(laterDone);
+        assertFalse(backgroundRan.get());
+        AiScheduler.ClassStats stats = scheduler.getStats().get(AiScheduler.Priority.BACKGROUND);
+        assertEquals(2, stats.submitted);
+        assertEquals(1, stats.cancelledBeforeStart);
+    }
+
+    @Test
+    public void statsCountQueueAndRunTime() throws InterruptedException {
+        AiScheduler scheduler = new AiScheduler(1);
+        final long runMillis = 60;
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; ++i) {
+            scheduler.submit(AiScheduler.Priority.PONDER, ticket -> {
+                long end = System.nanoTime() + runMillis * 1000000L;
+                runUntil(ticket, () -> System.nanoTime() > end);
+                done.countDown();
+            });
+        }
+        await(done);
+        // The last task releases its worker after counting down, so wait for another task to
+        // run before reading the stats.
+        CountDownLatch hintDone = new CountDownLatch(1);
+        scheduler.submit(AiScheduler.Priority.HINT, ticket -> hintDone.countDown());
+        await(hintDone);
+        AiScheduler.Stats stats = scheduler.getStats();
+        assertEquals(1, stats.workers);
+        AiScheduler.ClassStats ponder = stats.get(AiScheduler.Priority.PONDER);
+        assertEquals(3, ponder.submitted);
+        assertEquals(0, ponder.cancelledBeforeStart);
+        assertEquals(0, ponder.pauses);  // each task finishes within its time slice
+        assertTrue(ponder.totalRunMillis >= 3 * runMillis);
+        // The tasks ran one after the other, so the last one waited for the other two.
+        assertTrue(ponder.maxQueueWaitMillis >= 2 * runMillis - 5);
+        assertTrue(ponder.totalQueueWaitMillis >= 3 * runMillis - 10);
+        assertEquals(0, ponder.totalPausedMillis);
+        for (AiScheduler.Priority priority : new AiScheduler.Priority[]{
+                AiScheduler.Priority.MOVE, AiScheduler.Priority.BACKGROUND}) {
+            assertEquals(0, stats.get(priority).submitted);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package ch.verver.poly_y;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static GameState randomMove(GameState state, Random random) {
+        BoardGeometry geometry = state.getGeometry();
+        BoardGeometry.Vertex v;
+        do {
+            v = geometry.vertices.get(random.nextInt(geometry.vertices.size()));
+        } while (!state.isValidMove(v));
+        return state.move(v);
+    }
+
+    private static void assertSameGame(GameState expected, GameState actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getCodeCupMoves(), actual.getCodeCupMoves());
+        assertEquals(expected.isResigned(), actual.isResigned());
+        assertEquals(expected.isPieRuleEnabled(), actual.isPieRuleEnabled());
+    }
+
+    private static byte[] read(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
+    }
+
+    // Returns the contents of a journal that holds only a snapshot of the given state.
+    private byte[] snapshot(GameState state) throws IOException {
+        File file = new File(folder.newFolder(), "snapshot.journal");
+        new GameJournal(file).update(null, state);
+        return read(file);
+    }
+
+    private static GameState reload(File file) throws IOException {
+        return new GameJournal(file).load();
+    }
+
+    @Test
+    public void loadReturnsNullWithoutJournal() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        assertFalse(journal.exists());
+        assertNull(journal.load());
+    }
+
+    @Test
+    public void roundTripOfSnapshotAndRecords() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        Random random = new Random(1);
+
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        journal.update(null, state);
+        assertTrue(journal.exists());
+        assertSameGame(state, reload(file));
+
+        // The second move swaps.
+        BoardGeometry.Vertex first = state.getGeometry().vertices.get(10);
+        GameState[] states = {state.move(first), state.move(first).move(first)};
+        for (GameState next : states) {
+            journal.update(state, next);
+            state = next;
+            assertSameGame(state, reload(file));
+        }
+        for (int i = 0; i < 10; ++i) {
+            GameState next = randomMove(state, random);
+            journal.update(state, next);
+            state = next;
+            assertSameGame(state, reload(file));
+        }
+        GameState resigned = state.resign();
+        journal.update(state, resigned);
+        assertSameGame(resigned, reload(file));
+
+        // Every change was appended as a record after the snapshot.
+        byte[] data = read(file);
+        byte[] initial = snapshot(GameState.DEFAULT_GAME_STATE);
+        assertTrue(data.length > initial.length);
+        assertArrayEquals(initial, Arrays.copyOf(data, initial.length));
+
+        // A journal that was loaded can be appended to.
+        GameJournal reopened = new GameJournal(file);
+        GameState loaded = reopened.load();
+        reopened.update(loaded, GameState.DEFAULT_GAME_STATE);
+        assertSameGame(GameState.DEFAULT_GAME_STATE, reload(file));
+    }
+
+    @Test
+    public void compactsAfterMaxRecords() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        Random random = new Random(2);
+
+        GameState state = GameState.calculate(BoardGeometry.get(9, 7), false);
+        journal.update(null, state);
+        byte[] previous = read(file);
+        for (int i = 1; i <= 64; ++i) {
+            GameState next = randomMove(state, random);
+            assertFalse(next.isGameOver());
+            assertFalse(journal.update(state, next));
+            state = next;
+            byte[] data = read(file);
+            assertTrue("record " + i + " is appended", data.length > previous.length);
+            assertArrayEquals(previous, Arrays.copyOf(data, previous.length));
+            previous = data;
+        }
+        assertSameGame(state, reload(file));
+
+        // The 65th change rewrites the journal with a snapshot.
+        GameState next = randomMove(state, random);
+        assertTrue(journal.update(state, next));
+        state = next;
+        assertArrayEquals(snapshot(state), read(file));
+        assertSameGame(state, reload(file));
+
+        // After that, records are appended again.
+        previous = read(file);
+        next = randomMove(state, random);
+        journal.update(state, next);
+        state = next;
+        byte[] data = read(file);
+        assertTrue(data.length > previous.length);
+        assertArrayEquals(previous, Arrays.copyOf(data, previous.length));
+        assertSameGame(state, reload(file));
+    }
+
+    @Test
+    public void undoAndNewGameForceSnapshot() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        Random random = new Random(3);
+
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        journal.update(null, state);
+        GameState undone = state;
+        for (int i = 0; i < 5; ++i) {
+            undone = state;
+            GameState next = randomMove(state, random);
+            journal.update(state, next);
+            state = next;
+        }
+
+        assertTrue(journal.update(state, undone));
+        assertArrayEquals(snapshot(undone), read(file));
+        assertSameGame(undone, reload(file));
+
+        GameState resigned = undone.resign();
+        journal.update(undone, resigned);
+        GameState unresigned = undone;
+        journal.update(resigned, unresigned);
+        assertArrayEquals(snapshot(unresigned), read(file));
+
+        GameState newGame = GameState.calculate(BoardGeometry.DEFAULT_GEOMETRY, false);
+        journal.update(unresigned, newGame);
+        assertArrayEquals(snapshot(newGame), read(file));
+        assertSameGame(newGame, reload(file));
+
+        journal.update(newGame, null);
+        assertFalse(journal.exists());
+        assertNull(reload(file));
+    }
+
+    @Test
+    public void dropsTruncatedLastRecord() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        Random random = new Random(4);
+
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        journal.update(null, state);
+        GameState beforeLast = state;
+        for (int i = 0; i < 6; ++i) {
+            beforeLast = state;
+            GameState next = randomMove(state, random);
+            journal.update(state, next);
+            state = next;
+        }
+        // Cut the last move record in half, as if the app was killed while writing it.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        GameJournal reopened = new GameJournal(file);
+        GameState loaded = reopened.load();
+        assertSameGame(beforeLast, loaded);
+
+        // New records are appended after the last valid record, not after the partial one.
+        GameState next = randomMove(loaded, random);
+        reopened.update(loaded, next);
+        assertSameGame(next, reload(file));
+        GameState after = randomMove(next, random);
+        reopened.update(next, after);
+        assertSameGame(after, reload(file));
+    }
+
+    @Test
+    public void dropsInvalidRecords() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        journal.update(null, state);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{99, 1, 2, 3});
+        }
+        GameJournal reopened = new GameJournal(file);
+        assertSameGame(state, reopened.load());
+        assertArrayEquals(snapshot(state), read(file));
+    }
+
+    @Test
+    public void rejectsInvalidHeader() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        new GameJournal(file).update(null, GameState.DEFAULT_GAME_STATE);
+        byte[] valid = read(file);
+
+        // Wrong magic, wrong version, wrong record type, and a file that ends inside the header.
+        for (int index : new int[]{0, 3, 7, 8}) {
+            byte[] data = valid.clone();
+            data[index] ^= 0x40;
+            Files.write(file.toPath(), data);
+            try {
+                reload(file);
+                fail("Expected an IOException when byte " + index + " is corrupted");
+            } catch (IOException e) {
+                // Expected.
+            }
+        }
+        Files.write(file.toPath(), Arrays.copyOf(valid, 6));
+        try {
+            reload(file);
+            fail("Expected an IOException for a truncated header");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void rejectsInvalidSnapshot() throws IOException {
+        File file = new File(folder.getRoot(), "current_game.journal");
+        new GameJournal(file).update(null, randomMove(GameState.DEFAULT_GAME_STATE, new Random(5)));
+        byte[] data = read(file);
+        data[data.length - 1] ^= 1;  // corrupts the snapshot's hash
+        Files.write(file.toPath(), data);
+        try {
+            reload(file);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void migratesLegacyString() throws IOException {
+        // Older versions stored the game state in SharedPreferences in the string format. When
+        // there is no journal yet, GameRegistry decodes it and writes it as the journal's first
+        // snapshot.
+        Random random = new Random(6);
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        for (int i = 0; i < 8; ++i) state = randomMove(state, random);
+        String legacy = state.encodeAsString();
+        assertTrue(legacy.startsWith("1,"));
+
+        File file = new File(folder.getRoot(), "current_game.journal");
+        GameJournal journal = new GameJournal(file);
+        assertNull(journal.load());
+        GameState migrated = GameRegistry.decodeGameState(legacy);
+        assertSameGame(state, migrated);
+        journal.update(null, migrated);
+        assertSameGame(state, reload(file));
+
+        // The migrated journal is appended to like any other.
+        GameState next = randomMove(migrated, random);
+        journal.update(migrated, next);
+        assertSameGame(next, reload(file));
+    }
+}
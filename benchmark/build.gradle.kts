@@ -0,0 +1,38 @@
+plugins {
+    java
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":engine"))
+    implementation(libs.jmh.core)
+    annotationProcessor(libs.jmh.generator.annprocess)
+}
+
+// Runs the JMH benchmarks with the GC profiler enabled, which reports allocation rates and
+// garbage collection counts per benchmark. Additional JMH options can be passed with -PjmhArgs,
+// for example: ./gradlew :benchmark:jmh -PjmhArgs="TreeBenchmark -f 2"
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args("-prof", "gc", "-rf", "json", "-rff", layout.buildDirectory.file("jmh-result.json").get().asFile.path)
+    val jmhArgs = project.findProperty("jmhArgs") as String?
+    if (jmhArgs != null) args(jmhArgs.split(" ").filter { it.isNotEmpty() })
+}
+
+// Runs the corpus benchmark, which reports throughput per game phase and thread count.
+// Options can be passed with -PcorpusArgs, for example: -PcorpusArgs="--threads=4 --duration=500"
+tasks.register<JavaExec>("corpusBenchmark") {
+    group = "benchmark"
+    description = "Runs the position corpus macro benchmark."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("ch.verver.poly_y.ai.CorpusBenchmark")
+    val corpusArgs = project.findProperty("corpusArgs") as String?
+    if (corpusArgs != null) args(corpusArgs.split(" ").filter { it.isNotEmpty() })
+}
@@ -0,0 +1,56 @@
+package ch.verver.poly_y;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link GameState#calculate}, which is called whenever a game state is
+ * constructed, on geometries from the default board up to the largest supported one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+
+    /** The geometry, as "boardSize,sides". */
+    @Param({"7,5", "19,5", "31,5", "31,31"})
+    public String geometry;
+
+    private BoardGeometry boardGeometry;
+
+    // Half of the vertices, in random order.
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        String[] parts = geometry.split(",");
+        boardGeometry = BoardGeometry.get(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (BoardGeometry.Vertex v : boardGeometry.vertices) ids.add(v.id);
+        Collections.shuffle(ids, new Random(1));
+        moves = new int[ids.size() / 2];
+        for (int i = 0; i < moves.length; ++i) moves[i] = ids.get(i);
+    }
+
+    @Benchmark
+    public GameState calculate() {
+        return GameState.calculate(boardGeometry, false, moves);
+    }
+}
@@ -0,0 +1,69 @@
+package ch.verver.poly_y;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link VertexGrid#findNearest}, which maps touches to fields, compared to a
+ * linear scan over all vertices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VertexGridBenchmark {
+    private static final int POINTS = 1024;
+
+    /** The geometry, as "boardSize,sides". */
+    @Param({"7,5", "19,5", "31,5", "31,31"})
+    public String geometry;
+
+    private BoardGeometry boardGeometry;
+    private VertexGrid grid;
+    private float maxDistance;
+
+    // Random points in the bounding square of the board, as (x, y) pairs.
+    private final float[] points = new float[2 * POINTS];
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        String[] parts = geometry.split(",");
+        boardGeometry = BoardGeometry.get(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        grid = boardGeometry.getVertexGrid();
+        maxDistance = 0.5f / boardGeometry.boardSize;
+        Random random = new Random(1);
+        for (int i = 0; i < points.length; ++i) points[i] = 2 * random.nextFloat() - 1;
+    }
+
+    @Benchmark
+    public BoardGeometry.Vertex grid() {
+        int i = index++ & (POINTS - 1);
+        return grid.findNearest(points[2 * i], points[2 * i + 1], maxDistance);
+    }
+
+    @Benchmark
+    public BoardGeometry.Vertex linearScan() {
+        int i = index++ & (POINTS - 1);
+        float x = points[2 * i], y = points[2 * i + 1];
+        for (BoardGeometry.Vertex v : boardGeometry.vertices) {
+            if (Math.hypot(v.x - x, v.y - y) < maxDistance) return v;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,217 @@
+package ch.verver.poly_y.ai;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CyclicBarrier;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+
+/**
+ * Macro benchmark that expands search trees for a corpus of positions, and reports the
+ * throughput per game phase and per number of threads.
+ *
+ * <p>Unlike {@link TreeBot#benchmark}, which only measures the empty board, this shows how the
+ * cost of playouts changes as the board fills up.
+ *
+ * <p>The report is written to standard output as tab-separated values, with one line per phase
+ * and thread count, so reports of different builds can be compared with diff. Progress is
+ * written to standard error.
+ *
+ * <p>With --adaptive, each phase is also measured with a {@link WorkerController} that may use up
+ * to the maximum number of threads. Its row reports the average number of active threads, and
+ * its decisions are written to standard error.
+ *
+ * <p>Usage: CorpusBenchmark [--corpus=file] [--threads=n] [--duration=ms] [--adaptive]
+ */
+public final class CorpusBenchmark {
+    private CorpusBenchmark() {}
+
+    // Positions with fewer moves than these thresholds are classified as opening and middlegame,
+    // respectively. Other positions are classified as endgame.
+    private static final int MIDDLEGAME_MOVES = 16;
+    private static final int ENDGAME_MOVES = 45;
+
+    private static final String[] PHASES = {"opening", "middlegame", "endgame"};
+
+    public static void main(String[] args) throws Exception {
+        String corpusPath = null;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        long durationMillis = 200;
+        boolean adaptive = false;
+        for (String arg : args) {
+            if (arg.startsWith("--corpus=")) {
+                corpusPath = arg.substring("--corpus=".length());
+            } else if (arg.startsWith("--threads=")) {
+                maxThreads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--duration=")) {
+                durationMillis = Long.parseLong(arg.substring("--duration=".length()));
+            } else if (arg.equals("--adaptive")) {
+                adaptive = true;
+            } else {
+                System.err.println("Usage: CorpusBenchmark [--corpus=file] [--threads=n] [--duration=ms] [--adaptive]");
+                System.exit(1);
+            }
+        }
+
+        List<List<List<Integer>>> positionsByPhase = new ArrayList<>();
+        for (int i = 0; i < PHASES.length; ++i) positionsByPhase.add(new ArrayList<>());
+        for (GameState state : readCorpus(corpusPath)) {
+            List<Integer> moves = state.getCodeCupMoves();
+            int phase = moves.size() < MIDDLEGAME_MOVES ? 0 : moves.size() < ENDGAME_MOVES ? 1 : 2;
+            positionsByPhase.get(phase).add(moves);
+        }
+
+        // Warm up the JIT compiler, so the first measurement isn't penalized.
+        System.err.println("Warming up...");
+        for (List<List<Integer>> positions : positionsByPhase) {
+            for (List<Integer> moves : positions) measure(moves, 1, durationMillis / 4);
+        }
+
+        System.out.println("# java.vm.name=" + System.getProperty("java.vm.name") +
+                " java.version=" + System.getProperty("java.version") +
+                " duration_ms=" + durationMillis);
+        System.out.println("phase\tthreads\tpositions\texpansions\tplayouts\texpansions_per_second\t" +
+                "playouts_per_second\tns_per_playout\tbytes_per_expansion");
+        for (int phase = 0; phase < PHASES.length; ++phase) {
+            List<List<Integer>> positions = positionsByPhase.get(phase);
+            if (positions.isEmpty()) continue;
+            for (int threads = 1; threads <= maxThreads; ++threads) {
+                System.err.println("Measuring " + PHASES[phase] + " with " + threads + " thread(s)...");
+                Measurement total = new Measurement();
+                for (List<Integer> moves : positions) total.add(measure(moves, threads, durationMillis));
+                System.out.println(String.format(Locale.ROOT, "%s\t%d\t%d\t%d\t%d\t%.1f\t%.1f\t%.1f\t%s",
+                        PHASES[phase], threads, positions.size(), total.expansions, total.playouts,
+                        total.expansions * 1e9 / total.wallNanos,
+                        total.playouts * 1e9 / total.wallNanos,
+                        total.playouts == 0 ? Double.NaN : (double) total.threadNanos / total.playouts,
+                        total.allocatedBytes < 0 ? "NaN" : String.format(Locale.ROOT, "%.1f",
+                                (double) total.allocatedBytes / total.expansions)));
+            }
+            if (adaptive) {
+                System.err.println("Measuring " + PHASES[phase] + " with up to " + maxThreads + " adaptive thread(s)...");
+                double expansions = 0;
+                double workerMillis = 0;
+                for (List<Integer> moves : positions) {
+                    WorkerController controller = measureAdaptive(moves, maxThreads, durationMillis);
+                    for (WorkerController.Decision decision : controller.getDecisions()) {
+                        System.err.println("  " + decision);
+                    }
+                    expansions += controller.getExpansionsPerSecond() * durationMillis / 1000;
+                    workerMillis += controller.getAverageWorkers() * durationMillis;
+                }
+                long wallMillis = positions.size() * durationMillis;
+                System.out.println(String.format(Locale.ROOT, "%s\tadaptive(%.1f)\t%d\t%.0f\tNaN\t%.1f\tNaN\tNaN\tNaN",
+                        PHASES[phase], workerMillis / wallMillis, positions.size(), expansions,
+                        expansions * 1000 / wallMillis));
+            }
+        }
+    }
+
+    private static final class Measurement {
+        long expansions;
+        long playouts;
+        long wallNanos;
+        long threadNanos;  // sum of the wall time of each thread
+        long allocatedBytes;  // -1 if unsupported by the JVM
+
+        synchronized void add(Measurement other) {
+            expansions += other.expansions;
+            playouts += other.playouts;
+            wallNanos += other.wallNanos;
+            threadNanos += other.threadNanos;
+            allocatedBytes = allocatedBytes < 0 || other.allocatedBytes < 0 ? -1 : allocatedBytes + other.allocatedBytes;
+        }
+    }
+
+    // Expands one tree per thread for the given duration, like ParallelSearch does.
+    private static Measurement measure(List<Integer> moves, int threads, long durationMillis) throws Exception {
+        final Measurement result = new Measurement();
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final long durationNanos = durationMillis * 1000000L;
+        Thread[] workers = new Thread[threads];
+        final Exception[] failure = new Exception[1];
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; ++i) {
+            final TreeBot.Tree tree = new TreeBot(i + 1).createTree(moves);
+            workers[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Measurement m = new Measurement();
+                    long allocatedBefore = allocatedBytes();
+                    long threadStart = System.nanoTime();
+                    long deadline = threadStart + durationNanos;
+                    long now;
+                    do {
+                        m.playouts += tree.expand().samples;
+                        m.expansions++;
+                    } while ((now = System.nanoTime()) < deadline);
+                    long allocatedAfter = allocatedBytes();
+                    m.threadNanos = now - threadStart;
+                    m.allocatedBytes = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+                    result.add(m);
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) worker.join();
+        result.wallNanos = System.nanoTime() - start;
+        synchronized (failure) {
+            if (failure[0] != null) throw failure[0];
+        }
+        return result;
+    }
+
+    // Searches with a WorkerController for the given duration, and returns the controller.
+    private static WorkerController measureAdaptive(List<Integer> moves, int maxThreads, long durationMillis) {
+        WorkerController controller = new WorkerController(maxThreads, Math.max(1, durationMillis / 16));
+        ParallelSearch.search(BoardGeometry.DEFAULT_GEOMETRY, moves, 0, durationMillis, controller, 1, null, 0);
+        return controller;
+    }
+
+    // Returns the number of bytes allocated by the current thread, or -1 if the JVM does not
+    // support measuring this.
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static List<GameState> readCorpus(String path) throws IOException {
+        InputStream in = path == null ?
+                CorpusBenchmark.class.getResourceAsStream("/corpus.txt") : new FileInputStream(path);
+        if (in == null) throw new IOException("Default corpus not found");
+        ArrayList<GameState> states = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                GameState state = GameState.decodeFromString(line);
+                if (!BoardGeometry.DEFAULT_GEOMETRY.equals(state.getGeometry()) || state.isGameOver()) {
+                    throw new IOException("Invalid position in corpus: " + line);
+                }
+                states.add(state);
+            }
+        }
+        return states;
+    }
+}
@@ -0,0 +1,69 @@
+package ch.verver.poly_y.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks for {@link TreeBot#getOpeningMove}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OpeningBookBenchmark {
+    private final List<Integer> emptyLine = new ArrayList<>();
+    private final List<Integer> longestLine = new ArrayList<>();
+    private final List<Integer> missingLine = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        // Follow the book for as long as possible, with the opponent responding with the first
+        // move that is in the book.
+        Object[] book = OpeningBook.openingBook;
+        while (book != null && book.length > 1) {
+            int move = (Integer) book[0];
+            if (!(book[move] instanceof Object[])) break;
+            longestLine.add(move);
+            Object[] next = (Object[]) book[move];
+            book = null;
+            for (int response = 1; response < next.length; ++response) {
+                if (next[response] != null) {
+                    longestLine.add(response);
+                    book = (Object[]) next[response];
+                    break;
+                }
+            }
+        }
+        if (longestLine.size() % 2 == 1) longestLine.remove(longestLine.size() - 1);
+
+        missingLine.add(1);
+        missingLine.add(106);
+    }
+
+    @Benchmark
+    public int empty() {
+        return TreeBot.getOpeningMove(emptyLine);
+    }
+
+    @Benchmark
+    public int longest() {
+        return TreeBot.getOpeningMove(longestLine);
+    }
+
+    @Benchmark
+    public int missing() {
+        return TreeBot.getOpeningMove(missingLine);
+    }
+}
@@ -0,0 +1,98 @@
+package ch.verver.poly_y.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the Monte Carlo playouts on the default board: {@link TreeBot.GameState#sample}
+ * (which plays {@link TreeBot}'s fixed number of games per call) with the scalar and the lockstep
+ * kernel, and its two main ingredients, winner detection and pattern matching.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+    private static final int BOARDS = 64;
+
+    /** Number of moves played before the position that is sampled. */
+    @Param({"0", "30", "60"})
+    public int moves;
+
+    private TreeBot.SmallGameState state;
+    private TreeBot.SmallGameState lockstepState;
+
+    // Random full boards for winner(), as pairs of left/right bit sets.
+    private final long[] fullBoards = new long[2 * BOARDS];
+
+    // Random positions for matchPatterns(), as four bit sets plus the last move.
+    private final long[][] patternBoards = new long[BOARDS][];
+    private final int[] lastMoves = new int[BOARDS];
+    private final int[] play = new int[Board.DEFAULT.maxPatterns];
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        TreeBot bot = new TreeBot(1);
+        bot.setLockstepPlayouts(false);
+        state = (TreeBot.SmallGameState) bot.createState(Positions.randomGame(moves, 1));
+        TreeBot lockstepBot = new TreeBot(1);
+        lockstepBot.setLockstepPlayouts(true);
+        lockstepState = (TreeBot.SmallGameState) lockstepBot.createState(Positions.randomGame(moves, 1));
+
+        Random random = new Random(1);
+        for (int i = 0; i < BOARDS; ++i) {
+            for (int move = 1; move <= Board.DEFAULT.positions; ++move) {
+                if (random.nextBoolean()) {
+                    if (move < 64) {
+                        fullBoards[2 * i] |= 1L << move;
+                    } else {
+                        fullBoards[2 * i + 1] |= 1L << (move - 64);
+                    }
+                }
+            }
+            List<Integer> game = Positions.randomGame(Math.max(moves, 2), i);
+            patternBoards[i] = Positions.bitsets(game);
+            lastMoves[i] = game.get(game.size() - 1);
+        }
+    }
+
+    @Benchmark
+    public TreeBot.AmafPlayout sample() {
+        return state.sample(true);
+    }
+
+    @Benchmark
+    public TreeBot.AmafPlayout sampleLockstep() {
+        return lockstepState.sample(true);
+    }
+
+    @Benchmark
+    public boolean winner() {
+        int i = index++ & (BOARDS - 1);
+        return state.winner(fullBoards[2 * i], fullBoards[2 * i + 1]);
+    }
+
+    @Benchmark
+    public int matchPatterns() {
+        int i = index++ & (BOARDS - 1);
+        long[] b = patternBoards[i];
+        return state.matchPatterns(lastMoves[i], b[0], b[1], b[2], b[3], play);
+    }
+}
@@ -0,0 +1,48 @@
+package ch.verver.poly_y.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+
+/** Generates reproducible positions on the default board for the benchmarks. */
+final class Positions {
+    private Positions() {}
+
+    /**
+     * Returns the CodeCup moves of a game of the given length, where both players place stones
+     * uniformly at random, and where the game is not over after the last move.
+     */
+    static List<Integer> randomGame(int moveCount, long seed) {
+        Random random = new Random(seed);
+        BoardGeometry geometry = BoardGeometry.DEFAULT_GEOMETRY;
+        while (true) {
+            GameState state = GameState.calculate(geometry, false);
+            ArrayList<BoardGeometry.Vertex> empty = new ArrayList<>(geometry.vertices);
+            while (state.getCodeCupMoves().size() < moveCount && !state.isGameOver()) {
+                state = state.move(empty.remove(random.nextInt(empty.size())));
+            }
+            if (!state.isGameOver()) return state.getCodeCupMoves();
+        }
+    }
+
+    /**
+     * Returns the stones of both players after the given moves, as four longs: the left and
+     * right bit sets of the next player, followed by those of the opponent.
+     */
+    static long[] bitsets(List<Integer> moves) {
+        long[] result = new long[4];
+        for (int i = 0; i < moves.size(); ++i) {
+            int move = moves.get(i);
+            int offset = (moves.size() - i) % 2 == 0 ? 0 : 2;
+            if (move < 64) {
+                result[offset] |= 1L << move;
+            } else {
+                result[offset + 1] |= 1L << (move - 64);
+            }
+        }
+        return result;
+    }
+}
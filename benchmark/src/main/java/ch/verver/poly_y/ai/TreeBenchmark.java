@@ -0,0 +1,65 @@
+package ch.verver.poly_y.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the tree search: {@link TreeBot.Tree#expand()} at several phases of the game,
+ * and {@link TreeBot.Statistics#add}, which is called for every node on the path to the root.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeBenchmark {
+
+    /** Number of moves played before the root position of the tree. */
+    @Param({"0", "10", "30", "60"})
+    public int moves;
+
+    private List<Integer> game;
+    private TreeBot.Tree tree;
+    private TreeBot.Statistics statistics;
+    private TreeBot.AmafPlayout playout;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        game = Positions.randomGame(moves, 1);
+        playout = new TreeBot(1).createState(game).sample(true);
+    }
+
+    // The tree grows with each expansion, so start over every iteration to keep the size of the
+    // tree (and with it the cost of selection) comparable between iterations.
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        tree = new TreeBot(1).createTree(game);
+        statistics = new TreeBot.Statistics(Board.DEFAULT.positions);
+    }
+
+    @Benchmark
+    public TreeBot.AmafPlayout expand() {
+        return tree.expand();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public TreeBot.Statistics statisticsAdd() {
+        statistics.add(playout, true);
+        return statistics;
+    }
+}
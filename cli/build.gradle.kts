@@ -0,0 +1,17 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+application {
+    applicationName = "poly-y"
+    mainClass.set("ch.verver.poly_y.cli.Main")
+}
+
+dependencies {
+    implementation(project(":engine"))
+}
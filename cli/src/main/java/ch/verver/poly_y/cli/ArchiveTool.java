@@ -0,0 +1,95 @@
+package ch.verver.poly_y.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+import ch.verver.poly_y.AiConfig;
+import ch.verver.poly_y.GameArchive;
+
+/**
+ * Lists the games in a game archive (as written by the app), optionally filtered by result and
+ * difficulty, and prints statistics per difficulty level.
+ */
+final class ArchiveTool {
+    private ArchiveTool() {}
+
+    private static final String USAGE =
+            "Usage: poly-y archive --data=<file> [options]\n" +
+            "\n" +
+            "Options:\n" +
+            "  --index=<file>       index file (default: data file with extension .idx)\n" +
+            "  --winner=<n>         only games won by player 1 or 2, or drawn (0)\n" +
+            "  --difficulty=<n>     only games against the AI at this difficulty level\n" +
+            "  --ai-result=<r>      only games the AI won (win) or lost (loss)\n" +
+            "  --format=<f>         output format: summary (tab-separated values, default),\n" +
+            "                       state (as encoded by GameState.encodeAsString()), or none\n";
+
+    static void main(String[] args) {
+        Options options = new Options(args);
+        if (options.has("help") || !options.has("data")) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        File dataFile = new File(options.getString("data", ""));
+        File indexFile = options.has("index") ? new File(options.getString("index", "")) :
+                new File(dataFile.getPath().replaceFirst("(\\.dat)?$", ".idx"));
+        int winner = options.getInt("winner", -1);
+        int difficulty = options.getInt("difficulty", -1);
+        String aiResult = options.getString("ai-result", "");
+        String format = options.getString("format", "summary");
+        options.checkUnused();
+        if (!aiResult.isEmpty() && !aiResult.equals("win") && !aiResult.equals("loss")) {
+            throw new IllegalArgumentException("Invalid value for --ai-result: " + aiResult);
+        }
+        if (!format.equals("summary") && !format.equals("state") && !format.equals("none")) {
+            throw new IllegalArgumentException("Invalid value for --format: " + format);
+        }
+        if (!dataFile.exists() || !indexFile.exists()) {
+            throw new IllegalArgumentException("Archive not found: " + dataFile + ", " + indexFile);
+        }
+
+        GameArchive.Filter filter = summary ->
+                (winner < 0 || summary.winner == winner) &&
+                (difficulty < 0 || (summary.aiPlayer != 0 && summary.difficulty == difficulty)) &&
+                (!aiResult.equals("win") || summary.isAiWin()) &&
+                (!aiResult.equals("loss") || summary.isAiLoss());
+
+        // Per difficulty level: games, AI wins, AI losses.
+        int[][] counts = new int[AiConfig.MAX_DIFFICULTY + 1][3];
+        try (GameArchive archive = GameArchive.open(dataFile, indexFile)) {
+            int[] selected = archive.select(filter);
+            if (format.equals("summary")) {
+                System.out.println("index\tmoves\twinner\tai_player\tdifficulty\tcampaign\tresigned\t" +
+                        "start_time_ms\tend_time_ms");
+            }
+            for (int i : selected) {
+                GameArchive.Summary summary = archive.getSummary(i);
+                if (format.equals("summary")) {
+                    System.out.println(String.format(Locale.ROOT, "%d\t%d\t%d\t%d\t%d\t%d\t%d\t%d\t%d",
+                            i, summary.moveCount, summary.winner, summary.aiPlayer, summary.difficulty,
+                            summary.campaign ? 1 : 0, summary.resigned ? 1 : 0,
+                            summary.startTimeMillis, summary.endTimeMillis));
+                } else if (format.equals("state")) {
+                    System.out.println(archive.getGame(i).state.encodeAsString());
+                }
+                if (summary.aiPlayer != 0 && summary.difficulty < counts.length) {
+                    int[] c = counts[summary.difficulty];
+                    c[0]++;
+                    if (summary.isAiWin()) c[1]++;
+                    if (summary.isAiLoss()) c[2]++;
+                }
+            }
+            System.err.println(selected.length + " of " + archive.size() + " games selected");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read archive: " + e.getMessage());
+        }
+        for (int d = 0; d < counts.length; ++d) {
+            int[] c = counts[d];
+            if (c[0] == 0) continue;
+            System.err.println(String.format(Locale.ROOT,
+                    "difficulty %2d: %5d games against the AI, AI won %5.1f%%, AI lost %5.1f%%",
+                    d, c[0], 100.0 * c[1] / c[0], 100.0 * c[2] / c[0]));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ch.verver.poly_y.cli;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+
+/**
+ * Plays two engine configurations (A and B) against each other, and reports the score, the
+ * estimated Elo difference, and the result of a sequential probability ratio test (SPRT).
+ *
+ * <p>Each opening is played twice, once with A moving first, and once with B moving first.
+ * Games are played in parallel.
+ */
+final class Arena {
+    private Arena() {}
+
+    private static final String USAGE =
+            "Usage: poly-y arena --a=<config> --b=<config> [options]\n" +
+            "\n" +
+            "Player configs are comma-separated key=value pairs, with keys:\n" +
+            "  iterations, time (milliseconds per move), threads, adaptive (0/1), book (0/1),\n" +
+            "  swap (0/1)\n" +
+            "  e.g. --a=iterations=0,time=1000,threads=2\n" +
+            "\n" +
+            "Options:\n" +
+            "  --openings=<file>  file with one opening per line, as encoded by\n" +
+            "                     GameState.encodeAsString() (default: every first move,\n" +
+            "                     with the pie rule in effect)\n" +
+            "  --games=<n>        number of games (default: 2 per opening)\n" +
+            "  --parallel=<n>     number of games to play in parallel (default: number of\n" +
+            "                     processors divided by the number of search threads)\n" +
+            "  --elo0=<elo>       Elo difference of the SPRT null hypothesis (default: 0)\n" +
+            "  --elo1=<elo>       Elo difference of the SPRT alternative hypothesis (default: 20)\n" +
+            "  --alpha=<p>        SPRT false positive rate (default: 0.05)\n" +
+            "  --beta=<p>         SPRT false negative rate (default: 0.05)\n" +
+            "  --no-stop          keep playing after the SPRT is decided\n" +
+            "  --seed=<n>         random seed (default: 1)\n";
+
+    static void main(String[] args) {
+        Options options = new Options(args);
+        if (options.has("help") || !options.has("a") || !options.has("b")) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        final PlayerConfig a = PlayerConfig.parse(options.getString("a", ""));
+        final PlayerConfig b = PlayerConfig.parse(options.getString("b", ""));
+        final List<GameState> openings = options.has("openings") ?
+                readOpenings(options.getString("openings", "")) : defaultOpenings();
+        final int games = options.getInt("games", 2 * openings.size());
+        final int parallel = options.getInt("parallel",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(a.threads, b.threads)));
+        final double elo0 = options.getDouble("elo0", 0);
+        final double elo1 = options.getDouble("elo1", 20);
+        final double alpha = options.getDouble("alpha", 0.05);
+        final double beta = options.getDouble("beta", 0.05);
+        final boolean stopEarly = !options.has("no-stop");
+        final long seed = options.getLong("seed", 1);
+        options.checkUnused();
+        if (openings.isEmpty()) throw new IllegalArgumentException("No openings");
+        if (games < 1 || parallel < 1) throw new IllegalArgumentException("games and parallel must be positive");
+
+        final double lower = MatchStatistics.lowerBound(alpha, beta);
+        final double upper = MatchStatistics.upperBound(alpha, beta);
+        System.out.println("A: " + a);
+        System.out.println("B: " + b);
+        System.out.println("Playing " + games + " games from " + openings.size() + " openings, " +
+                parallel + " in parallel. SPRT: elo0=" + elo0 + " elo1=" + elo1 +
+                " alpha=" + alpha + " beta=" + beta);
+
+        final MatchStatistics statistics = new MatchStatistics();
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newFixedThreadPool(parallel);
+        // Each game gets its own random stream, split off in order, so that the games don't
+        // depend on the order in which they are played, and don't share (shifted) seeds.
+        final SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < games; ++i) {
+            final int game = i;
+            final SplittableRandom gameRandom = random.split();
+            executor.execute(() -> {
+                if (stopped.get()) return;
+                GameState opening = openings.get(game / 2 % openings.size());
+                boolean aFirst = game % 2 == 0;
+                double score = playGame(opening, aFirst ? a : b, aFirst ? b : a, gameRandom);
+                if (!aFirst) score = 1 - score;
+                synchronized (statistics) {
+                    statistics.add(score);
+                    double llr = statistics.getLlr(elo0, elo1);
+                    System.out.println(String.format(Locale.ROOT,
+                            "Game %d (opening %d, A is player %d): %s. " +
+                            "Score %d-%d-%d (%.1f%%), Elo %s, LLR %.2f [%.2f, %.2f]",
+                            game + 1, game / 2 % openings.size() + 1, aFirst ? 1 : 2,
+                            score == 1 ? "A wins" : score == 0 ? "B wins" : "draw",
+                            statistics.getWins(), statistics.getLosses(), statistics.getDraws(),
+                            100 * statistics.getScore(), formatElo(statistics),
+                            llr, lower, upper));
+                    if (stopEarly && (llr <= lower || llr >= upper)) stopped.set(true);
+                }
+            });
+        }
+        executor.shutdown();
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.DAYS)) break;
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        double llr = statistics.getLlr(elo0, elo1);
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT,
+                "Games: %d (A wins %d, B wins %d, draws %d)", statistics.getGames(),
+                statistics.getWins(), statistics.getLosses(), statistics.getDraws()));
+        System.out.println(String.format(Locale.ROOT, "Score of A: %.1f%%", 100 * statistics.getScore()));
+        System.out.println("Elo difference: " + formatElo(statistics) + " (95%)");
+        System.out.println(String.format(Locale.ROOT, "SPRT: LLR %.2f [%.2f, %.2f]: %s", llr, lower, upper,
+                llr >= upper ? "H1 accepted" : llr <= lower ? "H0 accepted" : "inconclusive"));
+    }
+
+    // Formats the Elo difference and its error. These are infinite if all games so far had the
+    // same result (or the confidence interval reaches such a score), so they are "n/a" then.
+    private static String formatElo(MatchStatistics statistics) {
+        double elo = statistics.getElo();
+        double error = statistics.getEloError();
+        if (Double.isInfinite(elo)) return "n/a";
+        return String.format(Locale.ROOT, "%+.1f +/- %s", elo,
+                Double.isInfinite(error) ? "n/a" : String.format(Locale.ROOT, "%.1f", error));
+    }
+
+    /**
+     * Plays a game from the given opening and returns the score of the first player: 1 if the
+     * first player wins, 0 if the second player wins, or 0.5 if the game is tied. The seed of
+     * each move is drawn from the given random stream.
+     */
+    private static double playGame(GameState state, PlayerConfig first, PlayerConfig second, SplittableRandom random) {
+        while (!state.isGameOver()) {
+            PlayerConfig player = state.getNextPlayer() == 1 ? first : second;
+            state = state.move(player.selectMove(state, random.nextLong()));
+        }
+        switch (state.getWinner()) {
+            case 1: return 1;
+            case 2: return 0;
+            default: return 0.5;
+        }
+    }
+
+    private static List<GameState> defaultOpenings() {
+        ArrayList<GameState> openings = new ArrayList<>();
+        GameState start = GameState.calculate(BoardGeometry.DEFAULT_GEOMETRY, true);
+        for (BoardGeometry.Vertex v : BoardGeometry.DEFAULT_GEOMETRY.vertices) {
+            openings.add(start.move(v));
+        }
+        return openings;
+    }
+
+    private static List<GameState> readOpenings(String path) {
+        ArrayList<GameState> openings = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                GameState state = GameState.decodeFromString(line);
+                if (!BoardGeometry.DEFAULT_GEOMETRY.equals(state.getGeometry())) {
+                    throw new IllegalArgumentException("Opening is not on the default board: " + line);
+                }
+                if (state.isGameOver()) {
+                    throw new IllegalArgumentException("Opening is already over: " + line);
+                }
+                openings.add(state);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read openings: " + e.getMessage());
+        }
+        return openings;
+    }
+}
@@ -0,0 +1,122 @@
+package ch.verver.poly_y.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+import ch.verver.poly_y.ai.DistributedSearch;
+import ch.verver.poly_y.ai.TreeBot;
+
+/**
+ * Searches a position on several worker processes (see {@link DistributedSearch}), and reports the
+ * scaling efficiency: the search is repeated with 1, 2, ..., N workers, and the throughput with k
+ * workers is compared to k times the throughput with a single worker.
+ *
+ * <p>By default, the workers are started as local processes, as a stand-in for a cluster.
+ */
+final class DistributedTool {
+    private DistributedTool() {}
+
+    private static final String USAGE =
+            "Usage: poly-y distributed [options]\n" +
+            "\n" +
+            "Options:\n" +
+            "  --workers=<n>        number of local worker processes to start (default: 2)\n" +
+            "  --connect=<list>     comma-separated host:port of running workers, instead of\n" +
+            "                       starting local ones (see the worker command)\n" +
+            "  --state=<s>          position to search, as encoded by GameState.encodeAsString()\n" +
+            "                       (default: the empty default board)\n" +
+            "  --time=<ms>          duration of each search (default: 3000)\n" +
+            "  --interval=<ms>      interval at which workers report statistics (default: 100)\n" +
+            "  --seed=<n>           random seed (default: 1)\n";
+
+    static void main(String[] args) {
+        Options options = new Options(args);
+        if (options.has("help")) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        int workerCount = options.getInt("workers", 2);
+        String connect = options.getString("connect", "");
+        GameState state = options.has("state") ?
+                GameState.decodeFromString(options.getString("state", "")) :
+                GameState.calculate(BoardGeometry.DEFAULT_GEOMETRY);
+        long timeMillis = options.getLong("time", 3000);
+        long intervalMillis = options.getLong("interval", 100);
+        long seed = options.getLong("seed", 1);
+        options.checkUnused();
+        if (timeMillis <= 0 || intervalMillis <= 0) throw new IllegalArgumentException("time and interval must be positive");
+        if (state.isGameOver()) throw new IllegalArgumentException("Game is over");
+
+        ArrayList<Process> processes = new ArrayList<>();
+        try {
+            List<InetSocketAddress> workers = connect.isEmpty() ?
+                    startWorkers(workerCount, processes) : parseAddresses(connect);
+            ArrayList<Integer> moves = state.getCodeCupMoves();
+            System.out.println("workers\texpansions\texpansions_per_second\tspeedup\tefficiency\tbest_move\twin_probability");
+            double baseRate = 0;
+            DistributedSearch.Result result = null;
+            for (int k = 1; k <= workers.size(); ++k) {
+                result = DistributedSearch.search(workers.subList(0, k), state.getGeometry(), moves,
+                        0, timeMillis, seed, null, intervalMillis);
+                double rate = result.getTotalExpansions() * 1000.0 / Math.max(1, result.elapsedMillis);
+                if (k == 1) baseRate = rate;
+                System.out.println(String.format(Locale.ROOT, "%d\t%d\t%.0f\t%.2f\t%.2f\t%d\t%.3f",
+                        k, result.getTotalExpansions(), rate, rate / baseRate, rate / (k * baseRate),
+                        result.bestMove.move, result.bestMove.winProbability));
+            }
+            TreeBot.Analysis analysis = result.analysis;
+            for (int i = 0; i < analysis.moves.length; ++i) {
+                System.err.println(String.format(Locale.ROOT, "move %d: %d samples, win probability %.3f",
+                        analysis.moves[i], analysis.moveSamples[i], analysis.moveWinProbabilities[i]));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Distributed search failed: " + e.getMessage());
+        } finally {
+            for (Process process : processes) process.destroy();
+        }
+    }
+
+    private static List<InetSocketAddress> parseAddresses(String list) {
+        ArrayList<InetSocketAddress> addresses = new ArrayList<>();
+        for (String part : list.split(",")) {
+            int i = part.lastIndexOf(':');
+            if (i < 0) throw new IllegalArgumentException("Invalid worker address: " + part);
+            try {
+                addresses.add(new InetSocketAddress(part.substring(0, i), Integer.parseInt(part.substring(i + 1))));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid worker address: " + part);
+            }
+        }
+        return addresses;
+    }
+
+    // Starts worker processes with the same JVM and class path as this one, and returns their
+    // addresses.
+    private static List<InetSocketAddress> startWorkers(int count, List<Process> processes) throws IOException {
+        if (count < 1) throw new IllegalArgumentException("workers must be positive");
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ArrayList<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    Main.class.getName(), "worker");
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Process process = builder.start();
+            processes.add(process);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+            String line = reader.readLine();
+            if (line == null || !line.startsWith("port ")) throw new IOException("Worker did not start");
+            addresses.add(new InetSocketAddress("127.0.0.1", Integer.parseInt(line.substring(5))));
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,168 @@
+package ch.verver.poly_y.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+import ch.verver.poly_y.ai.TreeBot;
+
+/**
+ * Plays a game on standard input and output using the CodeCup Poly-Y protocol, so that the
+ * engine can play against other CodeCup bots.
+ *
+ * <p>The engine reads "Start" if it moves first, or else the opponent's move. It then writes its
+ * own move and reads the opponent's next move, until it reads "Quit" or the input ends. Moves are
+ * CodeCup ids (1 to 106), and -1 means swap (pie rule). Diagnostics are written to standard error.
+ *
+ * <p>The time per move is planned by a {@link TimeManager}, which splits the game clock over the
+ * moves. The clock is charged for the time from reading the opponent's move until writing the
+ * reply.
+ */
+final class EngineTool {
+    private EngineTool() {}
+
+    private static final String USAGE =
+            "Usage: poly-y engine [options]\n" +
+            "\n" +
+            "Plays one game using the CodeCup protocol on stdin/stdout.\n" +
+            "\n" +
+            "Options:\n" +
+            "  --time=<ms>     total thinking time for the game (default: 30000)\n" +
+            "  --reserve=<ms>  part of the total time kept in reserve for overhead (default: 1000)\n" +
+            "  --book=<0|1>    use the opening book (default: 1)\n" +
+            "  --swap=<0|1>    swap strong first moves (default: 1)\n" +
+            "  --seed=<n>      random seed (default: based on the current time)\n" +
+            "  --quiet         don't write diagnostics to stderr\n";
+
+    // Interval at which the search checks whether the best move has changed.
+    private static final long CHECK_INTERVAL_NANOS = 10000000L;
+
+    static void main(String[] args) {
+        Options options = new Options(args);
+        if (options.has("help")) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        long totalMillis = options.getLong("time", 30000);
+        long reserveMillis = options.getLong("reserve", 1000);
+        boolean openingBook = options.getInt("book", 1) != 0;
+        boolean swap = options.getInt("swap", 1) != 0;
+        long seed = options.getLong("seed", System.nanoTime());
+        boolean quiet = options.has("quiet");
+        options.checkUnused();
+
+        TimeManager clock = new TimeManager(totalMillis, reserveMillis);
+        TreeBot bot = new TreeBot(seed);
+        // Load the opening book before the clock starts running.
+        if (openingBook) TreeBot.getOpeningMove(new ArrayList<Integer>());
+        GameState state = GameState.calculate(BoardGeometry.DEFAULT_GEOMETRY, true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        PrintStream out = System.out;
+        try {
+            for (String line; (line = in.readLine()) != null; ) {
+                long receivedNanos = System.nanoTime();
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.equals("Quit")) break;
+                if (line.equals("Start")) {
+                    if (state.getMoveCount() != 0) throw new IllegalArgumentException("Unexpected Start");
+                } else {
+                    state = play(state, parseMove(line));
+                }
+                if (state.isGameOver()) break;
+                StringBuilder log = new StringBuilder();
+                int move = selectMove(state, bot, clock, openingBook, swap, log);
+                state = play(state, move);
+                out.println(move);
+                out.flush();
+                long usedMillis = (System.nanoTime() - receivedNanos) / 1000000;
+                clock.moveFinished(usedMillis);
+                if (!quiet) {
+                    System.err.println(String.format(Locale.ROOT, "move %d: %d in %d ms, %s, %d ms left",
+                            state.getMoveCount(), move, usedMillis, log, clock.getRemainingMillis()));
+                }
+                if (state.isGameOver()) break;
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read input: " + e.getMessage());
+        }
+    }
+
+    private static int parseMove(String line) {
+        try {
+            return Integer.parseInt(line);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid input: " + line);
+        }
+    }
+
+    // Plays the given CodeCup move (or -1 for a swap).
+    private static GameState play(GameState state, int move) {
+        BoardGeometry geometry = state.getGeometry();
+        BoardGeometry.Vertex v;
+        if (move == -1) {
+            if (!state.canSwap()) throw new IllegalArgumentException("Swap is not allowed");
+            v = state.getLastMove();
+        } else {
+            if (move < 1 || move > geometry.vertices.size()) throw new IllegalArgumentException("Invalid move: " + move);
+            v = geometry.codeCupIdToVertex(move);
+            if (state.getPiece(v) != 0) throw new IllegalArgumentException("Field is occupied: " + move);
+        }
+        return state.move(v);
+    }
+
+    // Selects a CodeCup move (or -1 to swap) and describes how it was selected in `log`.
+    private static int selectMove(GameState state, TreeBot bot, TimeManager clock,
+            boolean openingBook, boolean swap, StringBuilder log) {
+        BoardGeometry geometry = state.getGeometry();
+        BoardGeometry.Vertex lastMove = state.getLastMove();
+        if (swap && lastMove != null && state.canSwap() &&
+                TreeBot.shouldSwap(geometry, geometry.vertexToCodeCupId(lastMove))) {
+            log.append("swap");
+            return -1;
+        }
+        ArrayList<Integer> ccMovesPlayed = state.getCodeCupMoves();
+        if (openingBook) {
+            int move = TreeBot.getOpeningMove(ccMovesPlayed);
+            if (move != 0) {
+                log.append("opening book");
+                return move;
+            }
+        }
+
+        int emptyCells = 0;
+        for (int id = 0; id < geometry.vertices.size(); ++id) {
+            if (state.getPiece(id) == 0) ++emptyCells;
+        }
+        clock.startMove(emptyCells, state.getMoveCount() / 2);
+        long startNanos = System.nanoTime();
+        long nextCheckNanos = startNanos + CHECK_INTERVAL_NANOS;
+        long changedNanos = startNanos;
+        int bestMove = 0;
+        long expansions = 0;
+        TreeBot.Tree tree = bot.createTree(ccMovesPlayed);
+        while (true) {
+            tree.expand();
+            ++expansions;
+            long now = System.nanoTime();
+            if (now < nextCheckNanos) continue;
+            nextCheckNanos = now + CHECK_INTERVAL_NANOS;
+            int move = tree.getBestMove().move;
+            if (move != bestMove) {
+                bestMove = move;
+                changedNanos = now;
+            }
+            if (clock.shouldStop((now - startNanos) / 1000000, (now - changedNanos) / 1000000)) break;
+        }
+        TreeBot.BestMove best = tree.getBestMove();
+        log.append(String.format(Locale.ROOT, "%d expansions (target %d ms, max %d ms), win probability %.3f",
+                expansions, clock.getTargetMillis(), clock.getMaxMillis(), best.winProbability));
+        return best.move;
+    }
+}
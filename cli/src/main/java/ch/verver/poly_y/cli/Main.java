@@ -0,0 +1,58 @@
+package ch.verver.poly_y.cli;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the command line tools, which dispatches to the subcommand given as the first
+ * argument.
+ */
+public final class Main {
+    private Main() {}
+
+    private static final String USAGE =
+            "Usage: poly-y <command> [options]\n" +
+            "\n" +
+            "Commands:\n" +
+            "  arena        play two engine configurations against each other\n" +
+            "  archive      list and filter the games in a game archive\n" +
+            "  engine       play a game using the CodeCup protocol on stdin/stdout\n" +
+            "  review       find the blunders in games by searching every position\n" +
+            "  worker       serve distributed searches\n" +
+            "  distributed  search on several worker processes and report the scaling\n";
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+        try {
+            switch (args[0]) {
+                case "arena":
+                    Arena.main(commandArgs);
+                    break;
+                case "archive":
+                    ArchiveTool.main(commandArgs);
+                    break;
+                case "engine":
+                    EngineTool.main(commandArgs);
+                    break;
+                case "review":
+                    ReviewTool.main(commandArgs);
+                    break;
+                case "worker":
+                    WorkerTool.main(commandArgs);
+                    break;
+                case "distributed":
+                    DistributedTool.main(commandArgs);
+                    break;
+                default:
+                    System.err.print(USAGE);
+                    System.exit(1);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ch.verver.poly_y.cli;
+
+/**
+ * Accumulates the results of a match between two players A and B, and calculates the Elo
+ * difference and the log-likelihood ratio of a sequential probability ratio test (SPRT).
+ *
+ * <p>The SPRT uses the normal approximation of the generalized SPRT (as used by Fishtest),
+ * which tests the hypothesis H0: elo = elo0 against H1: elo = elo1.
+ */
+final class MatchStatistics {
+    // z-score of the two-sided 95% confidence interval
+    private static final double Z_95 = 1.959964;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /** Records a game result, from the perspective of player A. */
+    void add(double score) {
+        if (score == 1) {
+            ++wins;
+        } else if (score == 0) {
+            ++losses;
+        } else if (score == 0.5) {
+            ++draws;
+        } else {
+            throw new IllegalArgumentException("Invalid score");
+        }
+    }
+
+    int getWins() {
+        return wins;
+    }
+
+    int getDraws() {
+        return draws;
+    }
+
+    int getLosses() {
+        return losses;
+    }
+
+    int getGames() {
+        return wins + draws + losses;
+    }
+
+    /** Returns the average score of player A (between 0 and 1). */
+    double getScore() {
+        int games = getGames();
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    /** Returns the estimated Elo difference between A and B (positive if A is stronger). */
+    double getElo() {
+        return scoreToElo(getScore());
+    }
+
+    /** Returns the half-width of the 95% confidence interval of {@link #getElo()}. */
+    double getEloError() {
+        int games = getGames();
+        if (games == 0) return Double.POSITIVE_INFINITY;
+        double error = Z_95 * Math.sqrt(getVariance() / games);
+        double score = getScore();
+        return (scoreToElo(Math.min(score + error, 1)) - scoreToElo(Math.max(score - error, 0))) / 2;
+    }
+
+    /** Returns the log-likelihood ratio of H1: elo = elo1 versus H0: elo = elo0. */
+    double getLlr(double elo0, double elo1) {
+        int games = getGames();
+        if (games == 0) return 0;
+        double s0 = eloToScore(elo0);
+        double s1 = eloToScore(elo1);
+        return games * (s1 - s0) * (2 * getScore() - s0 - s1) / (2 * getVariance());
+    }
+
+    static double lowerBound(double alpha, double beta) {
+        return Math.log(beta / (1 - alpha));
+    }
+
+    static double upperBound(double alpha, double beta) {
+        return Math.log((1 - beta) / alpha);
+    }
+
+    // Variance of the score of a single game. Half a win and half a loss are added, so the
+    // variance is not zero when all games so far had the same result.
+    private double getVariance() {
+        double n = getGames() + 1;
+        double w = (wins + 0.5) / n;
+        double d = draws / n;
+        double l = (losses + 0.5) / n;
+        double mean = w + 0.5 * d;
+        return w * (1 - mean) * (1 - mean) + d * (0.5 - mean) * (0.5 - mean) + l * mean * mean;
+    }
+
+    private static double scoreToElo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    private static double eloToScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+}
@@ -0,0 +1,74 @@
+package ch.verver.poly_y.cli;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/** Parses command line options of the form {@code --name=value} or {@code --name}. */
+final class Options {
+    private final HashMap<String, String> values = new HashMap<>();
+    private final HashSet<String> used = new HashSet<>();
+
+    /** @throws IllegalArgumentException if an argument is not an option */
+    Options(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Invalid option: " + arg);
+            int i = arg.indexOf('=');
+            if (i < 0) {
+                values.put(arg.substring(2), "");
+            } else {
+                values.put(arg.substring(2, i), arg.substring(i + 1));
+            }
+        }
+    }
+
+    boolean has(String name) {
+        used.add(name);
+        return values.containsKey(name);
+    }
+
+    String getString(String name, String defaultValue) {
+        used.add(name);
+        String value = values.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for --" + name + ": " + value);
+        }
+    }
+
+    int getInt(String name, int defaultValue) {
+        long value = getLong(name, defaultValue);
+        if (value != (int) value) throw new IllegalArgumentException("Value out of range for --" + name);
+        return (int) value;
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = getString(name, null);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for --" + name + ": " + value);
+        }
+    }
+
+    /**
+     * Verifies that all options given on the command line have been queried.
+     *
+     * @throws IllegalArgumentException if there is an unknown option
+     */
+    void checkUnused() {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!used.contains(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown option: --" + entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ch.verver.poly_y.cli;
+
+import java.util.ArrayList;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+import ch.verver.poly_y.ai.ParallelSearch;
+import ch.verver.poly_y.ai.TreeBot;
+import ch.verver.poly_y.ai.WorkerController;
+
+/**
+ * Configuration of an engine player, which can be parsed from a string of comma-separated
+ * key=value pairs, for example: "iterations=3072,time=0,threads=1,book=0,swap=1".
+ *
+ * <p>Supported keys:
+ * <ul>
+ *     <li>iterations: maximum number of tree expansions per move (0 for no limit)
+ *     <li>time: maximum search time per move in milliseconds (0 for no limit)
+ *     <li>threads: number of search threads
+ *     <li>adaptive: whether to adapt the number of active search threads to the throughput, using
+ *         at most the given number of threads (0 or 1)
+ *     <li>book: whether to use the opening book (0 or 1)
+ *     <li>swap: whether to swap when the pie rule allows it and the first move is strong (0 or 1)
+ * </ul>
+ *
+ * <p>The configuration is immutable. With adaptive=1, each thread that selects moves keeps its own
+ * {@link WorkerController}, which carries the number of workers over from one move to the next.
+ */
+final class PlayerConfig {
+    final long iterations;
+    final long timeMillis;
+    final int threads;
+    final boolean adaptive;
+    final boolean openingBook;
+    final boolean swap;
+
+    // Used only if adaptive is set. Games may be played in parallel, and a controller can only be
+    // used by one search at a time, so there is one per thread.
+    private final ThreadLocal<WorkerController> controllers;
+
+    PlayerConfig(long iterations, long timeMillis, int threads, boolean adaptive, boolean openingBook, boolean swap) {
+        if (iterations < 0) throw new IllegalArgumentException("iterations must not be negative");
+        if (timeMillis < 0) throw new IllegalArgumentException("time must not be negative");
+        if (iterations == 0 && timeMillis == 0) {
+            throw new IllegalArgumentException("iterations and time must not both be 0");
+        }
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        this.iterations = iterations;
+        this.timeMillis = timeMillis;
+        this.threads = threads;
+        this.adaptive = adaptive;
+        this.openingBook = openingBook;
+        this.swap = swap;
+        this.controllers = ThreadLocal.withInitial(
+                () -> new WorkerController(threads, WorkerController.DEFAULT_INTERVAL_MILLIS));
+    }
+
+    /** @throws IllegalArgumentException if the string could not be parsed */
+    static PlayerConfig parse(String s) {
+        long iterations = 3072;
+        long timeMillis = 0;
+        int threads = 1;
+        boolean adaptive = false;
+        boolean openingBook = false;
+        boolean swap = true;
+        for (String part : s.split(",")) {
+            if (part.isEmpty()) continue;
+            int i = part.indexOf('=');
+            if (i < 0) throw new IllegalArgumentException("Invalid player config part: " + part);
+            String key = part.substring(0, i);
+            final long value;
+            try {
+                value = Long.parseLong(part.substring(i + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid player config value: " + part);
+            }
+            switch (key) {
+                case "iterations": iterations = value; break;
+                case "time": timeMillis = value; break;
+                case "threads": threads = (int) value; break;
+                case "adaptive": adaptive = value != 0; break;
+                case "book": openingBook = value != 0; break;
+                case "swap": swap = value != 0; break;
+                default:
+                    throw new IllegalArgumentException("Unknown player config key: " + key);
+            }
+        }
+        return new PlayerConfig(iterations, timeMillis, threads, adaptive, openingBook, swap);
+    }
+
+    /**
+     * Selects a move in the given game (in progress). Returns the last move if the player decides
+     * to swap. The opening book is only used on the default board.
+     */
+    BoardGeometry.Vertex selectMove(GameState state, long seed) {
+        BoardGeometry geometry = state.getGeometry();
+        BoardGeometry.Vertex lastMove = state.getLastMove();
+        if (lastMove != null && state.canSwap() && swap &&
+                TreeBot.shouldSwap(geometry, geometry.vertexToCodeCupId(lastMove))) {
+            return lastMove;
+        }
+        ArrayList<Integer> ccMovesPlayed = state.getCodeCupMoves();
+        int ccMove = openingBook && BoardGeometry.DEFAULT_GEOMETRY.equals(geometry) ?
+                TreeBot.getOpeningMove(ccMovesPlayed) : 0;
+        if (ccMove == 0 && adaptive) {
+            ccMove = ParallelSearch.search(geometry, ccMovesPlayed, iterations, timeMillis, controllers.get(), seed,
+                    null, 0).move;
+        } else if (ccMove == 0) {
+            ccMove = ParallelSearch.search(geometry, ccMovesPlayed, iterations, timeMillis, threads, seed).move;
+        }
+        return geometry.codeCupIdToVertex(ccMove);
+    }
+
+    @Override
+    public String toString() {
+        return "iterations=" + iterations + ",time=" + timeMillis + ",threads=" + threads +
+                ",adaptive=" + (adaptive ? 1 : 0) + ",book=" + (openingBook ? 1 : 0) + ",swap=" + (swap ? 1 : 0);
+    }
+}
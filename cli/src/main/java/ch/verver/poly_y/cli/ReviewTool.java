@@ -0,0 +1,72 @@
+package ch.verver.poly_y.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import ch.verver.poly_y.GameState;
+import ch.verver.poly_y.ai.GameReview;
+
+/**
+ * Reviews games (one per line on standard input, as encoded by GameState.encodeAsString(), e.g.
+ * the output of {@code archive --format=state}) and prints the win probability of every move,
+ * the engine's preferred move, and whether the move was a blunder.
+ */
+final class ReviewTool {
+    private ReviewTool() {}
+
+    private static final String USAGE =
+            "Usage: poly-y review [options] < games.txt\n" +
+            "\n" +
+            "Reads one game per line, as encoded by GameState.encodeAsString().\n" +
+            "\n" +
+            "Options:\n" +
+            "  --iterations=<n>  expansions per position (default: 2000)\n" +
+            "  --threads=<n>     number of search threads (default: number of processors)\n" +
+            "  --threshold=<p>   loss of win probability that counts as a blunder (default: " +
+            GameReview.DEFAULT_BLUNDER_THRESHOLD + ")\n" +
+            "  --seed=<n>        random seed (default: 1)\n";
+
+    static void main(String[] args) {
+        Options options = new Options(args);
+        if (options.has("help")) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        long iterations = options.getLong("iterations", 2000);
+        int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        double threshold = options.getDouble("threshold", GameReview.DEFAULT_BLUNDER_THRESHOLD);
+        long seed = options.getLong("seed", 1);
+        options.checkUnused();
+        if (iterations < 1 || threads < 1) throw new IllegalArgumentException("iterations and threads must be positive");
+
+        System.out.println("game\tindex\tmove\tpreferred\tbefore\tafter\tdelta\tblunder");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        int game = 0;
+        try {
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                GameState state = GameState.decodeFromString(line);
+                long startMs = System.currentTimeMillis();
+                List<GameReview.MoveReview> reviews = GameReview.review(state, iterations, threads, seed, (float) threshold);
+                long durationMs = System.currentTimeMillis() - startMs;
+                int blunders = 0;
+                for (GameReview.MoveReview r : reviews) {
+                    if (r.blunder) ++blunders;
+                    System.out.println(String.format(Locale.ROOT, "%d\t%d\t%d\t%d\t%.3f\t%.3f\t%+.3f\t%d",
+                            game, r.index, r.move, r.preferredMove, r.winProbabilityBefore,
+                            r.winProbabilityAfter, r.getDelta(), r.blunder ? 1 : 0));
+                }
+                System.err.println(String.format(Locale.ROOT, "Game %d: %d moves reviewed in %d ms, %d blunders",
+                        game, reviews.size(), durationMs, blunders));
+                ++game;
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read games: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ch.verver.poly_y.cli;
+
+/**
+ * Splits a game clock over the moves of a game.
+ *
+ * <p>Before each move, {@link #startMove} sets a target and a maximum search time. The target is
+ * the remaining time (minus a reserve for overhead) divided by an estimate of the number of moves
+ * the player still has to make, which is derived from the number of empty cells, and scaled down
+ * during the opening, where the search matters less. During the search, {@link #shouldStop}
+ * decides when to stop based on how long the best move has been stable: the search stops early
+ * when the best move has not changed for most of the search, continues past the target while the
+ * best move keeps changing, and never exceeds the maximum.
+ */
+final class TimeManager {
+    // Fraction of the empty cells that a player is expected to fill in the rest of the game.
+    private static final double MOVES_PER_EMPTY_CELL = 0.3;
+    private static final int MIN_MOVES_LEFT = 5;
+
+    // Number of own moves that count as the opening, and the fraction of the time they get.
+    private static final int OPENING_MOVES = 8;
+    private static final double OPENING_FACTOR = 0.6;
+
+    // The maximum time per move, as a multiple of the target and a fraction of the clock.
+    private static final double MAX_TARGET_FACTOR = 3.0;
+    private static final double MAX_CLOCK_FRACTION = 0.25;
+
+    private static final long MIN_MOVE_MILLIS = 5;
+
+    private final long reserveMillis;
+    private long remainingMillis;
+    private long targetMillis;
+    private long maxMillis;
+
+    TimeManager(long totalMillis, long reserveMillis) {
+        if (totalMillis <= 0) throw new IllegalArgumentException("total time must be positive");
+        if (reserveMillis < 0) throw new IllegalArgumentException("reserve must not be negative");
+        this.remainingMillis = totalMillis;
+        this.reserveMillis = reserveMillis;
+    }
+
+    /**
+     * Plans the time of the next move.
+     *
+     * @param emptyCells the number of empty cells on the board
+     * @param ownMoves the number of moves this player has made so far
+     */
+    void startMove(int emptyCells, int ownMoves) {
+        long available = Math.max(0, remainingMillis - reserveMillis);
+        long movesLeft = Math.max(MIN_MOVES_LEFT, Math.round(emptyCells * MOVES_PER_EMPTY_CELL));
+        double target = (double) available / movesLeft;
+        if (ownMoves < OPENING_MOVES) target *= OPENING_FACTOR;
+        targetMillis = Math.max(MIN_MOVE_MILLIS, (long) target);
+        maxMillis = Math.max(targetMillis,
+                Math.min((long) (target * MAX_TARGET_FACTOR), (long) (available * MAX_CLOCK_FRACTION)));
+    }
+
+    /**
+     * Returns whether to stop searching.
+     *
+     * @param elapsedMillis the time spent on this move so far
+     * @param stableMillis the time since the best move last changed
+     */
+    boolean shouldStop(long elapsedMillis, long stableMillis) {
+        if (elapsedMillis >= maxMillis) return true;
+        if (elapsedMillis >= targetMillis) return stableMillis * 4 >= elapsedMillis;
+        return elapsedMillis * 2 >= targetMillis && stableMillis * 4 >= elapsedMillis * 3;
+    }
+
+    /** Subtracts the time used by a move (including overhead) from the clock. */
+    void moveFinished(long usedMillis) {
+        remainingMillis -= usedMillis;
+    }
+
+    long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    long getTargetMillis() {
+        return targetMillis;
+    }
+
+    long getMaxMillis() {
+        return maxMillis;
+    }
+}
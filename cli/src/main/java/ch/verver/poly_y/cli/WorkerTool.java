@@ -0,0 +1,41 @@
+package ch.verver.poly_y.cli;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import ch.verver.poly_y.ai.DistributedSearch;
+
+/**
+ * Runs a worker for distributed searches (see {@link DistributedSearch}). The worker listens on
+ * the loopback interface, unless another address is given, and prints the port it listens on.
+ */
+final class WorkerTool {
+    private WorkerTool() {}
+
+    private static final String USAGE =
+            "Usage: poly-y worker [options]\n" +
+            "\n" +
+            "Options:\n" +
+            "  --port=<n>     port to listen on (default: 0, which picks a free port)\n" +
+            "  --bind=<addr>  address to listen on (default: 127.0.0.1)\n";
+
+    static void main(String[] args) {
+        Options options = new Options(args);
+        if (options.has("help")) {
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+        int port = options.getInt("port", 0);
+        String bind = options.getString("bind", "127.0.0.1");
+        options.checkUnused();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName(bind))) {
+            // The distributed command reads this line to find the port.
+            System.out.println("port " + server.getLocalPort());
+            System.out.flush();
+            DistributedSearch.serve(server);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Worker failed: " + e.getMessage());
+        }
+    }
+}
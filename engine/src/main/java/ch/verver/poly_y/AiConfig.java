@@ -1,7 +1,5 @@
 package ch.verver.poly_y;
 
-import androidx.annotation.Nullable;
-
 /** Immutable parameters used to invoke AI. */
 public final class AiConfig {
 
@@ -19,12 +17,12 @@ public final class AiConfig {
      *
      * <p>Level 5 is a reasonable starting level. Level 10 is very difficult.
      */
-    static AiConfig fromDifficulty(int difficulty) {
+    public static AiConfig fromDifficulty(int difficulty) {
         // The opening book is used starting at level 10.
         return fromDifficulty(difficulty, difficulty >= HARD_DIFFICULTY);
     }
 
-    static AiConfig fromDifficulty(int difficulty, boolean useOpeningBook) {
+    public static AiConfig fromDifficulty(int difficulty, boolean useOpeningBook) {
         if (difficulty < MIN_DIFFICULTY || difficulty > MAX_DIFFICULTY) {
             throw new IllegalArgumentException("Difficulty must be between " + MIN_DIFFICULTY + " and " + MAX_DIFFICULTY);
         }
@@ -43,7 +41,7 @@ public final class AiConfig {
      * with this value, while playing strength grows logarithmically. Typical performance is around
      * 2000 iterations per second.
      */
-    final long iterations;
+    public final long iterations;
 
     /**
      * Whether to use the opening book. This determines the first few moves in the game, and
@@ -52,16 +50,27 @@ public final class AiConfig {
      * higher than 1000, otherwise the play strength is very uneven between different phases of the
      * game.
      */
-    final boolean openingBook;
+    public final boolean openingBook;
 
-    AiConfig(long iterations, boolean openingBook) {
+    public AiConfig(long iterations, boolean openingBook) {
         if (iterations < 1) throw new IllegalArgumentException("iterations must be at least 1");
         this.iterations = iterations;
         this.openingBook = openingBook;
     }
 
+    /**
+     * Returns the difficulty level that corresponds with this config (ignoring the opening book),
+     * or 0 if it was not created from a difficulty level.
+     */
+    public int getDifficulty() {
+        for (int difficulty = MIN_DIFFICULTY; difficulty <= MAX_DIFFICULTY; ++difficulty) {
+            if (iterations == 3L << difficulty) return difficulty;
+        }
+        return 0;
+    }
+
     @Override
-    public boolean equals(@Nullable Object obj) {
+    public boolean equals(Object obj) {
         if (this == obj) return true;
         if (!(obj instanceof AiConfig)) return false;
         AiConfig other = (AiConfig) obj;
@@ -0,0 +1,203 @@
+package ch.verver.poly_y;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link GameState} and {@link AiConfig}, as an alternative to the
+ * comma-separated strings created by {@code encodeAsString()}.
+ *
+ * <p>Both formats start with a header byte {@code 0x80 | version} (currently version 2), which
+ * is never the first byte of a string encoding, so {@link #decodeGameState} and
+ * {@link #decodeAiConfig} also accept the (ASCII-encoded) string formats.
+ *
+ * <p>The game state format is:
+ * <ul>
+ *     <li>header byte
+ *     <li>flags byte: pie rule (bit 0), resigned (bit 1), hash trailer present (bit 2), and
+ *         moves encoded as single bytes instead of varints (bit 3)
+ *     <li>varint board size, varint number of sides, varint number of moves
+ *     <li>the moves (vertex ids): one byte each if all ids are less than 256, or varints otherwise
+ *     <li>optionally, the 8-byte big-endian {@link GameState#hash64()}, which is verified when
+ *         decoding
+ * </ul>
+ *
+ * <p>The AI config format is: header byte, flags byte (opening book in bit 0), varint iterations.
+ *
+ * <p>Varints use 7 bits per byte, least significant group first, with the high bit set on all
+ * but the last byte.
+ *
+ * <p>An instance reuses its buffers between calls, so it does not allocate when encoding
+ * repeatedly (except to grow its buffers). The result of an encode method is valid until the
+ * next call. This class is not thread-safe.
+ */
+public final class BinaryCodec {
+    private static final int VERSION = 2;
+    private static final int HEADER = 0x80 | VERSION;
+
+    private static final int FLAG_PIE_RULE = 1;
+    private static final int FLAG_RESIGNED = 2;
+    private static final int FLAG_HASH = 4;
+    private static final int FLAG_BYTE_MOVES = 8;
+
+    private static final int FLAG_OPENING_BOOK = 1;
+
+    private byte[] buffer = new byte[64];
+    private int length;
+    private int[] moves = new int[64];
+
+    // Read position for decoding.
+    private byte[] input;
+    private int position;
+    private int limit;
+
+    /** Returns the buffer that contains the result of the last encode call. */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /** Returns the length of the result of the last encode call. */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Encodes the game state into the buffer and returns its length.
+     *
+     * @param includeHash whether to add the hash trailer, which allows detecting corrupted data
+     */
+    public int encodeGameState(GameState state, boolean includeHash) {
+        BoardGeometry geometry = state.getGeometry();
+        int moveCount = state.getMoveCount();
+        if (moves.length < moveCount) moves = new int[Math.max(moveCount, 2 * moves.length)];
+        state.getMoves(moves);
+        boolean byteMoves = geometry.vertices.size() <= 256;
+
+        // Worst case size: 2 header bytes, 3 varints, moves, hash.
+        ensureCapacity(2 + 3*5 + moveCount*(byteMoves ? 1 : 5) + 8);
+        length = 0;
+        buffer[length++] = (byte) HEADER;
+        buffer[length++] = (byte) ((state.isPieRuleEnabled() ? FLAG_PIE_RULE : 0) |
+                (state.isResigned() ? FLAG_RESIGNED : 0) |
+                (includeHash ? FLAG_HASH : 0) |
+                (byteMoves ? FLAG_BYTE_MOVES : 0));
+        writeVarint(geometry.boardSize);
+        writeVarint(geometry.sides);
+        writeVarint(moveCount);
+        for (int i = 0; i < moveCount; ++i) {
+            if (byteMoves) {
+                buffer[length++] = (byte) moves[i];
+            } else {
+                writeVarint(moves[i]);
+            }
+        }
+        if (includeHash) {
+            long hash = state.hash64();
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (hash >>> shift);
+            }
+        }
+        return length;
+    }
+
+    /** Encodes the AI config into the buffer and returns its length. */
+    public int encodeAiConfig(AiConfig config) {
+        ensureCapacity(2 + 10);
+        length = 0;
+        buffer[length++] = (byte) HEADER;
+        buffer[length++] = (byte) (config.openingBook ? FLAG_OPENING_BOOK : 0);
+        writeVarint(config.iterations);
+        return length;
+    }
+
+    /**
+     * Decodes a game state created with {@link #encodeGameState} or
+     * {@link GameState#encodeAsString()}.
+     *
+     * <p>Like {@link GameState#decodeFromString(String)}, this isn't safe to run on untrusted
+     * input, since the board size is not limited.
+     *
+     * @throws IllegalArgumentException if the data could not be decoded
+     */
+    public GameState decodeGameState(byte[] data, int offset, int length) {
+        if (length > 0 && data[offset] != (byte) HEADER) {
+            return GameState.decodeFromString(new String(data, offset, length, StandardCharsets.US_ASCII));
+        }
+        startReading(data, offset, length);
+        int flags = readByte();
+        int boardSize = (int) readVarint();
+        int sides = (int) readVarint();
+        int moveCount = (int) readVarint();
+        if (moveCount < 0 || moveCount > limit - position) {
+            throw new IllegalArgumentException("Invalid number of moves: " + moveCount);
+        }
+        if (moves.length < moveCount) moves = new int[Math.max(moveCount, 2 * moves.length)];
+        for (int i = 0; i < moveCount; ++i) {
+            moves[i] = (flags & FLAG_BYTE_MOVES) != 0 ? readByte() : (int) readVarint();
+        }
+        GameState state = GameState.calculate(BoardGeometry.get(boardSize, sides),
+                (flags & FLAG_PIE_RULE) != 0, moves, moveCount, (flags & FLAG_RESIGNED) != 0);
+        if ((flags & FLAG_HASH) != 0) {
+            long hash = 0;
+            for (int i = 0; i < 8; ++i) hash = (hash << 8) | readByte();
+            if (hash != state.hash64()) throw new IllegalArgumentException("Hash mismatch");
+        }
+        finishReading();
+        return state;
+    }
+
+    /**
+     * Decodes an AI config created with {@link #encodeAiConfig} or
+     * {@link AiConfig#encodeAsString()}.
+     *
+     * @throws IllegalArgumentException if the data could not be decoded
+     */
+    public AiConfig decodeAiConfig(byte[] data, int offset, int length) {
+        if (length > 0 && data[offset] != (byte) HEADER) {
+            return AiConfig.decodeFromString(new String(data, offset, length, StandardCharsets.US_ASCII));
+        }
+        startReading(data, offset, length);
+        int flags = readByte();
+        long iterations = readVarint();
+        finishReading();
+        return new AiConfig(iterations, (flags & FLAG_OPENING_BOOK) != 0);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) buffer = new byte[Math.max(capacity, 2 * buffer.length)];
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void startReading(byte[] data, int offset, int length) {
+        if (length < 1) throw new IllegalArgumentException("Empty input");
+        input = data;
+        position = offset + 1;  // skip header
+        limit = offset + length;
+    }
+
+    private void finishReading() {
+        input = null;
+        if (position != limit) throw new IllegalArgumentException("Trailing data");
+    }
+
+    private int readByte() {
+        if (position >= limit) throw new IllegalArgumentException("Unexpected end of input");
+        return input[position++] & 0xff;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
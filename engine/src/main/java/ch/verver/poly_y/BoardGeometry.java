@@ -1,8 +1,5 @@
 package ch.verver.poly_y;
 
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -12,6 +9,9 @@ import java.util.List;
  * Immutable description of a Poly-Y game board, which consists of a central vertex surrounded
  * by concentric polygons (with an equal number of sides). The number of corners necessarily
  * equals the number of sides.
+ *
+ * <p>Geometries are interned: {@link #get} returns the same instance for the same board size
+ * and number of sides, so the vertices and tables are only built once.
  */
 public final class BoardGeometry {
 
@@ -81,7 +81,6 @@ public final class BoardGeometry {
             return new Vertex(id, (float) x, (float) y, sidesMask);
         }
 
-        @NonNull
         @Override
         public String toString() {
             return "Vertex{id=" + id + "}";
@@ -96,43 +95,80 @@ public final class BoardGeometry {
             this.w = w;
         }
 
-        @NonNull
         @Override
         public String toString() {
             return "Edge{v=" + v.id + ", w=" + w.id + "}";
         }
     }
 
+    public static final int MIN_BOARD_SIZE = 1;
+    public static final int MAX_BOARD_SIZE = 31;  // arbitrary upper bound
+    public static final int MIN_SIDES = 3;
+    public static final int MAX_SIDES = 31;  // because we use int bitmasks (without sign bit)
+
+    // Interned geometries, indexed by (boardSize - MIN_BOARD_SIZE) * (MAX_SIDES - MIN_SIDES + 1)
+    // + (sides - MIN_SIDES). Guarded by itself.
+    private static final BoardGeometry[] cache =
+            new BoardGeometry[(MAX_BOARD_SIZE - MIN_BOARD_SIZE + 1) * (MAX_SIDES - MIN_SIDES + 1)];
+
     /** The smallest possible board, which has just 1 vertex and no edges. */
-    public static final BoardGeometry DUMMY_GEOMETRY = new BoardGeometry(1, 3);
+    public static final BoardGeometry DUMMY_GEOMETRY = get(1, 3);
 
     /**
      * The Poly-Y board used for the CodeCup, which has 5 sides and size 7 (1 central vertex +
      * 6 pentagons), for a total of 106 vertices and 285 edges.
      */
-    public static final BoardGeometry DEFAULT_GEOMETRY = new BoardGeometry(7, 5);
-
-    public static final int MIN_BOARD_SIZE = 1;
-    public static final int MAX_BOARD_SIZE = 31;  // arbitrary upper bound
-    public static final int MIN_SIDES = 3;
-    public static final int MAX_SIDES = 31;  // because we use int bitmasks (without sign bit)
+    public static final BoardGeometry DEFAULT_GEOMETRY = get(7, 5);
 
     public final int boardSize;
     public final int sides;
     public final List<Vertex> vertices;
     public final List<Edge> edges;
 
+    // Flat views of the vertices, indexed by vertex id, which allow iterating over the board
+    // without going through Vertex objects. Like the rest of this class, these arrays must not
+    // be modified.
+
+    /**
+     * Neighbors of the vertices in compressed sparse row format: the neighbors of vertex i are
+     * neighborTargets[neighborOffsets[i]] up to (but not including)
+     * neighborTargets[neighborOffsets[i + 1]], in the same order as {@link Vertex#neighbors}.
+     */
+    public final int[] neighborOffsets;
+    public final int[] neighborTargets;
+
+    /** sidesMasks[i] is the {@link Vertex#sidesMask} of vertex i. */
+    public final int[] sidesMasks;
+
     private final int[] codeCupIds;
     private final int[] inverseCodeCupIds;
 
-    public BoardGeometry(int boardSize, int sides) {
+    private volatile VertexGrid vertexGrid;  // created on first use, see getVertexGrid()
+
+    /**
+     * Returns the geometry with the given board size and number of sides.
+     *
+     * @throws IllegalArgumentException if the board size or number of sides is out of range
+     */
+    public static BoardGeometry get(int boardSize, int sides) {
         if (boardSize < MIN_BOARD_SIZE || boardSize > MAX_BOARD_SIZE) {
             throw new IllegalArgumentException("boardSize must be between " + MIN_BOARD_SIZE + " and " + MAX_BOARD_SIZE);
         }
         if (sides < MIN_SIDES || sides > MAX_SIDES) {
             throw new IllegalArgumentException("sides must be between " + MIN_SIDES + " and " + MAX_SIDES);
         }
+        int index = (boardSize - MIN_BOARD_SIZE) * (MAX_SIDES - MIN_SIDES + 1) + (sides - MIN_SIDES);
+        synchronized (cache) {
+            BoardGeometry geometry = cache[index];
+            if (geometry == null) {
+                geometry = new BoardGeometry(boardSize, sides);
+                cache[index] = geometry;
+            }
+            return geometry;
+        }
+    }
 
+    private BoardGeometry(int boardSize, int sides) {
         this.boardSize = boardSize;
         this.sides = sides;
 
@@ -178,6 +214,16 @@ public final class BoardGeometry {
         this.vertices = Collections.unmodifiableList(vertices);
         this.edges = Collections.unmodifiableList(edges);
 
+        neighborOffsets = new int[vertexCount + 1];
+        neighborTargets = new int[2 * edgeCount];
+        sidesMasks = new int[vertexCount];
+        for (Vertex v : vertices) {
+            int offset = neighborOffsets[v.id];
+            for (Vertex w : v.neighbors) neighborTargets[offset++] = w.id;
+            neighborOffsets[v.id + 1] = offset;
+            sidesMasks[v.id] = v.sidesMask;
+        }
+
         // Calculate CodeCup vertex ids, which are used by the Lynx AI. Vertices are numbered
         // starting with 1 at the top, then moving down row by row, as shown here:
         // https://archive.codecup.nl/2014/images/poly-y_board.png
@@ -238,6 +284,17 @@ public final class BoardGeometry {
         return 1 + sides * (size - 1) * size / 2 + size * side + index;
     }
 
+    /** Returns a spatial index of the vertices, for nearest-vertex queries. */
+    public VertexGrid getVertexGrid() {
+        VertexGrid grid = vertexGrid;
+        if (grid == null) {
+            // Racing threads may build the grid more than once, which is harmless.
+            grid = new VertexGrid(this);
+            vertexGrid = grid;
+        }
+        return grid;
+    }
+
     public Vertex codeCupIdToVertex(int codeCupId) {
         return vertices.get(inverseCodeCupIds[codeCupId - 1]);
     }
@@ -251,7 +308,7 @@ public final class BoardGeometry {
     }
 
     @Override
-    public boolean equals(@Nullable Object obj) {
+    public boolean equals(Object obj) {
         if (obj == this) return true;
         if (!(obj instanceof BoardGeometry)) return false;
         BoardGeometry other = (BoardGeometry) obj;
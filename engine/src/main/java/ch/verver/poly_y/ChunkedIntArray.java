@@ -0,0 +1,58 @@
+package ch.verver.poly_y;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-length int array that is split into chunks, so that copies can share unmodified chunks.
+ * This makes {@link #copy()} cost O(length / 64) instead of O(length), and a subsequent
+ * {@link #set} copies only the chunk that is modified (path copying).
+ *
+ * <p>An array owns the chunks it has modified since it was created, and modifies those in place.
+ * All other chunks are shared, and are copied before they are modified. After calling
+ * {@link #copy()}, the original array must not be modified anymore, because it shares the chunks
+ * it owns with the copy. Under that condition, arrays behave as if they were independent.
+ *
+ * <p>This class is not thread-safe while it is being modified, but arrays that are no longer
+ * modified can be read and copied from any thread.
+ */
+final class ChunkedIntArray {
+    private static final int SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << SHIFT;
+    private static final int MASK = CHUNK_SIZE - 1;
+
+    // Shared by all arrays; never modified.
+    private static final int[] ZERO_CHUNK = new int[CHUNK_SIZE];
+
+    private final int[][] chunks;
+    private final boolean[] owned;
+
+    /** Creates a new array of the given length, with all elements set to 0. */
+    ChunkedIntArray(int length) {
+        chunks = new int[(length + MASK) >>> SHIFT][];
+        Arrays.fill(chunks, ZERO_CHUNK);
+        owned = new boolean[chunks.length];
+    }
+
+    private ChunkedIntArray(int[][] chunks) {
+        this.chunks = chunks;
+        this.owned = new boolean[chunks.length];
+    }
+
+    int get(int i) {
+        return chunks[i >>> SHIFT][i & MASK];
+    }
+
+    void set(int i, int value) {
+        int c = i >>> SHIFT;
+        if (!owned[c]) {
+            chunks[c] = chunks[c].clone();
+            owned[c] = true;
+        }
+        chunks[c][i & MASK] = value;
+    }
+
+    /** Returns a copy of this array. This array must not be modified afterwards. */
+    ChunkedIntArray copy() {
+        return new ChunkedIntArray(chunks.clone());
+    }
+}
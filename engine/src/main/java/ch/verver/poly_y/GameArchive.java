@@ -0,0 +1,349 @@
+package ch.verver.poly_y;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Archive of finished games, stored in two append-only files:
+ *
+ * <ul>
+ *     <li>The data file contains one record per game: the length of the encoded AI config (one
+ *         byte, 0 if there is none), the AI config, and the game state, both encoded with
+ *         {@link BinaryCodec} (the game state with the hash trailer).
+ *     <li>The index file contains one fixed-size entry per game, with the location of its
+ *         record in the data file and a summary (result, difficulty, timestamps, etc.) that can
+ *         be used to filter games without decoding them.
+ * </ul>
+ *
+ * <p>Both files start with a header consisting of a magic number and a version number. All
+ * integers are big-endian.
+ *
+ * <p>Files are read through memory-mapped buffers, so opening an archive takes constant time,
+ * and only the parts that are accessed are read from disk. Since a mapping is limited to 2 GB,
+ * records beyond that are read from the data file directly. A game is written to the data file
+ * before its index entry, so if writing is interrupted, the data file may contain a partial
+ * record that is not indexed, which is discarded when the archive is opened again.
+ *
+ * <p>This class is thread-safe, but it does blocking I/O.
+ */
+public final class GameArchive implements Closeable {
+    private static final int DATA_MAGIC = 0x50594741;  // "PYGA"
+    private static final int INDEX_MAGIC = 0x50594749;  // "PYGI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    // Index entry layout.
+    private static final int ENTRY_SIZE = 40;
+    private static final int OFFSET_DATA_OFFSET = 0;  // long
+    private static final int OFFSET_DATA_LENGTH = 8;  // int
+    private static final int OFFSET_MOVE_COUNT = 12;  // int
+    private static final int OFFSET_WINNER = 16;  // byte
+    private static final int OFFSET_AI_PLAYER = 17;  // byte
+    private static final int OFFSET_DIFFICULTY = 18;  // byte
+    private static final int OFFSET_FLAGS = 19;  // byte
+    private static final int OFFSET_START_TIME = 20;  // long
+    private static final int OFFSET_END_TIME = 28;  // long
+    // Bytes 36-39 are reserved, and currently 0.
+
+    private static final int FLAG_CAMPAIGN = 1;
+    private static final int FLAG_RESIGNED = 2;
+
+    /** A finished game, and the circumstances in which it was played. */
+    public static final class Game {
+        public final GameState state;
+
+        /** The AI config, or null if the game was played without AI. */
+        public final AiConfig aiConfig;
+
+        /** The player controlled by the AI (1 or 2), or 0 if none. */
+        public final int aiPlayer;
+
+        public final boolean campaign;
+        public final long startTimeMillis;
+        public final long endTimeMillis;
+
+        /** @throws IllegalArgumentException if the game is not over */
+        public Game(GameState state, AiConfig aiConfig, int aiPlayer, boolean campaign,
+                long startTimeMillis, long endTimeMillis) {
+            if (!state.isGameOver()) throw new IllegalArgumentException("Game must be over");
+            if (aiPlayer < 0 || aiPlayer > 2) throw new IllegalArgumentException("Invalid aiPlayer");
+            this.state = state;
+            this.aiConfig = aiConfig;
+            this.aiPlayer = aiPlayer;
+            this.campaign = campaign;
+            this.startTimeMillis = startTimeMillis;
+            this.endTimeMillis = endTimeMillis;
+        }
+    }
+
+    /** Summary of an archived game, as stored in the index. */
+    public static final class Summary {
+        /** Position of the game in the archive. */
+        public final int index;
+
+        public final int moveCount;
+
+        /** The winner (1 or 2), or 0 if the game ended in a draw. */
+        public final int winner;
+
+        /** The player controlled by the AI (1 or 2), or 0 if none. */
+        public final int aiPlayer;
+
+        /** The AI difficulty level (see {@link AiConfig#getDifficulty()}), or 0 if unknown. */
+        public final int difficulty;
+
+        public final boolean campaign;
+        public final boolean resigned;
+        public final long startTimeMillis;
+        public final long endTimeMillis;
+
+        Summary(int index, int moveCount, int winner, int aiPlayer, int difficulty,
+                boolean campaign, boolean resigned, long startTimeMillis, long endTimeMillis) {
+            this.index = index;
+            this.moveCount = moveCount;
+            this.winner = winner;
+            this.aiPlayer = aiPlayer;
+            this.difficulty = difficulty;
+            this.campaign = campaign;
+            this.resigned = resigned;
+            this.startTimeMillis = startTimeMillis;
+            this.endTimeMillis = endTimeMillis;
+        }
+
+        /** Returns whether the AI won this game. Returns false if there was no AI player. */
+        public boolean isAiWin() {
+            return aiPlayer != 0 && winner == aiPlayer;
+        }
+
+        /** Returns whether the AI lost this game. Returns false if there was no AI player. */
+        public boolean isAiLoss() {
+            return aiPlayer != 0 && winner == GameState.otherPlayer(aiPlayer);
+        }
+    }
+
+    /** Selects games based on their summary. */
+    public interface Filter {
+        boolean accept(Summary summary);
+    }
+
+    /** Returns a filter that accepts games won by the given player (or drawn, if 0). */
+    public static Filter withWinner(int winner) {
+        return summary -> summary.winner == winner;
+    }
+
+    /** Returns a filter that accepts games against the AI at the given difficulty level. */
+    public static Filter withDifficulty(int difficulty) {
+        return summary -> summary.aiPlayer != 0 && summary.difficulty == difficulty;
+    }
+
+    private final RandomAccessFile dataFile;
+    private final RandomAccessFile indexFile;
+    private final BinaryCodec codec = new BinaryCodec();
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate(ENTRY_SIZE);
+    private byte[] recordBuffer = new byte[256];
+
+    private long dataSize;
+    private int size;
+
+    // Read-only mappings of the files. These are replaced by larger mappings when the files grow.
+    private MappedByteBuffer dataMap;
+    private MappedByteBuffer indexMap;
+
+    private GameArchive(RandomAccessFile dataFile, RandomAccessFile indexFile) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Opens the archive stored in the given files, which are created if they don't exist.
+     *
+     * @throws IOException if the files could not be opened, or do not contain an archive
+     */
+    public static GameArchive open(File dataPath, File indexPath) throws IOException {
+        RandomAccessFile dataFile = new RandomAccessFile(dataPath, "rw");
+        RandomAccessFile indexFile;
+        try {
+            indexFile = new RandomAccessFile(indexPath, "rw");
+        } catch (IOException e) {
+            dataFile.close();
+            throw e;
+        }
+        GameArchive archive = new GameArchive(dataFile, indexFile);
+        try {
+            archive.initialize();
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    private void initialize() throws IOException {
+        readOrWriteHeader(dataFile, DATA_MAGIC);
+        readOrWriteHeader(indexFile, INDEX_MAGIC);
+
+        // Discard a partially written index entry, and data that is not indexed.
+        size = (int) ((indexFile.length() - HEADER_SIZE) / ENTRY_SIZE);
+        indexFile.setLength(HEADER_SIZE + (long) size * ENTRY_SIZE);
+        dataSize = HEADER_SIZE;
+        if (size > 0) {
+            ByteBuffer entry = readEntry(size - 1);
+            dataSize = entry.getLong(OFFSET_DATA_OFFSET) + entry.getInt(OFFSET_DATA_LENGTH);
+            if (dataSize > dataFile.length()) throw new IOException("Index refers past the end of the data file");
+        }
+        dataFile.setLength(dataSize);
+    }
+
+    private static void readOrWriteHeader(RandomAccessFile file, int magic) throws IOException {
+        if (file.length() == 0) {
+            file.writeInt(magic);
+            file.writeInt(VERSION);
+            return;
+        }
+        file.seek(0);
+        if (file.length() < HEADER_SIZE || file.readInt() != magic) throw new IOException("Not a game archive");
+        int version = file.readInt();
+        if (version != VERSION) throw new IOException("Unsupported version number: " + version);
+    }
+
+    /** Returns the number of games in the archive. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Appends a game to the archive. */
+    public synchronized void append(Game game) throws IOException {
+        int recordLength = 1;
+        if (game.aiConfig != null) {
+            int configLength = codec.encodeAiConfig(game.aiConfig);
+            ensureRecordCapacity(1 + configLength);
+            System.arraycopy(codec.getBuffer(), 0, recordBuffer, 1, configLength);
+            recordBuffer[0] = (byte) configLength;
+            recordLength += configLength;
+        } else {
+            recordBuffer[0] = 0;
+        }
+        int stateLength = codec.encodeGameState(game.state, true);
+        ensureRecordCapacity(recordLength + stateLength);
+        System.arraycopy(codec.getBuffer(), 0, recordBuffer, recordLength, stateLength);
+        recordLength += stateLength;
+
+        dataFile.getChannel().write(ByteBuffer.wrap(recordBuffer, 0, recordLength), dataSize);
+
+        ByteBuffer entry = entryBuffer;
+        Arrays.fill(entry.array(), (byte) 0);
+        entry.putLong(OFFSET_DATA_OFFSET, dataSize);
+        entry.putInt(OFFSET_DATA_LENGTH, recordLength);
+        entry.putInt(OFFSET_MOVE_COUNT, game.state.getMoveCount());
+        entry.put(OFFSET_WINNER, (byte) game.state.getWinner());
+        entry.put(OFFSET_AI_PLAYER, (byte) game.aiPlayer);
+        entry.put(OFFSET_DIFFICULTY, (byte) (game.aiConfig == null ? 0 : game.aiConfig.getDifficulty()));
+        entry.put(OFFSET_FLAGS, (byte) ((game.campaign ? FLAG_CAMPAIGN : 0) |
+                (game.state.isResigned() ? FLAG_RESIGNED : 0)));
+        entry.putLong(OFFSET_START_TIME, game.startTimeMillis);
+        entry.putLong(OFFSET_END_TIME, game.endTimeMillis);
+        entry.clear();
+        indexFile.getChannel().write(entry, HEADER_SIZE + (long) size * ENTRY_SIZE);
+
+        dataSize += recordLength;
+        ++size;
+    }
+
+    /** Returns the summary of the i-th game. */
+    public synchronized Summary getSummary(int i) throws IOException {
+        ByteBuffer entry = readEntry(i);
+        int flags = entry.get(OFFSET_FLAGS);
+        return new Summary(i, entry.getInt(OFFSET_MOVE_COUNT), entry.get(OFFSET_WINNER),
+                entry.get(OFFSET_AI_PLAYER), entry.get(OFFSET_DIFFICULTY),
+                (flags & FLAG_CAMPAIGN) != 0, (flags & FLAG_RESIGNED) != 0,
+                entry.getLong(OFFSET_START_TIME), entry.getLong(OFFSET_END_TIME));
+    }
+
+    /**
+     * Returns the i-th game.
+     *
+     * @throws IOException if the game could not be read or decoded
+     */
+    public synchronized Game getGame(int i) throws IOException {
+        ByteBuffer entry = readEntry(i);
+        long offset = entry.getLong(OFFSET_DATA_OFFSET);
+        int length = entry.getInt(OFFSET_DATA_LENGTH);
+        if (offset < HEADER_SIZE || length < 1 || offset + length > dataSize) {
+            throw new IOException("Invalid location of game record " + i);
+        }
+        ensureRecordCapacity(length);
+        if (offset + length <= Integer.MAX_VALUE) {
+            if (dataMap == null || offset + length > dataMap.capacity()) {
+                dataMap = dataFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                        Math.min(dataSize, Integer.MAX_VALUE));
+            }
+            ByteBuffer data = dataMap.duplicate();
+            data.position((int) offset);
+            data.get(recordBuffer, 0, length);
+        } else {
+            ByteBuffer data = ByteBuffer.wrap(recordBuffer, 0, length);
+            while (data.hasRemaining()) {
+                if (dataFile.getChannel().read(data, offset + data.position()) < 0) throw new EOFException();
+            }
+        }
+        try {
+            int configLength = recordBuffer[0] & 0xff;
+            AiConfig aiConfig = configLength == 0 ? null : codec.decodeAiConfig(recordBuffer, 1, configLength);
+            GameState state = codec.decodeGameState(recordBuffer, 1 + configLength, length - 1 - configLength);
+            int flags = entry.get(OFFSET_FLAGS);
+            return new Game(state, aiConfig, entry.get(OFFSET_AI_PLAYER), (flags & FLAG_CAMPAIGN) != 0,
+                    entry.getLong(OFFSET_START_TIME), entry.getLong(OFFSET_END_TIME));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid game record " + i, e);
+        }
+    }
+
+    /**
+     * Returns the indices of the games accepted by the filter, in increasing order. This reads
+     * only the index.
+     */
+    public synchronized int[] select(Filter filter) throws IOException {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; ++i) {
+            if (filter.accept(getSummary(i))) result[count++] = i;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        dataMap = null;
+        indexMap = null;
+        try {
+            dataFile.close();
+        } finally {
+            indexFile.close();
+        }
+    }
+
+    // Returns a buffer positioned at the i-th index entry, that is valid until the next call.
+    private ByteBuffer readEntry(int i) throws IOException {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Invalid game index: " + i);
+        long end = HEADER_SIZE + (long) size * ENTRY_SIZE;
+        if (indexMap == null || end > indexMap.capacity()) {
+            indexMap = indexFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, end);
+        }
+        ByteBuffer entry = indexMap.duplicate();
+        entry.position(HEADER_SIZE + i * ENTRY_SIZE);
+        return entry.slice();
+    }
+
+    private void ensureRecordCapacity(int capacity) {
+        if (recordBuffer.length < capacity) {
+            recordBuffer = Arrays.copyOf(recordBuffer, Math.max(capacity, 2 * recordBuffer.length));
+        }
+    }
+}
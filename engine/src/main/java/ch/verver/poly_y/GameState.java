@@ -0,0 +1,420 @@
+package ch.verver.poly_y;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** Immutable representation of a Poly-Y game in progress. */
+public final class GameState {
+    private static final int[] NO_MOVES = new int[0];
+
+    public static final GameState DUMMY_GAME_STATE = calculate(BoardGeometry.DUMMY_GEOMETRY, false);
+    public static final GameState DEFAULT_GAME_STATE = calculate(BoardGeometry.DEFAULT_GEOMETRY);
+
+    public static int otherPlayer(int player) {
+        switch (player) {
+            case 0: return 0;
+            case 1: return 2;
+            case 2: return 1;
+            default:
+                throw new IllegalArgumentException("Invalid player");
+        }
+    }
+
+    public static GameState calculate(BoardGeometry geometry) {
+        return calculate(geometry, true);
+    }
+
+    public static GameState calculate(BoardGeometry geometry, boolean canSwap) {
+        return calculate(geometry, canSwap, NO_MOVES);
+    }
+
+    public static GameState calculate(BoardGeometry geometry, boolean canSwap, int[] moves) {
+        return calculate(geometry, canSwap, moves, false);
+    }
+
+    public static GameState calculate(BoardGeometry geometry, boolean canSwap, int[] moves, boolean resigned) {
+        return calculate(geometry, canSwap, moves, moves.length, resigned);
+    }
+
+    /** Like the above, but only uses the first moveCount elements of the moves array. */
+    static GameState calculate(BoardGeometry geometry, boolean canSwap, int[] moves, int moveCount, boolean resigned) {
+        int vertexCount = geometry.vertices.size();
+        ChunkedIntArray pieces = new ChunkedIntArray(vertexCount);
+        ChunkedIntArray groups = new ChunkedIntArray(vertexCount);
+        ChunkedIntArray groupSides = new ChunkedIntArray(vertexCount);
+        byte[] cornerWinners = new byte[geometry.sides];
+
+        // Place pieces on the board, one by one. The arrays are modified in place, since the
+        // intermediate states are not needed.
+        MoveHistory history = MoveHistory.EMPTY;
+        int player = 1;
+        for (int i = 0; i < moveCount; ++i) {
+            int move = moves[i];
+            if (move < 0 || move >= vertexCount) throw new IllegalArgumentException("Invalid move");
+            placeStone(geometry, pieces, groups, groupSides, cornerWinners, move, player);
+            history = history.append(move);
+            player = otherPlayer(player);
+        }
+
+        return create(geometry, canSwap, history, resigned, pieces, groups, groupSides, cornerWinners);
+    }
+
+    // Calculates the scores and the winner from the captured corners, and creates the game state.
+    private static GameState create(
+            BoardGeometry geometry, boolean canSwap, MoveHistory moves, boolean resigned,
+            ChunkedIntArray pieces, ChunkedIntArray groups, ChunkedIntArray groupSides,
+            byte[] cornerWinners) {
+        int[] scores = new int[3];
+        int winner = 0;
+
+        // Calculate the score for each player (the number of captured corners).
+        for (int i = 0; i < geometry.sides; ++i) {
+            scores[cornerWinners[i]]++;
+        }
+
+        // Calculate the winner: the player that has captured more than half the corners.
+        for (int player = 1; player < scores.length; ++player) {
+            if (2*scores[player] > cornerWinners.length) {
+                winner = player;
+                break;
+            }
+        }
+
+        if (winner != 0 && resigned) {
+            throw new IllegalArgumentException("Player cannot resign when the game is already won!");
+        }
+
+        return new GameState(geometry, canSwap, moves, resigned, pieces, groups, groupSides,
+                cornerWinners, scores, winner);
+    }
+
+    // Places a stone of the given player on the board, and updates the connected groups and the
+    // captured corners.
+    //
+    // Groups of connected stones are tracked with a union-find data structure (with union by
+    // rank, but without path compression, so the arrays are only modified when stones are
+    // placed). For each vertex, groups contains the id of its parent plus 1 if the vertex is not
+    // the root of its group, or minus the rank of the group if the vertex is the root (so 0 means
+    // the vertex is an empty, singleton group). For each root, groupSides contains the bitmask of
+    // the sides of the board that the group touches.
+    private static void placeStone(
+            BoardGeometry geometry, ChunkedIntArray pieces, ChunkedIntArray groups,
+            ChunkedIntArray groupSides, byte[] cornerWinners, int vertexId, int player) {
+        final int[] neighborTargets = geometry.neighborTargets;
+        final int neighborsBegin = geometry.neighborOffsets[vertexId];
+        final int neighborsEnd = geometry.neighborOffsets[vertexId + 1];
+        int oldPlayer = pieces.get(vertexId);
+        if (oldPlayer != 0) {
+            // This happens when the second player swaps. The stone is recolored, which is only
+            // possible if it is not connected to any other stones.
+            for (int i = neighborsBegin; i < neighborsEnd; ++i) {
+                if (pieces.get(neighborTargets[i]) == oldPlayer) {
+                    throw new IllegalArgumentException("Cannot replace a stone that is connected to other stones");
+                }
+            }
+        }
+        pieces.set(vertexId, player);
+        groupSides.set(vertexId, geometry.sidesMasks[vertexId]);
+
+        int root = vertexId;
+        for (int i = neighborsBegin; i < neighborsEnd; ++i) {
+            int w = neighborTargets[i];
+            if (pieces.get(w) == player) {
+                root = union(groups, groupSides, root, findRoot(groups, w));
+            }
+        }
+
+        // Determine which corners are captured by the group that contains the new stone.
+        int sidesMask = groupSides.get(root);
+        if (hasAtLeast3Bits(sidesMask)) {
+            for (int i = 0; i < geometry.sides; ++i) {
+                if ((sidesMask & (1 << i)) != 0 &&
+                        (sidesMask & (1 << (i == 0 ? geometry.sides - 1 : i - 1))) != 0) {
+                    if (cornerWinners[i] != 0 && cornerWinners[i] != player) {
+                        // The board geometry should make this impossible!
+                        throw new RuntimeException("Internal error: multiple winners of the same corner");
+                    }
+                    cornerWinners[i] = (byte) player;
+                }
+            }
+        }
+    }
+
+    private static int findRoot(ChunkedIntArray groups, int v) {
+        int parent;
+        while ((parent = groups.get(v)) > 0) v = parent - 1;
+        return v;
+    }
+
+    // Merges the groups with roots a and b, and returns the root of the merged group.
+    private static int union(ChunkedIntArray groups, ChunkedIntArray groupSides, int a, int b) {
+        if (a == b) return a;
+        int rankA = -groups.get(a);
+        int rankB = -groups.get(b);
+        if (rankA < rankB) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        } else if (rankA == rankB) {
+            groups.set(a, -(rankA + 1));
+        }
+        groups.set(b, a + 1);
+        groupSides.set(a, groupSides.get(a) | groupSides.get(b));
+        return a;
+    }
+
+    // Input parameters
+    private final BoardGeometry geometry;
+    private final boolean canSwap;
+    private final MoveHistory moves;
+    private final boolean resigned;
+
+    // 64-bit hash of the input parameters (see hash64())
+    private final long hash;
+
+    // Derived data (calculated by calculate() and move(), ignored by equals() and hashCode())
+    private final ChunkedIntArray pieces;
+    private final ChunkedIntArray groups;  // union-find structure; see placeStone()
+    private final ChunkedIntArray groupSides;  // per group root, mask of sides touched
+    private final byte[] cornerWinners;  // per corner, id of player that captured it
+    private final int[] scores;  // number of captured corners, per player
+    private final int winner;
+
+    private GameState(
+            BoardGeometry geometry, boolean canSwap, MoveHistory moves, boolean resigned,
+            ChunkedIntArray pieces, ChunkedIntArray groups, ChunkedIntArray groupSides,
+            byte[] cornerWinners, int[] scores, int winner) {
+        this.geometry = geometry;
+        this.canSwap = canSwap;
+        this.moves = moves;
+        this.resigned = resigned;
+        this.hash = moves.hash64() * 31 +
+                ((long) geometry.hashCode() << 2) + (canSwap ? 2 : 0) + (resigned ? 1 : 0);
+        this.pieces = pieces;
+        this.groups = groups;
+        this.groupSides = groupSides;
+        this.cornerWinners = cornerWinners;
+        this.scores = scores;
+        this.winner = winner;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /** Returns the number of moves played, including the swap, if any. */
+    public int getMoveCount() {
+        return moves.length();
+    }
+
+    /** Copies the moves played (as vertex ids) to the start of the given array. */
+    void getMoves(int[] dest) {
+        moves.copyTo(dest);
+    }
+
+    public boolean isGameOver() {
+        // The second condition can only happen if geometry.sides is even, and each player has
+        // captured half of the corners.
+        return winner != 0 || resigned || scores[0] == 0;
+    }
+
+    /** Returns whether the pie rule is in effect. See also {@link #canSwap()}. */
+    public boolean isPieRuleEnabled() {
+        return canSwap;
+    }
+
+    public boolean isResigned() {
+        return resigned;
+    }
+
+    /** Returns the next player (1 or 2), or 0 if the game is over. */
+    public int getNextPlayer() {
+        return isGameOver() ? 0 : (moves.length() & 1) + 1;
+    }
+
+    /** Returns the last move played, or null if no moves have been played yet. */
+    public BoardGeometry.Vertex getLastMove() {
+        return moves.length() == 0 ? null : geometry.vertices.get(moves.last());
+    }
+
+    /** Returns the color of the piece on the field; either 1 or 2, or 0 if empty. */
+    public int getPiece(BoardGeometry.Vertex v) {
+        return pieces.get(v.id);
+    }
+
+    /** Like {@link #getPiece(BoardGeometry.Vertex)}, but takes a vertex id. */
+    public int getPiece(int vertexId) {
+        return pieces.get(vertexId);
+    }
+
+    /**
+     * Returns whether it's possible to swap with the opponent's first move, which is true if this
+     * is the second move, and the pie rule is in effect. The first move can be retrieved by
+     * {@link #getLastMove()}.
+     */
+    public boolean canSwap() {
+        return canSwap && this.moves.length() == 1;
+    }
+
+    /**
+     * Returns the winner (player 1 or 2) if the game is over, or 0 if the game is not over.
+     *
+     * <p>If the game is over, it is possible that getWinner() returns 0 only if geometry.sides()
+     * is even, and each player captured half of the corners.
+     */
+    public int getWinner() {
+        return resigned ? 2 - (moves.length() & 1)  : winner;
+    }
+
+    /**
+     * Returns the number of corners captured by the given player (1 or 2), or pass 0 to get
+     * the number of corners that have not yet been captured.
+     */
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    /**
+     * Returns which player captured the given corner (1 or 2, or 0 if neither).
+     *
+     * <p>Sides are ordered in clockwise order. The i-th corner connects sides (i-1) and i, where -1
+     * corresponds to {@code geometry.sides - 1}.
+     */
+    public int getCornerWinner(int corner) {
+        return this.cornerWinners[corner];
+    }
+
+    /**
+     * Returns whether the given vertices hold stones of the same player that are connected by a
+     * chain of that player's stones (package-private for tests).
+     */
+    boolean isConnected(int vertexA, int vertexB) {
+        int player = pieces.get(vertexA);
+        return player != 0 && player == pieces.get(vertexB) &&
+                findRoot(groups, vertexA) == findRoot(groups, vertexB);
+    }
+
+    public boolean isValidMove(BoardGeometry.Vertex v) {
+        if (getNextPlayer() == 0) return false;
+        return pieces.get(v.id) == 0 || canSwap();
+    }
+
+    public GameState move(BoardGeometry.Vertex v) {
+        if (!isValidMove(v)) throw new IllegalArgumentException("Invalid move");
+
+        MoveHistory newMoves = moves.append(v.id);
+
+        // Derive the new state from this one, instead of replaying all moves. Only the chunks of
+        // the arrays that are modified by placing the stone are copied.
+        ChunkedIntArray newPieces = pieces.copy();
+        ChunkedIntArray newGroups = groups.copy();
+        ChunkedIntArray newGroupSides = groupSides.copy();
+        byte[] newCornerWinners = cornerWinners.clone();
+        placeStone(geometry, newPieces, newGroups, newGroupSides, newCornerWinners, v.id, getNextPlayer());
+        return create(geometry, canSwap, newMoves, false, newPieces, newGroups, newGroupSides, newCornerWinners);
+    }
+
+    public GameState resign() {
+        int nextPlayer = getNextPlayer();
+        if (nextPlayer == 0) {
+            throw new IllegalArgumentException("Cannot resign when the game is over");
+        }
+        return new GameState(geometry, canSwap, moves, true, pieces, groups, groupSides, cornerWinners, scores, winner);
+    }
+
+    public ArrayList<Integer> getCodeCupMoves() {
+        int[] moves = this.moves.toArray();
+        ArrayList<Integer> res = new ArrayList<>(moves.length);
+        for (int i = 0; i < moves.length; ++i) {
+            if (i == 1 && moves[1] == moves[0]) {
+                res.add(-1);  // Swap
+            } else {
+                res.add(geometry.vertexIdToCodeCupId(moves[i]));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof GameState)) return false;
+        GameState other = (GameState) obj;
+        return hash == other.hash &&
+                geometry.equals(other.geometry) &&
+                canSwap == other.canSwap &&
+                resigned == other.resigned &&
+                moves.equals(other.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Returns a 64-bit hash of the game state, which depends on the same fields as
+     * {@link #equals(Object)}: the board geometry, the pie rule, the moves played (in order), and
+     * whether the game was resigned. Different game states have different hashes with high
+     * probability. This takes constant time, since the hash is maintained incrementally.
+     */
+    public long hash64() {
+        return hash;
+    }
+
+    /**
+     * Encodes the game state as a string that consists of comma-separated integers.
+     *
+     * <p>The format is: "version,boardSize,sides,pieRule,resigned,move1,move2,..,moveN",
+     * where version is currently 1.
+     */
+    public String encodeAsString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(1);  // version number
+        sb.append(',');
+        sb.append(geometry.boardSize);
+        sb.append(',');
+        sb.append(geometry.sides);
+        sb.append(',');
+        sb.append(canSwap ? 1 : 0);
+        sb.append(',');
+        sb.append(resigned ? 1 : 0);
+        for (int move : moves.toArray()) {
+            sb.append(',');
+            sb.append(move);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes the game state string created with {@link #encodeAsString()}.
+     *
+     * <p>This isn't safe to run on untrusted input! No attempt is made to ensure that the
+     * parameters are within a reasonable range and/or that the moves are valid.
+     *
+     * @throws IllegalArgumentException if the string could not be parsed
+     */
+    public static GameState decodeFromString(String s) {
+        String[] parts = s.split(",");
+        int[] ints = new int[parts.length];
+        for (int i = 0; i < parts.length; ++i) {
+            ints[i] = Integer.parseInt(parts[i]);
+        }
+        if (ints.length < 5) throw new IllegalArgumentException("Not enough parts");
+        int version = ints[0];
+        if (version != 1) throw new IllegalArgumentException("Unsupported version number: " + version);
+        int boardSize = ints[1];
+        int sides = ints[2];
+        boolean canSwap = ints[3] != 0;
+        boolean resigned = ints[4] != 0;
+        int[] moves = Arrays.copyOfRange(ints, 5, ints.length);
+        return calculate(BoardGeometry.get(boardSize, sides), canSwap, moves, resigned);
+    }
+
+    private static boolean hasAtLeast3Bits(int x) {
+        assert x >= 0;
+        x &= x - 1;
+        x &= x - 1;
+        return x != 0;
+    }
+}
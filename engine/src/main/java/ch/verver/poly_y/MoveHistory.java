@@ -0,0 +1,137 @@
+package ch.verver.poly_y;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable sequence of moves (vertex ids) that supports appending in O(1) time, with a 64-bit
+ * hash of the sequence that is maintained incrementally.
+ *
+ * <p>Moves are stored in fixed-size chunks. A history consists of its last, partially filled
+ * chunk and a reference to the history that ends at the last full chunk, so histories that are
+ * derived from each other share their prefix. Appending a move writes it in place if no other
+ * history has been appended to the same one before; otherwise, only the last chunk is copied.
+ *
+ * <p>This class is thread-safe.
+ */
+final class MoveHistory {
+    private static final int CHUNK_SIZE = 32;
+
+    static final MoveHistory EMPTY = new MoveHistory(null, new Chunk(), 0, 0);
+
+    private static final class Chunk {
+        final int[] moves = new int[CHUNK_SIZE];
+
+        // Number of elements of moves that have been claimed by some history. A history can
+        // append in place only if it is the one that claimed all of them.
+        final AtomicInteger claimed = new AtomicInteger();
+    }
+
+    private final MoveHistory prefix;  // ends at the previous full chunk; null for the first chunk
+    private final Chunk chunk;
+    private final int length;
+    private final long hash;
+
+    private MoveHistory(MoveHistory prefix, Chunk chunk, int length, long hash) {
+        this.prefix = prefix;
+        this.chunk = chunk;
+        this.length = length;
+        this.hash = hash;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /** Returns the move at the given index, in O(length / CHUNK_SIZE) time. */
+    int get(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
+        MoveHistory h = this;
+        while (index < h.chunkStart()) h = h.prefix;
+        return h.chunk.moves[index - h.chunkStart()];
+    }
+
+    /** Returns the last move, or -1 if the history is empty. */
+    int last() {
+        return length == 0 ? -1 : chunk.moves[length - 1 - chunkStart()];
+    }
+
+    /**
+     * Returns a 64-bit hash of the sequence of moves. Unlike {@link #hashCode()}, this is
+     * suitable to tell histories apart with high probability.
+     */
+    long hash64() {
+        return hash;
+    }
+
+    /** Returns a new history with the given move appended. This history is not modified. */
+    MoveHistory append(int move) {
+        long newHash = mix(hash ^ (move + 1));
+        int offset = length - chunkStart();
+        if (offset == CHUNK_SIZE) {
+            Chunk newChunk = new Chunk();
+            newChunk.moves[0] = move;
+            newChunk.claimed.set(1);
+            return new MoveHistory(this, newChunk, length + 1, newHash);
+        }
+        Chunk newChunk = chunk;
+        if (!chunk.claimed.compareAndSet(offset, offset + 1)) {
+            // Another history has been appended to this one already, so we can't reuse the chunk.
+            newChunk = new Chunk();
+            System.arraycopy(chunk.moves, 0, newChunk.moves, 0, offset);
+            newChunk.claimed.set(offset + 1);
+        }
+        newChunk.moves[offset] = move;
+        return new MoveHistory(prefix, newChunk, length + 1, newHash);
+    }
+
+    int[] toArray() {
+        int[] result = new int[length];
+        copyTo(result);
+        return result;
+    }
+
+    /** Copies the moves to the start of the given array, which must be at least length() long. */
+    void copyTo(int[] dest) {
+        for (MoveHistory h = this; h != null; h = h.prefix) {
+            int start = h.chunkStart();
+            System.arraycopy(h.chunk.moves, 0, dest, start, h.length - start);
+        }
+    }
+
+    private int chunkStart() {
+        return prefix == null ? 0 : prefix.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof MoveHistory)) return false;
+        MoveHistory a = this;
+        MoveHistory b = (MoveHistory) obj;
+        if (a.length != b.length || a.hash != b.hash) return false;
+        // Histories of equal length have their chunk boundaries at the same positions. Chunks
+        // are only shared by histories with the same prefix, so we can stop at the first one.
+        while (a != null && a.chunk != b.chunk) {
+            int start = a.chunkStart();
+            for (int i = a.length - start - 1; i >= 0; --i) {
+                if (a.chunk.moves[i] != b.chunk.moves[i]) return false;
+            }
+            a = a.prefix;
+            b = b.prefix;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    // Finalization function of SplitMix64, which is a decent bijective 64-bit hash function.
+    private static long mix(long x) {
+        x += 0x9e3779b97f4a7c15L;
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
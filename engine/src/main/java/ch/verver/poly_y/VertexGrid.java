@@ -0,0 +1,119 @@
+package ch.verver.poly_y;
+
+import java.util.List;
+
+/**
+ * Spatial index over the vertices of a {@link BoardGeometry}, which answers nearest-vertex
+ * queries (e.g. to map a touch to a field) without scanning all vertices.
+ *
+ * <p>The bounding box of the vertices is divided into a uniform grid with about one vertex per
+ * cell. A query examines the cell that contains the query point, and then rings of cells around
+ * it, until no closer vertex can exist. Since the vertices are spread fairly evenly over the
+ * board, this takes constant time on average.
+ *
+ * <p>Instances are immutable and thread-safe. Use {@link BoardGeometry#getVertexGrid()} to get
+ * the index of a geometry, which is built on first use.
+ */
+public final class VertexGrid {
+    private final List<BoardGeometry.Vertex> vertices;
+    private final float minX, minY;
+    private final float cellSize;
+    private final int columns, rows;
+
+    // The vertices in cell (column, row) are cellVertices[cellStart[i]] up to (but not including)
+    // cellVertices[cellStart[i + 1]], where i = row * columns + column.
+    private final int[] cellStart;
+    private final int[] cellVertices;
+
+    VertexGrid(BoardGeometry geometry) {
+        this.vertices = geometry.vertices;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (BoardGeometry.Vertex v : vertices) {
+            minX = Math.min(minX, v.x);
+            minY = Math.min(minY, v.y);
+            maxX = Math.max(maxX, v.x);
+            maxY = Math.max(maxY, v.y);
+        }
+        float width = maxX - minX, height = maxY - minY;
+        float cellSize = (float) Math.sqrt(width * height / vertices.size());
+        if (!(cellSize > 0)) cellSize = 1;  // a single vertex, or all vertices on a line
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = (int) (width / cellSize) + 1;
+        this.rows = (int) (height / cellSize) + 1;
+
+        // Counting sort of the vertices by cell.
+        cellStart = new int[columns * rows + 1];
+        for (BoardGeometry.Vertex v : vertices) ++cellStart[cellOf(v.x, v.y) + 1];
+        for (int i = 0; i < columns * rows; ++i) cellStart[i + 1] += cellStart[i];
+        int[] next = new int[columns * rows];
+        System.arraycopy(cellStart, 0, next, 0, next.length);
+        cellVertices = new int[vertices.size()];
+        for (BoardGeometry.Vertex v : vertices) cellVertices[next[cellOf(v.x, v.y)]++] = v.id;
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / cellSize)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellSize)));
+    }
+
+    private int cellOf(float x, float y) {
+        return row(y) * columns + column(x);
+    }
+
+    /** Returns the vertex closest to (x, y). */
+    public BoardGeometry.Vertex findNearest(float x, float y) {
+        BoardGeometry.Vertex v = findNearest(x, y, Float.POSITIVE_INFINITY);
+        assert v != null;
+        return v;
+    }
+
+    /**
+     * Returns the vertex closest to (x, y), or null if there is no vertex within the given
+     * distance.
+     */
+    public BoardGeometry.Vertex findNearest(float x, float y, float maxDistance) {
+        final int column = column(x);
+        final int row = row(y);
+        // Distance from (x, y) to the cell that contains it, which is nonzero when the point lies
+        // outside the grid (because the cell coordinates were clamped). No cell is closer.
+        float dx = Math.max(0, Math.max(minX + column * cellSize - x, x - (minX + (column + 1) * cellSize)));
+        float dy = Math.max(0, Math.max(minY + row * cellSize - y, y - (minY + (row + 1) * cellSize)));
+        float outside = (float) Math.hypot(dx, dy);
+
+        int best = -1;
+        float bestDistanceSq = maxDistance == Float.POSITIVE_INFINITY ?
+                Float.POSITIVE_INFINITY : maxDistance * maxDistance;
+        final int maxRing = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+        for (int ring = 0; ring <= maxRing; ++ring) {
+            // Every cell in this ring is at least this far from (x, y).
+            float ringDistance = Math.max((ring - 1) * cellSize, outside);
+            if (ringDistance * ringDistance > bestDistanceSq) break;
+            for (int r = row - ring; r <= row + ring; ++r) {
+                if (r < 0 || r >= rows) continue;
+                // On the first and last row of the ring, visit all cells; on the other rows,
+                // only the first and last cell.
+                int step = r == row - ring || r == row + ring ? 1 : 2 * ring;
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) continue;
+                    int cell = r * columns + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; ++i) {
+                        BoardGeometry.Vertex v = vertices.get(cellVertices[i]);
+                        float vx = v.x - x, vy = v.y - y;
+                        float distanceSq = vx * vx + vy * vy;
+                        if (distanceSq < bestDistanceSq) {
+                            bestDistanceSq = distanceSq;
+                            best = v.id;
+                        }
+                    }
+                }
+            }
+        }
+        return best < 0 ? null : vertices.get(best);
+    }
+}
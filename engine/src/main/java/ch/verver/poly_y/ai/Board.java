@@ -0,0 +1,314 @@
+package ch.verver.poly_y.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import ch.verver.poly_y.BoardGeometry;
+
+/**
+ * Tables that describe a board for the AI, generated from a {@link BoardGeometry}.
+ *
+ * <p>Positions are identified by their CodeCup ids (1 through {@link #positions}), so that for
+ * the default geometry, they match the numbering used by the original Lynx code and the opening
+ * book. Index 0 of the per-position tables is unused.
+ */
+final class Board {
+    /** Boards with at most this many positions use the two-long bit sets (bit 0 is unused). */
+    static final int MAX_SMALL_POSITIONS = 127;
+
+    // Number of moves at the start of a playout during which random moves are restricted to
+    // positions at least two steps away from the edge (see centerBiasEnd).
+    private static final int CENTER_BIAS_MOVES = 10;
+
+    // Fraction of the positions that must still be empty to avoid random moves at the edge
+    // (see edgeBiasEnd). The original code used 50 of 106 positions.
+    private static final int EDGE_BIAS_NUMERATOR = 50;
+    private static final int EDGE_BIAS_DENOMINATOR = 106;
+
+    private static final HashMap<BoardGeometry, Board> cache = new HashMap<>();
+
+    static final Board DEFAULT = forGeometry(BoardGeometry.DEFAULT_GEOMETRY);
+
+    /** Returns the tables for the given geometry, which are generated on first use. */
+    static Board forGeometry(BoardGeometry geometry) {
+        synchronized (cache) {
+            Board board = cache.get(geometry);
+            if (board == null) {
+                board = new Board(geometry);
+                cache.put(geometry, board);
+            }
+            return board;
+        }
+    }
+
+    final BoardGeometry geometry;
+
+    /** Total number of positions on the board. */
+    final int positions;
+
+    final int sides;
+
+    /** Whether this board uses the two-long bit set representation. */
+    final boolean small;
+
+    // The neighbour positions of each positions in either clockwise or counter-clockwise order,
+    // such that consecutive neighbours are adjacent to each other (see TreeBot's winner method).
+    final int[][] neighbours;
+
+    // The edge mask of the edges a position is connected to
+    // edges[i] is an edge mask that encodes the set of a edges to which position i is adjacent
+    final int[] edges;
+
+    // A list of board positions that are on the edge of the playing board
+    // A component that captures a corner touches at least three sides, so it suffices to start
+    // searching from the positions on all but two of the sides.
+    final int[] edge;
+
+    // The distance of a position from the edge
+    // edgeDistance[i] is the smallest number of positions between position i and the edge
+    final int[] edgeDistance;
+
+    // While more than this many positions are empty, random moves are only played at least two
+    // steps away from the edge. This is at least the number of positions closer to the edge, so
+    // that such a position is always available.
+    final int centerBiasEnd;
+
+    // Likewise, while more than this many positions are empty, random moves are not played at
+    // the edge.
+    final int edgeBiasEnd;
+
+    // Patterns for the monte carlo simulation, with the same meaning as in the original Lynx
+    // code. patterns[i] contains the patterns that must be checked when the opponent has played
+    // position i in the previous simulation step. Currently there are two kinds of patterns:
+    //
+    // Bridges: If the opponent plays in a bridge belonging to us, we will defend that bridge by
+    // connecting it.
+    //
+    // A primitive edge connection pattern: If a position of us is at most three steps away
+    // from the edge and the opponent plays below us (a neighbour of our position that is one
+    // step closer to the edge), then we play next to the position of the opponent below our
+    // move, but only if the positions below the move that we play do not belong to the
+    // opponent.
+    //
+    // For small boards, one pattern consists of five longs:
+    // 1 & 2: A bit mask encoding a set of positions that all must belong to us
+    // 3 & 4: A bit mask encoding a set of positions of which none may belong to the opponent
+    // 5: The position that we must play if the pattern matches
+    final long[][] smallPatterns;
+
+    // For large boards, one pattern consists of a variable number of ints: the position that we
+    // must play, the number of positions that must belong to us followed by those positions,
+    // and the number of positions that must not belong to the opponent followed by those.
+    final int[][] largePatterns;
+
+    /** Maximum number of patterns for a single position. */
+    final int maxPatterns;
+
+    private Board(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.positions = geometry.vertices.size();
+        this.sides = geometry.sides;
+        this.small = positions <= MAX_SMALL_POSITIONS;
+
+        neighbours = new int[positions + 1][];
+        edges = new int[positions + 1];
+        ArrayList<Integer> edgeList = new ArrayList<>();
+        int edgeSides = (1 << Math.max(sides - 2, 1)) - 1;
+        for (BoardGeometry.Vertex v : geometry.vertices) {
+            int p = geometry.vertexToCodeCupId(v);
+            neighbours[p] = orderNeighbours(v);
+            edges[p] = geometry.sidesMasks[v.id];
+            if ((edges[p] & edgeSides) != 0) edgeList.add(p);
+        }
+        edge = toSortedArray(edgeList);
+
+        // Calculate the distance to the edge with a breadth-first search from the edge.
+        edgeDistance = new int[positions + 1];
+        Arrays.fill(edgeDistance, -1);
+        edgeDistance[0] = 0;
+        int[] queue = new int[positions];
+        int head = 0, tail = 0;
+        for (int p = 1; p <= positions; ++p) {
+            if (edges[p] != 0) {
+                edgeDistance[p] = 0;
+                queue[tail++] = p;
+            }
+        }
+        while (head < tail) {
+            int p = queue[head++];
+            for (int n : neighbours[p]) {
+                if (edgeDistance[n] < 0) {
+                    edgeDistance[n] = edgeDistance[p] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        int nearEdge = 0, atEdge = 0;
+        for (int p = 1; p <= positions; ++p) {
+            if (edgeDistance[p] < 2) ++nearEdge;
+            if (edgeDistance[p] < 1) ++atEdge;
+        }
+        centerBiasEnd = Math.max(positions - CENTER_BIAS_MOVES, nearEdge);
+        edgeBiasEnd = Math.max(positions * EDGE_BIAS_NUMERATOR / EDGE_BIAS_DENOMINATOR, atEdge);
+
+        List<List<int[]>> patterns = generatePatterns();
+        int maxPatterns = 0;
+        for (List<int[]> list : patterns) maxPatterns = Math.max(maxPatterns, list.size());
+        this.maxPatterns = maxPatterns;
+        if (small) {
+            smallPatterns = new long[positions + 1][];
+            largePatterns = null;
+            for (int p = 1; p <= positions; ++p) {
+                List<int[]> list = patterns.get(p);
+                long[] ps = new long[5 * list.size()];
+                for (int i = 0; i < list.size(); ++i) {
+                    int[] pattern = list.get(i);
+                    int k = 1;
+                    for (int n = pattern[k++]; n > 0; --n) setBit(ps, 5 * i, pattern[k++]);
+                    for (int n = pattern[k++]; n > 0; --n) setBit(ps, 5 * i + 2, pattern[k++]);
+                    ps[5 * i + 4] = pattern[0];
+                }
+                smallPatterns[p] = ps;
+            }
+        } else {
+            smallPatterns = null;
+            largePatterns = new int[positions + 1][];
+            for (int p = 1; p <= positions; ++p) {
+                int length = 0;
+                for (int[] pattern : patterns.get(p)) length += pattern.length;
+                int[] ps = new int[length];
+                int k = 0;
+                for (int[] pattern : patterns.get(p)) {
+                    System.arraycopy(pattern, 0, ps, k, pattern.length);
+                    k += pattern.length;
+                }
+                largePatterns[p] = ps;
+            }
+        }
+    }
+
+    // Returns the given set of edges, encoded as a bitmask, captures a corner.
+    // Corner i connects sides i - 1 and i, and can only be captured by a component that touches
+    // at least three sides.
+    int cornerSet(int edges) {
+        if (Integer.bitCount(edges) < 3) return 0;
+        int rotated = ((edges << 1) | (edges >>> (sides - 1))) & ((1 << sides) - 1);
+        return edges & rotated;
+    }
+
+    // Determines whether we win with a given set of captured corners, encoded as a bitmask.
+    boolean win(int corners) {
+        return 2 * Integer.bitCount(corners) > sides;
+    }
+
+    private static void setBit(long[] mask, int offset, int position) {
+        mask[offset + (position >>> 6)] |= 1L << position;
+    }
+
+    // Orders the neighbours of v such that consecutive neighbours are adjacent, by walking
+    // around v starting from a neighbour that has the fewest neighbours in common with v (which
+    // is an endpoint if the neighbours form a path rather than a cycle).
+    private int[] orderNeighbours(BoardGeometry.Vertex v) {
+        List<BoardGeometry.Vertex> ns = v.neighbors;
+        BoardGeometry.Vertex start = null;
+        int startDegree = Integer.MAX_VALUE;
+        for (BoardGeometry.Vertex n : ns) {
+            int degree = 0;
+            for (BoardGeometry.Vertex m : ns) if (m != n && m.neighbors.contains(n)) ++degree;
+            if (degree < startDegree) {
+                start = n;
+                startDegree = degree;
+            }
+        }
+        int[] result = new int[ns.size()];
+        boolean[] used = new boolean[ns.size()];
+        BoardGeometry.Vertex current = start;
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = geometry.vertexToCodeCupId(current);
+            used[ns.indexOf(current)] = true;
+            BoardGeometry.Vertex next = null;
+            for (int j = 0; j < ns.size(); ++j) {
+                if (!used[j] && ns.get(j).neighbors.contains(current)) {
+                    next = ns.get(j);
+                    break;
+                }
+            }
+            if (next == null && i + 1 < result.length) {
+                // Shouldn't happen for the geometries created by BoardGeometry.
+                throw new IllegalStateException("Neighbours of vertex " + v.id + " do not form a path");
+            }
+            current = next;
+        }
+        return result;
+    }
+
+    private boolean adjacent(int p, int q) {
+        for (int n : neighbours[p]) if (n == q) return true;
+        return false;
+    }
+
+    private int[] commonNeighbours(int p, int q) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int n : neighbours[p]) if (adjacent(n, q)) result.add(n);
+        return toSortedArray(result);
+    }
+
+    // Generates the patterns for each position, encoded like largePatterns.
+    private List<List<int[]>> generatePatterns() {
+        List<List<int[]>> patterns = new ArrayList<>();
+        for (int p = 0; p <= positions; ++p) patterns.add(new ArrayList<>());
+
+        // Bridges: two positions a and b that are not adjacent, but have exactly two common
+        // neighbours x and y. If the opponent plays x, we play y. (Bridges are not defended when
+        // the opponent plays at the edge.)
+        for (int a = 1; a <= positions; ++a) {
+            for (int x : neighbours[a]) {
+                if (edgeDistance[x] == 0) continue;
+                for (int b : neighbours[x]) {
+                    if (b <= a || adjacent(a, b)) continue;
+                    int[] common = commonNeighbours(a, b);
+                    if (common.length != 2 || common[0] != x && common[1] != x) continue;
+                    int y = common[0] == x ? common[1] : common[0];
+                    patterns.get(x).add(new int[]{y, 2, a, b, 1, y});
+                }
+            }
+        }
+
+        // Edge connections: our position s is one to three steps away from the edge, and the
+        // opponent plays a neighbour b of s that is one step closer to the edge. Then we play
+        // another neighbour c of s at the same distance as b, if neither c nor its neighbours
+        // that are closer to the edge belong to the opponent. Next to the edge, c must also be
+        // adjacent to b (this only makes a difference near the corners).
+        for (int s = 1; s <= positions; ++s) {
+            if (edgeDistance[s] < 1 || edgeDistance[s] > 3) continue;
+            for (int b : neighbours[s]) {
+                if (edgeDistance[b] != edgeDistance[s] - 1) continue;
+                for (int c : neighbours[s]) {
+                    if (c == b || edgeDistance[c] != edgeDistance[b]) continue;
+                    if (edgeDistance[s] == 1 && !adjacent(b, c)) continue;
+                    ArrayList<Integer> below = new ArrayList<>();
+                    below.add(c);
+                    for (int n : neighbours[c]) if (edgeDistance[n] == edgeDistance[c] - 1) below.add(n);
+                    int[] noOpp = toSortedArray(below);
+                    int[] pattern = new int[4 + noOpp.length];
+                    pattern[0] = c;
+                    pattern[1] = 1;
+                    pattern[2] = s;
+                    pattern[3] = noOpp.length;
+                    System.arraycopy(noOpp, 0, pattern, 4, noOpp.length);
+                    patterns.get(b).add(pattern);
+                }
+            }
+        }
+        return patterns;
+    }
+
+    private static int[] toSortedArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; ++i) result[i] = list.get(i);
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,322 @@
+package ch.verver.poly_y.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import ch.verver.poly_y.BoardGeometry;
+
+/**
+ * Root-parallel search over worker processes, which may run on other hosts, connected by sockets.
+ * This is the multi-process counterpart of {@link ParallelSearch}.
+ *
+ * <p>A worker ({@link #serve}) accepts search requests from a coordinator ({@link #search}). For
+ * each request, it expands its own tree of the position, with the seed chosen by the coordinator,
+ * and periodically sends back the samples and wins of the root moves. The coordinator sums the
+ * latest statistics of all workers to report a live analysis and to select the best move.
+ *
+ * <p>The protocol is binary (big-endian, as written by {@link DataOutputStream}). A request is:
+ * magic, board size, sides (ints), seed, iteration limit, time limit in milliseconds (longs),
+ * reporting interval in milliseconds, number of moves (ints), and the CodeCup moves (ints, -1 for
+ * a swap). The worker replies with frames consisting of a type (byte: 1 for an update, 2 for the
+ * final statistics), the number of expansions (long), the number of root moves that have samples
+ * (int), and for each such move: its CodeCup id (int), samples and wins (longs). Statistics are
+ * cumulative, so a frame replaces the previous one. A connection can carry several requests in turn.
+ *
+ * <p>A worker closes the connection when it receives an invalid request (e.g. an unsupported
+ * board, or moves that are out of range, repeated, or a swap other than the second move), and
+ * then waits for the next connection.
+ */
+public final class DistributedSearch {
+    private DistributedSearch() {}
+
+    private static final int MAGIC = 0x50594453;  // "PYDS"
+    private static final byte FRAME_UPDATE = 1;
+    private static final byte FRAME_FINAL = 2;
+
+    /** The result of a distributed search. */
+    public static final class Result {
+        public final TreeBot.BestMove bestMove;
+        /** The final analysis of the combined statistics. */
+        public final TreeBot.Analysis analysis;
+        /** The number of expansions per worker. */
+        public final long[] workerExpansions;
+        public final long elapsedMillis;
+
+        Result(TreeBot.BestMove bestMove, TreeBot.Analysis analysis, long[] workerExpansions, long elapsedMillis) {
+            this.bestMove = bestMove;
+            this.analysis = analysis;
+            this.workerExpansions = workerExpansions;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getTotalExpansions() {
+            long total = 0;
+            for (long n : workerExpansions) total += n;
+            return total;
+        }
+    }
+
+    // The latest statistics received from a worker.
+    private static final class Frame {
+        final long expansions;
+        final long[] samples;
+        final long[] wins;
+
+        Frame(long expansions, long[] samples, long[] wins) {
+            this.expansions = expansions;
+            this.samples = samples;
+            this.wins = wins;
+        }
+    }
+
+    /**
+     * Serves search requests from coordinators, one connection at a time, until the server socket
+     * is closed. A connection that fails, or sends an invalid request, is closed without affecting
+     * later connections.
+     */
+    public static void serve(ServerSocket server) throws IOException {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                socket.setTcpNoDelay(true);
+                serveConnection(socket);
+            } catch (IOException | RuntimeException e) {
+                if (server.isClosed()) break;
+                // The coordinator went away, or sent a request we could not handle; wait for the
+                // next one.
+            }
+        }
+    }
+
+    private static void serveConnection(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        while (true) {
+            int magic;
+            try {
+                magic = in.readInt();
+            } catch (EOFException e) {
+                return;  // connection closed by the coordinator
+            }
+            if (magic != MAGIC) throw new IOException("Invalid request");
+            BoardGeometry geometry = readGeometry(in);
+            long seed = in.readLong();
+            long maxIterations = in.readLong();
+            long maxMillis = in.readLong();
+            if (maxIterations <= 0 && maxMillis <= 0) throw new IOException("Invalid request: no limit");
+            long intervalNanos = Math.max(1, in.readInt()) * 1000000L;
+            List<Integer> moves = readMoves(in, geometry);
+
+            TreeBot.Tree tree = new TreeBot(geometry, seed).createTree(moves);
+            int positions = geometry.vertices.size();
+            long iterationLimit = maxIterations > 0 ? maxIterations : Long.MAX_VALUE;
+            long start = System.nanoTime();
+            long deadline = maxMillis > 0 && maxMillis < Long.MAX_VALUE / 2000000L ?
+                    start + maxMillis * 1000000L : Long.MAX_VALUE;
+            long nextUpdate = start + intervalNanos;
+            long expansions = 0;
+            long now;
+            do {
+                tree.expand();
+                ++expansions;
+                now = System.nanoTime();
+                if (now >= nextUpdate) {
+                    nextUpdate = now + intervalNanos;
+                    writeFrame(out, FRAME_UPDATE, tree, positions, expansions);
+                }
+            } while (expansions < iterationLimit && now < deadline);
+            writeFrame(out, FRAME_FINAL, tree, positions, expansions);
+        }
+    }
+
+    private static BoardGeometry readGeometry(DataInputStream in) throws IOException {
+        int boardSize = in.readInt();
+        int sides = in.readInt();
+        try {
+            return BoardGeometry.get(boardSize, sides);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid request: board size " + boardSize + ", sides " + sides, e);
+        }
+    }
+
+    // Reads the played moves, which must be the CodeCup ids of distinct vertices of the board,
+    // except for a swap (-1) as the second move.
+    private static List<Integer> readMoves(DataInputStream in, BoardGeometry geometry) throws IOException {
+        int positions = geometry.vertices.size();
+        int moveCount = in.readInt();
+        if (moveCount < 0 || moveCount > positions + 1) {
+            throw new IOException("Invalid request: " + moveCount + " moves");
+        }
+        ArrayList<Integer> moves = new ArrayList<>(moveCount);
+        boolean[] played = new boolean[positions + 1];
+        for (int i = 0; i < moveCount; ++i) {
+            int move = in.readInt();
+            if (move == -1 ? i != 1 : move < 1 || move > positions || played[move]) {
+                throw new IOException("Invalid request: move " + move + " at index " + i);
+            }
+            if (move != -1) played[move] = true;
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static void writeFrame(DataOutputStream out, byte type, TreeBot.Tree tree, int positions,
+            long expansions) throws IOException {
+        long[] samples = new long[positions + 1];
+        long[] wins = new long[positions + 1];
+        tree.addChildStatistics(samples, wins);
+        int count = 0;
+        for (int move = 1; move <= positions; ++move) if (samples[move] > 0) ++count;
+        out.writeByte(type);
+        out.writeLong(expansions);
+        out.writeInt(count);
+        for (int move = 1; move <= positions; ++move) {
+            if (samples[move] == 0) continue;
+            out.writeInt(move);
+            out.writeLong(samples[move]);
+            out.writeLong(wins[move]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Searches the position after the given CodeCup moves on the given workers, and returns the
+     * best move of their combined statistics.
+     *
+     * @param workers the addresses of the workers (see {@link #serve})
+     * @param geometry the board to play on
+     * @param playedMoves the moves played so far, with -1 denoting a swap
+     * @param maxIterations the number of expansions per worker, or 0 for no limit
+     * @param maxMillis the maximum duration of the search in milliseconds, or 0 for no limit
+     * @param seed the random seed; worker i uses seed + i
+     * @param listener receives analysis snapshots on the calling thread, or null to disable them
+     * @param intervalMillis the interval at which workers report their statistics
+     * @throws IOException if a worker could not be reached or failed
+     */
+    public static Result search(List<InetSocketAddress> workers, BoardGeometry geometry,
+            List<Integer> playedMoves, long maxIterations, long maxMillis, long seed,
+            TreeBot.AnalysisListener listener, long intervalMillis) throws IOException {
+        if (maxIterations <= 0 && maxMillis <= 0) {
+            throw new IllegalArgumentException("Either maxIterations or maxMillis must be positive");
+        }
+        if (workers.isEmpty()) throw new IllegalArgumentException("No workers");
+
+        final int positions = geometry.vertices.size();
+        final int n = workers.size();
+        final long start = System.nanoTime();
+        final AtomicReferenceArray<Frame> latest = new AtomicReferenceArray<>(n);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(n);
+        final ArrayList<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < n; ++i) {
+                Socket socket = new Socket();
+                sockets.add(socket);
+                socket.connect(workers.get(i));
+                socket.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.writeInt(MAGIC);
+                out.writeInt(geometry.boardSize);
+                out.writeInt(geometry.sides);
+                out.writeLong(seed + i);
+                out.writeLong(maxIterations);
+                out.writeLong(maxMillis);
+                out.writeInt((int) Math.max(1, Math.min(Integer.MAX_VALUE, intervalMillis)));
+                out.writeInt(playedMoves.size());
+                for (int move : playedMoves) out.writeInt(move);
+                out.flush();
+            }
+            for (int i = 0; i < n; ++i) {
+                final int index = i;
+                final Socket socket = sockets.get(i);
+                Thread reader = new Thread(() -> {
+                    try {
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        while (true) {
+                            byte type = in.readByte();
+                            long expansions = in.readLong();
+                            int count = in.readInt();
+                            long[] samples = new long[positions + 1];
+                            long[] wins = new long[positions + 1];
+                            for (int j = 0; j < count; ++j) {
+                                int move = in.readInt();
+                                if (move < 1 || move > positions) throw new IOException("Invalid move: " + move);
+                                samples[move] = in.readLong();
+                                wins[move] = in.readLong();
+                            }
+                            latest.set(index, new Frame(expansions, samples, wins));
+                            if (type == FRAME_FINAL) break;
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                reader.setName("DistributedSearch-" + i);
+                reader.setDaemon(true);
+                reader.start();
+            }
+
+            // A tree that is never expanded, which only provides the legal moves for analyses.
+            TreeBot.Tree tree = new TreeBot(geometry, seed).createTree(playedMoves);
+            while (true) {
+                boolean finished;
+                try {
+                    finished = done.await(Math.max(1, intervalMillis), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted");
+                }
+                if (failure.get() != null) throw new IOException("Worker failed", failure.get());
+                if (finished) break;
+                if (listener != null) listener.onAnalysis(merge(tree, latest, positions, null));
+            }
+            long[] workerExpansions = new long[n];
+            TreeBot.Analysis analysis = merge(tree, latest, positions, workerExpansions);
+            if (listener != null) listener.onAnalysis(analysis);
+            long elapsedMillis = (System.nanoTime() - start) / 1000000;
+            return new Result(new TreeBot.BestMove(analysis.bestMove, analysis.winProbability),
+                    analysis, workerExpansions, elapsedMillis);
+        } finally {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ignored; we're done with this worker.
+                }
+            }
+        }
+    }
+
+    // Sums the latest statistics of all workers. If `workerExpansions` is not null, it receives
+    // the number of expansions of each worker.
+    private static TreeBot.Analysis merge(TreeBot.Tree tree, AtomicReferenceArray<Frame> latest,
+            int positions, long[] workerExpansions) {
+        long[] samples = new long[positions + 1];
+        long[] wins = new long[positions + 1];
+        for (int i = 0; i < latest.length(); ++i) {
+            Frame frame = latest.get(i);
+            if (frame == null) continue;
+            if (workerExpansions != null) workerExpansions[i] = frame.expansions;
+            for (int move = 1; move <= positions; ++move) {
+                samples[move] += frame.samples[move];
+                wins[move] += frame.wins[move];
+            }
+        }
+        return TreeBot.Analysis.create(tree, samples, wins,
+                TreeBot.Analysis.DEFAULT_MOVES, TreeBot.Analysis.DEFAULT_DEPTH);
+    }
+}
@@ -0,0 +1,171 @@
+package ch.verver.poly_y.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+
+/**
+ * Reviews a game by searching every position in it with a fixed budget, and reports for each
+ * move how much it changed the win probability of the player who made it, the move that the
+ * engine prefers, and whether the move was a blunder.
+ *
+ * <p>The positions are divided into contiguous ranges, one per thread. Each thread searches its
+ * positions from first to last, and continues each search from the subtree of the move played
+ * in the previous position (which is a tree of the current position), so only the remainder of
+ * the budget has to be searched. Going forward is the only direction in which subtrees can be
+ * reused, since the tree of a position contains the positions after it, but not before it.
+ */
+public final class GameReview {
+    private GameReview() {}
+
+    /** Default threshold for the loss of win probability of a move to count as a blunder. */
+    public static final float DEFAULT_BLUNDER_THRESHOLD = 0.15f;
+
+    // The number of alternatives reported per move, and the length of their variations.
+    private static final int TOP_MOVES = 3;
+    private static final int PRINCIPAL_VARIATION_DEPTH = 8;
+
+    /** The review of a single move. Win probabilities are for the player who made the move. */
+    public static final class MoveReview {
+        /** The index of the move in the game, starting from 0. */
+        public final int index;
+        /** The CodeCup id of the move that was played, or -1 for a swap. */
+        public final int move;
+        /** The move the engine prefers in the position before the move, or 0 if unknown. */
+        public final int preferredMove;
+        /** The win probability before the move, assuming the preferred move is played. */
+        public final float winProbabilityBefore;
+        /** The win probability after the move that was played. */
+        public final float winProbabilityAfter;
+        /** The best moves in the position before the move, including the preferred move. */
+        public final List<TreeBot.RootMove> topMoves;
+        /**
+         * Whether the move lost more than the blunder threshold, and was not the preferred move.
+         * Always false for a swap, since the search does not consider swapping.
+         */
+        public final boolean blunder;
+
+        MoveReview(int index, int move, int preferredMove, float winProbabilityBefore,
+                float winProbabilityAfter, List<TreeBot.RootMove> topMoves, boolean blunder) {
+            this.index = index;
+            this.move = move;
+            this.preferredMove = preferredMove;
+            this.winProbabilityBefore = winProbabilityBefore;
+            this.winProbabilityAfter = winProbabilityAfter;
+            this.topMoves = topMoves;
+            this.blunder = blunder;
+        }
+
+        /** The change in win probability caused by the move; negative if the move was worse. */
+        public float getDelta() {
+            return winProbabilityAfter - winProbabilityBefore;
+        }
+    }
+
+    /**
+     * Reviews all moves of the given game.
+     *
+     * <p>If the game was won by connecting the sides, the position after the last move is not
+     * searched, since the player to move has lost. Otherwise (e.g. if the game was resigned), it
+     * is searched like the other positions. The search does not consider swapping, so the
+     * preferred move is never a swap, and swaps are never reported as blunders.
+     *
+     * @param game the game to review
+     * @param iterations the number of expansions per position
+     * @param threads the number of threads to use (including the calling thread)
+     * @param seed the random seed; thread i uses seed + i
+     * @param blunderThreshold the minimum loss of win probability of a blunder
+     * @return the review of each move, in the order in which the moves were played
+     */
+    public static List<MoveReview> review(GameState game, long iterations, int threads, long seed,
+            float blunderThreshold) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive");
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+
+        final BoardGeometry geometry = game.getGeometry();
+        final List<Integer> moves = game.getCodeCupMoves();
+        final int moveCount = moves.size();
+        final boolean finalPositionLost = game.isGameOver() && !game.isResigned();
+        final int positions = finalPositionLost ? moveCount : moveCount + 1;
+
+        // The top moves of each position, from the perspective of the player to move.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final List<TreeBot.RootMove>[] results = new List[positions];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final int ranges = Math.max(1, Math.min(threads, positions));
+        ArrayList<Thread> workers = new ArrayList<>();
+        for (int i = 1; i < ranges; ++i) {
+            final int range = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    reviewRange(geometry, moves, range * positions / ranges, (range + 1) * positions / ranges,
+                            iterations, seed + range, results);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            thread.setName("GameReview-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+        reviewRange(geometry, moves, 0, positions / ranges, iterations, seed, results);
+        boolean interrupted = false;
+        for (Thread thread : workers) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    // Keep waiting; the worker will finish soon. The interrupt is restored below.
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure.get() != null) {
+            throw new RuntimeException("Review thread failed", failure.get());
+        }
+
+        ArrayList<MoveReview> reviews = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; ++i) {
+            List<TreeBot.RootMove> top = results[i];
+            int preferredMove = top.isEmpty() ? 0 : top.get(0).move;
+            float before = top.isEmpty() ? 0.5f : top.get(0).winProbability;
+            float after;
+            if (i + 1 < positions) {
+                List<TreeBot.RootMove> next = results[i + 1];
+                after = next.isEmpty() ? 0.5f : 1 - next.get(0).winProbability;
+            } else {
+                after = 1;  // the move won the game
+            }
+            int move = moves.get(i);
+            // A swap can't be compared with the preferred move, which is always a normal move.
+            boolean blunder = move != -1 && move != preferredMove && after - before <= -blunderThreshold;
+            reviews.add(new MoveReview(i, move, preferredMove, before, after, top, blunder));
+        }
+        return reviews;
+    }
+
+    // Searches the positions from `start` up to (but not including) `end`, and stores their top
+    // moves in `results`.
+    private static void reviewRange(BoardGeometry geometry, List<Integer> moves, int start, int end,
+            long iterations, long seed, List<TreeBot.RootMove>[] results) {
+        TreeBot bot = new TreeBot(geometry, seed);
+        TreeBot.Tree tree = null;
+        for (int i = start; i < end; ++i) {
+            if (tree == null || moves.get(i - 1) == -1) {
+                // The trees don't contain swaps, so start over after a swap.
+                tree = bot.createTree(moves.subList(0, i));
+            } else {
+                tree = tree.treeAfterMove(moves.get(i - 1));
+            }
+            for (long j = tree.estimatedExpansions(); j < iterations; ++j) tree.expand();
+            results[i] = Collections.unmodifiableList(tree.getTopMoves(TOP_MOVES, PRINCIPAL_VARIATION_DEPTH));
+        }
+    }
+}
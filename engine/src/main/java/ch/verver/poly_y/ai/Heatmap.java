@@ -0,0 +1,59 @@
+package ch.verver.poly_y.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes the engine's estimate for every move from a search thread to a display thread, e.g. to
+ * shade the empty cells of the board while the search runs.
+ *
+ * <p>The estimates are stored in a float array indexed by CodeCup id, with the win probability
+ * (from the perspective of the player to move) of each legal move, or NaN for moves that are not
+ * legal or have not been sampled yet. Element 0 is unused.
+ *
+ * <p>This uses triple buffering: the writer fills a back buffer and then exchanges it with the
+ * ready buffer, and the reader exchanges the ready buffer with its front buffer when it contains
+ * newer values. Neither side waits for the other or allocates memory after construction. There
+ * must be at most one writer and one reader thread at a time.
+ */
+public final class Heatmap {
+    private static final int FRESH = 4;  // set in `ready` when the ready buffer has not been read
+
+    private final float[][] buffers;
+    private final AtomicInteger ready = new AtomicInteger(1);
+    private int back = 2;   // used by the writer only
+    private int front = 0;  // used by the reader only
+
+    /** Creates an empty heatmap for a board with the given number of positions. */
+    public Heatmap(int positions) {
+        buffers = new float[3][positions + 1];
+        for (float[] buffer : buffers) Arrays.fill(buffer, Float.NaN);
+    }
+
+    /**
+     * Replaces the values with the current estimates of the root moves of the given tree. This
+     * must be called on the thread that expands the tree. It takes time proportional to the
+     * number of positions on the board.
+     */
+    public void update(TreeBot.Tree tree) {
+        tree.fillHeatmap(buffers[back]);
+        back = ready.getAndSet(back | FRESH) & 3;
+    }
+
+    /**
+     * Returns whether there are values newer than those last returned by {@link #latest()}. This
+     * is cheap enough to poll on every frame of the display.
+     */
+    public boolean hasNewValues() {
+        return (ready.get() & FRESH) != 0;
+    }
+
+    /**
+     * Returns the most recent values. The returned array remains valid (and unchanged) until the
+     * next call to this method, and must not be modified.
+     */
+    public float[] latest() {
+        if ((ready.get() & FRESH) != 0) front = ready.getAndSet(front) & 3;
+        return buffers[front];
+    }
+}
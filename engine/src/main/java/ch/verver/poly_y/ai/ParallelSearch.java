@@ -0,0 +1,295 @@
+package ch.verver.poly_y.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import ch.verver.poly_y.BoardGeometry;
+
+/**
+ * Root-parallel Monte Carlo tree search: each thread expands its own tree of the same position,
+ * using a different random seed, and the statistics of the root moves are summed at the end.
+ *
+ * <p>Threads do not share any data during the search (except for an iteration counter), so this
+ * scales almost linearly with the number of threads, though the combined search is somewhat
+ * weaker than a single tree expanded for the same total number of iterations.
+ *
+ * <p>Optionally, the search reports a live analysis at a fixed interval. Each thread periodically
+ * publishes a copy of its root statistics, and the first thread combines the latest copies into
+ * an analysis, so the threads never wait for each other.
+ *
+ * <p>Optionally, a {@link WorkerController} adapts the number of active threads during the search.
+ * The first thread reports the throughput to the controller, and threads beyond the active count
+ * wait (keeping their trees) until the controller activates them again.
+ */
+public final class ParallelSearch {
+    private ParallelSearch() {}
+
+    /**
+     * Searches the position after the given CodeCup moves on the default board and returns the
+     * best move.
+     *
+     * @see #search(BoardGeometry, List, long, long, int, long)
+     */
+    public static TreeBot.BestMove search(
+            List<Integer> playedMoves, long maxIterations, long maxMillis, int threads, long seed) {
+        return search(BoardGeometry.DEFAULT_GEOMETRY, playedMoves, maxIterations, maxMillis, threads, seed);
+    }
+
+    /**
+     * Searches the position after the given CodeCup moves and returns the best move.
+     *
+     * @param geometry the board to play on
+     * @param playedMoves the moves played so far, with -1 denoting a swap
+     * @param maxIterations the total number of expansions over all threads, or 0 for no limit
+     * @param maxMillis the maximum duration of the search in milliseconds, or 0 for no limit
+     * @param threads the number of threads to use (including the calling thread)
+     * @param seed the random seed; thread i uses seed + i
+     * @throws IllegalArgumentException if there is neither an iteration nor a time limit
+     */
+    public static TreeBot.BestMove search(BoardGeometry geometry,
+            List<Integer> playedMoves, long maxIterations, long maxMillis, int threads, long seed) {
+        return search(geometry, playedMoves, maxIterations, maxMillis, threads, seed, null, 0);
+    }
+
+    /**
+     * Searches the position after the given CodeCup moves and returns the best move, while
+     * reporting the analysis of the combined trees to the given listener.
+     *
+     * @param listener receives analysis snapshots on the calling thread, or null to disable them;
+     *     the final snapshot reflects the complete search
+     * @param analysisIntervalMillis the interval between analysis snapshots in milliseconds
+     * @see #search(BoardGeometry, List, long, long, int, long)
+     */
+    public static TreeBot.BestMove search(BoardGeometry geometry,
+            List<Integer> playedMoves, long maxIterations, long maxMillis, int threads, long seed,
+            TreeBot.AnalysisListener listener, long analysisIntervalMillis) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        return search(geometry, playedMoves, maxIterations, maxMillis, threads, seed, listener,
+                analysisIntervalMillis, null);
+    }
+
+    /**
+     * Searches the position after the given CodeCup moves and returns the best move, using up to
+     * {@link WorkerController#getMaxWorkers()} threads, as many as the controller decides. The
+     * decisions can be read from the controller afterwards.
+     *
+     * @see #search(BoardGeometry, List, long, long, int, long, TreeBot.AnalysisListener, long)
+     */
+    public static TreeBot.BestMove search(BoardGeometry geometry,
+            List<Integer> playedMoves, long maxIterations, long maxMillis, WorkerController controller,
+            long seed, TreeBot.AnalysisListener listener, long analysisIntervalMillis) {
+        return search(geometry, playedMoves, maxIterations, maxMillis, controller.getMaxWorkers(), seed,
+                listener, analysisIntervalMillis, controller);
+    }
+
+    private static TreeBot.BestMove search(BoardGeometry geometry,
+            List<Integer> playedMoves, long maxIterations, long maxMillis, int threads, long seed,
+            TreeBot.AnalysisListener listener, long analysisIntervalMillis, WorkerController controller) {
+        if (maxIterations <= 0 && maxMillis <= 0) {
+            throw new IllegalArgumentException("Either maxIterations or maxMillis must be positive");
+        }
+
+        final long iterationLimit = maxIterations > 0 ? maxIterations : Long.MAX_VALUE;
+        final long deadline = maxMillis > 0 ? System.nanoTime() + maxMillis * 1000000L : Long.MAX_VALUE;
+        final AtomicLong iterations = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        final TreeBot.Tree[] trees = new TreeBot.Tree[threads];
+        for (int i = 0; i < threads; ++i) {
+            trees[i] = new TreeBot(geometry, seed + i).createTree(playedMoves);
+        }
+        final int positions = geometry.vertices.size();
+        final Publisher publisher = listener == null ? null :
+                new Publisher(trees, positions, listener, analysisIntervalMillis);
+        final Throttle throttle = controller == null ? null : new Throttle(controller, iterations);
+
+        ArrayList<Thread> workers = new ArrayList<>();
+        for (int i = 1; i < threads; ++i) {
+            final int index = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    expand(index, trees[index], iterations, iterationLimit, deadline, publisher, throttle);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            thread.setName("ParallelSearch-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+        try {
+            expand(0, trees[0], iterations, iterationLimit, deadline, publisher, throttle);
+        } finally {
+            // Release the waiting threads.
+            if (throttle != null) throttle.finish();
+        }
+        for (Thread thread : workers) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    // Keep waiting; the worker will finish soon.
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("Search thread failed", failure.get());
+        }
+
+        if (threads == 1 && publisher == null) return trees[0].getBestMove();
+        long[] samples = new long[positions + 1];
+        long[] wins = new long[positions + 1];
+        for (TreeBot.Tree tree : trees) tree.addChildStatistics(samples, wins);
+        if (publisher != null) {
+            listener.onAnalysis(TreeBot.Analysis.create(trees[0], samples, wins,
+                    TreeBot.Analysis.DEFAULT_MOVES, TreeBot.Analysis.DEFAULT_DEPTH));
+        }
+        return threads == 1 ? trees[0].getBestMove() : bestMove(trees[0], samples, wins);
+    }
+
+    private static void expand(int index, TreeBot.Tree tree, AtomicLong iterations, long iterationLimit,
+            long deadline, Publisher publisher, Throttle throttle) {
+        // Always expand at least once, so every tree has a valid best move.
+        long now;
+        do {
+            tree.expand();
+            now = System.nanoTime();
+            if (publisher != null) publisher.maybePublish(index, now);
+            if (throttle != null) {
+                if (index == 0) {
+                    throttle.maybeUpdate(now);
+                } else if (!throttle.awaitActive(index)) {
+                    break;
+                }
+            }
+        } while (iterations.incrementAndGet() < iterationLimit && now < deadline);
+    }
+
+    // Applies the decisions of a WorkerController to the search threads.
+    private static final class Throttle {
+        final WorkerController controller;
+        final AtomicLong iterations;
+        final long intervalNanos;
+
+        // Used by the first thread only.
+        long lastNanos;
+        long lastIterations;
+
+        // Written with the lock held; read without it on the fast path of awaitActive().
+        volatile int active;
+        volatile boolean finished = false;
+
+        Throttle(WorkerController controller, AtomicLong iterations) {
+            this.controller = controller;
+            this.iterations = iterations;
+            this.intervalNanos = controller.getIntervalMillis() * 1000000L;
+            this.active = controller.start();
+            this.lastNanos = System.nanoTime();
+        }
+
+        void maybeUpdate(long now) {
+            if (now - lastNanos < intervalNanos) return;
+            long total = iterations.get();
+            int workers = controller.update(total - lastIterations, now - lastNanos);
+            lastNanos = now;
+            lastIterations = total;
+            if (workers != active) {
+                synchronized (this) {
+                    active = workers;
+                    notifyAll();
+                }
+            }
+        }
+
+        // Waits while the thread with the given index is inactive. Returns false if the search
+        // finished in the meantime.
+        boolean awaitActive(int index) {
+            if (index < active) return true;
+            synchronized (this) {
+                boolean interrupted = false;
+                while (index >= active && !finished) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+                return !finished;
+            }
+        }
+
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+    }
+
+    // Collects the root statistics of all threads for analysis snapshots.
+    private static final class Publisher {
+        final TreeBot.Tree[] trees;
+        final int positions;
+        final TreeBot.AnalysisListener listener;
+        final long intervalNanos;
+
+        // The time of the next snapshot per thread. Each element is used by a single thread only.
+        final long[] nextNanos;
+
+        // The latest root statistics ({samples, wins}) published by each thread but the first.
+        final AtomicReferenceArray<long[][]> published;
+
+        Publisher(TreeBot.Tree[] trees, int positions, TreeBot.AnalysisListener listener, long intervalMillis) {
+            this.trees = trees;
+            this.positions = positions;
+            this.listener = listener;
+            this.intervalNanos = Math.max(1, intervalMillis) * 1000000L;
+            this.nextNanos = new long[trees.length];
+            long first = System.nanoTime() + intervalNanos;
+            for (int i = 0; i < trees.length; ++i) nextNanos[i] = first;
+            this.published = new AtomicReferenceArray<>(trees.length);
+        }
+
+        void maybePublish(int index, long now) {
+            if (now < nextNanos[index]) return;
+            nextNanos[index] = now + intervalNanos;
+            long[] samples = new long[positions + 1];
+            long[] wins = new long[positions + 1];
+            trees[index].addChildStatistics(samples, wins);
+            if (index != 0) {
+                published.set(index, new long[][]{samples, wins});
+                return;
+            }
+            for (int i = 1; i < trees.length; ++i) {
+                long[][] other = published.get(i);
+                if (other == null) continue;
+                for (int move = 1; move <= positions; ++move) {
+                    samples[move] += other[0][move];
+                    wins[move] += other[1][move];
+                }
+            }
+            listener.onAnalysis(TreeBot.Analysis.create(trees[0], samples, wins,
+                    TreeBot.Analysis.DEFAULT_MOVES, TreeBot.Analysis.DEFAULT_DEPTH));
+        }
+    }
+
+    // Selects the move with the highest number of samples, like TreeBot.Tree.getBestMove().
+    static TreeBot.BestMove bestMove(TreeBot.Tree tree, long[] samples, long[] wins) {
+        TreeBot.BestMove fallback = tree.getBestMove();
+        int bestMove = fallback.move;
+        long mostSamples = 0;
+        float bestProbability = fallback.winProbability;
+        for (int move = 1; move < samples.length; ++move) {
+            if (samples[move] > mostSamples) {
+                mostSamples = samples[move];
+                bestMove = move;
+                bestProbability = (float) wins[move] / samples[move];
+            }
+        }
+        return new TreeBot.BestMove(bestMove, bestProbability);
+    }
+}
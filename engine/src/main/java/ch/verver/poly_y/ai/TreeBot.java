@@ -0,0 +1,1402 @@
+package ch.verver.poly_y.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ch.verver.poly_y.BoardGeometry;
+
+/**
+ * Code for the Lynx3 bot that won the Codecup competition for the game Poly-Y.
+ *
+ * <p>This code implements monte carlo tree search with the AMAF heuristic and pattern detection</p>
+ *
+ * <p>Originally written by Lesley Wevers & Steven te Brinke, adapted by Maks Verver to be used
+ * in the Android app.</p>
+ *
+ * <p>The original code only supported the CodeCup board (size 7, with 5 sides). The board tables
+ * are now generated from a {@link BoardGeometry} (see {@link Board}), so the bot can play on any
+ * board. Boards with up to 127 positions use the original
+ * representation with two longs per player; larger boards use arrays of longs.</p>
+ *
+ * @link <a href="https://github.com/lwevers/lynx/blob/master/Lynx3.java">original source code</a>
+ */
+public class TreeBot {
+
+    // Tree search parameters
+    private static final int SAMPLES = 32;                // Number of samples at tree nodes, has a huge effect on performance
+    private static final double ALPHA = 0.75;            // Blending parameter for AMAF samples and actual samples in the computation of the score of a node
+
+    /**
+     * Version of the search behaviour. This must be incremented whenever a change can alter the
+     * result of a search with a given seed (e.g. a change to the board tables, the playouts, or
+     * the tree statistics), so that results stored by older versions are not reused.
+     *
+     * <p>History: 1 = the original tables for the CodeCup board; 2 = board tables generated
+     * from the geometry; 3 = lockstep playout kernel.
+     */
+    public static final int ENGINE_VERSION = 3;
+
+    // Rough estimate of the memory used by a tree node, including its game state, statistics and
+    // (amortized over all nodes) the child arrays of internal nodes: a fixed overhead, plus some
+    // bytes per position on the board. Measured on the default board and a 9/7 board.
+    private static final long ESTIMATED_NODE_OVERHEAD_BYTES = 300;
+    private static final long ESTIMATED_SMALL_NODE_POSITION_BYTES = 10;
+    private static final long ESTIMATED_LARGE_NODE_POSITION_BYTES = 13;
+
+    // The board that this bot plays on
+    private final Board board;
+
+    // Stack for the depth first search that determines the winner, shared by all game states
+    private final int[] todo;
+
+    // Whether small game states score their playouts with the lockstep kernel (see
+    // SmallGameState.scoreLockstep()), and its buffers, shared by all game states (null for
+    // large boards, which always use the scalar kernel)
+    private boolean lockstepPlayouts = LOCKSTEP_PLAYOUTS;
+    private final long[] laneBoards;    // The final board of each sample game, as left/right bit sets
+    private final long[] lanePlanes;    // lanePlanes[i] has bit m set if sample game m has position i set
+    private final long[] laneReach;     // Positions connected to each side, per sample game (see winnerLanes())
+    private final int[] laneCorners;    // laneCorners[m] is the set of corners captured in sample game m
+
+    // Derived from Random.java, removed synchronization and other checks to improve performance
+    private long seed;
+
+    // Search counters, accumulated over all trees created by this bot (see getCounters())
+    private long expansions;
+    private long playouts;
+    private long playoutMoves;
+    private long patternMoves;
+    private long nodes;
+    private long depthSum;
+    private int maxDepth;
+    private long selectionNanos;
+    private long playoutNanos;
+    private long backupNanos;
+    private long expansionStart;    // Time at which the current expansion started
+    private long playoutEnd;        // Time at which the playout of the current expansion ended, or 0
+
+    public TreeBot() {
+        this(System.nanoTime());
+    }
+
+    // Creates a bot with a fixed random seed, which makes the search deterministic
+    public TreeBot(long seed) {
+        this(BoardGeometry.DEFAULT_GEOMETRY, seed);
+    }
+
+    // Creates a bot that plays on the given board, with a fixed random seed
+    public TreeBot(BoardGeometry geometry, long seed) {
+        this.board = Board.forGeometry(geometry);
+        this.todo = new int[board.positions];
+        this.seed = seed;
+        this.laneBoards = board.small ? new long[2 * SAMPLES] : null;
+        this.lanePlanes = board.small ? new long[Board.MAX_SMALL_POSITIONS + 1] : null;
+        this.laneReach = board.small ? new long[board.sides * (board.positions + 1)] : null;
+        this.laneCorners = board.small ? new int[SAMPLES] : null;
+    }
+
+    // Whether the lockstep playout kernel is used by default. The kernel needs one bit per sample
+    // game in a long, and only pays off where Long.bitCount() is a single instruction, which is
+    // the case on the HotSpot JVM for common CPUs, but isn't guaranteed on Android. Setting the
+    // system property "poly_y.playouts" to "scalar" or "lockstep" overrides the default.
+    static final boolean LOCKSTEP_PLAYOUTS = lockstepPlayoutsSupported();
+
+    private static boolean lockstepPlayoutsSupported() {
+        if (SAMPLES > 64) return false;
+        String override = System.getProperty("poly_y.playouts");
+        if ("scalar".equals(override)) return false;
+        if ("lockstep".equals(override)) return true;
+        String vm = System.getProperty("java.vm.name", "");
+        return vm.contains("HotSpot") || vm.contains("OpenJDK");
+    }
+
+    // Selects the playout kernel of this bot, e.g. to compare the kernels (see PlayoutBenchmark).
+    // Both kernels play the same games for the same seed.
+    void setLockstepPlayouts(boolean lockstepPlayouts) {
+        this.lockstepPlayouts = lockstepPlayouts;
+    }
+
+    public static boolean shouldSwap(int move) {
+        // We swap for all symmetries of move 15, and for all center moves (edge distance > 1)
+        return Board.DEFAULT.edgeDistance[move] > 1 || move == 15 || move == 24 || move == 71 || move == 81 || move == 96 || move == 95 || move == 74 || move == 63 || move == 18 || move == 11;
+    }
+
+    // Determines whether to swap after the first move on the given board. On other boards than
+    // the CodeCup board, we only swap center moves (edge distance > 1)
+    public static boolean shouldSwap(BoardGeometry geometry, int move) {
+        if (geometry.equals(BoardGeometry.DEFAULT_GEOMETRY)) return shouldSwap(move);
+        return Board.forGeometry(geometry).edgeDistance[move] > 1;
+    }
+
+    /** Snapshot of the search counters of a bot, accumulated over all of its trees. */
+    public static final class Counters {
+        public final long expansions;
+        public final long playouts;
+        public final long playoutMoves;     // Total number of moves played in playouts
+        public final long patternMoves;     // Number of playout moves that were selected by patterns
+        public final long nodes;
+        public final long depthSum;         // Sum of the depths of all nodes
+        public final int maxDepth;
+        public final long selectionNanos;   // Time spent selecting and creating nodes
+        public final long playoutNanos;     // Time spent in playouts
+        public final long backupNanos;      // Time spent updating statistics after playouts
+        private final long nodeBytes;       // Estimated memory used per tree node
+
+        Counters(long expansions, long playouts, long playoutMoves, long patternMoves, long nodes,
+                long depthSum, int maxDepth, long selectionNanos, long playoutNanos, long backupNanos,
+                long nodeBytes) {
+            this.expansions = expansions;
+            this.playouts = playouts;
+            this.playoutMoves = playoutMoves;
+            this.patternMoves = patternMoves;
+            this.nodes = nodes;
+            this.depthSum = depthSum;
+            this.maxDepth = maxDepth;
+            this.selectionNanos = selectionNanos;
+            this.playoutNanos = playoutNanos;
+            this.backupNanos = backupNanos;
+            this.nodeBytes = nodeBytes;
+        }
+
+        public long estimatedTreeBytes() {
+            return nodes * nodeBytes;
+        }
+    }
+
+    public Counters getCounters() {
+        long nodeBytes = ESTIMATED_NODE_OVERHEAD_BYTES + board.positions *
+                (board.small ? ESTIMATED_SMALL_NODE_POSITION_BYTES : ESTIMATED_LARGE_NODE_POSITION_BYTES);
+        return new Counters(expansions, playouts, playoutMoves, patternMoves, nodes,
+                depthSum, maxDepth, selectionNanos, playoutNanos, backupNanos, nodeBytes);
+    }
+
+    public static class BestMove {
+        public final int move;
+        public final float winProbability;
+
+        BestMove(int move, float winProbability) {
+            this.move = move;
+            this.winProbability = winProbability;
+        }
+    }
+
+    /**
+     * Statistics of a move at the root of a search tree, as returned by
+     * {@link Tree#getTopMoves(int, int)}. Win probabilities are from the perspective of the
+     * player to move at the root.
+     */
+    public static final class RootMove {
+        public final int move;
+        /** Samples of the child node, and the fraction of them that was won. */
+        public final int samples;
+        public final float winProbability;
+        /** Samples at the root in which this move was played (all moves as first), and the fraction won. */
+        public final int amafSamples;
+        public final float amafWinProbability;
+        /** The principal variation, starting with this move. Must not be modified. */
+        public final int[] principalVariation;
+
+        RootMove(int move, int samples, float winProbability, int amafSamples, float amafWinProbability,
+                int[] principalVariation) {
+            this.move = move;
+            this.samples = samples;
+            this.winProbability = winProbability;
+            this.amafSamples = amafSamples;
+            this.amafWinProbability = amafWinProbability;
+            this.principalVariation = principalVariation;
+        }
+
+        @Override
+        public String toString() {
+            return "RootMove{move=" + move + ", samples=" + samples + ", winProbability=" + winProbability +
+                    ", amafSamples=" + amafSamples + ", amafWinProbability=" + amafWinProbability +
+                    ", principalVariation=" + Arrays.toString(principalVariation) + "}";
+        }
+    }
+
+    /**
+     * Snapshot of the root of a search, for showing a live analysis while the search runs. Moves
+     * are CodeCup ids, and win probabilities are from the perspective of the player to move at
+     * the root. The arrays must not be modified.
+     */
+    public static final class Analysis {
+        /** Default limits on the number of moves and the depth of the principal variation. */
+        public static final int DEFAULT_MOVES = 5;
+        public static final int DEFAULT_DEPTH = 10;
+
+        /** Total number of samples at the root. */
+        public final long samples;
+        public final int bestMove;
+        public final float winProbability;
+        /** The root moves with the most samples, in order of decreasing samples. */
+        public final int[] moves;
+        public final long[] moveSamples;
+        public final float[] moveWinProbabilities;
+        /** The principal variation, starting with the best move. */
+        public final int[] principalVariation;
+
+        private Analysis(long samples, int bestMove, float winProbability, int[] moves,
+                long[] moveSamples, float[] moveWinProbabilities, int[] principalVariation) {
+            this.samples = samples;
+            this.bestMove = bestMove;
+            this.winProbability = winProbability;
+            this.moves = moves;
+            this.moveSamples = moveSamples;
+            this.moveWinProbabilities = moveWinProbabilities;
+            this.principalVariation = principalVariation;
+        }
+
+        // Creates an analysis from the samples and wins of the root moves (indexed by move), as
+        // filled by Tree.addChildStatistics(). The principal variation is taken from the given
+        // tree, following the best move of the combined statistics.
+        static Analysis create(Tree tree, long[] samples, long[] wins, int maxMoves, int maxDepth) {
+            int[] moves = new int[maxMoves];
+            long[] moveSamples = new long[maxMoves];
+            int count = 0;
+            long totalSamples = 0;
+            for (int move = 1; move < samples.length; ++move) {
+                long n = samples[move];
+                totalSamples += n;
+                if (n == 0 || (count == maxMoves && n <= moveSamples[count - 1])) continue;
+                // Insertion sort; maxMoves is small.
+                int i = count < maxMoves ? count++ : count - 1;
+                while (i > 0 && moveSamples[i - 1] < n) {
+                    moves[i] = moves[i - 1];
+                    moveSamples[i] = moveSamples[i - 1];
+                    --i;
+                }
+                moves[i] = move;
+                moveSamples[i] = n;
+            }
+            float[] moveWinProbabilities = new float[count];
+            for (int i = 0; i < count; ++i) {
+                // Like the other methods of the tree, report probabilities for the player to move
+                // at its root, which differs from the counting perspective in subtrees.
+                moveWinProbabilities[i] = tree.winProbability(wins[moves[i]], moveSamples[i]);
+            }
+            BestMove fallback = count > 0 ? null : tree.getBestMove();
+            int bestMove = count > 0 ? moves[0] : fallback.move;
+            float winProbability = count > 0 ? moveWinProbabilities[0] : fallback.winProbability;
+            return new Analysis(totalSamples, bestMove, winProbability,
+                    Arrays.copyOf(moves, count), Arrays.copyOf(moveSamples, count), moveWinProbabilities,
+                    tree.principalVariation(bestMove, maxDepth));
+        }
+    }
+
+    /**
+     * Receives analysis snapshots while a search runs. Snapshots are created by a search thread
+     * between expansions, so the listener is called on that thread, and should return quickly.
+     */
+    public interface AnalysisListener {
+        void onAnalysis(Analysis analysis);
+    }
+
+    public Tree createTree(List<Integer> playedMoves) {
+        return new Tree(createState(playedMoves));
+    }
+
+    // Constructs the game state after the given moves, from the perspective of the next player
+    GameState createState(List<Integer> playedMoves) {
+        GameState state = createInitialState();
+        boolean myTurn = playedMoves.size() % 2 == 0;
+        for (int move : playedMoves) {
+            if (move == -1) {
+                state.swapPlayers();
+            } else {
+                if (myTurn) {
+                    state.updateMyMove(move);
+                } else {
+                    state.updateOpMove(move);
+                }
+            }
+            myTurn = !myTurn;
+        }
+        assert myTurn;
+        return state;
+    }
+
+    // Constructs the initial game state, with the representation that fits the board
+    GameState createInitialState() {
+        return board.small ? new SmallGameState() : new LargeGameState();
+    }
+
+    private int randomInt() {
+        seed = seed * 0x5deece66dL + 0xbL;
+        return (int) (seed >>> 16);
+    }
+
+    private int randomInt(int n) {
+        // Not completely correct, as results are a little biased, but good enough for our purpose
+        // We shift by 16 because the higher bits provide higher quality randomness
+        return (randomInt() >>> 16) % n;
+    }
+
+    // Get a move from the opening book based on the moves played so far (on the CodeCup board)
+    // Returns either the move from the opening book, or 0 if the opening book does not contain the given move sequence
+    static public int getOpeningMove(List<Integer> moves) {
+        Object[] root = OpeningBook.openingBook;
+
+        // Recursively go through the opening book for every move played so far
+        for (int move : moves) {
+            if (move == -1) {
+                continue;  // swap
+            }
+            if (root.length > 1) {
+                // There is a child opening book, update the root to this child
+                root = (Object[]) root[move];
+            } else {
+                // There is no child opening book, the move sequence is not in the opening book and we are done
+                root = null;
+            }
+            if (root == null) {
+                return 0;
+            }
+        }
+
+        return (Integer) root[0];    // The move sequence is in the opening book, return the move from the opening book
+    }
+
+    // This class encodes a game state
+    // (package-private so it can be benchmarked)
+    abstract class GameState {
+        // Moves in remainingMoves starting from index end have already been played
+        int end;
+
+        // Returns the move at the given index in the remainingMoves array; the moves that can
+        // still be played in this state are those at indices 0 up to 'end'
+        abstract int remainingMove(int index);
+
+        // Returns a copy of this state
+        abstract GameState copy();
+
+        // Swaps the moves done by the players
+        public abstract void swapPlayers();
+
+        // Updates the state with my move
+        public abstract void updateMyMove(int move);
+
+        // Updates the state with an opponent move
+        public abstract void updateOpMove(int move);
+
+        // Monte carlo sampling with the all-moves-as-first (AMAF) heuristic
+        public abstract AmafPlayout sample(boolean myMoveAtStart);
+    }
+
+    // Game state for boards with at most Board.MAX_SMALL_POSITIONS positions, which encodes the
+    // moves of each player in two longs (this is the representation of the original code)
+    class SmallGameState extends GameState {
+        // The moves that can still be played in this state, up to index 'end'
+        private final byte[] remainingMoves;
+        // The position of a given move in the remainingMoves array, i.e. positions[i] is the position of move i in the remainingMoves array
+        // This array is used to allow O(1) removal of moves from the remainingMoves array
+        private final byte[] positions;
+        // Bit sets encoding the board state
+        private long myMovesLeft, myMovesRight;    // Moves played by me
+        private long opMovesLeft, opMovesRight; // Moves played by the opponent
+
+        // Constructs the initial game state
+        SmallGameState() {
+            remainingMoves = new byte[board.positions];
+            positions = new byte[board.positions + 1];
+            for (int i = 0; i < board.positions; i++) {
+                remainingMoves[i] = (byte) (i + 1);
+                positions[i + 1] = (byte) i;
+            }
+            end = board.positions;
+        }
+
+        // Copy constructor
+        SmallGameState(SmallGameState other) {
+            this.remainingMoves = Arrays.copyOf(other.remainingMoves, other.end);
+            this.positions = other.positions.clone();
+            this.end = other.end;
+            this.myMovesLeft = other.myMovesLeft;
+            this.myMovesRight = other.myMovesRight;
+            this.opMovesLeft = other.opMovesLeft;
+            this.opMovesRight = other.opMovesRight;
+        }
+
+        @Override
+        int remainingMove(int index) {
+            return remainingMoves[index];
+        }
+
+        @Override
+        GameState copy() {
+            return new SmallGameState(this);
+        }
+
+        @Override
+        public void swapPlayers() {
+            long mML = myMovesLeft;
+            long mMR = myMovesRight;
+            myMovesLeft = opMovesLeft;
+            myMovesRight = opMovesRight;
+            opMovesLeft = mML;
+            opMovesRight = mMR;
+        }
+
+        // Sets the move at the given index as unavailable for playing
+        // Swaps the move at the given index in remainingMoves with the move at remainingMoves[end - 1] and reduces end by one
+        private void swapOut(int index) {
+            end--;
+            swap(index, end);
+        }
+
+        // Sets a given move as unavailable for playing
+        private void remove(int move) {
+            swapOut(positions[move]);
+        }
+
+        // Swaps two entries in the remainingMoves array
+        public void swap(int i, int j) {
+            int temp = remainingMoves[i];
+            remainingMoves[i] = remainingMoves[j];
+            remainingMoves[j] = (byte) temp;
+
+            // Update the positions of the entries
+            positions[remainingMoves[i]] = (byte) i;
+            positions[remainingMoves[j]] = (byte) j;
+        }
+
+        @Override
+        public void updateMyMove(int move) {
+            remove(move);
+            if (move < 64) {
+                myMovesLeft |= 1L << move;
+            } else {
+                myMovesRight |= 1L << (move - 64);
+            }
+        }
+
+        @Override
+        public void updateOpMove(int move) {
+            remove(move);
+            if (move < 64) {
+                opMovesLeft |= 1L << move;
+            } else {
+                opMovesRight |= 1L << (move - 64);
+            }
+        }
+
+        @Override
+        public AmafPlayout sample(final boolean myMoveAtStart) {
+            AmafPlayout result = new AmafPlayout(board.positions);
+
+            result.samples += SAMPLES;
+            long _cML, _cMR;    // The moves done by the current player
+            long _oML, _oMR;    // The moves done by the opponent of the current player
+            if (myMoveAtStart) {
+                _cML = myMovesLeft;
+                _cMR = myMovesRight;
+                _oML = opMovesLeft;
+                _oMR = opMovesRight;
+            } else {
+                _cML = opMovesLeft;
+                _cMR = opMovesRight;
+                _oML = myMovesLeft;
+                _oMR = myMovesRight;
+            }
+
+            final int[] edgeDistance = board.edgeDistance;
+            final int centerBiasEnd = board.centerBiasEnd;
+            final int edgeBiasEnd = board.edgeBiasEnd;
+            final boolean myMoveAtEnd = myMoveAtStart ^ ((end & 1) == 1);    // Is it my move at the end of the game?
+            int[] play = new int[board.maxPatterns];    // Stack that encodes possible moves that can be played based on patterns
+            final long[] lanes = lockstepPlayouts ? laneBoards : null;    // Final boards to score in lockstep, or null to score each game
+            int totalMoves = 0;          // Number of moves played in all sample games
+            int totalPatternMoves = 0;   // Number of moves selected by patterns in all sample games
+
+            // Perform the given number of sample games
+            for (int m = 0; m < SAMPLES; m++) {
+                // The moves done by the current player
+                long cML = _cML;
+                long cMR = _cMR;
+
+                // The moves done by the opponent of the current player
+                long oML = _oML;
+                long oMR = _oMR;
+
+                int end = this.end;        // We use a copy of end to see which moves we can still do in this simulation run
+                totalMoves += end;
+                int lastMove = 0;        // The last move done by the opponent
+
+                while (end > 0) {
+                    int move = 0;
+
+                    // Respond to the last opponent move based on patterns
+                    if (lastMove != 0) {
+                        int pc = matchPatterns(lastMove, cML, cMR, oML, oMR, play);
+
+                        if (pc > 0) {
+                            // Select a random move from the play stack
+                            move = play[randomInt(pc)];
+                            totalPatternMoves++;
+                        }
+                    }
+
+                    // If the patterns did not result in a move, do a random move
+                    if (move == 0) {
+                        move = remainingMoves[randomInt(end)];
+
+                        // Bias moves early in the game away from the edges, the idea is that more patterns will develop than fully random play
+                        if (end > centerBiasEnd) {
+                            // At the beginning of the game (first 10 moves), only play in the middle of the board
+                            while (edgeDistance[move] < 2) {
+                                move = remainingMoves[randomInt(end)];
+                            }
+                        } else if (end > edgeBiasEnd) {
+                            while (edgeDistance[move] < 1) {
+                                // Avoid moves at edges early in the simulation
+                                move = remainingMoves[randomInt(end)];
+                            }
+                        }
+                    }
+
+                    // Remove the chosen move from available moves
+                    swap(positions[move], --end);
+
+                    // Add the move to current player
+                    if (move < 64) {
+                        cML |= 1L << move;
+                    } else {
+                        cMR |= 1L << (move - 64);
+                    }
+
+                    lastMove = move;
+
+                    // Swap players
+                    long cML_ = cML;
+                    long cMR_ = cMR;
+                    cML = oML;
+                    cMR = oMR;
+                    oML = cML_;
+                    oMR = cMR_;
+                }
+
+                if (lanes != null) {
+                    // Score all games at once after the last game (see scoreLockstep())
+                    lanes[2 * m] = cML;
+                    lanes[2 * m + 1] = cMR;
+                    continue;
+                }
+
+                // Did we win?
+                // 1: we won
+                // 0: we lost
+                int win = myMoveAtEnd == winner(cML, cMR) ? 1 : 0;
+
+                // Update the AMAF playout result
+                result.wins += win;
+                for (int j = 1; j < board.positions + 1; j++) {
+                    if ((myMoveAtEnd == isSet(cML, cMR, j))) { // We have set j
+                        result.mySamples[j]++;        // Our samples with this move
+                        result.myWins[j] += win;    // Our wins with this move
+                    } else {
+                        result.opSamples[j]++;        // Our samples when the opponent played this move
+                        result.opWins[j] += win;    // Our number of wins when the opponent played this move
+                    }
+                }
+            }
+            if (lanes != null) scoreLockstep(lanes, myMoveAtEnd, result);
+
+            playouts += SAMPLES;
+            playoutMoves += totalMoves;
+            patternMoves += totalPatternMoves;
+            return result;
+        }
+
+        // Scores the final boards of the sample games in lockstep, with the same result as the
+        // scalar scoring in sample(). 'boards' contains the moves of the player to move at the end
+        // of each game, as pairs of left and right bit sets. These are transposed into bit planes
+        // with one bit per game, so that each step of winner detection and of the AMAF update
+        // handles all games at once. The games themselves are played one at a time, since the
+        // next move of each game depends on its own last move.
+        void scoreLockstep(long[] boards, boolean myMoveAtEnd, AmafPlayout result) {
+            final long[] planes = lanePlanes;
+            Arrays.fill(planes, 0);
+            for (int m = 0; m < SAMPLES; m++) {
+                long bit = 1L << m;
+                for (long l = boards[2 * m]; l != 0; l &= l - 1) {
+                    planes[Long.numberOfTrailingZeros(l)] |= bit;
+                }
+                for (long r = boards[2 * m + 1]; r != 0; r &= r - 1) {
+                    planes[64 + Long.numberOfTrailingZeros(r)] |= bit;
+                }
+            }
+
+            final long all = SAMPLES == 64 ? -1L : (1L << SAMPLES) - 1;
+            long won = winnerLanes(planes);
+            long wins = myMoveAtEnd ? won : ~won & all;    // The games that we won
+            int winCount = Long.bitCount(wins);
+            result.wins += winCount;
+            for (int j = 1; j < board.positions + 1; j++) {
+                long mine = myMoveAtEnd ? planes[j] : ~planes[j] & all;    // The games in which we have set j
+                int samples = Long.bitCount(mine);
+                int myWins = Long.bitCount(mine & wins);
+                result.mySamples[j] += samples;
+                result.myWins[j] += myWins;
+                result.opSamples[j] += SAMPLES - samples;
+                result.opWins[j] += winCount - myWins;
+            }
+        }
+
+        // Returns the sample games in which the player with the given bit planes has won, like
+        // winner(). For each side, the positions connected to it are found by flooding the
+        // player's positions from that side, in alternating forward and backward sweeps until
+        // nothing changes. A game's corner is captured if a position is connected to both sides
+        // of the corner and to a third side.
+        long winnerLanes(long[] planes) {
+            final int positions = board.positions;
+            final int sides = board.sides;
+            final int stride = positions + 1;
+            final int[][] neighbours = board.neighbours;
+            final int[] edges = board.edges;
+            final long[] reach = laneReach;    // reach[s * stride + i] has the games in which i is connected to side s
+
+            for (int s = 0; s < sides; s++) {
+                for (int i = 1; i <= positions; i++) {
+                    reach[s * stride + i] = (edges[i] & (1 << s)) != 0 ? planes[i] : 0;
+                }
+            }
+            boolean changed = true;
+            for (int sweep = 0; changed; sweep++) {
+                changed = false;
+                boolean forward = (sweep & 1) == 0;
+                for (int k = 1; k <= positions; k++) {
+                    int i = forward ? k : stride - k;
+                    long own = planes[i];
+                    if (own == 0) continue;
+                    int[] ns = neighbours[i];
+                    for (int s = 0, base = 0; s < sides; s++, base += stride) {
+                        long r = reach[base + i];
+                        if (r == own) continue;
+                        long next = r;
+                        for (int n : ns) next |= reach[base + n];
+                        next &= own;
+                        if (next != r) {
+                            reach[base + i] = next;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+
+            // corners[m] is the set of corners captured in game m
+            final int[] corners = laneCorners;
+            Arrays.fill(corners, 0);
+            for (int c = 0; c < sides; c++) {
+                int previous = c == 0 ? sides - 1 : c - 1;
+                long captured = 0;
+                for (int i = 1; i <= positions; i++) {
+                    long both = reach[c * stride + i] & reach[previous * stride + i];
+                    if (both == 0) continue;
+                    long third = 0;
+                    for (int s = 0; s < sides; s++) {
+                        if (s != c && s != previous) third |= reach[s * stride + i];
+                    }
+                    captured |= both & third;
+                }
+                for (long l = captured; l != 0; l &= l - 1) corners[Long.numberOfTrailingZeros(l)] |= 1 << c;
+            }
+            long won = 0;
+            for (int m = 0; m < SAMPLES; m++) {
+                if (board.win(corners[m])) won |= 1L << m;
+            }
+            return won;
+        }
+
+        // Finds the patterns that match after the opponent played lastMove, stores the moves
+        // that respond to them in 'play', and returns the number of moves stored
+        int matchPatterns(int lastMove, long cML, long cMR, long oML, long oMR, int[] play) {
+            int pc = 0;                                  // Index pointing to the top of the 'play' stack
+            long[] ps = board.smallPatterns[lastMove];   // Patterns that we have to apply
+            for (int i = 0; i < ps.length; i += 5) {
+                // Check if pattern matches
+                if ((ps[i] & cML) == ps[i] && (ps[i + 1] & cMR) == ps[i + 1] && (ps[i + 2] & oML) == 0 && (ps[i + 3] & oMR) == 0 && !isSet(cML, cMR, (int) ps[i + 4])) {
+                    // Pattern matches, add the move corresponding to this pattern to the play stack
+                    play[pc++] = (int) ps[i + 4];
+                }
+            }
+            return pc;
+        }
+
+        // Is a given position set in the bitset given by l and r?
+        private boolean isSet(long l, long r, int i) {
+            return (i < 64 && ((1L << i) & l) != 0) || (i >= 64 && ((1L << (i - 64)) & r) != 0);
+        }
+
+        public boolean winner(long l, long r) {
+            // l and r encode the positions on the board that have been played by us.
+            // Note that we update l and r in this method to remove nodes that we have already seen in the DFS search
+            // I.e. l and r encode the nodes played by us that we have not yet processed
+
+            final int[][] neighbours = board.neighbours;
+            int corners = 0;    // The corners that we have captured
+
+            // Do a depth first search from the positions along the edge to find the edges connected from this position
+            for (int i : board.edge) {
+                if (isSet(l, r, i)) {    // Did we play this move?
+                    int top = 0;        // Index for the top of the stack
+                    todo[top++] = i;    // Start the search from position i
+
+                    int edges = 0;        // The edges connected by the current component
+                    while (top != 0) {
+                        // Process the node on the top of the stack
+
+                        int current = todo[--top];        // Pop one position from the stack
+                        edges |= board.edges[current];    // Update the edges reachable
+
+                        // Add neighbours of the current node to the stack
+                        for (int j = 0; j < neighbours[current].length; j++) {
+                            int n = neighbours[current][j];
+                            if (isSet(l, r, n)) {    // Is this node played by us?
+                                // Mark the neighbour as processed
+                                if (n < 64) {
+                                    l &= ~(1L << n);
+                                } else {
+                                    r &= ~(1L << (n - 64));
+                                }
+
+                                // Add the neighour to the top of the stack
+                                todo[top++] = n;
+
+                                // Optimization: we do not have to check the next neighbour
+                                // Proven by hand waving and the absence of a counter example
+                                j++;
+                            }
+                        }
+                    }
+
+                    // Update the corners captured by the connected edges
+                    corners |= board.cornerSet(edges);
+
+                    // If we won with the given captured corners, we can stop
+                    if (board.win(corners)) {
+                        return true;
+                    }
+                }
+            }
+
+            // We did not win
+            return false;
+        }
+    }
+
+    // Game state for larger boards, which encodes the moves of each player in an array of longs
+    class LargeGameState extends GameState {
+        // Like SmallGameState.remainingMoves and SmallGameState.positions
+        private final short[] remainingMoves;
+        private final short[] positions;
+        // Bit sets encoding the board state, indexed by position
+        private long[] myMoves;    // Moves played by me
+        private long[] opMoves;    // Moves played by the opponent
+
+        // Constructs the initial game state
+        LargeGameState() {
+            remainingMoves = new short[board.positions];
+            positions = new short[board.positions + 1];
+            for (int i = 0; i < board.positions; i++) {
+                remainingMoves[i] = (short) (i + 1);
+                positions[i + 1] = (short) i;
+            }
+            end = board.positions;
+            myMoves = new long[(board.positions >> 6) + 1];
+            opMoves = new long[(board.positions >> 6) + 1];
+        }
+
+        // Copy constructor
+        LargeGameState(LargeGameState other) {
+            this.remainingMoves = Arrays.copyOf(other.remainingMoves, other.end);
+            this.positions = other.positions.clone();
+            this.end = other.end;
+            this.myMoves = other.myMoves.clone();
+            this.opMoves = other.opMoves.clone();
+        }
+
+        @Override
+        int remainingMove(int index) {
+            return remainingMoves[index];
+        }
+
+        @Override
+        GameState copy() {
+            return new LargeGameState(this);
+        }
+
+        @Override
+        public void swapPlayers() {
+            long[] temp = myMoves;
+            myMoves = opMoves;
+            opMoves = temp;
+        }
+
+        // Swaps two entries in the remainingMoves array
+        private void swap(int i, int j) {
+            short temp = remainingMoves[i];
+            remainingMoves[i] = remainingMoves[j];
+            remainingMoves[j] = temp;
+            positions[remainingMoves[i]] = (short) i;
+            positions[remainingMoves[j]] = (short) j;
+        }
+
+        @Override
+        public void updateMyMove(int move) {
+            swap(positions[move], --end);
+            myMoves[move >> 6] |= 1L << move;
+        }
+
+        @Override
+        public void updateOpMove(int move) {
+            swap(positions[move], --end);
+            opMoves[move >> 6] |= 1L << move;
+        }
+
+        // Works like SmallGameState.sample()
+        @Override
+        public AmafPlayout sample(final boolean myMoveAtStart) {
+            AmafPlayout result = new AmafPlayout(board.positions);
+            result.samples += SAMPLES;
+
+            final long[] start = myMoveAtStart ? myMoves : opMoves;
+            final long[] otherStart = myMoveAtStart ? opMoves : myMoves;
+            long[] current = new long[start.length];
+            long[] other = new long[start.length];
+            final long[] scratch = new long[start.length];
+
+            final int[] edgeDistance = board.edgeDistance;
+            final int centerBiasEnd = board.centerBiasEnd;
+            final int edgeBiasEnd = board.edgeBiasEnd;
+            final boolean myMoveAtEnd = myMoveAtStart ^ ((end & 1) == 1);
+            int[] play = new int[board.maxPatterns];
+            int totalMoves = 0;
+            int totalPatternMoves = 0;
+
+            for (int m = 0; m < SAMPLES; m++) {
+                System.arraycopy(start, 0, current, 0, start.length);
+                System.arraycopy(otherStart, 0, other, 0, start.length);
+
+                int end = this.end;
+                totalMoves += end;
+                int lastMove = 0;
+
+                while (end > 0) {
+                    int move = 0;
+                    if (lastMove != 0) {
+                        int pc = matchPatterns(lastMove, current, other, play);
+                        if (pc > 0) {
+                            move = play[randomInt(pc)];
+                            totalPatternMoves++;
+                        }
+                    }
+                    if (move == 0) {
+                        move = remainingMoves[randomInt(end)];
+                        if (end > centerBiasEnd) {
+                            while (edgeDistance[move] < 2) {
+                                move = remainingMoves[randomInt(end)];
+                            }
+                        } else if (end > edgeBiasEnd) {
+                            while (edgeDistance[move] < 1) {
+                                move = remainingMoves[randomInt(end)];
+                            }
+                        }
+                    }
+                    swap(positions[move], --end);
+                    current[move >> 6] |= 1L << move;
+                    lastMove = move;
+
+                    long[] temp = current;
+                    current = other;
+                    other = temp;
+                }
+
+                System.arraycopy(current, 0, scratch, 0, current.length);
+                int win = myMoveAtEnd == winner(scratch) ? 1 : 0;
+
+                result.wins += win;
+                for (int j = 1; j < board.positions + 1; j++) {
+                    if (myMoveAtEnd == isSet(current, j)) {
+                        result.mySamples[j]++;
+                        result.myWins[j] += win;
+                    } else {
+                        result.opSamples[j]++;
+                        result.opWins[j] += win;
+                    }
+                }
+            }
+
+            playouts += SAMPLES;
+            playoutMoves += totalMoves;
+            patternMoves += totalPatternMoves;
+            return result;
+        }
+
+        // Works like SmallGameState.matchPatterns(), with the patterns encoded as described in
+        // Board.largePatterns
+        int matchPatterns(int lastMove, long[] current, long[] other, int[] play) {
+            int pc = 0;
+            int[] ps = board.largePatterns[lastMove];
+            int i = 0;
+            while (i < ps.length) {
+                int response = ps[i++];
+                boolean match = !isSet(current, response);
+                for (int n = ps[i++]; n > 0; --n) {
+                    if (!isSet(current, ps[i++])) match = false;
+                }
+                for (int n = ps[i++]; n > 0; --n) {
+                    if (isSet(other, ps[i++])) match = false;
+                }
+                if (match) play[pc++] = response;
+            }
+            return pc;
+        }
+
+        private boolean isSet(long[] bits, int i) {
+            return (bits[i >> 6] & (1L << i)) != 0;
+        }
+
+        // Works like SmallGameState.winner(); clears the bits that it processes
+        boolean winner(long[] bits) {
+            final int[][] neighbours = board.neighbours;
+            int corners = 0;
+            for (int i : board.edge) {
+                if (isSet(bits, i)) {
+                    int top = 0;
+                    todo[top++] = i;
+                    int edges = 0;
+                    while (top != 0) {
+                        int current = todo[--top];
+                        edges |= board.edges[current];
+                        for (int j = 0; j < neighbours[current].length; j++) {
+                            int n = neighbours[current][j];
+                            if (isSet(bits, n)) {
+                                bits[n >> 6] &= ~(1L << n);
+                                todo[top++] = n;
+                                j++;
+                            }
+                        }
+                    }
+                    corners |= board.cornerSet(edges);
+                    if (board.win(corners)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    // Implementation of a tree node for monte carlo tree search (MCTS)
+    public class Tree {
+        private final GameState state;    // The game state at the current node
+        private final boolean myMove;        // Is it my move? (note that this could also be passed around instead of storing it in tree nodes)
+
+        // Statistics gathered about child nodes based on the AMAF heuristic
+        private final Statistics statistics = new Statistics(board.positions);
+
+        // The child nodes, indexed by move. Allocated when the first child is added, since most
+        // nodes are leaves.
+        private Tree[] children;
+
+        // Distance from the root node
+        private final int depth;
+
+        public Tree(GameState state) {
+            this(state, true);
+        }
+
+        public Tree(GameState state, boolean myMove) {
+            this.state = state;
+            this.myMove = myMove;
+            this.depth = 0;
+            nodes++;
+        }
+
+        // Constructs a child node from a parent node and a given move
+        public Tree(Tree parent, int m) {
+            state = parent.state.copy();
+            myMove = !parent.myMove;
+            if (parent.myMove) state.updateMyMove(m);
+            else state.updateOpMove(m);
+            depth = parent.depth + 1;
+            nodes++;
+            depthSum += depth;
+            if (depth > maxDepth) maxDepth = depth;
+        }
+
+        // Returns the counters of the bot that created this tree
+        public Counters getCounters() {
+            return TreeBot.this.getCounters();
+        }
+
+        // Gets the child node of this node for a given move, which can be expanded further on its
+        // own to reuse the data computed for this node (see GameReview). Note that statistics
+        // remain counted from the perspective of the player to move at the original root.
+        public Tree treeAfterMove(int move) {
+            Tree child = child(move);
+            return child != null ? child : new Tree(this, move);
+        }
+
+        // Returns the child node for the given move, or null if it has not been created.
+        private Tree child(int move) {
+            return children == null ? null : children[move];
+        }
+
+        public BestMove getBestMove() {
+            // Select the move with the highest number of samples
+            int mostSamples = -1;
+            int bestMove = state.remainingMove(0);
+            float bestProbability = 0.5f;
+            for (int i = 0; i < state.end; i++) {
+                int move = state.remainingMove(i);
+                Tree child = child(move);
+                if (child != null) {
+                    int samples = child.statistics.samples;
+                    if (samples > mostSamples) {
+                        mostSamples = samples;
+                        bestMove = move;
+                        if (samples > 0) bestProbability = winProbability(child.statistics.wins, samples);
+                    }
+                }
+            }
+            return new BestMove(bestMove, bestProbability);
+        }
+
+        /**
+         * Returns the root moves with the most samples (up to {@code maxMoves}, in order of
+         * decreasing samples, with ties broken like {@link #getBestMove()}), each with a
+         * principal variation of at most {@code maxDepth} moves. The first move is the best move.
+         * Moves that have not been expanded yet are not included, so the result is empty if the
+         * tree has not been expanded.
+         *
+         * <p>The moves are selected in one pass over the root children, so this is much cheaper
+         * than searching again with the best move excluded.
+         */
+        public List<RootMove> getTopMoves(int maxMoves, int maxDepth) {
+            Tree[] top = new Tree[maxMoves];
+            int[] topMoves = new int[maxMoves];
+            int count = 0;
+            for (int i = 0; i < state.end; i++) {
+                int move = state.remainingMove(i);
+                Tree child = child(move);
+                if (child == null) continue;
+                int samples = child.statistics.samples;
+                if (count == maxMoves && samples <= top[count - 1].statistics.samples) continue;
+                // Insertion sort; maxMoves is small. Earlier moves win ties, like in getBestMove().
+                int j = count < maxMoves ? count++ : count - 1;
+                while (j > 0 && top[j - 1].statistics.samples < samples) {
+                    top[j] = top[j - 1];
+                    topMoves[j] = topMoves[j - 1];
+                    --j;
+                }
+                top[j] = child;
+                topMoves[j] = move;
+            }
+            List<RootMove> result = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                int move = topMoves[i];
+                Statistics child = top[i].statistics;
+                int amafSamples = statistics.amafSamples[move];
+                result.add(new RootMove(move, child.samples,
+                        winProbability(child.wins, child.samples),
+                        amafSamples, winProbability(statistics.amafWins[move], amafSamples),
+                        principalVariation(move, maxDepth)));
+            }
+            return result;
+        }
+
+        /**
+         * Returns a snapshot of the root moves, with at most {@code maxMoves} moves and a principal
+         * variation of at most {@code maxDepth} moves. This takes time proportional to the number
+         * of positions on the board, so it is cheap enough to call every few expansions, but it
+         * must be called on the thread that expands the tree.
+         */
+        public Analysis getAnalysis(int maxMoves, int maxDepth) {
+            long[] samples = new long[board.positions + 1];
+            long[] wins = new long[board.positions + 1];
+            addChildStatistics(samples, wins);
+            return Analysis.create(this, samples, wins, maxMoves, maxDepth);
+        }
+
+        // Stores the estimated win probability of each root move in `values` (indexed by move),
+        // blending the AMAF statistics with the samples of the child node like expandNode() does,
+        // or NaN for moves that are not legal or have not been sampled. See Heatmap.
+        void fillHeatmap(float[] values) {
+            Arrays.fill(values, Float.NaN);
+            for (int i = 0; i < state.end; i++) {
+                int move = state.remainingMove(i);
+                int amafSamples = statistics.amafSamples[move];
+                if (amafSamples > 0) values[move] = (float) statistics.amafWins[move] / amafSamples;
+            }
+            // This is called for every frame while the heatmap is shown, so it must not allocate.
+            if (children != null) {
+                for (int i = 0; i < state.end; i++) {
+                    int move = state.remainingMove(i);
+                    Tree child = children[move];
+                    if (child == null || Float.isNaN(values[move])) continue;
+                    Statistics statistics = child.statistics;
+                    if (statistics.samples == 0) continue;
+                    values[move] = (float) (values[move] * ALPHA + ((double) statistics.wins / statistics.samples) * (1.0 - ALPHA));
+                }
+            }
+            if (!myMove) {
+                for (int move = 1; move < values.length; ++move) values[move] = 1 - values[move];
+            }
+        }
+
+        // Converts wins and samples (which are counted from the perspective of the player to move
+        // at the node where the search started) to a win probability for the player to move at
+        // this node, or 0.5 if there are no samples. The two differ only when a subtree is
+        // searched on its own (see treeAfterMove()).
+        private float winProbability(long wins, long samples) {
+            if (samples == 0) return 0.5f;
+            float p = (float) wins / samples;
+            return myMove ? p : 1 - p;
+        }
+
+        // Returns the approximate number of expansions through this node. Each expansion adds
+        // SAMPLES samples, except when it reaches the end of the game.
+        long estimatedExpansions() {
+            return statistics.samples / SAMPLES;
+        }
+
+        // Returns the child move with the most samples, or 0 if there are no children.
+        private int mostSampledMove() {
+            int mostSamples = -1;
+            int bestMove = 0;
+            for (int i = 0; i < state.end; i++) {
+                int move = state.remainingMove(i);
+                Tree child = child(move);
+                if (child != null && child.statistics.samples > mostSamples) {
+                    mostSamples = child.statistics.samples;
+                    bestMove = move;
+                }
+            }
+            return bestMove;
+        }
+
+        // Returns the given move followed by the most sampled moves in the subtree after it, up to
+        // the given length, or as far as the tree has been expanded.
+        int[] principalVariation(int firstMove, int maxLength) {
+            int[] moves = new int[maxLength];
+            int length = 0;
+            Tree node = this;
+            int move = firstMove;
+            while (length < maxLength && move != 0) {
+                moves[length++] = move;
+                node = node.child(move);
+                if (node == null) break;
+                move = node.mostSampledMove();
+            }
+            return Arrays.copyOf(moves, length);
+        }
+
+        // Adds the samples and wins of each child node to the given arrays, which are indexed by
+        // move. This is used to merge the results of independent searches of the same position.
+        void addChildStatistics(long[] samples, long[] wins) {
+            if (children == null) return;
+            for (int move = 1; move < children.length; move++) {
+                Tree child = children[move];
+                if (child == null) continue;
+                samples[move] += child.statistics.samples;
+                wins[move] += child.statistics.wins;
+            }
+        }
+
+        // Expands the tree by creating the most promising child node, playing a monte carlo playout in this child node, and updating the statistics in all parent nodes
+        public AmafPlayout expand() {
+            expansionStart = System.nanoTime();
+            playoutEnd = 0;
+            AmafPlayout result = expandNode();
+            long end = System.nanoTime();
+            if (playoutEnd == 0) {
+                selectionNanos += end - expansionStart;    // No playout; we reached the end of the game
+            } else {
+                backupNanos += end - playoutEnd;
+            }
+            expansions++;
+            return result;
+        }
+
+        private AmafPlayout expandNode() {
+            // If there are no moves remaining in this node, we are done
+            if (state.end == 0) return new AmafPlayout(board.positions);
+
+            AmafPlayout result;
+            int selected = 0;
+
+            // Select the best node for the current player
+            if (myMove) {
+                // Select the node with the highest win rate
+                double bestScore = -1.0;
+                for (int i = 0; i < state.end; i++) {
+                    int move = state.remainingMove(i);
+
+                    // Compute the win rate based on the AMAF heuristic
+                    double score = ((double) statistics.amafWins[move]) / statistics.amafSamples[move];
+
+                    // If we have actual samples of this node available, we do a linear interpolation of the
+                    // AMAF score with the actual samples based on the ALPHA parameter (alpha-AMAF)
+                    Tree child = child(move);
+                    if (child != null) {
+                        score = score * ALPHA + (((double) child.statistics.wins) / child.statistics.samples) * (1.0 - ALPHA);
+                    }
+
+                    // If there is no data at all available for this node, we must investigate it
+                    if (statistics.amafSamples[move] == 0) {
+                        score = 100.0;
+                    }
+
+                    if (score > bestScore) {
+                        bestScore = score;
+                        selected = move;
+                    }
+                }
+            } else {
+                // Select the node with the lowest win rate
+                double bestScore = -1.0;
+                for (int i = 0; i < state.end; i++) {
+                    int move = state.remainingMove(i);
+
+                    // Compute the win rate based on the AMAF heuristic
+                    double score = ((double) (statistics.amafSamples[move] - statistics.amafWins[move])) / statistics.amafSamples[move];
+
+                    // If we have actual samples of this node available, we do a linear interpolation of the
+                    // AMAF score with the actual samples based on the ALPHA parameter (alpha-AMAF)
+                    Tree child = child(move);
+                    if (child != null) {
+                        score = score * ALPHA + (((double) (child.statistics.samples - child.statistics.wins)) / child.statistics.samples) * (1.0 - ALPHA);
+                    }
+
+                    // If there is no data at all available for this node, we must investigate it
+                    if (statistics.amafSamples[move] == 0) {
+                        score = 100.0;
+                    }
+
+                    if (score > bestScore) {
+                        bestScore = score;
+                        selected = move;
+                    }
+                }
+            }
+
+            Tree existingChild = child(selected);
+            if (existingChild == null) {
+                // If this child does not exist, create it
+                Tree child = new Tree(this, selected);
+                if (children == null) children = new Tree[board.positions + 1];
+                children[selected] = child;
+
+                // Evaluate this node with monte-carlo sampling
+                // The result is a AmafPlayout instance containing number of wins, samples and AMAF statistics (number of wins and samples for all other moves played)
+                long playoutStart = System.nanoTime();
+                selectionNanos += playoutStart - expansionStart;
+                result = child.state.sample(child.myMove);
+                playoutEnd = System.nanoTime();
+                playoutNanos += playoutEnd - playoutStart;
+
+                // Update the statistics of the child node
+                child.statistics.add(result, child.myMove);
+            } else {
+                // The child exists, recursively expand this child
+                result = existingChild.expandNode();
+            }
+
+            // Update the statistics of this node
+            statistics.add(result, myMove);
+
+            return result;
+        }
+    }
+
+    // The result of a set of AMAF playouts (as constructed by)
+    static class AmafPlayout {
+        int samples;        // The number of samples performed
+        int wins;            // The number of times we won
+
+        final int[] mySamples;    // mySamples[i] is the number of samples where move i was played by me
+        final int[] myWins;       // myWins[i] is the number of samples where move i was played by me and I won
+        final int[] opSamples;    // opSamples[i] is the number of samples where move i was played by the opponent
+        final int[] opWins;       // opWins[i] is the number of samples where move i was played by the opponent and I won
+
+        // Constructs an empty result for a board with the given number of positions
+        AmafPlayout(int positions) {
+            mySamples = new int[positions + 1];
+            myWins = new int[positions + 1];
+            opSamples = new int[positions + 1];
+            opWins = new int[positions + 1];
+        }
+    }
+
+    // The statistics stored in a node
+    static class Statistics {
+        int samples;    // The number of times this node has been sampled
+        int wins;        // The number of samples where we have won
+
+        int[] amafSamples;     // amafSamples[i] is the number of times move i was played in a monte carlo game
+        int[] amafWins;        // amafWins[i] is the number of times move i was played in a monte carlo game, and we won
+
+        // Constructs empty statistics for a board with the given number of positions
+        Statistics(int positions) {
+            amafSamples = new int[positions + 1];
+            amafWins = new int[positions + 1];
+        }
+
+        // Update the statistics with a given playout result
+        public void add(AmafPlayout playout, boolean myMove) {
+            samples += playout.samples;
+            wins += playout.wins;
+
+            if (myMove) {
+                // If it is my move, add the statistics for my moves
+                for (int i = 1; i < amafSamples.length; i++) {
+                    amafSamples[i] += playout.mySamples[i];
+                    amafWins[i] += playout.myWins[i];
+                }
+            } else {
+                // If it is the opponent move, add the statistics for the opponent moves
+                for (int i = 1; i < amafSamples.length; i++) {
+                    amafSamples[i] += playout.opSamples[i];
+                    amafWins[i] += playout.opWins[i];
+                }
+            }
+        }
+
+        public Statistics clone() {
+            Statistics result = new Statistics(amafSamples.length - 1);
+
+            result.samples = samples;
+            result.wins = wins;
+            result.amafSamples = amafSamples.clone();
+            result.amafWins = amafWins.clone();
+
+            return result;
+        }
+    }
+
+    /**
+     * Runs a benchmark and returns the number of expansions per second.
+     */
+    public double benchmark(long durationMillis) {
+        Tree tree = new Tree(createInitialState());
+
+        // Call expand() a few times to warm up.
+        for (int repeat = 0; repeat < 50; ++repeat) {
+            tree.expand();
+        }
+
+        long start = System.currentTimeMillis();
+        long finish;
+        long expansions = 0;
+        while ((finish = System.currentTimeMillis()) - start < durationMillis) {
+            // Repeat 50 times to reduce the overhead of the outer loop. (Most devices do over
+            // 1000 expansions per second, so this doesn't affect the total duration much.)
+            for (int repeat = 0; repeat < 50; ++repeat) {
+                tree.expand();
+                expansions++;
+            }
+        }
+        return expansions * 1000.0 / (finish - start);
+    }
+}
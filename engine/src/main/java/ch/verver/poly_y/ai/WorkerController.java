@@ -0,0 +1,215 @@
+package ch.verver.poly_y.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Adapts the number of active workers of a {@link ParallelSearch} to maximize the total number
+ * of expansions per second, which depends on thermal throttling and other load on the machine, so
+ * using all cores is not always fastest.
+ *
+ * <p>The search reports the expansions of every interval. The controller then hill-climbs: it
+ * probes one worker more (or fewer), and keeps the change if the marginal worker is worth at least
+ * {@link #MIN_MARGINAL_GAIN} of an average worker; that is, if adding it increased the throughput
+ * by at least that much, or if removing it decreased the throughput by less than that. Otherwise
+ * it reverts the change, holds the count for a few intervals, and then probes in the other
+ * direction. The number of workers never exceeds the CPU cap given at construction.
+ *
+ * <p>Every decision is recorded (see {@link #getDecisions()}), so it can be seen why a search
+ * used the number of workers it did, along with the average throughput and worker count. A
+ * controller is used by one search at a time, but its metrics may be read from other threads.
+ *
+ * <p>A search usually lasts only a few intervals, so the controller should be reused for the
+ * searches of consecutive moves: each search starts with the number of workers that the previous
+ * one ended with, so the count keeps converging over the course of a game.
+ */
+public final class WorkerController {
+    /** The default interval between decisions. */
+    public static final long DEFAULT_INTERVAL_MILLIS = 250;
+
+    /** The minimum throughput of a marginal worker, relative to an average worker. */
+    public static final double MIN_MARGINAL_GAIN = 0.5;
+
+    // The number of intervals to keep the worker count unchanged after a rejected probe.
+    private static final int HOLD_INTERVALS = 4;
+
+    // The maximum number of decisions that are recorded.
+    private static final int MAX_DECISIONS = 1000;
+
+    /** A decision made at the end of an interval. */
+    public static final class Decision {
+        /** The time since the start of the search. */
+        public final long timeMillis;
+        /** The number of active workers during the interval, and the throughput achieved. */
+        public final int workers;
+        public final double expansionsPerSecond;
+        /** The number of active workers for the next interval. */
+        public final int nextWorkers;
+        public final String reason;
+
+        Decision(long timeMillis, int workers, double expansionsPerSecond, int nextWorkers, String reason) {
+            this.timeMillis = timeMillis;
+            this.workers = workers;
+            this.expansionsPerSecond = expansionsPerSecond;
+            this.nextWorkers = nextWorkers;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d ms: %d workers, %.0f expansions/s (%.0f per worker) -> %d workers: %s",
+                    timeMillis, workers, expansionsPerSecond, expansionsPerSecond / workers, nextWorkers, reason);
+        }
+    }
+
+    private final int maxWorkers;
+    private final long intervalMillis;
+
+    // Search state, used only by the thread that calls start() and update().
+    private int workers;
+    private int direction;
+    private boolean probing;        // whether the worker count was changed by the last update
+    private int baselineWorkers;    // the worker count before the probe, and its throughput
+    private double baselineRate;
+    private int holdIntervals;
+    private long startNanos;
+
+    // Totals over the measured intervals of the current search, and its initial number of
+    // workers, guarded by `decisions`.
+    private int startWorkers;
+    private long totalExpansions;
+    private long totalNanos;
+    private double totalWorkerNanos;
+
+    // Guarded by itself.
+    private final ArrayList<Decision> decisions = new ArrayList<>();
+
+    /**
+     * Creates a controller.
+     *
+     * @param maxWorkers the CPU cap: the maximum number of workers (threads) to use
+     * @param intervalMillis the interval between decisions
+     */
+    public WorkerController(int maxWorkers, long intervalMillis) {
+        if (maxWorkers < 1) throw new IllegalArgumentException("maxWorkers must be at least 1");
+        if (intervalMillis < 1) throw new IllegalArgumentException("intervalMillis must be positive");
+        this.maxWorkers = maxWorkers;
+        this.intervalMillis = intervalMillis;
+        this.workers = maxWorkers;
+        this.direction = -1;
+        this.startWorkers = maxWorkers;
+    }
+
+    /**
+     * Returns the CPU cap for the given fraction of the available processors (e.g. 0.5 to use at
+     * most half of them), which is at least 1.
+     */
+    public static int capForFraction(double fraction) {
+        return Math.max(1, (int) (Runtime.getRuntime().availableProcessors() * fraction));
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /** Returns the decisions of the current (or last) search, in chronological order. */
+    public List<Decision> getDecisions() {
+        synchronized (decisions) {
+            return Collections.unmodifiableList(new ArrayList<>(decisions));
+        }
+    }
+
+    /** Returns the throughput over the measured intervals of the current (or last) search. */
+    public double getExpansionsPerSecond() {
+        synchronized (decisions) {
+            return totalNanos == 0 ? 0 : totalExpansions * 1e9 / totalNanos;
+        }
+    }
+
+    /** Returns the time-weighted average number of active workers of the current (or last) search. */
+    public double getAverageWorkers() {
+        synchronized (decisions) {
+            return totalNanos == 0 ? startWorkers : totalWorkerNanos / totalNanos;
+        }
+    }
+
+    /**
+     * Starts a new search, and returns the number of active workers: all of them for the first
+     * search, and the number the previous search ended with after that.
+     */
+    int start() {
+        // A probe that was still running is discarded, since its baseline was measured in a
+        // different position. The direction and any hold carry over.
+        probing = false;
+        startNanos = System.nanoTime();
+        synchronized (decisions) {
+            startWorkers = workers;
+            decisions.clear();
+            totalExpansions = 0;
+            totalNanos = 0;
+            totalWorkerNanos = 0;
+        }
+        return workers;
+    }
+
+    /**
+     * Reports the number of expansions performed during the last interval, and returns the number
+     * of workers to use during the next interval.
+     */
+    int update(long expansions, long elapsedNanos) {
+        double rate = expansions * 1e9 / Math.max(1, elapsedNanos);
+        int previous = workers;
+        String reason;
+        if (probing) {
+            // Compare the throughput of the marginal worker with that of an average worker. When
+            // shrinking, the marginal worker is the one that was removed.
+            probing = false;
+            boolean grew = workers > baselineWorkers;
+            double average = baselineRate / baselineWorkers;
+            double marginal = grew ? rate - baselineRate : baselineRate - rate;
+            String comparison = String.format(Locale.ROOT, "marginal worker %.0f/s, average %.0f/s", marginal, average);
+            if (marginal >= average * MIN_MARGINAL_GAIN == grew) {
+                reason = (grew ? "grow" : "shrink") + " accepted (" + comparison + ")";
+                baselineWorkers = workers;
+                baselineRate = rate;
+                reason += "; " + probe();
+            } else {
+                reason = (grew ? "grow" : "shrink") + " rejected (" + comparison + ")";
+                workers = baselineWorkers;
+                direction = -direction;
+                holdIntervals = HOLD_INTERVALS;
+            }
+        } else if (holdIntervals > 0) {
+            --holdIntervals;
+            reason = "holding";
+        } else {
+            baselineWorkers = workers;
+            baselineRate = rate;
+            reason = probe();
+        }
+        Decision decision = new Decision((System.nanoTime() - startNanos) / 1000000, previous, rate, workers, reason);
+        synchronized (decisions) {
+            if (decisions.size() < MAX_DECISIONS) decisions.add(decision);
+            totalExpansions += expansions;
+            totalNanos += elapsedNanos;
+            totalWorkerNanos += (double) previous * elapsedNanos;
+        }
+        return workers;
+    }
+
+    // Changes the worker count by one in the current direction, reversing the direction at the
+    // bounds. Returns the reason for the decision.
+    private String probe() {
+        if (maxWorkers == 1) return "only one worker allowed";
+        if (workers + direction < 1 || workers + direction > maxWorkers) direction = -direction;
+        workers += direction;
+        probing = true;
+        return direction > 0 ? "probing one more worker" : "probing one fewer worker";
+    }
+}
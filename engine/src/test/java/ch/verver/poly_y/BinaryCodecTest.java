@@ -0,0 +1,187 @@
+package ch.verver.poly_y;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryCodecTest {
+    private static final BoardGeometry[] GEOMETRIES = {
+            BoardGeometry.DEFAULT_GEOMETRY,
+            BoardGeometry.get(3, 3),
+            BoardGeometry.get(5, 6),
+            BoardGeometry.get(15, 5),  // more than 256 vertices, so moves are encoded as varints
+    };
+
+    private static GameState randomGame(BoardGeometry geometry, boolean pieRule, int moves, Random random) {
+        GameState state = GameState.calculate(geometry, pieRule);
+        for (int i = 0; i < moves && !state.isGameOver(); ++i) {
+            BoardGeometry.Vertex v;
+            do {
+                v = geometry.vertices.get(random.nextInt(geometry.vertices.size()));
+            } while (state.getPiece(v) != 0);
+            state = state.move(v);
+        }
+        return state;
+    }
+
+    private static GameState roundTrip(BinaryCodec codec, GameState state, boolean includeHash) {
+        int length = codec.encodeGameState(state, includeHash);
+        byte[] data = Arrays.copyOf(codec.getBuffer(), length);
+        // Decode at an offset, with a separate codec, to check that neither matters.
+        byte[] padded = new byte[length + 3];
+        System.arraycopy(data, 0, padded, 2, length);
+        return new BinaryCodec().decodeGameState(padded, 2, length);
+    }
+
+    private static void assertSameGame(GameState expected, GameState actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.hash64(), actual.hash64());
+        assertEquals(expected.getCodeCupMoves(), actual.getCodeCupMoves());
+        assertEquals(expected.isPieRuleEnabled(), actual.isPieRuleEnabled());
+        assertEquals(expected.isResigned(), actual.isResigned());
+        assertEquals(expected.getWinner(), actual.getWinner());
+    }
+
+    @Test
+    public void gameStateRoundTrip() {
+        Random random = new Random(1);
+        BinaryCodec codec = new BinaryCodec();
+        for (BoardGeometry geometry : GEOMETRIES) {
+            for (boolean pieRule : new boolean[]{true, false}) {
+                for (int moves : new int[]{0, 1, 2, 10, 1000}) {
+                    GameState state = randomGame(geometry, pieRule, moves, random);
+                    assertSameGame(state, roundTrip(codec, state, true));
+                    assertSameGame(state, roundTrip(codec, state, false));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void swapAndResignRoundTrip() {
+        BinaryCodec codec = new BinaryCodec();
+        for (BoardGeometry geometry : GEOMETRIES) {
+            BoardGeometry.Vertex first = geometry.vertices.get(geometry.vertices.size() / 2);
+            GameState swapped = GameState.calculate(geometry, true).move(first).move(first);
+            assertEquals(-1, (int) swapped.getCodeCupMoves().get(1));
+            assertSameGame(swapped, roundTrip(codec, swapped, true));
+
+            GameState resigned = swapped.resign();
+            assertTrue(resigned.isResigned());
+            assertSameGame(resigned, roundTrip(codec, resigned, true));
+            assertSameGame(resigned, roundTrip(codec, resigned, false));
+        }
+    }
+
+    @Test
+    public void aiConfigRoundTrip() {
+        BinaryCodec codec = new BinaryCodec();
+        for (long iterations : new long[]{1, 6, 127, 128, 3072, 1L << 40, Long.MAX_VALUE}) {
+            for (boolean openingBook : new boolean[]{true, false}) {
+                AiConfig config = new AiConfig(iterations, openingBook);
+                int length = codec.encodeAiConfig(config);
+                assertEquals(config, codec.decodeAiConfig(Arrays.copyOf(codec.getBuffer(), length), 0, length));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsBadHashTrailer() {
+        BinaryCodec codec = new BinaryCodec();
+        GameState state = randomGame(BoardGeometry.DEFAULT_GEOMETRY, true, 20, new Random(2));
+        int length = codec.encodeGameState(state, true);
+        for (int i = 1; i <= 8; ++i) {
+            byte[] data = Arrays.copyOf(codec.getBuffer(), length);
+            data[length - i] ^= 1;
+            try {
+                codec.decodeGameState(data, 0, length);
+                fail("Expected an exception for a corrupted hash byte " + i);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        // A corrupted move is detected by the hash, too.
+        byte[] data = Arrays.copyOf(codec.getBuffer(), length);
+        data[length - 9] ^= 1;
+        try {
+            codec.decodeGameState(data, 0, length);
+            fail("Expected an exception for a corrupted move");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void rejectsBadHeader() {
+        BinaryCodec codec = new BinaryCodec();
+        GameState state = randomGame(BoardGeometry.DEFAULT_GEOMETRY, true, 10, new Random(3));
+        int length = codec.encodeGameState(state, true);
+        for (int header : new int[]{0x81, 0x83, 0xff, 0x00, '2'}) {
+            byte[] data = Arrays.copyOf(codec.getBuffer(), length);
+            data[0] = (byte) header;
+            try {
+                codec.decodeGameState(data, 0, length);
+                fail("Expected an exception for header " + header);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        length = codec.encodeAiConfig(new AiConfig(100, true));
+        byte[] data = Arrays.copyOf(codec.getBuffer(), length);
+        data[0] = (byte) 0x81;
+        try {
+            codec.decodeAiConfig(data, 0, length);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedAndTrailingData() {
+        BinaryCodec codec = new BinaryCodec();
+        GameState state = randomGame(BoardGeometry.DEFAULT_GEOMETRY, true, 10, new Random(4));
+        int length = codec.encodeGameState(state, true);
+        byte[] data = Arrays.copyOf(codec.getBuffer(), length + 1);
+        for (int truncated = 0; truncated < length; ++truncated) {
+            try {
+                codec.decodeGameState(data, 0, truncated);
+                fail("Expected an exception for length " + truncated);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        try {
+            codec.decodeGameState(data, 0, length + 1);
+            fail("Expected an exception for trailing data");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void decodesLegacyStrings() {
+        Random random = new Random(5);
+        BinaryCodec codec = new BinaryCodec();
+        for (BoardGeometry geometry : GEOMETRIES) {
+            for (boolean pieRule : new boolean[]{true, false}) {
+                GameState state = randomGame(geometry, pieRule, 15, random);
+                if (!state.isGameOver() && random.nextBoolean()) state = state.resign();
+                String s = state.encodeAsString();
+                assertTrue(s.startsWith("1,"));
+                byte[] data = s.getBytes(StandardCharsets.US_ASCII);
+                GameState decoded = codec.decodeGameState(data, 0, data.length);
+                assertSameGame(GameState.decodeFromString(s), decoded);
+                assertSameGame(state, decoded);
+            }
+        }
+        byte[] config = "1,3072,1".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(AiConfig.decodeFromString("1,3072,1"), codec.decodeAiConfig(config, 0, config.length));
+    }
+}
@@ -0,0 +1,310 @@
+package ch.verver.poly_y;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class GameArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static GameArchive.Game randomGame(Random random, long startTime) {
+        BoardGeometry geometry = random.nextBoolean() ? BoardGeometry.DEFAULT_GEOMETRY : BoardGeometry.get(4, 4);
+        GameState state = GameState.calculate(geometry, random.nextBoolean());
+        while (!state.isGameOver()) {
+            if (random.nextInt(50) == 0) {
+                state = state.resign();
+                break;
+            }
+            BoardGeometry.Vertex v = geometry.vertices.get(random.nextInt(geometry.vertices.size()));
+            if (state.isValidMove(v)) state = state.move(v);
+        }
+        int aiPlayer = random.nextInt(3);
+        AiConfig aiConfig = aiPlayer == 0 ? null :
+                random.nextInt(4) == 0 ? new AiConfig(1 + random.nextInt(1000), random.nextBoolean()) :
+                AiConfig.fromDifficulty(AiConfig.MIN_DIFFICULTY + random.nextInt(AiConfig.MAX_DIFFICULTY));
+        boolean campaign = aiPlayer != 0 && random.nextBoolean();
+        return new GameArchive.Game(state, aiConfig, aiPlayer, campaign, startTime, startTime + random.nextInt(1000000));
+    }
+
+    private static List<GameArchive.Game> randomGames(int count, long seed) {
+        Random random = new Random(seed);
+        List<GameArchive.Game> games = new ArrayList<>();
+        for (int i = 0; i < count; ++i) games.add(randomGame(random, 1700000000000L + i * 1000000L));
+        return games;
+    }
+
+    private static void assertSameGame(GameArchive.Game expected, GameArchive.Game actual) {
+        assertEquals(expected.state, actual.state);
+        assertEquals(expected.state.getCodeCupMoves(), actual.state.getCodeCupMoves());
+        assertEquals(expected.state.isResigned(), actual.state.isResigned());
+        assertEquals(expected.aiConfig, actual.aiConfig);
+        assertEquals(expected.aiPlayer, actual.aiPlayer);
+        assertEquals(expected.campaign, actual.campaign);
+        assertEquals(expected.startTimeMillis, actual.startTimeMillis);
+        assertEquals(expected.endTimeMillis, actual.endTimeMillis);
+    }
+
+    private static void assertSummary(int index, GameArchive.Game game, GameArchive.Summary summary) {
+        assertEquals(index, summary.index);
+        assertEquals(game.state.getMoveCount(), summary.moveCount);
+        assertEquals(game.state.getWinner(), summary.winner);
+        assertEquals(game.aiPlayer, summary.aiPlayer);
+        assertEquals(game.aiConfig == null ? 0 : game.aiConfig.getDifficulty(), summary.difficulty);
+        assertEquals(game.campaign, summary.campaign);
+        assertEquals(game.state.isResigned(), summary.resigned);
+        assertEquals(game.startTimeMillis, summary.startTimeMillis);
+        assertEquals(game.endTimeMillis, summary.endTimeMillis);
+    }
+
+    private static void assertContents(List<GameArchive.Game> games, GameArchive archive) throws IOException {
+        assertEquals(games.size(), archive.size());
+        // Read in reverse order, so that the first read maps the whole file.
+        for (int i = games.size() - 1; i >= 0; --i) {
+            assertSummary(i, games.get(i), archive.getSummary(i));
+            assertSameGame(games.get(i), archive.getGame(i));
+        }
+    }
+
+    private GameArchive open() throws IOException {
+        return GameArchive.open(new File(folder.getRoot(), "games.dat"), new File(folder.getRoot(), "games.idx"));
+    }
+
+    @Test
+    public void appendAndRead() throws IOException {
+        List<GameArchive.Game> games = randomGames(50, 1);
+        try (GameArchive archive = open()) {
+            assertEquals(0, archive.size());
+            for (int i = 0; i < games.size(); ++i) {
+                archive.append(games.get(i));
+                assertEquals(i + 1, archive.size());
+                // Reading between appends maps the files before they grow, so later reads must
+                // remap them.
+                assertSameGame(games.get(i), archive.getGame(i));
+                assertSummary(i, games.get(i), archive.getSummary(i));
+                assertSameGame(games.get(i / 2), archive.getGame(i / 2));
+            }
+            assertContents(games, archive);
+        }
+    }
+
+    @Test
+    public void reopen() throws IOException {
+        List<GameArchive.Game> games = randomGames(40, 2);
+        try (GameArchive archive = open()) {
+            for (GameArchive.Game game : games.subList(0, 25)) archive.append(game);
+        }
+        try (GameArchive archive = open()) {
+            assertContents(games.subList(0, 25), archive);
+            for (GameArchive.Game game : games.subList(25, 40)) archive.append(game);
+            assertContents(games, archive);
+        }
+        try (GameArchive archive = open()) {
+            assertContents(games, archive);
+        }
+    }
+
+    @Test
+    public void discardsPartialWrites() throws IOException {
+        List<GameArchive.Game> games = randomGames(10, 3);
+        File dataPath = new File(folder.getRoot(), "games.dat");
+        File indexPath = new File(folder.getRoot(), "games.idx");
+        try (GameArchive archive = open()) {
+            for (GameArchive.Game game : games.subList(0, 5)) archive.append(game);
+        }
+        long dataLength = dataPath.length();
+        long indexLength = indexPath.length();
+
+        // A record that was written without its index entry, and half an index entry.
+        try (FileOutputStream out = new FileOutputStream(dataPath, true)) {
+            out.write(new byte[100]);
+        }
+        try (FileOutputStream out = new FileOutputStream(indexPath, true)) {
+            out.write(new byte[20]);
+        }
+        try (GameArchive archive = open()) {
+            assertEquals(dataLength, dataPath.length());
+            assertEquals(indexLength, indexPath.length());
+            assertContents(games.subList(0, 5), archive);
+            for (GameArchive.Game game : games.subList(5, 10)) archive.append(game);
+            assertContents(games, archive);
+        }
+    }
+
+    @Test
+    public void filters() throws IOException {
+        List<GameArchive.Game> games = randomGames(100, 4);
+        try (GameArchive archive = open()) {
+            for (GameArchive.Game game : games) archive.append(game);
+
+            for (int winner = 0; winner <= 2; ++winner) {
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < games.size(); ++i) {
+                    if (games.get(i).state.getWinner() == winner) expected.add(i);
+                }
+                assertArrayEquals(toArray(expected), archive.select(GameArchive.withWinner(winner)));
+            }
+            for (int difficulty = AiConfig.MIN_DIFFICULTY; difficulty <= AiConfig.MAX_DIFFICULTY; ++difficulty) {
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < games.size(); ++i) {
+                    GameArchive.Game game = games.get(i);
+                    if (game.aiConfig != null && game.aiConfig.getDifficulty() == difficulty) expected.add(i);
+                }
+                assertArrayEquals(toArray(expected), archive.select(GameArchive.withDifficulty(difficulty)));
+            }
+
+            List<Integer> aiWins = new ArrayList<>();
+            List<Integer> aiLosses = new ArrayList<>();
+            List<Integer> campaign = new ArrayList<>();
+            for (int i = 0; i < games.size(); ++i) {
+                GameArchive.Game game = games.get(i);
+                int winner = game.state.getWinner();
+                if (game.aiPlayer != 0 && winner == game.aiPlayer) aiWins.add(i);
+                if (game.aiPlayer != 0 && winner == GameState.otherPlayer(game.aiPlayer)) aiLosses.add(i);
+                if (game.campaign) campaign.add(i);
+            }
+            assertArrayEquals(toArray(aiWins), archive.select(GameArchive.Summary::isAiWin));
+            assertArrayEquals(toArray(aiLosses), archive.select(GameArchive.Summary::isAiLoss));
+            assertArrayEquals(toArray(campaign), archive.select(summary -> summary.campaign));
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; ++i) result[i] = list.get(i);
+        return result;
+    }
+
+    @Test
+    public void gameWithoutAi() throws IOException {
+        GameState state = GameState.DEFAULT_GAME_STATE.move(BoardGeometry.DEFAULT_GEOMETRY.vertices.get(0)).resign();
+        GameArchive.Game game = new GameArchive.Game(state, null, 0, false, 1, 2);
+        try (GameArchive archive = open()) {
+            archive.append(game);
+            assertNull(archive.getGame(0).aiConfig);
+            assertEquals(0, archive.getSummary(0).difficulty);
+            assertEquals(0, archive.select(GameArchive.withDifficulty(0)).length);
+        }
+    }
+
+    @Test
+    public void rejectsUnfinishedGames() {
+        try {
+            new GameArchive.Game(GameState.DEFAULT_GAME_STATE, null, 0, false, 0, 0);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void rejectsInvalidIndices() throws IOException {
+        try (GameArchive archive = open()) {
+            archive.append(randomGames(1, 5).get(0));
+            for (int i : new int[]{-1, 1}) {
+                try {
+                    archive.getSummary(i);
+                    fail("Expected an exception for index " + i);
+                } catch (IndexOutOfBoundsException e) {
+                    // Expected.
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rejectsInvalidFiles() throws IOException {
+        File dataPath = new File(folder.getRoot(), "games.dat");
+        File indexPath = new File(folder.getRoot(), "games.idx");
+        try (GameArchive archive = open()) {
+            archive.append(randomGames(1, 6).get(0));
+        }
+        // Wrong magic number, wrong version number, and an index that refers past the end of
+        // the data file.
+        for (long position : new long[]{0, 7}) {
+            for (File path : new File[]{dataPath, indexPath}) {
+                corrupt(path, position);
+                try {
+                    open().close();
+                    fail("Expected an IOException");
+                } catch (IOException e) {
+                    // Expected.
+                }
+                corrupt(path, position);  // restores the original byte
+            }
+        }
+        open().close();
+        try (RandomAccessFile file = new RandomAccessFile(dataPath, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        try {
+            open().close();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void readsRecordsPast2GB() throws IOException {
+        File dataPath = new File(folder.getRoot(), "games.dat");
+        File indexPath = new File(folder.getRoot(), "games.idx");
+        List<GameArchive.Game> games = randomGames(2, 7);
+        try (GameArchive archive = open()) {
+            archive.append(games.get(0));
+            archive.append(games.get(1));
+        }
+        // Moves the second record past 2 GB (the data file is sparse, so this doesn't take up
+        // disk space), and updates the data offset, which is the first field of its index entry.
+        final long newOffset = 3L << 30;
+        try (RandomAccessFile data = new RandomAccessFile(dataPath, "rw");
+             RandomAccessFile index = new RandomAccessFile(indexPath, "rw")) {
+            index.seek(8 + 40);
+            long offset = index.readLong();
+            int length = index.readInt();
+            byte[] record = new byte[length];
+            data.seek(offset);
+            data.readFully(record);
+            data.seek(newOffset);
+            data.write(record);
+            index.seek(8 + 40);
+            index.writeLong(newOffset);
+        }
+        try (GameArchive archive = open()) {
+            assertEquals(2, archive.size());
+            assertSameGame(games.get(1), archive.getGame(1));
+            assertSameGame(games.get(0), archive.getGame(0));
+            // Appending after the moved record works, too.
+            GameArchive.Game game = randomGames(1, 8).get(0);
+            archive.append(game);
+            assertSameGame(game, archive.getGame(2));
+            assertSameGame(games.get(1), archive.getGame(1));
+        }
+        try (GameArchive archive = open()) {
+            assertSameGame(games.get(0), archive.getGame(0));
+            assertSameGame(games.get(1), archive.getGame(1));
+        }
+    }
+
+    private static void corrupt(File path, long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0x10);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package ch.verver.poly_y;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares the incremental connectivity of {@link GameState} (a union-find over chunked arrays,
+ * see placeStone()) with a simple flood fill over the board.
+ */
+public class GameStateTest {
+    private static final BoardGeometry[] GEOMETRIES = {
+            BoardGeometry.get(2, 3),
+            BoardGeometry.get(3, 3),
+            BoardGeometry.get(4, 4),
+            BoardGeometry.DEFAULT_GEOMETRY,
+            BoardGeometry.get(5, 6),
+            BoardGeometry.get(9, 7),  // more than 64 vertices, so several chunks per array
+    };
+
+    // Connectivity of a position, calculated from scratch.
+    private static final class Reference {
+        final int[] pieces;
+        final int[] component;  // per vertex, the smallest vertex id of its group, or -1 if empty
+        final int[] cornerWinners;
+        final int winner;
+
+        Reference(BoardGeometry geometry, int[] moves) {
+            int n = geometry.vertices.size();
+            pieces = new int[n];
+            for (int i = 0; i < moves.length; ++i) pieces[moves[i]] = i % 2 == 0 ? 1 : 2;
+
+            component = new int[n];
+            Arrays.fill(component, -1);
+            int[] componentSides = new int[n];
+            int[] stack = new int[n];
+            for (int start = 0; start < n; ++start) {
+                if (pieces[start] == 0 || component[start] >= 0) continue;
+                int top = 0;
+                stack[top++] = start;
+                component[start] = start;
+                int sides = 0;
+                while (top > 0) {
+                    BoardGeometry.Vertex v = geometry.vertices.get(stack[--top]);
+                    sides |= v.sidesMask;
+                    for (BoardGeometry.Vertex w : v.neighbors) {
+                        if (pieces[w.id] == pieces[start] && component[w.id] < 0) {
+                            component[w.id] = start;
+                            stack[top++] = w.id;
+                        }
+                    }
+                }
+                componentSides[start] = sides;
+            }
+
+            cornerWinners = new int[geometry.sides];
+            for (int v = 0; v < n; ++v) {
+                if (component[v] != v || Integer.bitCount(componentSides[v]) < 3) continue;
+                for (int corner = 0; corner < geometry.sides; ++corner) {
+                    int previous = corner == 0 ? geometry.sides - 1 : corner - 1;
+                    int mask = (1 << corner) | (1 << previous);
+                    if ((componentSides[v] & mask) == mask) cornerWinners[corner] = pieces[v];
+                }
+            }
+            int[] scores = new int[3];
+            for (int w : cornerWinners) scores[w]++;
+            winner = 2 * scores[1] > geometry.sides ? 1 : 2 * scores[2] > geometry.sides ? 2 : 0;
+        }
+    }
+
+    private static void assertMatchesReference(GameState state, int[] moves) {
+        BoardGeometry geometry = state.getGeometry();
+        Reference reference = new Reference(geometry, moves);
+        int n = geometry.vertices.size();
+        for (int v = 0; v < n; ++v) {
+            assertEquals(reference.pieces[v], state.getPiece(v));
+        }
+        for (int corner = 0; corner < geometry.sides; ++corner) {
+            assertEquals(reference.cornerWinners[corner], state.getCornerWinner(corner));
+        }
+        assertEquals(reference.winner, state.getWinner());
+        for (int a = 0; a < n; ++a) {
+            for (BoardGeometry.Vertex w : geometry.vertices.get(a).neighbors) {
+                checkConnected(state, reference, a, w.id);
+            }
+            // Also check some pairs that are far apart.
+            checkConnected(state, reference, a, (a * 7 + 3) % n);
+        }
+    }
+
+    private static void checkConnected(GameState state, Reference reference, int a, int b) {
+        boolean expected = reference.component[a] >= 0 && reference.component[a] == reference.component[b];
+        assertEquals("connectivity of " + a + " and " + b, expected, state.isConnected(a, b));
+    }
+
+    // Plays random moves until the game is over, swapping at random when possible, and checks
+    // every intermediate state. Returns the states, indexed by move count.
+    private static List<GameState> playRandomGame(BoardGeometry geometry, Random random) {
+        List<GameState> states = new ArrayList<>();
+        GameState state = GameState.calculate(geometry, random.nextBoolean());
+        states.add(state);
+        int[] moves = new int[geometry.vertices.size() + 1];
+        int moveCount = 0;
+        while (!state.isGameOver()) {
+            BoardGeometry.Vertex v;
+            if (state.canSwap() && random.nextInt(3) == 0) {
+                v = state.getLastMove();
+            } else {
+                do {
+                    v = geometry.vertices.get(random.nextInt(geometry.vertices.size()));
+                } while (state.getPiece(v) != 0);
+            }
+            state = state.move(v);
+            moves[moveCount++] = v.id;
+            assertMatchesReference(state, Arrays.copyOf(moves, moveCount));
+            states.add(state);
+        }
+        return states;
+    }
+
+    @Test
+    public void randomGamesMatchFloodFill() {
+        Random random = new Random(1);
+        for (BoardGeometry geometry : GEOMETRIES) {
+            for (int game = 0; game < 20; ++game) {
+                playRandomGame(geometry, random);
+            }
+        }
+    }
+
+    @Test
+    public void calculateMatchesIncrementalMoves() {
+        Random random = new Random(2);
+        for (BoardGeometry geometry : GEOMETRIES) {
+            List<GameState> states = playRandomGame(geometry, random);
+            GameState last = states.get(states.size() - 1);
+            int[] moves = new int[last.getMoveCount()];
+            last.getMoves(moves);
+            GameState calculated = GameState.calculate(geometry, last.isPieRuleEnabled(), moves);
+            assertEquals(last, calculated);
+            assertMatchesReference(calculated, moves);
+        }
+    }
+
+    @Test
+    public void branchesDoNotAffectEachOther() {
+        // Deriving several states from the same parent must not modify the parent or each
+        // other, since they share the chunks of their arrays.
+        Random random = new Random(3);
+        for (BoardGeometry geometry : GEOMETRIES) {
+            List<GameState> states = playRandomGame(geometry, random);
+            for (int i = 0; i < states.size(); i += 3) {
+                GameState parent = states.get(i);
+                if (parent.isGameOver()) continue;
+                for (int branch = 0; branch < 3; ++branch) {
+                    BoardGeometry.Vertex v;
+                    do {
+                        v = geometry.vertices.get(random.nextInt(geometry.vertices.size()));
+                    } while (!parent.isValidMove(v));
+                    GameState child = parent.move(v);
+                    int[] moves = new int[child.getMoveCount()];
+                    child.getMoves(moves);
+                    assertMatchesReference(child, moves);
+                }
+            }
+            for (GameState state : states) {
+                int[] moves = new int[state.getMoveCount()];
+                state.getMoves(moves);
+                assertMatchesReference(state, moves);
+            }
+        }
+    }
+
+    @Test
+    public void swapRecolorsTheFirstStone() {
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        BoardGeometry.Vertex first = BoardGeometry.DEFAULT_GEOMETRY.vertices.get(10);
+        state = state.move(first);
+        assertTrue(state.canSwap());
+        state = state.move(first);
+        assertEquals(2, state.getPiece(first));
+        assertEquals(Arrays.asList(BoardGeometry.DEFAULT_GEOMETRY.vertexToCodeCupId(first), -1),
+                state.getCodeCupMoves());
+        assertFalse(state.canSwap());
+    }
+
+    @Test
+    public void rejectsOutOfRangeMoves() {
+        BoardGeometry geometry = BoardGeometry.get(3, 3);
+        int n = geometry.vertices.size();
+        for (int move : new int[]{-1, n, n + 100}) {
+            try {
+                GameState.calculate(geometry, true, new int[]{0, move});
+                fail("Expected an exception for move " + move);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void rejectsReplacingAConnectedStone() {
+        BoardGeometry geometry = BoardGeometry.DEFAULT_GEOMETRY;
+        BoardGeometry.Vertex a = geometry.vertices.get(20);
+        BoardGeometry.Vertex b = a.neighbors.get(0);
+        int far = -1;
+        for (BoardGeometry.Vertex v : geometry.vertices) {
+            if (v != a && !a.neighbors.contains(v) && !b.neighbors.contains(v)) {
+                if (far < 0) {
+                    far = v.id;
+                } else {
+                    // Player 1 plays a and b (connected), player 2 plays elsewhere, then player
+                    // 1 plays on a again, which would have to split a group.
+                    try {
+                        GameState.calculate(geometry, false, new int[]{a.id, far, b.id, v.id, a.id});
+                        fail("Expected an exception");
+                    } catch (IllegalArgumentException e) {
+                        // Expected.
+                    }
+                    return;
+                }
+            }
+        }
+        fail("No vertices found");
+    }
+
+    @Test
+    public void rejectsMovesOnOccupiedVertices() {
+        GameState state = GameState.calculate(BoardGeometry.DEFAULT_GEOMETRY, false);
+        BoardGeometry.Vertex v = BoardGeometry.DEFAULT_GEOMETRY.vertices.get(5);
+        state = state.move(v);
+        assertFalse(state.isValidMove(v));
+        try {
+            state.move(v);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+}
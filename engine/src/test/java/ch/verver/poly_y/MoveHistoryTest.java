@@ -0,0 +1,174 @@
+package ch.verver.poly_y;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class MoveHistoryTest {
+    private static MoveHistory build(int[] moves, int length) {
+        MoveHistory history = MoveHistory.EMPTY;
+        for (int i = 0; i < length; ++i) history = history.append(moves[i]);
+        return history;
+    }
+
+    private static void assertContains(int[] expected, MoveHistory history) {
+        assertEquals(expected.length, history.length());
+        assertArrayEquals(expected, history.toArray());
+        for (int i = 0; i < expected.length; ++i) assertEquals(expected[i], history.get(i));
+        assertEquals(expected.length == 0 ? -1 : expected[expected.length - 1], history.last());
+    }
+
+    @Test
+    public void appendAcrossChunkBoundaries() {
+        // Chunks hold 32 moves, so this covers the boundaries at 32, 64 and 96.
+        int[] moves = new int[130];
+        for (int i = 0; i < moves.length; ++i) moves[i] = i * 3 + 1;
+        MoveHistory history = MoveHistory.EMPTY;
+        for (int i = 0; i < moves.length; ++i) {
+            history = history.append(moves[i]);
+            assertContains(Arrays.copyOf(moves, i + 1), history);
+        }
+    }
+
+    @Test
+    public void branchesFromSharedPrefix() {
+        // Appending different moves to the same history (at various offsets within a chunk,
+        // including right before and after a boundary) must not affect the other branches.
+        for (int prefixLength : new int[]{0, 1, 31, 32, 33, 63, 64, 65}) {
+            int[] prefix = new int[prefixLength];
+            for (int i = 0; i < prefixLength; ++i) prefix[i] = i;
+            MoveHistory base = build(prefix, prefixLength);
+            List<MoveHistory> branches = new ArrayList<>();
+            List<int[]> expected = new ArrayList<>();
+            for (int branch = 0; branch < 4; ++branch) {
+                MoveHistory history = base;
+                int[] moves = Arrays.copyOf(prefix, prefixLength + 40);
+                for (int i = prefixLength; i < moves.length; ++i) {
+                    moves[i] = 1000 * (branch + 1) + i;
+                    history = history.append(moves[i]);
+                }
+                branches.add(history);
+                expected.add(moves);
+            }
+            assertContains(prefix, base);
+            for (int branch = 0; branch < branches.size(); ++branch) {
+                assertContains(expected.get(branch), branches.get(branch));
+            }
+        }
+    }
+
+    @Test
+    public void concurrentBranchesFromSharedPrefix() throws InterruptedException {
+        // Threads race to claim the same slot of the shared chunk; exactly one may write in
+        // place, and the others must copy.
+        final MoveHistory base = build(new int[]{5, 6, 7}, 3);
+        final int threads = 8;
+        final MoveHistory[] results = new MoveHistory[threads];
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            final int index = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                MoveHistory history = base;
+                for (int i = 0; i < 100; ++i) history = history.append(index * 1000 + i);
+                results[index] = history;
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        for (int t = 0; t < threads; ++t) {
+            int[] expected = new int[103];
+            expected[0] = 5;
+            expected[1] = 6;
+            expected[2] = 7;
+            for (int i = 0; i < 100; ++i) expected[i + 3] = t * 1000 + i;
+            assertContains(expected, results[t]);
+        }
+    }
+
+    @Test
+    public void independentlyBuiltHistoriesAreEqual() {
+        Random random = new Random(1);
+        for (int length = 0; length < 100; length += 7) {
+            int[] moves = new int[length];
+            for (int i = 0; i < length; ++i) moves[i] = random.nextInt(200);
+            MoveHistory a = build(moves, length);
+            // Build b through a shared prefix that was branched, so its chunks differ from a's.
+            MoveHistory b = build(moves, length / 2);
+            b.append(-5);
+            for (int i = length / 2; i < length; ++i) b = b.append(moves[i]);
+            assertEquals(a, b);
+            assertEquals(a.hashCode(), b.hashCode());
+            assertEquals(a.hash64(), b.hash64());
+            if (length > 0) {
+                int[] other = moves.clone();
+                other[random.nextInt(length)] ^= 1;
+                MoveHistory c = build(other, length);
+                assertNotEquals(a, c);
+                assertNotEquals(a.hash64(), c.hash64());
+            }
+        }
+    }
+
+    @Test
+    public void hashAfterUndo() {
+        // Undo replays the moves up to an earlier point (see GameActivity), so the hash of the
+        // result must equal the hash the earlier history had, even though chunks were claimed
+        // by the longer history in the meantime.
+        int[] moves = new int[70];
+        for (int i = 0; i < moves.length; ++i) moves[i] = i + 10;
+        List<MoveHistory> prefixes = new ArrayList<>();
+        MoveHistory history = MoveHistory.EMPTY;
+        prefixes.add(history);
+        for (int move : moves) {
+            history = history.append(move);
+            prefixes.add(history);
+        }
+        for (int length = 0; length <= moves.length; ++length) {
+            MoveHistory replayed = build(moves, length);
+            assertEquals(prefixes.get(length), replayed);
+            assertEquals(prefixes.get(length).hash64(), replayed.hash64());
+
+            // Continuing with a different move after undoing gives a different history.
+            if (length < moves.length) {
+                MoveHistory diverged = prefixes.get(length).append(-1);
+                assertNotEquals(prefixes.get(length + 1), diverged);
+                assertNotEquals(prefixes.get(length + 1).hash64(), diverged.hash64());
+                assertContains(Arrays.copyOf(moves, length + 1), prefixes.get(length + 1));
+            }
+        }
+    }
+
+    @Test
+    public void gameStateHashAfterUndo() {
+        GameState state = GameState.DEFAULT_GAME_STATE;
+        List<GameState> states = new ArrayList<>();
+        states.add(state);
+        for (int i = 0; i < 40; ++i) {
+            state = state.move(BoardGeometry.DEFAULT_GEOMETRY.vertices.get(i * 2));
+            states.add(state);
+        }
+        int[] moves = new int[state.getMoveCount()];
+        state.getMoves(moves);
+        for (int length = 0; length <= moves.length; ++length) {
+            GameState undone = GameState.calculate(BoardGeometry.DEFAULT_GEOMETRY, true,
+                    Arrays.copyOf(moves, length));
+            assertEquals(states.get(length), undone);
+            assertEquals(states.get(length).hash64(), undone.hash64());
+        }
+    }
+}
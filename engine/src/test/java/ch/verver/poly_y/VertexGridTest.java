@@ -0,0 +1,131 @@
+package ch.verver.poly_y;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** Compares {@link VertexGrid} with a brute-force search over all vertices. */
+public class VertexGridTest {
+    private static final BoardGeometry[] GEOMETRIES = {
+            BoardGeometry.DUMMY_GEOMETRY,  // a single vertex
+            BoardGeometry.get(2, 3),
+            BoardGeometry.get(3, 3),
+            BoardGeometry.get(4, 4),
+            BoardGeometry.DEFAULT_GEOMETRY,
+            BoardGeometry.get(5, 6),
+            BoardGeometry.get(9, 7),
+            BoardGeometry.get(12, 12),
+    };
+
+    // Returns the squared distance from (x, y) to v, calculated like VertexGrid does.
+    private static float distanceSq(BoardGeometry.Vertex v, float x, float y) {
+        float vx = v.x - x, vy = v.y - y;
+        return vx * vx + vy * vy;
+    }
+
+    private static float nearestDistanceSq(BoardGeometry geometry, float x, float y) {
+        float best = Float.POSITIVE_INFINITY;
+        for (BoardGeometry.Vertex v : geometry.vertices) best = Math.min(best, distanceSq(v, x, y));
+        return best;
+    }
+
+    // Checks that the grid finds a nearest vertex. If several vertices are equally close, any of
+    // them may be returned.
+    private static void assertNearest(BoardGeometry geometry, float x, float y) {
+        String message = geometry + " at (" + x + ", " + y + ")";
+        VertexGrid grid = geometry.getVertexGrid();
+        float expected = nearestDistanceSq(geometry, x, y);
+        BoardGeometry.Vertex v = grid.findNearest(x, y);
+        assertNotNull(message, v);
+        assertEquals(message, expected, distanceSq(v, x, y), 0f);
+
+        // With a maximum distance, the result is null if and only if no vertex is closer.
+        for (float maxDistance : new float[]{0.01f, 0.1f, 0.5f / geometry.boardSize, 1f}) {
+            BoardGeometry.Vertex w = grid.findNearest(x, y, maxDistance);
+            if (expected < maxDistance * maxDistance) {
+                assertNotNull(message, w);
+                assertEquals(message, expected, distanceSq(w, x, y), 0f);
+            } else {
+                assertNull(message, w);
+            }
+        }
+    }
+
+    @Test
+    public void findsVertices() {
+        for (BoardGeometry geometry : GEOMETRIES) {
+            for (BoardGeometry.Vertex v : geometry.vertices) {
+                assertSame(v, geometry.getVertexGrid().findNearest(v.x, v.y));
+                assertSame(v, geometry.getVertexGrid().findNearest(v.x, v.y, 0.01f));
+            }
+        }
+    }
+
+    @Test
+    public void randomPointsMatchBruteForce() {
+        Random random = new Random(1);
+        for (BoardGeometry geometry : GEOMETRIES) {
+            // Includes points around the board, up to half the board's size outside of it.
+            for (int i = 0; i < 2000; ++i) {
+                assertNearest(geometry, 2 * random.nextFloat() - 1, 2 * random.nextFloat() - 1);
+            }
+            // Points far away from the board.
+            for (int i = 0; i < 100; ++i) {
+                double angle = 2 * Math.PI * random.nextDouble();
+                float distance = 10 + 1000 * random.nextFloat();
+                assertNearest(geometry, (float) (distance * Math.cos(angle)), (float) (distance * Math.sin(angle)));
+            }
+        }
+    }
+
+    @Test
+    public void pointsBetweenVerticesMatchBruteForce() {
+        // The midpoints of edges are equally close to two vertices, or more.
+        for (BoardGeometry geometry : GEOMETRIES) {
+            for (BoardGeometry.Edge e : geometry.edges) {
+                assertNearest(geometry, (e.v.x + e.w.x) / 2, (e.v.y + e.w.y) / 2);
+            }
+        }
+    }
+
+    @Test
+    public void cellBoundariesMatchBruteForce() {
+        for (BoardGeometry geometry : GEOMETRIES) {
+            // Reconstructs the grid layout like the VertexGrid constructor does.
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+            for (BoardGeometry.Vertex v : geometry.vertices) {
+                minX = Math.min(minX, v.x);
+                minY = Math.min(minY, v.y);
+                maxX = Math.max(maxX, v.x);
+                maxY = Math.max(maxY, v.y);
+            }
+            float width = maxX - minX, height = maxY - minY;
+            float cellSize = (float) Math.sqrt(width * height / geometry.vertices.size());
+            if (!(cellSize > 0)) cellSize = 1;
+            int columns = (int) (width / cellSize) + 1;
+            int rows = (int) (height / cellSize) + 1;
+
+            // Every intersection of grid lines, including one line beyond the grid on each side,
+            // and points on the grid lines halfway between intersections.
+            for (int c = -1; c <= columns + 1; ++c) {
+                for (int r = -1; r <= rows + 1; ++r) {
+                    float x = minX + c * cellSize, y = minY + r * cellSize;
+                    assertNearest(geometry, x, y);
+                    assertNearest(geometry, x + cellSize / 2, y);
+                    assertNearest(geometry, x, y + cellSize / 2);
+                }
+            }
+            // The corners of the bounding box of the vertices.
+            assertNearest(geometry, minX, minY);
+            assertNearest(geometry, minX, maxY);
+            assertNearest(geometry, maxX, minY);
+            assertNearest(geometry, maxX, maxY);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ch.verver.poly_y.ai;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ch.verver.poly_y.BoardGeometry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the tables that {@link Board} generates for the default board with the original
+ * hard-coded tables in {@link OriginalBoardTables}.
+ *
+ * <p>The positions are numbered the same way, but the sides are mirrored: side i of the
+ * original tables is side 4 - i of the generated tables, and likewise corner i is corner
+ * (5 - i) % 5. Only tables that depend on the numbering of the sides are affected.
+ */
+public class BoardTest {
+    private static final int SIDES = 5;
+
+    private static final Board BOARD = Board.DEFAULT;
+
+    // Maps a set of original sides, encoded as a bitmask, to the corresponding generated sides.
+    private static int mirrorSides(int mask) {
+        int result = 0;
+        for (int i = 0; i < SIDES; ++i) if ((mask & (1 << i)) != 0) result |= 1 << (SIDES - 1 - i);
+        return result;
+    }
+
+    // Maps a set of original corners, encoded as a bitmask, to the corresponding generated
+    // corners. Corner i lies between sides i - 1 and i.
+    private static int mirrorCorners(int mask) {
+        int result = 0;
+        for (int i = 0; i < SIDES; ++i) if ((mask & (1 << i)) != 0) result |= 1 << ((SIDES - i) % SIDES);
+        return result;
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] result = values.clone();
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Returns a pattern as a string of the move, the positions that must belong to us, and the
+    // positions that must not belong to the opponent.
+    private static String describePattern(int move, long us0, long us1, long noOpponent0, long noOpponent1) {
+        return move + " us=" + Long.toHexString(us0) + "," + Long.toHexString(us1) +
+                " noOpponent=" + Long.toHexString(noOpponent0) + "," + Long.toHexString(noOpponent1);
+    }
+
+    @Test
+    public void defaultBoardDimensions() {
+        assertEquals(BoardGeometry.DEFAULT_GEOMETRY, BOARD.geometry);
+        assertEquals(OriginalBoardTables.POSITIONS, BOARD.positions);
+        assertEquals(SIDES, BOARD.sides);
+        assertTrue(BOARD.small);
+    }
+
+    @Test
+    public void neighboursMatch() {
+        for (int p = 1; p <= BOARD.positions; ++p) {
+            assertArrayEquals("position " + p,
+                    sorted(OriginalBoardTables.neighbours[p]), sorted(BOARD.neighbours[p]));
+        }
+    }
+
+    @Test
+    public void neighboursAreOrdered() {
+        // Consecutive neighbours must be adjacent, like in the original tables (which are
+        // ordered clockwise or counter-clockwise, but not necessarily from the same start).
+        for (int p = 1; p <= BOARD.positions; ++p) {
+            int[] ns = BOARD.neighbours[p];
+            for (int i = 0; i + 1 < ns.length; ++i) {
+                int[] next = BOARD.neighbours[ns[i]];
+                assertTrue("position " + p, Arrays.binarySearch(sorted(next), ns[i + 1]) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void edgeDistancesMatch() {
+        assertArrayEquals(OriginalBoardTables.edgeDistance, BOARD.edgeDistance);
+    }
+
+    @Test
+    public void edgesMatchMirrored() {
+        for (int p = 1; p <= BOARD.positions; ++p) {
+            assertEquals("position " + p, mirrorSides(OriginalBoardTables.edges[p]), BOARD.edges[p]);
+        }
+    }
+
+    @Test
+    public void cornersMatchMirrored() {
+        for (int sides = 0; sides < 1 << SIDES; ++sides) {
+            assertEquals("sides " + sides, mirrorCorners(OriginalBoardTables.cornerSet[sides]),
+                    BOARD.cornerSet(mirrorSides(sides)));
+        }
+        for (int corners = 0; corners < 1 << SIDES; ++corners) {
+            assertEquals("corners " + corners, OriginalBoardTables.win[corners], BOARD.win(mirrorCorners(corners)));
+        }
+    }
+
+    @Test
+    public void biasRangesMatch() {
+        assertEquals(OriginalBoardTables.CENTER_BIAS_END, BOARD.centerBiasEnd);
+        assertEquals(OriginalBoardTables.EDGE_BIAS_END, BOARD.edgeBiasEnd);
+    }
+
+    @Test
+    public void patternsMatch() {
+        for (int p = 1; p <= BOARD.positions; ++p) {
+            List<String> expected = new ArrayList<>();
+            long[] original = OriginalBoardTables.patterns[p];
+            for (int i = 0; i < original.length; i += 4) {
+                int move = (int) (original[i + 3] >>> 48);
+                // Patterns that respond with the opponent's last move can never match, so they
+                // are not generated.
+                if (move == p) continue;
+                expected.add(describePattern(move, original[i], original[i + 1], original[i + 2],
+                        original[i + 3] & ((1L << 48) - 1)));
+            }
+            List<String> actual = new ArrayList<>();
+            long[] generated = BOARD.smallPatterns[p];
+            for (int i = 0; i < generated.length; i += 5) {
+                actual.add(describePattern((int) generated[i + 4], generated[i], generated[i + 1],
+                        generated[i + 2], generated[i + 3]));
+            }
+            // All matching patterns are collected before one is chosen, so only the order of the
+            // candidate moves (not their distribution) can differ.
+            expected.sort(null);
+            actual.sort(null);
+            assertEquals("position " + p, expected, actual);
+        }
+    }
+}
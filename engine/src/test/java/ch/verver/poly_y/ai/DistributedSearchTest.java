@@ -0,0 +1,125 @@
+package ch.verver.poly_y.ai;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import ch.verver.poly_y.BoardGeometry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DistributedSearchTest {
+    private static final int MAGIC = 0x50594453;
+
+    private ServerSocket server;
+    private Thread worker;
+
+    @Before
+    public void startWorker() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        worker = new Thread(() -> {
+            try {
+                DistributedSearch.serve(server);
+            } catch (IOException e) {
+                // The server socket was closed.
+            }
+        });
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @After
+    public void stopWorker() throws Exception {
+        server.close();
+        worker.join(10000);
+    }
+
+    private InetSocketAddress address() {
+        return new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+    }
+
+    // Sends a request with the given fields, and returns whether the worker closed the
+    // connection without replying.
+    private boolean isRejected(int magic, int boardSize, int sides, long maxIterations, long maxMillis,
+            int moveCount, int... moves) throws IOException {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(request);
+        out.writeInt(magic);
+        out.writeInt(boardSize);
+        out.writeInt(sides);
+        out.writeLong(1);
+        out.writeLong(maxIterations);
+        out.writeLong(maxMillis);
+        out.writeInt(10);
+        out.writeInt(moveCount);
+        for (int move : moves) out.writeInt(move);
+        try (Socket socket = new Socket()) {
+            socket.connect(address());
+            socket.setSoTimeout(10000);
+            socket.getOutputStream().write(request.toByteArray());
+            socket.shutdownOutput();  // so that a truncated request ends
+            return new DataInputStream(socket.getInputStream()).read() == -1;
+        } catch (SocketException e) {
+            return true;  // connection reset by the worker
+        }
+    }
+
+    private void assertWorkerAlive() throws IOException {
+        assertTrue(worker.isAlive());
+        DistributedSearch.Result result = DistributedSearch.search(Collections.singletonList(address()),
+                BoardGeometry.DEFAULT_GEOMETRY, Arrays.asList(10, 20), 50, 0, 1, null, 10);
+        int positions = BoardGeometry.DEFAULT_GEOMETRY.vertices.size();
+        assertTrue(result.bestMove.move >= 1 && result.bestMove.move <= positions);
+        assertTrue(result.bestMove.move != 10 && result.bestMove.move != 20);
+        assertEquals(50, result.getTotalExpansions());
+    }
+
+    @Test
+    public void searches() throws IOException {
+        assertWorkerAlive();
+        // A connection can carry several requests in turn; search() uses a new one each time.
+        assertWorkerAlive();
+    }
+
+    @Test
+    public void survivesMalformedRequests() throws IOException {
+        int positions = BoardGeometry.DEFAULT_GEOMETRY.vertices.size();
+
+        assertTrue(isRejected(MAGIC + 1, 7, 5, 10, 0, 0));
+        assertTrue(isRejected(MAGIC, 0, 5, 10, 0, 0));
+        assertTrue(isRejected(MAGIC, 7, 99, 10, 0, 0));
+        assertTrue(isRejected(MAGIC, -1, -1, 10, 0, 0));
+        assertTrue(isRejected(MAGIC, 7, 5, 0, 0, 0));  // no limit
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, -1));
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, Integer.MAX_VALUE));
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, positions + 2));
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 1, 0));
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 1, positions + 1));
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 1, -5));
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 2, 3, 3));   // repeated move
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 1, -1));     // swap as the first move
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 3, 3, 4, -1));  // swap as the third move
+        assertTrue(isRejected(MAGIC, 7, 5, 10, 0, 3, 1, 2));   // truncated
+
+        assertWorkerAlive();
+    }
+
+    @Test
+    public void acceptsSwap() throws IOException {
+        assertTrue(!isRejected(MAGIC, 7, 5, 10, 0, 2, 3, -1));
+        assertWorkerAlive();
+    }
+}
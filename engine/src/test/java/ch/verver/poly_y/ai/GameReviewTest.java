@@ -0,0 +1,83 @@
+package ch.verver.poly_y.ai;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import ch.verver.poly_y.BoardGeometry;
+import ch.verver.poly_y.GameState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GameReviewTest {
+    private static final BoardGeometry GEOMETRY = BoardGeometry.get(4, 3);
+
+    // A game in which the second player swaps. Later, the first player misses a win with move 16
+    // (index 7), then the second player misses the same win (index 8), and the first player wins.
+    private static final int[] MOVES = {1, -1, 17, 8, 10, 15, 19, 3, 12, 16};
+    private static final int SWAP_INDEX = 1;
+    private static final int[] BLUNDER_INDICES = {7, 8};
+    private static final int WINNING_MOVE = 16;
+
+    private static final long ITERATIONS = 5000;
+    private static final long SEED = 1;
+
+    private static GameState createGame() {
+        GameState state = GameState.calculate(GEOMETRY, true);
+        for (int move : MOVES) {
+            state = state.move(move == -1 ? state.getLastMove() : GEOMETRY.codeCupIdToVertex(move));
+        }
+        assertTrue(state.isGameOver());
+        return state;
+    }
+
+    private static void assertBlunders(List<GameReview.MoveReview> reviews) {
+        assertEquals(MOVES.length, reviews.size());
+        for (int i = 0; i < MOVES.length; ++i) {
+            assertEquals(i, reviews.get(i).index);
+            assertEquals(MOVES[i], reviews.get(i).move);
+        }
+        for (int i : BLUNDER_INDICES) {
+            GameReview.MoveReview review = reviews.get(i);
+            assertEquals(WINNING_MOVE, review.preferredMove);
+            assertTrue(review.winProbabilityBefore > 0.9f);
+            assertEquals(0f, review.winProbabilityAfter, 0f);
+            assertTrue(review.blunder);
+        }
+        GameReview.MoveReview last = reviews.get(MOVES.length - 1);
+        assertEquals(1f, last.winProbabilityAfter, 0f);
+        assertFalse(last.blunder);
+        assertFalse(reviews.get(SWAP_INDEX).blunder);
+    }
+
+    @Test
+    public void findsBlunders() {
+        assertBlunders(GameReview.review(createGame(), ITERATIONS, 1, SEED, GameReview.DEFAULT_BLUNDER_THRESHOLD));
+    }
+
+    @Test
+    public void swapIsNeverBlunder() {
+        // With this threshold, every move other than the preferred move is a blunder, except a
+        // swap, which the preferred move can't be.
+        List<GameReview.MoveReview> reviews = GameReview.review(createGame(), ITERATIONS, 1, SEED, -1f);
+        GameReview.MoveReview swap = reviews.get(SWAP_INDEX);
+        assertEquals(-1, swap.move);
+        assertTrue(swap.preferredMove > 0);
+        assertFalse(swap.blunder);
+        for (GameReview.MoveReview review : reviews) {
+            if (review.move != -1) assertEquals(review.move != review.preferredMove, review.blunder);
+        }
+    }
+
+    @Test
+    public void subtreeReuseMatchesFreshSearches() {
+        // With a single thread (see findsBlunders), the search of each position continues from
+        // the subtree of the previous one, except after the swap. With a thread per position,
+        // every search starts from scratch. Both must find the same blunders.
+        GameState game = createGame();
+        assertBlunders(GameReview.review(game, ITERATIONS, MOVES.length, SEED, GameReview.DEFAULT_BLUNDER_THRESHOLD));
+        assertBlunders(GameReview.review(game, ITERATIONS, 3, SEED, GameReview.DEFAULT_BLUNDER_THRESHOLD));
+    }
+}
@@ -0,0 +1,102 @@
+package ch.verver.poly_y.ai;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ch.verver.poly_y.BoardGeometry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Checks that the lockstep playout kernel plays and scores exactly like the scalar kernel. */
+public class LockstepPlayoutTest {
+    private static final BoardGeometry[] GEOMETRIES = {
+            BoardGeometry.get(3, 3),
+            BoardGeometry.get(4, 4),
+            BoardGeometry.DEFAULT_GEOMETRY,
+            BoardGeometry.get(5, 6),
+            BoardGeometry.get(6, 7),
+            BoardGeometry.get(9, 7),  // more than 127 positions, so always scored by the scalar kernel
+    };
+
+    private static TreeBot bot(BoardGeometry geometry, long seed, boolean lockstep) {
+        TreeBot bot = new TreeBot(geometry, seed);
+        bot.setLockstepPlayouts(lockstep);
+        return bot;
+    }
+
+    // Returns random distinct moves, with a swap as the second move if `swap` is set.
+    private static List<Integer> randomMoves(BoardGeometry geometry, int count, boolean swap, Random random) {
+        int positions = geometry.vertices.size();
+        ArrayList<Integer> moves = new ArrayList<>();
+        boolean[] played = new boolean[positions + 1];
+        while (moves.size() < count) {
+            if (swap && moves.size() == 1) {
+                moves.add(-1);
+                continue;
+            }
+            int move = 1 + random.nextInt(positions);
+            if (played[move]) continue;
+            played[move] = true;
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static void assertSamePlayout(String message, TreeBot.AmafPlayout expected, TreeBot.AmafPlayout actual) {
+        assertEquals(message, expected.samples, actual.samples);
+        assertEquals(message, expected.wins, actual.wins);
+        assertArrayEquals(message, expected.mySamples, actual.mySamples);
+        assertArrayEquals(message, expected.myWins, actual.myWins);
+        assertArrayEquals(message, expected.opSamples, actual.opSamples);
+        assertArrayEquals(message, expected.opWins, actual.opWins);
+    }
+
+    @Test
+    public void samplesMatchScalarKernel() {
+        Random random = new Random(1);
+        for (BoardGeometry geometry : GEOMETRIES) {
+            int positions = geometry.vertices.size();
+            int wins = 0, samples = 0;
+            for (int game = 0; game < 10; ++game) {
+                List<Integer> moves = randomMoves(geometry, random.nextInt(positions / 2 + 1), random.nextBoolean(), random);
+                long seed = random.nextLong();
+                TreeBot.GameState scalar = bot(geometry, seed, false).createState(moves);
+                TreeBot.GameState lockstep = bot(geometry, seed, true).createState(moves);
+                for (int i = 0; i < 20; ++i) {
+                    boolean myMove = (i & 1) == 0;
+                    TreeBot.AmafPlayout expected = scalar.sample(myMove);
+                    TreeBot.AmafPlayout actual = lockstep.sample(myMove);
+                    assertSamePlayout(geometry + " after " + moves + ", sample " + i, expected, actual);
+                    wins += expected.wins;
+                    samples += expected.samples;
+                }
+            }
+            // Both players must win some games, or the comparison would be trivial.
+            assertTrue(geometry.toString(), wins > 0 && wins < samples);
+        }
+    }
+
+    @Test
+    public void searchesMatchScalarKernel() {
+        for (BoardGeometry geometry : GEOMETRIES) {
+            int positions = geometry.vertices.size();
+            TreeBot.Tree scalar = bot(geometry, 42, false).createTree(new ArrayList<>());
+            TreeBot.Tree lockstep = bot(geometry, 42, true).createTree(new ArrayList<>());
+            for (int i = 0; i < 300; ++i) {
+                assertSamePlayout(geometry + ", expansion " + i, scalar.expand(), lockstep.expand());
+            }
+            long[] expectedSamples = new long[positions + 1], expectedWins = new long[positions + 1];
+            long[] actualSamples = new long[positions + 1], actualWins = new long[positions + 1];
+            scalar.addChildStatistics(expectedSamples, expectedWins);
+            lockstep.addChildStatistics(actualSamples, actualWins);
+            assertArrayEquals(expectedSamples, actualSamples);
+            assertArrayEquals(expectedWins, actualWins);
+            assertEquals(scalar.getBestMove().move, lockstep.getBestMove().move);
+        }
+    }
+}
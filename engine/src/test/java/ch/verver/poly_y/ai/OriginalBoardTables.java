@@ -1,16 +1,38 @@
 package ch.verver.poly_y.ai;
 
-class Patterns {
-    // Patterns for the monte carlo simulation
-    // patterns[i] encodes the patterns that must be checked when the opponent has played position i in the previous simulation step
-    // The patterns for a position are encoded in an array, where one pattern consists of four longs:
+/**
+ * The hard-coded tables for the default board that were used before {@link Board} generated
+ * them from the geometry, for BoardTest. Copied from the original Lynx code.
+ */
+final class OriginalBoardTables {
+    private OriginalBoardTables() {}
+
+    static final int POSITIONS = 106;
+
+    // The number of empty positions above which random playout moves were restricted to the
+    // center of the board, and to positions away from the edge, respectively.
+    static final int CENTER_BIAS_END = 96;
+    static final int EDGE_BIAS_END = 50;
+
+    // Given a set of captured corners encoded as the bitmask i, win[i] is true if this set of captured corners is winning
+    static final boolean[] win = {false, false, false, false, false, false, false, true, false, false, false, true, false, true, true, true, false, false, false, true, false, true, true, true, false, true, true, true, true, true, true, true};
+
+    // Given a set of edges encoded as a bitmask i, cornerSet[i] gives the corners captured by a component that connects these edges
+    static final int[] cornerSet = {0, 0, 0, 0, 0, 0, 0, 6, 0, 0, 0, 2, 0, 8, 12, 14, 0, 0, 0, 3, 0, 1, 4, 7, 0, 17, 16, 19, 24, 25, 28, 31};
+
+    // The neighbour positions of each positions in either clockwise or counter-clockwise order
+    static final int[][] neighbours = {null, {4, 3, 2}, {5, 6, 3, 1}, {1, 2, 6, 7, 8, 4}, {9, 8, 3, 1}, {10, 11, 6, 2}, {2, 3, 7, 12, 11, 5}, {3, 6, 12, 13, 14, 8}, {3, 4, 9, 15, 14, 7}, {4, 8, 15, 16}, {5, 11, 18, 17}, {19, 18, 10, 5, 6, 12}, {19, 20, 13, 7, 6, 11}, {21, 20, 12, 7, 14, 22}, {23, 22, 13, 7, 8, 15}, {16, 24, 23, 14, 8, 9}, {9, 15, 24, 25}, {26, 27, 18, 10}, {17, 27, 28, 19, 11, 10}, {18, 11, 12, 20, 29, 28}, {19, 29, 30, 21, 13, 12}, {32, 22, 13, 20, 30, 31}, {32, 33, 23, 14, 13, 21}, {34, 33, 22, 14, 15, 24}, {34, 35, 25, 16, 15, 23}, {36, 35, 24, 16}, {37, 38, 27, 17}, {17, 18, 28, 39, 38, 26}, {19, 18, 27, 39, 40, 29}, {19, 20, 30, 41, 40, 28}, {21, 20, 29, 41, 42, 31}, {32, 21, 30, 42, 43, 44}, {33, 22, 21, 31, 44, 45}, {34, 23, 22, 32, 45, 46}, {35, 24, 23, 33, 46, 47}, {34, 24, 25, 36, 48, 47}, {25, 35, 48, 49}, {26, 38, 50}, {51, 50, 37, 26, 27, 39}, {51, 38, 27, 28, 40, 52}, {39, 52, 53, 41, 29, 28}, {54, 53, 40, 29, 30, 42}, {55, 54, 41, 30, 31, 43}, {55, 42, 31, 44, 56}, {32, 31, 43, 56, 57, 45}, {32, 33, 46, 58, 57, 44}, {34, 33, 45, 58, 59, 47}, {34, 35, 48, 60, 59, 46}, {35, 36, 49, 61, 60, 47}, {61, 48, 36}, {62, 51, 38, 37}, {50, 38, 39, 52, 63, 62}, {51, 39, 40, 53, 64, 63}, {64, 65, 54, 41, 40, 52}, {55, 66, 65, 53, 41, 42}, {54, 66, 67, 56, 43, 42}, {68, 67, 55, 43, 44, 57}, {68, 69, 58, 45, 44, 56}, {69, 70, 59, 46, 45, 57}, {70, 71, 60, 47, 46, 58}, {71, 59, 47, 48, 61, 72}, {72, 60, 48, 49}, {73, 63, 51, 50}, {51, 52, 64, 74, 73, 62}, {65, 53, 52, 63, 74, 75}, {64, 53, 54, 66, 76, 75}, {55, 54, 65, 76, 77, 67}, {68, 78, 77, 66, 55, 56}, {69, 57, 56, 67, 78, 79}, {68, 57, 58, 70, 80, 79}, {69, 80, 81, 71, 59, 58}, {70, 81, 82, 72, 60, 59}, {61, 60, 71, 82}, {62, 63, 74, 83}, {84, 83, 73, 63, 64, 75}, {85, 84, 74, 64, 65, 76}, {85, 86, 77, 66, 65, 75}, {87, 86, 76, 66, 67, 78}, {68, 67, 77, 87, 88, 79}, {68, 69, 80, 89, 88, 78}, {69, 70, 81, 90, 89, 79}, {70, 71, 82, 91, 90, 80}, {91, 81, 71, 72}, {73, 74, 84, 92}, {85, 93, 92, 83, 74, 75}, {84, 93, 94, 86, 76, 75}, {85, 76, 77, 87, 95, 94}, {86, 77, 78, 88, 96, 95}, {87, 96, 97, 89, 79, 78}, {98, 97, 88, 79, 80, 90}, {98, 99, 91, 81, 80, 89}, {82, 81, 90, 99}, {83, 84, 93, 100}, {85, 84, 92, 100, 101, 94}, {85, 86, 95, 102, 101, 93}, {102, 103, 96, 87, 86, 94}, {103, 95, 87, 88, 97, 104}, {98, 89, 88, 96, 104, 105}, {99, 106, 105, 97, 89, 90}, {91, 90, 98, 106}, {92, 93, 101}, {100, 93, 94, 102}, {101, 94, 95, 103}, {104, 96, 95, 102}, {105, 97, 96, 103}, {104, 97, 98, 106}, {105, 98, 99}};
+
+    // edges[i] is an edge mask that encodes the set of a edges to which position i is adjacent
+    static final int[] edges = {0, 17, 1, 0, 16, 1, 0, 0, 0, 16, 1, 0, 0, 0, 0, 0, 16, 1, 0, 0, 0, 0, 0, 0, 0, 16, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 16, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 24, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 8, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 8, 2, 0, 0, 0, 0, 0, 0, 0, 0, 8, 2, 0, 0, 0, 0, 0, 0, 0, 8, 2, 0, 0, 0, 0, 0, 0, 8, 6, 4, 4, 4, 4, 4, 12};
+
+    // edgeDistance[i] is the smallest number of positions between position i and the edge
+    static final int[] edgeDistance = {0, 0, 0, 1, 0, 0, 1, 2, 1, 0, 0, 1, 2, 3, 2, 1, 0, 0, 1, 2, 3, 4, 3, 2, 1, 0, 0, 1, 2, 3, 4, 5, 4, 3, 2, 1, 0, 0, 1, 2, 3, 4, 5, 6, 5, 4, 3, 2, 1, 0, 0, 1, 2, 3, 4, 5, 5, 4, 3, 2, 1, 0, 0, 1, 2, 3, 4, 4, 4, 3, 2, 1, 0, 0, 1, 2, 3, 3, 3, 3, 2, 1, 0, 0, 1, 2, 2, 2, 2, 2, 1, 0, 0, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    // patterns[i] encodes the patterns that must be checked when the opponent has played position i.
+    // One pattern consists of four longs:
     // 1 & 2: A bit mask encoding a set of positions that all must belong to us
     // 3 & 4: A bit mask encoding a set of positions of which none may belong to the opponent
     // The high 16 bits of the last long encode the position that we must play if the pattern matches
-    // Currently there are two patterns encoded:
-    // Bridges: If the opponent plays in a bridge belonging to us, we will defend that bridge by connecting it
-    // A primitive edge connection pattern: If a position of us is less than three steps away from the edge and the opponent plays below us (a neighbour of our position that is one step away from the edge),
-    //  then we play next to the position of the opponent below our move, but only if the two positions below the move that we play do not belong to the opponent
-    // Note that we have experimented with more 'correct' edge connection patterns, but we found that this only resulted in weaker play
     static final long[][] patterns = {null, {8L, 0L, 16L, 1125899906842624L, 8L, 0L, 4L, 562949953421312L}, {64L, 0L, 32L, 1407374883553280L, 8L, 0L, 2L, 281474976710656L}, {128L, 0L, 30L, 844424930131968L, 128L, 0L, 100L, 1688849860263936L, 128L, 0L, 784L, 2251799813685248L, 66L, 0L, 4L, 562949953421312L, 132L, 0L, 64L, 1688849860263936L, 320L, 0L, 128L, 1970324836974592L, 144L, 0L, 256L, 2251799813685248L, 258L, 0L, 16L, 1125899906842624L, 20L, 0L, 2L, 281474976710656L}, {256L, 0L, 512L, 2533274790395904L, 8L, 0L, 2L, 281474976710656L}, {2048L, 0L, 1024L, 2814749767106560L, 64L, 0L, 4L, 562949953421312L}, {128L, 0L, 30L, 844424930131968L, 128L, 0L, 100L, 1688849860263936L, 128L, 0L, 784L, 2251799813685248L, 4096L, 0L, 100L, 1688849860263936L, 4096L, 0L, 3104L, 3096224743817216L, 132L, 0L, 8L, 844424930131968L, 4104L, 0L, 128L, 1970324836974592L, 2176L, 0L, 4096L, 3377699720527872L, 4128L, 0L, 2048L, 3096224743817216L, 2052L, 0L, 32L, 1407374883553280L, 40L, 0L, 4L, 562949953421312L}, {8192L, 0L, 456L, 1970324836974592L, 8192L, 0L, 6208L, 3377699720527872L, 8192L, 0L, 49408L, 3940649673949184L, 4104L, 0L, 64L, 1688849860263936L, 8256L, 0L, 4096L, 3377699720527872L, 20480L, 0L, 8192L, 3659174697238528L, 8448L, 0L, 16384L, 3940649673949184L, 16392L, 0L, 256L, 2251799813685248L, 320L, 0L, 8L, 844424930131968L}, {16384L, 0L, 784L, 2251799813685248L, 16384L, 0L, 98816L, 4222124650659840L, 128L, 0L, 30L, 844424930131968L, 128L, 0L, 100L, 1688849860263936L, 128L, 0L, 784L, 2251799813685248L, 520L, 0L, 16L, 1125899906842624L, 32784L, 0L, 512L, 2533274790395904L, 16896L, 0L, 32768L, 4222124650659840L, 32896L, 0L, 16384L, 3940649673949184L, 16392L, 0L, 128L, 1970324836974592L, 144L, 0L, 8L, 844424930131968L}, {256L, 0L, 16L, 1125899906842624L, 32768L, 0L, 65536L, 4503599627370496L}, {2048L, 0L, 32L, 1407374883553280L, 262144L, 0L, 131072L, 4785074604081152L}, {524288L, 0L, 394240L, 5066549580791808L, 524288L, 0L, 3104L, 3096224743817216L, 4096L, 0L, 100L, 1688849860263936L, 4096L, 0L, 3104L, 3096224743817216L, 525312L, 0L, 262144L, 5066549580791808L, 262176L, 0L, 1024L, 2814749767106560L, 1088L, 0L, 32L, 1407374883553280L, 4128L, 0L, 64L, 1688849860263936L, 524352L, 0L, 4096L, 3377699720527872L, 266240L, 0L, 524288L, 5348024557502464L}, {1048576L, 0L, 788480L, 5348024557502464L, 1048576L, 0L, 6208L, 3377699720527872L, 8192L, 0L, 456L, 1970324836974592L, 8192L, 0L, 6208L, 3377699720527872L, 8192L, 0L, 49408L, 3940649673949184L, 532480L, 0L, 1048576L, 5629499534213120L, 1048704L, 0L, 8192L, 3659174697238528L, 8256L, 0L, 128L, 1970324836974592L, 2176L, 0L, 64L, 1688849860263936L, 524352L, 0L, 2048L, 3096224743817216L, 1050624L, 0L, 524288L, 5348024557502464L}, {2101248L, 0L, 1048576L, 5629499534213120L, 1048704L, 0L, 4096L, 3377699720527872L, 20480L, 0L, 128L, 1970324836974592L, 4194432L, 0L, 16384L, 3940649673949184L, 2113536L, 0L, 4194304L, 6192449487634432L, 5242880L, 0L, 2097152L, 5910974510923776L}, {4194304L, 0L, 25198592L, 6473924464345088L, 4194304L, 0L, 49408L, 3940649673949184L, 8192L, 0L, 456L, 1970324836974592L, 8192L, 0L, 6208L, 3377699720527872L, 8192L, 0L, 49408L, 3940649673949184L, 8396800L, 0L, 4194304L, 6192449487634432L, 4194432L, 0L, 8192L, 3659174697238528L, 8448L, 0L, 128L, 1970324836974592L, 32896L, 0L, 256L, 2251799813685248L, 8388864L, 0L, 32768L, 4222124650659840L, 4227072L, 0L, 8388608L, 6473924464345088L}, {8388608L, 0L, 50397184L, 6755399441055744L, 8388608L, 0L, 98816L, 4222124650659840L, 16384L, 0L, 784L, 2251799813685248L, 16384L, 0L, 98816L, 4222124650659840L, 8454144L, 0L, 16777216L, 6755399441055744L, 16793600L, 0L, 8388608L, 6473924464345088L, 8388864L, 0L, 16384L, 3940649673949184L, 16896L, 0L, 256L, 2251799813685248L, 65792L, 0L, 512L, 2533274790395904L, 16777728L, 0L, 65536L, 4503599627370496L}, {32768L, 0L, 512L, 2533274790395904L, 16777216L, 0L, 33554432L, 7036874417766400L}, {134217728L, 0L, 67108864L, 7318349394477056L, 262144L, 0L, 1024L, 2814749767106560L}, {268435456L, 0L, 394240L, 5066549580791808L, 268435456L, 0L, 201457664L, 7599824371187712L, 524288L, 0L, 394240L, 5066549580791808L, 524288L, 0L, 3104L, 3096224743817216L, 268566528L, 0L, 134217728L, 7599824371187712L, 134742016L, 0L, 268435456L, 7881299347898368L, 268437504L, 0L, 524288L, 5348024557502464L, 525312L, 0L, 2048L, 3096224743817216L, 133120L, 0L, 1024L, 2814749767106560L, 134218752L, 0L, 131072L, 4785074604081152L}, {1048576L, 0L, 788480L, 5348024557502464L, 1048576L, 0L, 6208L, 3377699720527872L, 536870912L, 0L, 788480L, 5348024557502464L, 536870912L, 0L, 402915328L, 7881299347898368L, 266240L, 0L, 2048L, 3096224743817216L, 1050624L, 0L, 4096L, 3377699720527872L, 536875008L, 0L, 1048576L, 5629499534213120L, 269484032L, 0L, 536870912L, 8162774324609024L, 537133056L, 0L, 268435456L, 7881299347898368L, 268437504L, 0L, 262144L, 5066549580791808L}, {1074266112L, 0L, 536870912L, 8162774324609024L, 538968064L, 0L, 1073741824L, 8444249301319680L, 1073750016L, 0L, 2097152L, 5910974510923776L, 2101248L, 0L, 8192L, 3659174697238528L, 532480L, 0L, 4096L, 3377699720527872L, 536875008L, 0L, 524288L, 5348024557502464L}, {4294975488L, 0L, 4194304L, 6192449487634432L, 5242880L, 0L, 8192L, 3659174697238528L, 1073750016L, 0L, 1048576L, 5629499534213120L, 2148532224L, 0L, 1073741824L, 8444249301319680L, 5368709120L, 0L, 2147483648L, 8725724278030336L, 2151677952L, 0L, 4294967296L, 9007199254740992L}, {4303355904L, 0L, 8589934592L, 9288674231451648L, 8589950976L, 0L, 8388608L, 6473924464345088L, 8396800L, 0L, 16384L, 3940649673949184L, 2113536L, 0L, 8192L, 3659174697238528L, 4294975488L, 0L, 2097152L, 5910974510923776L, 8592031744L, 0L, 4294967296L, 9007199254740992L}, {8589934592L, 0L, 51556384768L, 9570149208162304L, 8589934592L, 0L, 25198592L, 6473924464345088L, 4194304L, 0L, 25198592L, 6473924464345088L, 4194304L, 0L, 49408L, 3940649673949184L, 17184063488L, 0L, 8589934592L, 9288674231451648L, 8589950976L, 0L, 4194304L, 6192449487634432L, 4227072L, 0L, 16384L, 3940649673949184L, 16793600L, 0L, 32768L, 4222124650659840L, 17179901952L, 0L, 16777216L, 6755399441055744L, 8606711808L, 0L, 17179869184L, 9570149208162304L}, {17179869184L, 0L, 103112769536L, 9851624184872960L, 17179869184L, 0L, 50397184L, 6755399441055744L, 8388608L, 0L, 50397184L, 6755399441055744L, 8388608L, 0L, 98816L, 4222124650659840L, 17213423616L, 0L, 34359738368L, 9851624184872960L, 34359803904L, 0L, 33554432L, 7036874417766400L, 33587200L, 0L, 65536L, 4503599627370496L, 8454144L, 0L, 32768L, 4222124650659840L, 17179901952L, 0L, 8388608L, 6473924464345088L, 34368126976L, 0L, 17179869184L, 9570149208162304L}, {34359738368L, 0L, 68719476736L, 10133099161583616L, 16777216L, 0L, 65536L, 4503599627370496L}, {274877906944L, 0L, 137438953472L, 10414574138294272L, 134217728L, 0L, 131072L, 4785074604081152L}, {268435456L, 0L, 394240L, 5066549580791808L, 268435456L, 0L, 201457664L, 7599824371187712L, 549755813888L, 0L, 4615063718147915776L, 14355223812243456L, 549755813888L, 0L, 1126312290811904L, 10696049115004928L, 549755813888L, 0L, 201457664L, 7599824371187712L, 268566528L, 0L, 262144L, 5066549580791808L, 549756076032L, 0L, 268435456L, 7881299347898368L, 275146342400L, 0L, 549755813888L, 10977524091715584L, 549822922752L, 0L, 274877906944L, 10696049115004928L, 274878038016L, 0L, 67108864L, 7318349394477056L, 67371008L, 0L, 131072L, 4785074604081152L}, {1099511627776L, 0L, 2252624581623808L, 10977524091715584L, 1099511627776L, 0L, -9216616637413720064L, 14636698788954112L, 1099511627776L, 0L, 402915328L, 7881299347898368L, 536870912L, 0L, 788480L, 5348024557502464L, 536870912L, 0L, 402915328L, 7881299347898368L, 134742016L, 0L, 262144L, 5066549580791808L, 549756076032L, 0L, 134217728L, 7599824371187712L, 1099645845504L, 0L, 549755813888L, 10977524091715584L, 550292684800L, 0L, 1099511627776L, 11258999068426240L, 1099512152064L, 0L, 536870912L, 8162774324609024L, 537133056L, 0L, 524288L, 5348024557502464L}, {1074266112L, 0L, 1048576L, 5629499534213120L, 2199024304128L, 0L, 1073741824L, 8444249301319680L, 1100585369600L, 0L, 2199023255552L, 11540474045136896L, 2199291691008L, 0L, 1099511627776L, 11258999068426240L, 1099512152064L, 0L, 268435456L, 7881299347898368L, 269484032L, 0L, 524288L, 5348024557502464L}, {538968064L, 0L, 1048576L, 5629499534213120L, 2199024304128L, 0L, 536870912L, 8162774324609024L, 4398583382016L, 0L, 2199023255552L, 11540474045136896L, 2201170739200L, 0L, 4398046511104L, 11821949021847552L, 4398048608256L, 0L, 2147483648L, 8725724278030336L, 2148532224L, 0L, 2097152L, 5910974510923776L}, {5368709120L, 0L, 2097152L, 5910974510923776L, 4398048608256L, 0L, 1073741824L, 8444249301319680L, 8797166764032L, 0L, 4398046511104L, 11821949021847552L, 21990232555520L, 0L, 8796093022208L, 12103423998558208L, 8800387989504L, 0L, 17592186044416L, 12384898975268864L, 17592188141568L, 0L, 4294967296L, 9007199254740992L}, {8592031744L, 0L, 4194304L, 6192449487634432L, 2151677952L, 0L, 2097152L, 5910974510923776L, 17592188141568L, 0L, 2147483648L, 8725724278030336L, 35186519572480L, 0L, 17592186044416L, 12384898975268864L, 17600775979008L, 0L, 35184372088832L, 12666373951979520L, 35184376283136L, 0L, 8589934592L, 9288674231451648L}, {17184063488L, 0L, 8388608L, 6473924464345088L, 4303355904L, 0L, 4194304L, 6192449487634432L, 35184376283136L, 0L, 4294967296L, 9007199254740992L, 70373039144960L, 0L, 35184372088832L, 12666373951979520L, 35201551958016L, 0L, 70368744177664L, 12947848928690176L, 70368752566272L, 0L, 17179869184L, 9570149208162304L}, {8589934592L, 0L, 51556384768L, 9570149208162304L, 8589934592L, 0L, 25198592L, 6473924464345088L, 70368744177664L, 0L, 51556384768L, 9570149208162304L, 70368744177664L, 0L, 1729382256910270464L, 16607023625928832L, 70368744177664L, 0L, 1153343751431651328L, 13229323905400832L, 34368126976L, 0L, 16777216L, 6755399441055744L, 8606711808L, 0L, 8388608L, 6473924464345088L, 70368752566272L, 0L, 8589934592L, 9288674231451648L, 140746078289920L, 0L, 70368744177664L, 12947848928690176L, 70403103916032L, 0L, 140737488355328L, 13229323905400832L, 140737505132544L, 0L, 34359738368L, 9851624184872960L}, {17179869184L, 0L, 103112769536L, 9851624184872960L, 17179869184L, 0L, 50397184L, 6755399441055744L, 140737488355328L, 0L, 103112769536L, 9851624184872960L, 140737488355328L, 0L, 2306687502863302656L, 13510798882111488L, 140737488355328L, 0L, 3458764513820540928L, 16888498602639616L, 17213423616L, 0L, 16777216L, 6755399441055744L, 68736253952L, 0L, 33554432L, 7036874417766400L, 281475010265088L, 0L, 68719476736L, 10133099161583616L, 140806207832064L, 0L, 281474976710656L, 13510798882111488L, 281492156579840L, 0L, 140737488355328L, 13229323905400832L, 140737505132544L, 0L, 17179869184L, 9570149208162304L}, {34359738368L, 0L, 33554432L, 7036874417766400L, 281474976710656L, 0L, 562949953421312L, 13792273858822144L}, {274877906944L, 0L, 67108864L, 7318349394477056L, 274877906944L, 0L, 1125899906842624L, 14073748835532800L}, {549755813888L, 0L, 4615063718147915776L, 14355223812243456L, 549755813888L, 0L, 1126312290811904L, 10696049115004928L, 549755813888L, 0L, 201457664L, 7599824371187712L, 2251937252638720L, 0L, 1125899906842624L, 14073748835532800L, 1125899973951488L, 0L, 137438953472L, 10414574138294272L, 137573171200L, 0L, 67108864L, 7318349394477056L, 549822922752L, 0L, 134217728L, 7599824371187712L, 2251799947902976L, 0L, 549755813888L, 10977524091715584L, 1126449662656512L, 0L, 2251799813685248L, 14355223812243456L}, {1099511627776L, 0L, 2252624581623808L, 10977524091715584L, 1099511627776L, 0L, -9216616637413720064L, 14636698788954112L, 1099511627776L, 0L, 402915328L, 7881299347898368L, 2251799947902976L, 0L, 274877906944L, 10696049115004928L, 275146342400L, 0L, 134217728L, 7599824371187712L, 1099645845504L, 0L, 268435456L, 7881299347898368L, 4503599895805952L, 0L, 1099511627776L, 11258999068426240L, 2252899325313024L, 0L, 4503599627370496L, 14636698788954112L, 4503874505277440L, 0L, 2251799813685248L, 14355223812243456L}, {9007749010554880L, 0L, 4503599627370496L, 14636698788954112L, 4505798650626048L, 0L, 9007199254740992L, 14918173765664768L, 9007199791611904L, 0L, 2199023255552L, 11540474045136896L, 2199291691008L, 0L, 536870912L, 8162774324609024L, 550292684800L, 0L, 268435456L, 7881299347898368L, 4503599895805952L, 0L, 549755813888L, 10977524091715584L}, {18015498021109760L, 0L, 9007199254740992L, 14918173765664768L, 9007199791611904L, 0L, 1099511627776L, 11258999068426240L, 1100585369600L, 0L, 536870912L, 8162774324609024L, 4398583382016L, 0L, 1073741824L, 8444249301319680L, 18014399583223808L, 0L, 4398046511104L, 11821949021847552L, 9011597301252096L, 0L, 18014398509481984L, 15199648742375424L}, {36030996042219520L, 0L, 18014398509481984L, 15199648742375424L, 18014399583223808L, 0L, 2199023255552L, 11540474045136896L, 2201170739200L, 0L, 1073741824L, 8444249301319680L, 8797166764032L, 0L, 2147483648L, 8725724278030336L, 36028799166447616L, 0L, 8796093022208L, 12103423998558208L, 18023194602504192L, 0L, 36028797018963968L, 15481123719086080L}, {36028799166447616L, 0L, 4398046511104L, 11821949021847552L, 21990232555520L, 0L, 2147483648L, 8725724278030336L, 72057596185411584L, 0L, 17592186044416L, 12384898975268864L, 36046389205008384L, 0L, 72057594037927936L, 15762598695796736L, 72061992084439040L, 0L, 36028797018963968L, 15481123719086080L}, {8800387989504L, 0L, 2147483648L, 8725724278030336L, 72057596185411584L, 0L, 8796093022208L, 12103423998558208L, 144123984168878080L, 0L, 72057594037927936L, 15762598695796736L, 72092778410016768L, 0L, 144115188075855872L, 16044073672507392L, 144115192370823168L, 0L, 35184372088832L, 12666373951979520L, 35186519572480L, 0L, 4294967296L, 9007199254740992L}, {70373039144960L, 0L, 8589934592L, 9288674231451648L, 288230384741646336L, 0L, 70368744177664L, 12947848928690176L, 144185556820033536L, 0L, 288230376151711744L, 16325548649218048L, 288247968337756160L, 0L, 144115188075855872L, 16044073672507392L, 144115192370823168L, 0L, 17592186044416L, 12384898975268864L, 17600775979008L, 0L, 4294967296L, 9007199254740992L}, {35201551958016L, 0L, 8589934592L, 9288674231451648L, 288230384741646336L, 0L, 35184372088832L, 12666373951979520L, 576495936675512320L, 0L, 288230376151711744L, 16325548649218048L, 288371113640067072L, 0L, 576460752303423488L, 16607023625928704L, 576460769483292672L, 0L, 140737488355328L, 13229323905400832L, 140746078289920L, 0L, 17179869184L, 9570149208162304L}, {70368744177664L, 0L, 51556384768L, 9570149208162304L, 70368744177664L, 0L, 1729382256910270464L, 16607023625928832L, 70368744177664L, 0L, 1153343751431651328L, 13229323905400832L, 281492156579840L, 0L, 34359738368L, 9851624184872960L, 1152921538966585344L, 0L, 281474976710656L, 13510798882111488L, 576742227280134144L, 0L, 1152921504606846976L, 16888498602639360L, 1152991873351024640L, 0L, 576460752303423488L, 16607023625928704L, 576460769483292672L, 0L, 70368744177664L, 12947848928690176L, 70403103916032L, 0L, 17179869184L, 9570149208162304L}, {140737488355328L, 0L, 103112769536L, 9851624184872960L, 140737488355328L, 0L, 2306687502863302656L, 13510798882111488L, 140737488355328L, 0L, 3458764513820540928L, 16888498602639616L, 562984313159680L, 0L, 68719476736L, 10133099161583616L, 2305843077933170688L, 0L, 562949953421312L, 13792273858822144L, 1153484454560268288L, 0L, 2305843009213693952L, 17169973579350016L, 2305983746702049280L, 0L, 1152921504606846976L, 16888498602639360L, 1152921538966585344L, 0L, 140737488355328L, 13229323905400832L, 140806207832064L, 0L, 34359738368L, 9851624184872960L}, {281474976710656L, 0L, 2305843009213693952L, 17169973579350016L, 281474976710656L, 0L, 68719476736L, 10133099161583616L}, {2251799813685248L, 0L, 4611686018427387904L, 17451448556060672L, 274877906944L, 0L, 137438953472L, 10414574138294272L}, {549755813888L, 0L, 4615063718147915776L, 14355223812243456L, 549755813888L, 0L, 1126312290811904L, 10696049115004928L, 549755813888L, 0L, 201457664L, 7599824371187712L, 4503599627370496L, 0L, 4615063718147915776L, 14355223812243456L, 4503599627370496L, 0L, -4611686018427387904L, 17732923532771840L, 1126449662656512L, 0L, 274877906944L, 10696049115004928L, 4503874505277440L, 0L, 549755813888L, 10977524091715584L, -9223371487098961920L, 0L, 4503599627370496L, 14636698788954112L, 4616189618054758400L, 0L, -9223372036854775808L, 17732923532771328L, -9222246136947933184L, 0L, 4611686018427387904L, 17451448556060672L, 4611686293305294848L, 0L, 1125899906842624L, 14073748835532800L}, {1099511627776L, 0L, 2252624581623808L, 10977524091715584L, 1099511627776L, 0L, -9216616637413720064L, 14636698788954112L, 1099511627776L, 0L, 402915328L, 7881299347898368L, 9007199254740992L, 0L, -9223372036854775808L, 18014398509483009L, 9007199254740992L, 0L, -9216616637413720064L, 14636698788954112L, 2252899325313024L, 0L, 549755813888L, 10977524091715584L, 9007749010554880L, 0L, 1099511627776L, 11258999068426240L, 1099511627776L, 1L, 9007199254740992L, 14918173765664768L, -9214364837600034816L, 0L, 0L, 18014398509481985L, 2251799813685248L, 1L, -9223372036854775808L, 17732923532771328L, -9223371487098961920L, 0L, 2251799813685248L, 14355223812243456L}, {18014398509481984L, 1L, 0L, 18295873486192642L, 2199023255552L, 2L, 18014398509481984L, 15199648742375424L, 18015498021109760L, 0L, 2199023255552L, 11540474045136896L, 4505798650626048L, 0L, 1099511627776L, 11258999068426240L, 1099511627776L, 1L, 4503599627370496L, 14636698788954112L, 4503599627370496L, 2L, 0L, 18014398509481985L}, {36028797018963968L, 2L, 0L, 18577348462903300L, 9007199254740992L, 4L, 0L, 18295873486192642L, 2199023255552L, 2L, 9007199254740992L, 14918173765664768L, 9011597301252096L, 0L, 2199023255552L, 11540474045136896L, 36030996042219520L, 0L, 4398046511104L, 11821949021847552L, 4398046511104L, 4L, 36028797018963968L, 15481123719086080L}, {18014398509481984L, 8L, 0L, 18577348462903300L, 72057594037927936L, 4L, 0L, 18858823439613960L, 8796093022208L, 8L, 72057594037927936L, 15762598695796736L, 72061992084439040L, 0L, 8796093022208L, 12103423998558208L, 18023194602504192L, 0L, 4398046511104L, 11821949021847552L, 4398046511104L, 4L, 18014398509481984L, 15199648742375424L}, {36028797018963968L, 16L, 0L, 18858823439613960L, 8796093022208L, 8L, 36028797018963968L, 15481123719086080L, 36046389205008384L, 0L, 8796093022208L, 12103423998558208L, 144123984168878080L, 0L, 17592186044416L, 12384898975268864L, 17592186044416L, 16L, 144115188075855872L, 16044073672507392L, 144115188075855872L, 8L, 0L, 19140298416324624L}, {288230376151711744L, 16L, 0L, 19421773393035296L, 35184372088832L, 32L, 288230376151711744L, 16325548649218048L, 288247968337756160L, 0L, 35184372088832L, 12666373951979520L, 72092778410016768L, 0L, 17592186044416L, 12384898975268864L, 17592186044416L, 16L, 72057594037927936L, 15762598695796736L, 72057594037927936L, 32L, 0L, 19140298416324624L}, {576460752303423488L, 32L, 0L, 19703248369745984L, 70368744177664L, 64L, 576460752303423488L, 16607023625928704L, 576495936675512320L, 0L, 70368744177664L, 12947848928690176L, 144185556820033536L, 0L, 35184372088832L, 12666373951979520L, 35184372088832L, 32L, 144115188075855872L, 16044073672507392L, 144115188075855872L, 64L, 0L, 19421773393035296L}, {70368744177664L, 0L, 51556384768L, 9570149208162304L, 70368744177664L, 0L, 1729382256910270464L, 16607023625928832L, 70368744177664L, 0L, 1153343751431651328L, 13229323905400832L, 288230376151711744L, 0L, 0L, 19703248369877184L, 288230376151711744L, 0L, 1729382256910270464L, 16607023625928832L, 1152921504606846976L, 64L, 0L, 19984723346456704L, 140737488355328L, 128L, 1152921504606846976L, 16888498602639360L, 1152991873351024640L, 0L, 140737488355328L, 13229323905400832L, 288371113640067072L, 0L, 70368744177664L, 12947848928690176L, 70368744177664L, 64L, 288230376151711744L, 16325548649218048L, 288230376151711744L, 128L, 0L, 19703248369745984L}, {576460752303423488L, 0L, 0L, 19984723346719104L, 576460752303423488L, 0L, 3458764513820540928L, 16888498602639616L, 140737488355328L, 0L, 103112769536L, 9851624184872960L, 140737488355328L, 0L, 2306687502863302656L, 13510798882111488L, 140737488355328L, 0L, 3458764513820540928L, 16888498602639616L, 140737488355328L, 128L, 576460752303423488L, 16607023625928704L, 576742227280134144L, 0L, 140737488355328L, 13229323905400832L, 2305983746702049280L, 0L, 281474976710656L, 13510798882111488L, 281474976710656L, 256L, 2305843009213693952L, 17169973579350016L, 2305843009213693952L, 128L, 0L, 20266198323167488L, 576460752303423488L, 256L, 0L, 19984723346456704L}, {1152921504606846976L, 0L, 0L, 20266198323167488L, 281474976710656L, 0L, 562949953421312L, 13792273858822144L}, {-9223372036854775808L, 0L, 0L, 20547673299878400L, 2251799813685248L, 0L, 1125899906842624L, 14073748835532800L}, {4503599627370496L, 0L, 4615063718147915776L, 14355223812243456L, 4503599627370496L, 0L, -4611686018427387904L, 17732923532771840L, 0L, 1L, -4611686018427387904L, 17732923532771840L, 0L, 1L, 0L, 20829148277114368L, 2251799813685248L, 1L, 4503599627370496L, 14636698788954112L, 4503599627370496L, 1024L, 0L, 18014398509481985L, 0L, 513L, 0L, 20829148276589568L, 4611686018427387904L, 1024L, 0L, 20547673299878400L, 2251799813685248L, 512L, 4611686018427387904L, 17451448556060672L, 4616189618054758400L, 0L, 2251799813685248L, 14355223812243456L}, {0L, 2L, -9223372036854775808L, 18014398509483009L, 0L, 2L, 0L, 21110623254350848L, 9007199254740992L, 0L, -9223372036854775808L, 18014398509483009L, 9007199254740992L, 0L, -9216616637413720064L, 14636698788954112L, 4503599627370496L, 2L, 9007199254740992L, 14918173765664768L, -9214364837600034816L, 0L, 4503599627370496L, 14636698788954112L, 4503599627370496L, 1024L, -9223372036854775808L, 17732923532771328L, -9223372036854775808L, 2048L, 0L, 20829148276589568L, 0L, 1026L, 0L, 21110623253301248L, 9007199254740992L, 2048L, 0L, 18295873486192642L}, {18014398509481984L, 1L, 9007199254740992L, 14918173765664768L, 9007199254740992L, 4L, 18014398509481984L, 15199648742375424L, 18014398509481984L, 4096L, 0L, 18577348462903300L, 0L, 2052L, 0L, 21392098230013952L, 0L, 4097L, 0L, 21110623253301248L, 9007199254740992L, 2048L, 0L, 18014398509481985L}, {36028797018963968L, 2L, 18014398509481984L, 15199648742375424L, 18014398509481984L, 4096L, 0L, 18295873486192642L, 0L, 8194L, 0L, 21392098230013952L, 0L, 4104L, 0L, 21673573206728704L, 36028797018963968L, 8192L, 0L, 18858823439613960L, 18014398509481984L, 8L, 36028797018963968L, 15481123719086080L}, {0L, 8208L, 0L, 21955048183447552L, 0L, 16388L, 0L, 21673573206728704L, 36028797018963968L, 8192L, 0L, 18577348462903300L, 72057594037927936L, 4L, 36028797018963968L, 15481123719086080L, 36028797018963968L, 16L, 72057594037927936L, 15762598695796736L, 72057594037927936L, 16384L, 0L, 19140298416324624L}, {72057594037927936L, 32L, 144115188075855872L, 16044073672507392L, 144115188075855872L, 8L, 72057594037927936L, 15762598695796736L, 72057594037927936L, 16384L, 0L, 18858823439613960L, 0L, 32776L, 0L, 21955048183447552L, 0L, 16416L, 0L, 22236523160174592L, 144115188075855872L, 32768L, 0L, 19421773393035296L}, {288230376151711744L, 16L, 144115188075855872L, 16044073672507392L, 144115188075855872L, 64L, 288230376151711744L, 16325548649218048L, 288230376151711744L, 65536L, 0L, 19703248369745984L, 0L, 32832L, 0L, 22517998136918016L, 0L, 65552L, 0L, 22236523160174592L, 144115188075855872L, 32768L, 0L, 19140298416324624L}, {0L, 32L, 0L, 19703248369877184L, 0L, 32L, 0L, 22517998204157952L, 288230376151711744L, 0L, 0L, 19703248369877184L, 288230376151711744L, 0L, 1729382256910270464L, 16607023625928832L, 0L, 131104L, 0L, 22517998136918016L, 0L, 65664L, 0L, 22799473113694208L, 576460752303423488L, 131072L, 0L, 19984723346456704L, 288230376151711744L, 128L, 576460752303423488L, 16607023625928704L, 576460752303423488L, 32L, 288230376151711744L, 16325548649218048L, 288230376151711744L, 65536L, 0L, 19421773393035296L}, {0L, 64L, 0L, 19984723346719104L, 0L, 64L, 0L, 22799473248174080L, 576460752303423488L, 0L, 0L, 19984723346719104L, 576460752303423488L, 0L, 3458764513820540928L, 16888498602639616L, 0L, 262208L, 0L, 22799473113694208L, 0L, 131328L, 0L, 23080948090535936L, 1152921504606846976L, 262144L, 0L, 20266198323167488L, 576460752303423488L, 256L, 1152921504606846976L, 16888498602639360L, 1152921504606846976L, 64L, 576460752303423488L, 16607023625928704L, 576460752303423488L, 131072L, 0L, 19703248369745984L}, {1152921504606846976L, 0L, 2305843009213693952L, 17169973579350016L, 0L, 128L, 0L, 23080948090535936L}, {-9223372036854775808L, 0L, 4611686018427387904L, 17451448556060672L, 0L, 1024L, 0L, 23362423067508736L}, {0L, 1L, -4611686018427387904L, 17732923532771840L, 0L, 1L, 0L, 20829148277114368L, 0L, 2048L, 0L, 23643898313703424L, 0L, 2048L, 0L, 20829148277114368L, 0L, 1049088L, 0L, 23362423067508736L, -9223372036854775808L, 524288L, 0L, 20547673299878400L, 0L, 513L, -9223372036854775808L, 17732923532771328L, -9223372036854775808L, 2048L, 0L, 18014398509481985L, 0L, 1048577L, 0L, 21110623253301248L, 0L, 526336L, 0L, 23643898044743680L}, {0L, 2L, -9223372036854775808L, 18014398509483009L, 0L, 2L, 0L, 21110623254350848L, 0L, 4096L, 0L, 23925374634164224L, 0L, 4096L, 0L, 24206851222536192L, 0L, 4096L, 0L, 21110623254350848L, 0L, 2098176L, 0L, 23643898044743680L, 0L, 1048577L, 0L, 20829148276589568L, 0L, 1026L, 0L, 18014398509481985L, 0L, 4097L, 0L, 18295873486192642L, 0L, 2097154L, 0L, 21392098230013952L, 0L, 1052672L, 0L, 23925373022502912L}, {0L, 2105344L, 0L, 24206848001310720L, 0L, 4194308L, 0L, 21673573206728704L, 0L, 8194L, 0L, 18577348462903300L, 0L, 2052L, 0L, 18295873486192642L, 0L, 2097154L, 0L, 21110623253301248L, 0L, 4196352L, 0L, 23925373022502912L}, {0L, 8392704L, 0L, 24206848001310720L, 0L, 4194308L, 0L, 21392098230013952L, 0L, 4104L, 0L, 18577348462903300L, 0L, 16388L, 0L, 18858823439613960L, 0L, 8388616L, 0L, 21955048183447552L, 0L, 4210688L, 0L, 24488322982215680L}, {0L, 8208L, 0L, 18858823439613960L, 0L, 8388616L, 0L, 21673573206728704L, 0L, 16785408L, 0L, 24488322982215680L, 0L, 8421376L, 0L, 24769797967314944L, 0L, 16777232L, 0L, 22236523160174592L, 0L, 32776L, 0L, 19140298416324624L}, {0L, 65552L, 0L, 19421773393035296L, 0L, 33554464L, 0L, 22517998136918016L, 0L, 16842752L, 0L, 25051272960802816L, 0L, 33570816L, 0L, 24769797967314944L, 0L, 16777232L, 0L, 21955048183447552L, 0L, 16416L, 0L, 19140298416324624L}, {0L, 32L, 0L, 19703248369877184L, 0L, 32L, 0L, 22517998204157952L, 0L, 32768L, 0L, 22517998204157952L, 0L, 32768L, 0L, 25051298797715456L, 0L, 32768L, 0L, 24769810852216832L, 0L, 131104L, 0L, 19703248369745984L, 0L, 67108928L, 0L, 22799473113694208L, 0L, 33685504L, 0L, 25332747971067904L, 0L, 67141632L, 0L, 25051272960802816L, 0L, 33554464L, 0L, 22236523160174592L, 0L, 32832L, 0L, 19421773393035296L}, {0L, 64L, 0L, 19984723346719104L, 0L, 64L, 0L, 22799473248174080L, 0L, 65536L, 0L, 22799473248174080L, 0L, 65536L, 0L, 25332782465024000L, 0L, 262208L, 0L, 19984723346456704L, 0L, 134217856L, 0L, 23080948090535936L, 0L, 67371008L, 0L, 25614223014887424L, 0L, 134283264L, 0L, 25332747971067904L, 0L, 67108928L, 0L, 22517998136918016L, 0L, 65664L, 0L, 19703248369745984L}, {0L, 131072L, 0L, 25614223014887424L, 0L, 128L, 0L, 20266198323167488L}, {0L, 1024L, 0L, 20547673299878400L, 0L, 1048576L, 0L, 25895698125815808L}, {0L, 2097152L, 0L, 23643898313703424L, 0L, 2097152L, 0L, 26177379797827584L, 0L, 2097152L, 0L, 26459061201403904L, 0L, 2048L, 0L, 23643898313703424L, 0L, 2048L, 0L, 20829148277114368L, 0L, 270532608L, 0L, 26177173370961920L, 0L, 537395200L, 0L, 25895698125815808L, 0L, 268436480L, 0L, 23362423067508736L, 0L, 526336L, 0L, 20829148276589568L, 0L, 2098176L, 0L, 21110623253301248L, 0L, 536872960L, 0L, 23925373022502912L}, {0L, 4096L, 0L, 23925374634164224L, 0L, 4096L, 0L, 24206851222536192L, 0L, 4096L, 0L, 21110623254350848L, 0L, 1074790400L, 0L, 26177173370961920L, 0L, 541065216L, 0L, 26458648884543488L, 0L, 1073745920L, 0L, 24206848001310720L, 0L, 4196352L, 0L, 21392098230013952L, 0L, 1052672L, 0L, 21110623253301248L, 0L, 536872960L, 0L, 23643898044743680L}, {0L, 4096L, 0L, 23925374634164224L, 0L, 4096L, 0L, 24206851222536192L, 0L, 4096L, 0L, 21110623254350848L, 0L, 8192L, 0L, 24488329424666624L, 0L, 8192L, 0L, 24206851222536192L, 0L, 2105344L, 0L, 21392098230013952L, 0L, 8392704L, 0L, 21673573206728704L, 0L, 2147491840L, 0L, 24488322982215680L, 0L, 1082130432L, 0L, 26740124934995968L, 0L, 2149580800L, 0L, 26458648884543488L, 0L, 1073745920L, 0L, 23925373022502912L}, {0L, 8192L, 0L, 24488329424666624L, 0L, 8192L, 0L, 24206851222536192L, 0L, 16384L, 0L, 24488329424666624L, 0L, 16384L, 0L, 24769810852216832L, 0L, 4210688L, 0L, 21673573206728704L, 0L, 16785408L, 0L, 21955048183447552L, 0L, 4294983680L, 0L, 24769797967314944L, 0L, 2164260864L, 0L, 27021602059190272L, 0L, 4299161600L, 0L, 26740124934995968L, 0L, 2147491840L, 0L, 24206848001310720L}, {0L, 32768L, 0L, 22517998204157952L, 0L, 32768L, 0L, 25051298797715456L, 0L, 32768L, 0L, 24769810852216832L, 0L, 16384L, 0L, 24488329424666624L, 0L, 16384L, 0L, 24769810852216832L, 0L, 8598323200L, 0L, 27021602059190272L, 0L, 4328521728L, 0L, 27303081330868224L, 0L, 8589967360L, 0L, 25051272960802816L, 0L, 33570816L, 0L, 22236523160174592L, 0L, 8421376L, 0L, 21955048183447552L, 0L, 4294983680L, 0L, 24488322982215680L}, {0L, 32768L, 0L, 22517998204157952L, 0L, 32768L, 0L, 25051298797715456L, 0L, 32768L, 0L, 24769810852216832L, 0L, 17196646400L, 0L, 27303081330868224L, 0L, 8589967360L, 0L, 24769797967314944L, 0L, 16842752L, 0L, 22236523160174592L, 0L, 67141632L, 0L, 22517998136918016L, 0L, 17179934720L, 0L, 25332747971067904L, 0L, 8657043456L, 0L, 27584564897513472L}, {0L, 65536L, 0L, 22799473248174080L, 0L, 65536L, 0L, 25332782465024000L, 0L, 33554432L, 0L, 27591196327018496L, 0L, 33554432L, 0L, 27306379865751552L, 0L, 33554432L, 0L, 25332782465024000L, 0L, 17314086912L, 0L, 27866057054093312L, 0L, 34359869440L, 0L, 25614223014887424L, 0L, 134283264L, 0L, 22799473113694208L, 0L, 33685504L, 0L, 22517998136918016L, 0L, 17179934720L, 0L, 25051272960802816L, 0L, 34393292800L, 0L, 27584564897513472L}, {0L, 131072L, 0L, 23080948090535936L, 0L, 67108864L, 0L, 27866057054093312L}, {0L, 1048576L, 0L, 23362423067508736L, 0L, 536870912L, 0L, 28147566390542336L}, {0L, 2097152L, 0L, 23643898313703424L, 0L, 2097152L, 0L, 26177379797827584L, 0L, 2097152L, 0L, 26459061201403904L, 0L, 270532608L, 0L, 23643898044743680L, 0L, 68720525312L, 0L, 25895698125815808L, 0L, 137707388928L, 0L, 28147566390542336L, 0L, 69793218560L, 0L, 28429110086729728L, 0L, 137441050624L, 0L, 26458648884543488L, 0L, 1074790400L, 0L, 23925373022502912L}, {0L, 2097152L, 0L, 23643898313703424L, 0L, 2097152L, 0L, 26177379797827584L, 0L, 2097152L, 0L, 26459061201403904L, 0L, 4194304L, 0L, 26740949568716800L, 0L, 4194304L, 0L, 26459061201403904L, 0L, 2149580800L, 0L, 24206848001310720L, 0L, 274882101248L, 0L, 26740124934995968L, 0L, 139586437120L, 0L, 28710722502393856L, 0L, 275414777856L, 0L, 28429110086729728L, 0L, 137441050624L, 0L, 26177173370961920L, 0L, 541065216L, 0L, 23925373022502912L}, {0L, 8388608L, 0L, 27023251326631936L, 0L, 8388608L, 0L, 26740949568716800L, 0L, 4194304L, 0L, 26740949568716800L, 0L, 4194304L, 0L, 26459061201403904L, 0L, 279172874240L, 0L, 28992472357011456L, 0L, 549764202496L, 0L, 27021602059190272L, 0L, 4299161600L, 0L, 24488322982215680L, 0L, 1082130432L, 0L, 24206848001310720L, 0L, 274882101248L, 0L, 26458648884543488L, 0L, 550829555712L, 0L, 28710722502393856L}, {0L, 8388608L, 0L, 27023251326631936L, 0L, 8388608L, 0L, 26740949568716800L, 0L, 16777216L, 0L, 27023251326631936L, 0L, 16777216L, 0L, 27306379865751552L, 0L, 549764202496L, 0L, 26740124934995968L, 0L, 2164260864L, 0L, 24488322982215680L, 0L, 8598323200L, 0L, 24769797967314944L, 0L, 1099528404992L, 0L, 27303081330868224L, 0L, 558345748480L, 0L, 29274497089536000L, 0L, 1101659111424L, 0L, 28992472357011456L}, {0L, 33554432L, 0L, 27591196327018496L, 0L, 33554432L, 0L, 27306379865751552L, 0L, 33554432L, 0L, 25332782465024000L, 0L, 16777216L, 0L, 27023251326631936L, 0L, 16777216L, 0L, 27306379865751552L, 0L, 17196646400L, 0L, 25051272960802816L, 0L, 4328521728L, 0L, 24769797967314944L, 0L, 1099528404992L, 0L, 27021602059190272L, 0L, 2203318222848L, 0L, 29274497089536000L, 0L, 1116691496960L, 0L, 29557071577874432L, 0L, 2199056809984L, 0L, 27584564897513472L}, {0L, 33554432L, 0L, 27591196327018496L, 0L, 33554432L, 0L, 27306379865751552L, 0L, 33554432L, 0L, 25332782465024000L, 0L, 2233382993920L, 0L, 29840745577840640L, 0L, 4406636445696L, 0L, 29557071577874432L, 0L, 2199056809984L, 0L, 27303081330868224L, 0L, 8657043456L, 0L, 25051272960802816L, 0L, 34393292800L, 0L, 25332747971067904L, 0L, 4398113619968L, 0L, 27866057054093312L}, {0L, 67108864L, 0L, 25614223014887424L, 0L, 17179869184L, 0L, 29840745577840640L}, {0L, 536870912L, 0L, 25895698125815808L, 0L, 536870912L, 0L, 28429110086729728L}, {0L, 536870912L, 0L, 28147566390542336L, 0L, 1073741824L, 0L, 28710722502393856L}, {0L, 1073741824L, 0L, 28429110086729728L, 0L, 2147483648L, 0L, 28992472357011456L}, {0L, 4294967296L, 0L, 29274497089536000L, 0L, 2147483648L, 0L, 28710722502393856L}, {0L, 8589934592L, 0L, 29557071577874432L, 0L, 4294967296L, 0L, 28992472357011456L}, {0L, 8589934592L, 0L, 29274497089536000L, 0L, 17179869184L, 0L, 29840745577840640L}, {0L, 17179869184L, 0L, 29557071577874432L, 0L, 17179869184L, 0L, 27866057054093312L}};
 }
@@ -0,0 +1,63 @@
+package ch.verver.poly_y.ai;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import ch.verver.poly_y.BoardGeometry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TreeBotTest {
+    private static final int MOVES = 5;
+    private static final int DEPTH = 10;
+
+    // Checks that the analysis reports the same moves and win probabilities as getTopMoves() and
+    // getBestMove(), which are from the perspective of the player to move at the root.
+    private static void assertAnalysisMatchesTopMoves(TreeBot.Tree tree) {
+        TreeBot.Analysis analysis = tree.getAnalysis(MOVES, DEPTH);
+        List<TreeBot.RootMove> topMoves = tree.getTopMoves(MOVES, DEPTH);
+        TreeBot.BestMove bestMove = tree.getBestMove();
+
+        assertEquals(topMoves.size(), analysis.moves.length);
+        for (int i = 0; i < topMoves.size(); ++i) {
+            TreeBot.RootMove expected = topMoves.get(i);
+            assertEquals(expected.move, analysis.moves[i]);
+            assertEquals(expected.samples, analysis.moveSamples[i]);
+            assertEquals(expected.winProbability, analysis.moveWinProbabilities[i], 0f);
+        }
+        assertEquals(bestMove.move, analysis.bestMove);
+        assertEquals(bestMove.winProbability, analysis.winProbability, 0f);
+        assertArrayEquals(topMoves.get(0).principalVariation, analysis.principalVariation);
+    }
+
+    @Test
+    public void analysisMatchesTopMoves() {
+        TreeBot.Tree tree = new TreeBot(BoardGeometry.DEFAULT_GEOMETRY, 1)
+                .createTree(Collections.<Integer>emptyList());
+        for (int i = 0; i < 500; ++i) tree.expand();
+        assertAnalysisMatchesTopMoves(tree);
+    }
+
+    @Test
+    public void analysisOfSubtreeMatchesTopMoves() {
+        // The statistics of a subtree are counted from the perspective of the player to move at
+        // the original root, which is the opponent of the player to move in the subtree.
+        TreeBot.Tree root = new TreeBot(BoardGeometry.DEFAULT_GEOMETRY, 1)
+                .createTree(Arrays.asList(1, 2));
+        for (int i = 0; i < 500; ++i) root.expand();
+        TreeBot.Tree tree = root.treeAfterMove(root.getBestMove().move);
+        for (int i = 0; i < 500; ++i) tree.expand();
+        assertAnalysisMatchesTopMoves(tree);
+
+        // The player to move at the root of the subtree is the one who didn't play the best move
+        // at the original root, so their win probabilities should add up to about one.
+        float before = root.getBestMove().winProbability;
+        float after = tree.getAnalysis(MOVES, DEPTH).winProbability;
+        assertTrue(before + " + " + after, Math.abs(before + after - 1) < 0.2f);
+    }
+}
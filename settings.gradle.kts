@@ -21,3 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Poly-Y"
 include(":app")
+include(":engine")
+include(":benchmark")
+include(":cli")